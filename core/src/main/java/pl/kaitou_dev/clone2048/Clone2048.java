@@ -2,8 +2,12 @@ package pl.kaitou_dev.clone2048;
 
 import com.badlogic.gdx.Game;
 import com.badlogic.gdx.Gdx;
+import pl.kaitou_dev.clone2048.game_entities.number_box.BoxTexturePalettePool;
+import pl.kaitou_dev.clone2048.game_entities.number_box.TileRenderer;
 import pl.kaitou_dev.clone2048.screens.FirstScreen;
+import pl.kaitou_dev.clone2048.screens.ResultsScreen;
 import pl.kaitou_dev.clone2048.utils.AudioUtils;
+import pl.kaitou_dev.clone2048.utils.FontUtils;
 import pl.kaitou_dev.clone2048.utils.platform_specific.Confirmer;
 import pl.kaitou_dev.clone2048.utils.platform_specific.ErrorDisplayer;
 
@@ -49,6 +53,7 @@ public class Clone2048 extends Game {
     @Override
     public void create() {
         try {
+            FontUtils.prepare();
             setScreen(new FirstScreen());
         } catch (Exception e) {
             handleError(e);
@@ -59,6 +64,7 @@ public class Clone2048 extends Game {
     public void render() {
         try {
             super.render();
+            BoxTexturePalettePool.update(Gdx.graphics.getDeltaTime());
         } catch (Exception e) {
             handleError(e);
         }
@@ -85,6 +91,10 @@ public class Clone2048 extends Game {
     @Override
     public void dispose() {
         AudioUtils.dispose();
+        BoxTexturePalettePool.disposeAll();
+        ResultsScreen.disposeSnapshotBuffer();
+        TileRenderer.disposeShader();
+        FontUtils.dispose();
     }
 
     /**
@@ -32,6 +32,21 @@ public class Constants {
      */
     public static final int SLOT_SIZE = GAME_HEIGHT / 6;
 
+    /**
+     * The default length of one side of the grid, in boxes.
+     */
+    public static final int DEFAULT_GRID_SIDE = 4;
+
+    /**
+     * The length of one side of the smallest grid the player can choose, in boxes.
+     */
+    public static final int MIN_GRID_SIDE = 3;
+
+    /**
+     * The length of one side of the biggest grid the player can choose, in boxes.
+     */
+    public static final int MAX_GRID_SIDE = 8;
+
     /**
      * The basic movement speed, in seconds.
      * It should be used to describe how long a movement action should take.
@@ -1,59 +1,93 @@
 package pl.kaitou_dev.clone2048.game_entities;
 
-import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Color;
-import com.badlogic.gdx.graphics.Pixmap;
-import com.badlogic.gdx.graphics.Texture;
-import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.Pool;
 import pl.kaitou_dev.clone2048.Constants;
+import pl.kaitou_dev.clone2048.engine.BitBoard;
+import pl.kaitou_dev.clone2048.engine.BoardSnapshot;
+import pl.kaitou_dev.clone2048.engine.Directions;
+import pl.kaitou_dev.clone2048.engine.GameLogic;
+import pl.kaitou_dev.clone2048.engine.GameRules;
+import pl.kaitou_dev.clone2048.engine.MovePlan;
+import pl.kaitou_dev.clone2048.engine.MovePlanner;
+import pl.kaitou_dev.clone2048.engine.strategy.MoveStrategy;
 import pl.kaitou_dev.clone2048.game_entities.number_box.BoxColorPalette;
 import pl.kaitou_dev.clone2048.game_entities.number_box.BoxTexturePalette;
+import pl.kaitou_dev.clone2048.game_entities.number_box.BoxTexturePalettePool;
 import pl.kaitou_dev.clone2048.game_entities.number_box.NumberBox;
-import pl.kaitou_dev.clone2048.game_entities.number_box.actions.BoxScaleAction;
+import pl.kaitou_dev.clone2048.game_entities.number_box.TileRenderer;
 import pl.kaitou_dev.clone2048.utils.*;
-import pl.kaitou_dev.clone2048.utils.timed_actions.SequentialAction;
 import pl.kaitou_dev.clone2048.utils.timed_actions.interpolators.Interpolator;
 import pl.kaitou_dev.clone2048.utils.timed_actions.interpolators.Interpolators;
 
 import java.util.*;
-import java.util.function.IntPredicate;
-import java.util.stream.IntStream;
-import java.util.stream.Stream;
 
 /**
- * A {@code GameGrid} contains the current state of the game board, with all of its {@link NumberBox}es.
+ * A {@code GameGrid} renders the current state of the game board, with all of its {@link NumberBox}es.
+ * The rules themselves are enforced by its {@link GameLogic}, which this class mirrors with boxes and animations.
  * It contains methods for manipulating the current state of the game, control-handling and establishing
  * the status of the current round.
  * @see NumberBox
+ * @see GameLogic
  */
 public class GameGrid implements Disposable {
     /**
-     * The length of one side of the square grid the game takes place on, in NumberBoxes.
+     * The padding of a 4x4 grid, in pixels.
      */
-    private static final int GRID_SIDE = 4;
+    private static final int DEFAULT_GRID_PADDING = (int) (Constants.GAME_HEIGHT * 333.0 / 10000.0);
 
     /**
-     * The padding of the grid, in pixels.
+     * The length of one side of the grid, in pixels. Grids of every size are scaled to fit it exactly,
+     * keeping the proportions of a 4x4 grid with {@link Constants#SLOT_SIZE}-wide slots.
      */
-    private static final int GRID_PADDING = (int) (Constants.GAME_HEIGHT * 333.0 / 10000.0);
+    public static final int SIZE = 2 * DEFAULT_GRID_PADDING + 4 * Constants.SLOT_SIZE + 3 * (DEFAULT_GRID_PADDING / 2);
 
     /**
-     * The space between every two neighboring boxes, in pixels.
+     * The ratio of the padding of the grid to the length of a side of a slot.
      */
-    private static final int SLOT_SPACING = GRID_PADDING / 2;
+    private static final double PADDING_TO_SLOT_RATIO = (double) DEFAULT_GRID_PADDING / Constants.SLOT_SIZE;
 
     /**
-     * The length of one side of the grid, in pixels.
+     * The interpolator for various animations and activities over-time.
      */
-    public static final int SIZE = 2 * GRID_PADDING + 4 * Constants.SLOT_SIZE + 3 * SLOT_SPACING;
+    public static final Interpolator DEFAULT_INTERPOLATOR = Interpolators.QUADRATIC;
 
     /**
-     * The interpolator for various animations and activities over-time.
+     * The time each update may spend on baking the numbers of the {@link NumberBox}es, in nanoseconds.
      */
-    public static final Interpolator DEFAULT_INTERPOLATOR = Interpolators.QUADRATIC;
+    private static final long LABEL_BAKING_BUDGET_NANOS = 2_000_000;
+
+    /**
+     * The number of the vertex attributes of a single quad drawn by a {@link SpriteBatch}:
+     * 4 vertices of position, color, and texture coordinates.
+     */
+    private static final int QUAD_FLOATS = 4 * 5;
+
+    /**
+     * The length of one side of the square grid the game takes place on, in NumberBoxes.
+     */
+    private final int side;
+
+    /**
+     * The length of a side of a single slot of this grid, in pixels.
+     */
+    private final int slotSize;
+
+    /**
+     * The space between every two neighboring boxes, in pixels.
+     */
+    private final int slotSpacing;
+
+    /**
+     * The padding of the grid, in pixels.
+     */
+    private final int gridPadding;
 
     /**
      * A 2D Array representation of the current layout of {@link NumberBox}es.
@@ -61,25 +95,41 @@ public class GameGrid implements Disposable {
     private final NumberBox[][] grid;
 
     /**
-     * A set of boxes that will be removed as soon as events related to them have been handled.
+     * The logic of the game this {@code GameGrid} displays. {@link #grid} is kept in sync with its board.
+     */
+    private final GameLogic logic;
+
+    /**
+     * Plans the next move in every direction in the background, as soon as a box spawns,
+     * so that it runs while the spawn is being animated.
      */
-    private final HashSet<NumberBox> boxesToRemove;
+    private final MovePlanner planner;
 
     /**
-     * A set of boxes that will be upgraded as soon as events related to them have been handled.
+     * The source of the moves of {@link #handleInput()}, the keyboard unless set otherwise.
      */
-    private final HashSet<NumberBox> boxesToUpgrade;
+    private MoveStrategy controller = new KeyboardStrategy();
 
     /**
-     * A secret number that will allow for dice tests.
+     * A list of boxes that will be removed as soon as events related to them have been handled.
      */
-    private final int secretNumber;
+    private final Array<NumberBox> boxesToRemove;
 
     /**
-     * A map that describes whether a movement is possible in a certain direction, using a boolean flag.
-     * @see Directions
+     * A list of boxes that will be upgraded as soon as events related to them have been handled.
      */
-    private final Map<Directions, Boolean> movementPossibilities;
+    private final Array<NumberBox> boxesToUpgrade;
+
+    /**
+     * A pool of boxes, which lets the removed boxes be reused by the spawned ones.
+     * It is filled up front with as many boxes as may ever exist at once, so that no game allocates new ones.
+     */
+    private final Pool<NumberBox> boxPool;
+
+    /**
+     * A reusable array of the boxes which stay on the grid after a move, indexed by the slots they end up in.
+     */
+    private final NumberBox[] survivors;
 
     /**
      * An enum of the states the game can find itself in, based on the {@link NumberBox} activity,
@@ -119,24 +169,31 @@ public class GameGrid implements Disposable {
 
     // Textures & Graphics
     /**
-     * The texture used to display the background of the grid.
+     * The color palette to be used by all of this {@code GameGrid}'s {@link NumberBox}es.
      */
-    private final Texture txGridBackground;
+    private final BoxColorPalette colorPalette = BoxColorPalette.COLORFUL;
 
     /**
-     * The texture used to display each slot of the grid.
+     * The texture palette to be used by all of this {@code GameGrid}'s {@link NumberBox}es,
+     * shared with the other grids that look the same.
      */
-    private final Texture txGridSlot;
+    private BoxTexturePalette texturePalette;
 
     /**
-     * The color palette to be used by all of this {@code GameGrid}'s {@link NumberBox}es.
+     * The texture palette being prepared at {@link #density}, which replaces {@link #texturePalette}
+     * once it has baked all the numbers on the board, or {@code null} if none is being prepared.
      */
-    private final BoxColorPalette colorPalette = BoxColorPalette.COLORFUL;
+    private BoxTexturePalette nextTexturePalette;
 
     /**
-     * The texture palette to be used by all of this {@code GameGrid}'s {@link NumberBox}es.
+     * The density the texture palette should be baked at, for the grid to look sharp on the screen.
      */
-    private final BoxTexturePalette texturePalette;
+    private float density = 1f;
+
+    /**
+     * The renderer drawing the tiles of all of this {@code GameGrid}'s {@link NumberBox}es at once.
+     */
+    private final TileRenderer tileRenderer;
 
     // Geometry
 
@@ -150,6 +207,22 @@ public class GameGrid implements Disposable {
      */
     private int posY;
 
+    /**
+     * The X coordinates of the slots, indexed by {@code row * side + col}. Updated whenever the grid moves.
+     */
+    private final int[] slotX;
+
+    /**
+     * The Y coordinates of the slots, indexed by {@code row * side + col}. Updated whenever the grid moves.
+     */
+    private final int[] slotY;
+
+    /**
+     * The vertices of the static layer of the grid: its background and its slots, which only change
+     * when the grid moves. They are drawn as they are, without being computed again every frame.
+     */
+    private final float[] staticLayer;
+
     /**
      * Informs whether the sound will be played ({@code true}) or not ({@code false}).
      * The sound is on by default.
@@ -166,47 +239,62 @@ public class GameGrid implements Disposable {
 
     /**
      * A constructor that enables the caller to decide whether this {@code GameGrid}'s {@link NumberBox}es
-     * should display their numbers.
+     * should display their numbers. The grid is of the default size.
      * @param showNumbers Whether the numbers should display (true) or not (false).
+     * @see Constants#DEFAULT_GRID_SIDE
      */
     public GameGrid(boolean showNumbers) {
-        grid = new NumberBox[GRID_SIDE][GRID_SIDE];
-        boxesToRemove = new HashSet<>();
-        boxesToUpgrade = new HashSet<>();
-        secretNumber = MathNumUtils.randInt(1, 11);
-        movementPossibilities = Collections.synchronizedMap(new HashMap<>(){{
-            for (Directions direction : Directions.values()) {
-                put(direction, true);
-            }
-        }});
+        this(showNumbers, Constants.DEFAULT_GRID_SIDE);
+    }
 
-        Pixmap pmGridBackground = GraphicsUtils.getRoundRectPixmap(SIZE, SIZE, SIZE * 5 / 100, Color.DARK_GRAY);
-        txGridBackground = new Texture(pmGridBackground);
-        pmGridBackground.dispose();
+    /**
+     * A constructor that enables the caller to decide whether this {@code GameGrid}'s {@link NumberBox}es
+     * should display their numbers, and how big the grid should be.
+     * @param showNumbers Whether the numbers should display (true) or not (false).
+     * @param side The length of one side of the grid, in NumberBoxes.
+     * @throws IllegalArgumentException if the grid would be too small.
+     */
+    public GameGrid(boolean showNumbers, int side) throws IllegalArgumentException {
+        this.side = side;
+        logic = new GameLogic(side, GameRules.DEFAULT.withWinningValue(Constants.MAX_VALUE), new SplittableRandom());
+
+        slotSize = (int) Math.round(SIZE / (side + PADDING_TO_SLOT_RATIO * (side + 3) / 2.0));
+        slotSpacing = (int) Math.round(PADDING_TO_SLOT_RATIO * slotSize) / 2;
+        gridPadding = (SIZE - side * slotSize - (side - 1) * slotSpacing) / 2;
+
+        grid = new NumberBox[side][side];
+        survivors = new NumberBox[side * side];
+        planner = MovePlanner.start(logic);
+        boxesToRemove = new Array<>(false, side * side);
+        boxesToUpgrade = new Array<>(false, side * side);
+        // A full board may merge into fewer boxes, while the merged ones are still fading out, and get a spawn on top.
+        boxPool = new Pool<>(side * side + 1) {
+            @Override
+            protected NumberBox newObject() {
+                return new NumberBox(GameGrid.this, 2);
+            }
+        };
+        boxPool.fill(side * side + 1);
 
-        Pixmap pmGridSlot = GraphicsUtils.getRoundRectPixmap(
-            Constants.SLOT_SIZE,
-            Constants.SLOT_SIZE,
-            Constants.SLOT_SIZE * 20 / 100, Color.LIGHT_GRAY
-        );
-        txGridSlot = new Texture(pmGridSlot);
-        pmGridSlot.dispose();
+        slotX = new int[side * side];
+        slotY = new int[side * side];
+        updateSlotCoords();
 
         shouldShowNumbers = showNumbers;
 
-        texturePalette = new BoxTexturePalette(
-            colorPalette,
-            shouldShowNumbers
-                ? FontUtils.losevka(NumberBox.FONT_SIZE)
-                : null,
-            Constants.MAX_VALUE);
+        texturePalette = BoxTexturePalettePool.obtain(colorPalette, shouldShowNumbers, NumberBox.FONT_SIZE);
+        // Every slot may hold a box, and every box may be merging into another one at the same time.
+        tileRenderer = new TileRenderer(texturePalette, 2 * side * side);
+
+        staticLayer = new float[(1 + side * side) * QUAD_FLOATS];
+        updateStaticLayer();
 
         addNewBox();
-        updateLegalMoves();
     }
 
     /**
      * Prompts this {@code GameGrid}'s {@link NumberBox}es to update and evaluates if the game has to end.
+     * Bakes some of the numbers the boxes have asked for, so it must not be called while a batch is drawing.
      * @param delta Delta-time at the moment of calling.
      */
     public void update(float delta) {
@@ -214,34 +302,33 @@ public class GameGrid implements Disposable {
         state = State.IDLE;
 
         for (NumberBox[] row : grid) {
-            boolean anyBusy = Arrays.stream(row).parallel().filter(Objects::nonNull).anyMatch(box -> {
-                box.update(delta);      // Update the box
-                return box.isBusy();    // See if it's busy and return the result.
-            });
-            if (anyBusy) state = State.BUSY;
+            for (NumberBox box : row) {
+                if (box == null) continue;
+
+                box.update(delta);
+                if (box.isBusy()) state = State.BUSY;
+            }
         }
 
         // For boxes to remove
-        Iterator<NumberBox> itBoxesToRemove = boxesToRemove.iterator();
-        while (itBoxesToRemove.hasNext()) {
-            NumberBox box = itBoxesToRemove.next();
+        for (int i = boxesToRemove.size - 1; i >= 0; --i) {
+            NumberBox box = boxesToRemove.get(i);
 
             if (box.isBusy()) {
                 box.update(delta);
                 state = State.BUSY;
             } else {
-                itBoxesToRemove.remove();
-                box.dispose();
+                boxesToRemove.removeIndex(i);
+                boxPool.free(box);
             }
         }
 
         boolean mergesDone = false;
         // For boxes to upgrade
         if (state.equals(State.IDLE) && !boxesToUpgrade.isEmpty()) {
-            boxesToUpgrade.parallelStream().forEach(NumberBox::upgrade);
+            for (int i = 0; i < boxesToUpgrade.size; ++i) boxesToUpgrade.get(i).upgrade();
             boxesToUpgrade.clear();
             mergesDone = true;
-            updateLegalMoves();
         }
 
         // Play a proper sound.
@@ -254,6 +341,59 @@ public class GameGrid implements Disposable {
 
         // Check if game should end
         handleVictoryLoss();
+
+        // Bake the numbers the boxes have asked for, including the ones upgraded just now.
+        texturePalette.bakePending(LABEL_BAKING_BUDGET_NANOS);
+        prepareNextTexturePalette();
+    }
+
+    /**
+     * Prepares the texture palette of the current density, and swaps it in for the current one
+     * once it has baked all the numbers on the board, so that no box is ever drawn without its number.
+     * Until then, the current palette is drawn, with its mipmaps making up for the difference in density.
+     */
+    private void prepareNextTexturePalette() {
+        if (nextTexturePalette != null && nextTexturePalette.getDensity() != density) {
+            BoxTexturePalettePool.free(nextTexturePalette);
+            nextTexturePalette = null;
+        }
+
+        if (texturePalette.getDensity() == density) return;
+
+        if (nextTexturePalette == null) {
+            nextTexturePalette = BoxTexturePalettePool.obtain(
+                colorPalette, shouldShowNumbers, NumberBox.FONT_SIZE, density
+            );
+        }
+
+        for (int i = 0; i < boxesToRemove.size; ++i) {
+            nextTexturePalette.getLabel(boxesToRemove.get(i).getValue());
+        }
+
+        for (NumberBox[] row : grid) {
+            for (NumberBox box : row) {
+                if (box != null) nextTexturePalette.getLabel(box.getValue());
+            }
+        }
+
+        if (nextTexturePalette.bakePending(LABEL_BAKING_BUDGET_NANOS)) return;
+
+        BoxTexturePalettePool.free(texturePalette);
+        texturePalette = nextTexturePalette;
+        nextTexturePalette = null;
+
+        tileRenderer.setPalette(texturePalette);
+        updateStaticLayer();
+    }
+
+    /**
+     * Sets the density the texture palette should be baked at. The palette of that density is prepared
+     * over the next updates, and replaces the current one once it is ready.
+     * @param density The number of the pixels on the screen per pixel of the game.
+     * @see BoxTexturePalette#densityFor(int)
+     */
+    public void setDensity(float density) {
+        this.density = density;
     }
 
     /**
@@ -262,135 +402,117 @@ public class GameGrid implements Disposable {
      */
     private void handleVictoryLoss() {
         if (state == State.IDLE) {
-            // Check for victory.
-            boolean got2048 = isValueOnBoard(Constants.MAX_VALUE);
-            if (got2048) {
-                state = State.VICTORY;
-                return;
+            switch (logic.getStatus()) {
+                case VICTORY -> state = State.VICTORY;
+                case GAME_OVER -> state = State.GAME_OVER;
+                case IN_PROGRESS -> {}
             }
-
-            // Check for loss.
-            boolean anyMovementPossible = movementPossibilities.values().stream().anyMatch(Boolean::booleanValue);
-            if (!anyMovementPossible) state = State.GAME_OVER;
         }
     }
 
 
     /**
-     * Handles the input related to this {@code GameGrid}.
+     * Sets the source of the moves of {@link #handleInput()}.
+     * @param controller The strategy choosing the moves, e.g. a {@link KeyboardStrategy} for a human player.
      */
-    public void handleInput() {
-        Set<Integer> directionalKeys = ControlUtils.getDirectionKeys();
+    public void setController(MoveStrategy controller) {
+        this.controller = controller;
+    }
 
-        for (Integer gdxKey : directionalKeys) {
-            if (Gdx.input.isKeyJustPressed(gdxKey)) {
-                move(ControlUtils.getDirection(gdxKey));
-                break;
-            }
-        }
+    /**
+     * Lets a strategy choose the next move of the game, showing it a snapshot of the board:
+     * the packed board if the grid is 4x4, or a {@link BoardSnapshot} otherwise. Strategies which do not read
+     * the board are shown the latest snapshot taken, so that no new one is taken after every move.
+     * @see MoveStrategy#readsBoard()
+     * @param strategy The strategy choosing the move.
+     * @return The direction of the chosen move, or {@code null} if the strategy has chosen none,
+     *         does not support grids of this size, or there is no legal move.
+     */
+    public Directions chooseMove(MoveStrategy strategy) {
+        if (!strategy.supportsSide(side) || logic.getLegalMoves() == 0) return null;
+
+        return side == BitBoard.SIDE
+            ? strategy.chooseMove(logic.getPackedBoard(), MathUtils.random)
+            : strategy.chooseMove(
+                strategy.readsBoard() ? logic.getSnapshot() : logic.getLatestSnapshot(), MathUtils.random
+            );
     }
 
     /**
-     * Updates the map of movement possibilities based on the current situation on this {@code GameGrid}.
+     * Handles the input related to this {@code GameGrid}, i.e. the moves chosen by its controller.
+     * @see #setController(MoveStrategy)
      */
-    public void updateLegalMoves() {
-        Arrays.stream(Directions.values()).parallel()
-            .forEach(direction -> movementPossibilities.put(direction, isMovementPossible(direction)));
+    public void handleInput() {
+        Directions direction = chooseMove(controller);
+        if (direction != null) move(direction);
     }
 
     /**
      * Handles the movement on this {@code GameGrid}.
      * Does nothing if a move in the provided direction is impossible, or a movement is already in progress.
-     * Updates the map of movement possibilities upon each successful move.
+     * The outcomes of the moves in all directions are planned in the background right after every spawn,
+     * so the move itself only commits the plan of the chosen direction.
      * @param direction The direction in which the movement is to take place.
-     * @see GameGrid#handleMovement(Directions)
+     * @see GameGrid#handleMovement(MovePlan)
      */
     public void move(Directions direction) {
         if (state == State.BUSY) return;
 
-        if (movementPossibilities.get(direction)) {
-            handleMovement(direction);
-            NumberBox newBox = addNewBox();
-            updateLegalMoves();
+        MovePlan plan = planner.getPlan(direction);
+        if (plan.isLegal()) {
+            handleMovement(plan);
+            addNewBox();
             state = State.BUSY;
         }
     }
 
     /**
-     * Handles the movement, based on the direction. It establishes the individual {@link NumberBox}es' positions
-     * on this grid, and equips them with movement animations.
-     * @param direction The direction in which the movement is to take place.
+     * Handles the movement, based on a plan. It establishes the individual {@link NumberBox}es' positions
+     * on this grid, and equips them with movement animations. The destinations of the boxes have been established
+     * in advance by this grid's {@link GameLogic}, which only commits the plan now.
+     * @param plan The plan of the move, up-to-date with the game.
      */
-    private void handleMovement(Directions direction) {
-        boolean isVertical = direction.isVertical();
-        boolean isPositive = direction.isPositive();
-        final int distStep = isVertical
-            ? (isPositive ? -1 : 1)
-            : (isPositive ? 1 : -1);
+    private void handleMovement(MovePlan plan) {
+        if (!logic.commit(plan)) return;
 
-        IntStream primaryStream = IntStream.range(0, GRID_SIDE);
+        int[] destinations = plan.getDestinations();
+        Directions direction = plan.getDirection();
 
-        if (direction == Directions.DOWN || direction == Directions.RIGHT)
-            primaryStream = MathNumUtils.reverseIntStream(primaryStream);
+        boolean isVertical = direction.isVertical();
+        boolean fromEnd = direction == Directions.DOWN || direction == Directions.RIGHT;
 
-        primaryStream = primaryStream.skip(1); // The direction-most row/column will not move, so we can skip it.
+        // Walk every line starting at the wall, so that the box closer to it survives a merge.
+        for (int line = 0; line < side; ++line) {
+            for (int step = 0; step < side; ++step) {
+                int k = fromEnd ? side - 1 - step : step;
+                int r = isVertical ? k : line;
+                int c = isVertical ? line : k;
 
-        primaryStream.forEachOrdered(primaryIdx -> {
-            IntStream secondaryStream = IntStream.range(0, GRID_SIDE).parallel();
-            secondaryStream.forEachOrdered(secondaryIdx -> {
-                NumberBox consideredBox;
-                synchronized (grid) {
-                    consideredBox = isVertical ? grid[primaryIdx][secondaryIdx] : grid[secondaryIdx][primaryIdx];
-                }
+                NumberBox consideredBox = grid[r][c];
+                if (consideredBox == null) continue;
 
-                if (consideredBox == null) return;
+                grid[r][c] = null;
 
-                synchronized (grid) {
-                    if (isVertical) grid[primaryIdx][secondaryIdx] = null;
-                    else grid[secondaryIdx][primaryIdx] = null;
-                }
+                int dest = destinations[r * side + c];
+                NumberBox survivor = survivors[dest];
 
-                int newIdx = primaryIdx;
-
-                for (int tempIdx = newIdx + distStep; indexWithinBounds(tempIdx); tempIdx += distStep) {
-                    newIdx = tempIdx;
-
-                    NumberBox otherBox;
-                    synchronized (grid) {
-                        otherBox = isVertical ? grid[newIdx][secondaryIdx] : grid[secondaryIdx][newIdx];
-                    }
-
-                    if (otherBox != null) {
-                        if (otherBox.equals(consideredBox) && !boxesToUpgrade.contains(otherBox)) {
-                            synchronized (boxesToUpgrade) {
-                                boxesToUpgrade.add(otherBox);
-                            }
-                            synchronized (boxesToRemove) {
-                                boxesToRemove.add(consideredBox);
-                            }
-                        } else {
-                            newIdx -= distStep;
-                            synchronized (grid) {
-                                if (isVertical) grid[newIdx][secondaryIdx] = consideredBox;
-                                else grid[secondaryIdx][newIdx] = consideredBox;
-                            }
-                        }
-                        break;
-                    } else if (indexAtBound(newIdx)) {
-                        synchronized (grid) {
-                            if (isVertical) grid[newIdx][secondaryIdx] = consideredBox;
-                            else grid[secondaryIdx][newIdx] = consideredBox;
-                        }
-                    }
+                if (survivor == null) {
+                    survivors[dest] = consideredBox;
+                } else {
+                    boxesToUpgrade.add(survivor);
+                    boxesToRemove.add(consideredBox);
                 }
 
-                Vector2 coords = isVertical
-                    ? getSlotCoords(newIdx, secondaryIdx)
-                    : getSlotCoords(secondaryIdx, newIdx);
+                consideredBox.actMove(slotX[dest], slotY[dest], Constants.BASIC_MOVEMENT_SPEED, DEFAULT_INTERPOLATOR);
+            }
+        }
+
+        for (int dest = 0; dest < survivors.length; ++dest) {
+            if (survivors[dest] == null) continue;
 
-                consideredBox.actMove((int) coords.x, (int) coords.y, Constants.BASIC_MOVEMENT_SPEED, DEFAULT_INTERPOLATOR);
-            });
-        });
+            grid[dest / side][dest % side] = survivors[dest];
+            survivors[dest] = null;
+        }
     }
 
     /**
@@ -399,16 +521,7 @@ public class GameGrid implements Disposable {
      * @return {@code true} if the index is within the bounds, {@code false} if not.
      */
     private boolean indexWithinBounds(int idx) {
-        return 0 <= idx && idx < GRID_SIDE;
-    }
-
-    /**
-     * Checks if the provided index is at one of this {@code GameGrid}'s bounds.
-     * @param idx The index to be tested.
-     * @return {@code true} if the index is at one of the bounds, {@code false} if not.
-     */
-    private boolean indexAtBound(int idx) {
-        return idx == 0 || idx == GRID_SIDE - 1;
+        return 0 <= idx && idx < side;
     }
 
     /**
@@ -417,33 +530,7 @@ public class GameGrid implements Disposable {
      * @return {@code true} if movement in the direction is possible, {@code false} if not.
      */
     public boolean isMovementPossible(Directions direction) {
-        IntPredicate finalBoundaryPredicate = switch(direction) {
-            case DOWN, RIGHT -> (v -> v == GRID_SIDE - 1);
-            case UP, LEFT -> (v -> v == 0);
-        };
-
-        return IntStream.range(0, GRID_SIDE).parallel().anyMatch(r ->
-            IntStream.range(0, GRID_SIDE).parallel().anyMatch(c -> {
-                int boundaryTestVal = direction.isVertical() ? r : c;
-                boolean boundaryAchieved = finalBoundaryPredicate.test(boundaryTestVal);
-
-                NumberBox consideredBox = grid[r][c];
-
-                // Skip if the current box is empty
-                if (consideredBox == null) {
-                    return false;
-                }
-
-                // Get the neighbor in the specified direction
-                NumberBox neighbor = getNeighbor(r, c, direction);
-
-                // Check if movement is possible:
-                // It cannot be at the boundary, and has to meet one of these conditions:
-                // 1. The neighbor cell is empty
-                // 2. The neighbor exists and has the same value (merge possible)
-                return !boundaryAchieved && (neighbor == null || neighbor.equals(consideredBox));
-            })
-        );
+        return logic.canMove(direction);
     }
 
     /**
@@ -485,8 +572,8 @@ public class GameGrid implements Disposable {
      * or {@code null} if the box was not found in this grid.
      */
     public Vector2 getIndices(NumberBox box) {
-        for (int r = 0; r < GRID_SIDE; ++r) {
-            for (int c = 0; c < GRID_SIDE; ++c) {
+        for (int r = 0; r < side; ++r) {
+            for (int c = 0; c < side; ++c) {
                 NumberBox consideredBox = grid[r][c];
                 if (consideredBox == box) return new Vector2(r, c);
             }
@@ -500,123 +587,170 @@ public class GameGrid implements Disposable {
      * There is 90% chance that the box will have the value of 2, and 10% chance that it will have the value of 4.
      *
      * @return The {@code NumberBox} created, or {@code null} if nothing happened.
+     * @see GameLogic#spawn()
      */
     public NumberBox addNewBox() {
-        int value = MathNumUtils.diceTest(10, secretNumber) ? 4 : 2;
-        return addNewBox(value);
+        planner.await();
+        return createSpawnedBox(logic.spawn());
     }
 
     /**
      * Adds a new {@link NumberBox} of the specified value.
      * @param value The value for the box to have. (Must be a power of 2!)
      * @return The {@code NumberBox} created, or {@code null} if nothing happened.
+     * @throws IllegalArgumentException if the provided value is not a power of 2.
      */
-    public NumberBox addNewBox(int value) {
-        Vector2 indices = randomEmptyIndices();
-
-        if (indices != null) {
-            int r = (int) indices.x;
-            int c = (int) indices.y;
-
-            NumberBox newBox = new NumberBox(this, value);
-            grid[r][c] = newBox;
-
-            Vector2 boxCoords = getSlotCoords(r, c);
-            newBox.setCoords((int) boxCoords.x, (int) boxCoords.y);
-
-            newBox.setScale(0);
-            newBox.setAction(
-                new SequentialAction(
-                    new BoxScaleAction(newBox, 1.2, Constants.BASIC_MOVEMENT_SPEED * 2 / 3, DEFAULT_INTERPOLATOR),
-                    new BoxScaleAction(newBox, 1.0, Constants.BASIC_MOVEMENT_SPEED / 3, DEFAULT_INTERPOLATOR)
-                )
-            );
-
-            return newBox;
-        }
+    public NumberBox addNewBox(int value) throws IllegalArgumentException {
+        if (value < 2 || !MathNumUtils.isPowerOfTwo(value))
+            throw new IllegalArgumentException("Value must be a power of two");
 
-        return null;
+        planner.await();
+        return createSpawnedBox(logic.spawn(BitBoard.toExponent(value)));
     }
 
     /**
-     * Gets a list of {@code Vector2}s representing coordinates of all empty slots in this {@code GameGrid}.
-     * @return A list of slot-indices without any box inside of them.
+     * Creates a {@link NumberBox} for a box that has just been spawned by this grid's {@link GameLogic},
+     * and equips it with a spawning animation. Starts planning the next move, while the spawn is being animated.
+     * @param index The index of the slot the box has been spawned in, or {@code -1} if nothing was spawned.
+     * @return The {@code NumberBox} created, or {@code null} if nothing was spawned.
      */
-    private ArrayList<Vector2> getEmptyIndices() {
-        ArrayList<Vector2> emptyIndices = new ArrayList<>();
+    private NumberBox createSpawnedBox(int index) {
+        if (index < 0) return null;
 
-        for (int r = 0; r < GRID_SIDE; ++r) {
-            for (int c = 0; c < GRID_SIDE; ++c) {
-                if (grid[r][c] == null)
-                    emptyIndices.add(new Vector2(r, c));
-            }
-        }
+        planner.schedule();
 
-        return emptyIndices;
-    }
+        int r = index / side;
+        int c = index % side;
 
-    /**
-     * Gets a pair of indices for a random empty slot in this {@code GameGrid}.
-     * @return A {@code Vector2} of indices for a random empty slot, or {@code null} if the grid has no empty slots.
-     */
-    private Vector2 randomEmptyIndices() {
-        ArrayList<Vector2> emptyIndices = getEmptyIndices();
-        if (emptyIndices.isEmpty()) return null;
+        NumberBox newBox = boxPool.obtain();
+        newBox.setValue(logic.getValue(r, c));
+        grid[r][c] = newBox;
+
+        newBox.setCoords(slotX[index], slotY[index]);
+        newBox.actSpawn(Constants.BASIC_MOVEMENT_SPEED, DEFAULT_INTERPOLATOR);
 
-        return emptyIndices.get(MathNumUtils.randInt(emptyIndices.size()));
+        return newBox;
     }
 
     /**
-     * Draws the grid along with its slots.
+     * Draws the grid along with its slots. They share the atlas page of the {@link NumberBox}es,
+     * so drawing them does not flush the batch, and their vertices are cached in {@link #staticLayer}.
      * @param batch The batch used in the current rendering process.
      */
     public void drawGrid(SpriteBatch batch) {
-        batch.draw(txGridBackground, posX, posY);
-        drawSlots(batch);
+        batch.draw(texturePalette.getBackground().getTexture(), staticLayer, 0, staticLayer.length);
     }
 
     /**
-     * Draws the slots of the grid.
-     * @param batch The batch used in the current rendering process.
+     * Computes the vertices of the static layer of the grid, i.e. its background and its slots.
+     * To be called whenever the grid moves.
      */
-    private void drawSlots(Batch batch) {
-        for (int r = 0; r < GRID_SIDE; ++r) {
-            for (int c = 0; c < GRID_SIDE; ++c) {
-                Vector2 coords = getSlotCoords(r, c);
+    private void updateStaticLayer() {
+        putQuad(staticLayer, 0, texturePalette.getBackground(), posX, posY, SIZE);
 
-                int x = (int) coords.x, y = (int) coords.y;
-                batch.draw(txGridSlot, x, y);
-            }
+        TextureRegion slot = texturePalette.getSlot();
+        for (int i = 0; i < slotX.length; ++i) {
+            putQuad(staticLayer, (1 + i) * QUAD_FLOATS, slot, slotX[i], slotY[i], slotSize);
         }
     }
 
     /**
-     * Prompts all of this {@code GameGrid}'s {@link NumberBox}es to be drawn.
+     * Puts the vertices of a square quad into an array, in the layout expected by
+     * {@link SpriteBatch#draw(com.badlogic.gdx.graphics.Texture, float[], int, int)}.
+     * @param vertices The array of vertices.
+     * @param offset The index of the first vertex attribute of the quad.
+     * @param region The region of the texture the quad shows.
+     * @param x The X coordinate of the bottom-left corner of the quad.
+     * @param y The Y coordinate of the bottom-left corner of the quad.
+     * @param size The length of a side of the quad.
+     */
+    private static void putQuad(float[] vertices, int offset, TextureRegion region, float x, float y, float size) {
+        final float color = Color.WHITE_FLOAT_BITS;
+        final float u = region.getU(), v = region.getV2(), u2 = region.getU2(), v2 = region.getV();
+
+        int i = offset;
+        vertices[i++] = x;
+        vertices[i++] = y;
+        vertices[i++] = color;
+        vertices[i++] = u;
+        vertices[i++] = v;
+
+        vertices[i++] = x;
+        vertices[i++] = y + size;
+        vertices[i++] = color;
+        vertices[i++] = u;
+        vertices[i++] = v2;
+
+        vertices[i++] = x + size;
+        vertices[i++] = y + size;
+        vertices[i++] = color;
+        vertices[i++] = u2;
+        vertices[i++] = v2;
+
+        vertices[i++] = x + size;
+        vertices[i++] = y;
+        vertices[i++] = color;
+        vertices[i++] = u2;
+        vertices[i] = v;
+    }
+
+    /**
+     * Prompts all of this {@code GameGrid}'s {@link NumberBox}es to be drawn, with a single call of its
+     * {@link TileRenderer}. The tiles need a shader and a vertex layout of their own, which a {@link SpriteBatch}
+     * cannot carry, so they cannot share its flush: the batch is ended before them, flushing whatever it holds,
+     * and begun again after them, binding its shader once more. Drawing the grid and its boxes thus costs two draw
+     * calls and two switches of the shader per frame, whatever the size of the grid.
+     * The batch has to be drawing at the time.
      * @param batch The batch used in the current rendering process.
      */
     public void drawBoxes(SpriteBatch batch) {
-        for (NumberBox box: boxesToRemove) {
-            box.draw(batch);
+        batch.end();
+        tileRenderer.begin();
+
+        for (int i = 0; i < boxesToRemove.size; ++i) {
+            boxesToRemove.get(i).draw(tileRenderer);
         }
 
         for (NumberBox[] row : grid) {
             for (NumberBox box : row) {
-                if (box != null) box.draw(batch);
+                if (box != null) box.draw(tileRenderer);
             }
         }
+
+        tileRenderer.render(batch.getProjectionMatrix());
+        batch.begin();
+    }
+
+    /**
+     * Gets the number of the draw calls the last {@link #drawBoxes(SpriteBatch)} has issued for the tiles.
+     * @return The number of the draw calls of the tiles, which is at most 1.
+     */
+    public int getTileRenderCalls() {
+        return tileRenderer.renderCalls;
     }
 
     /**
      * Gets the X, Y coordinates of the slot given by row, column indices.
      * @param row Row-index.
      * @param col Column-index.
-     * @return A {@code Vector2} of X, Y coordinates for the designated slot.
+     * @param out The vector to receive the coordinates, so that looking them up allocates nothing.
+     * @return The {@code out} vector, set to the X, Y coordinates of the designated slot.
      */
-    public Vector2 getSlotCoords(int row, int col) {
-        int x = posX + GRID_PADDING + (Constants.SLOT_SIZE + SLOT_SPACING) * col;
-        int y = posY + SIZE - (GRID_PADDING + SLOT_SPACING * row + Constants.SLOT_SIZE * (row + 1));
+    public Vector2 getSlotCoords(int row, int col, Vector2 out) {
+        int index = row * side + col;
+        return out.set(slotX[index], slotY[index]);
+    }
 
-        return new Vector2(x, y);
+    /**
+     * Computes the tables of the X, Y coordinates of all the slots, based on the current position of the grid.
+     */
+    private void updateSlotCoords() {
+        for (int row = 0; row < side; ++row) {
+            for (int col = 0; col < side; ++col) {
+                slotX[row * side + col] = posX + gridPadding + (slotSize + slotSpacing) * col;
+                slotY[row * side + col] = posY + SIZE - (gridPadding + slotSpacing * row + slotSize * (row + 1));
+            }
+        }
     }
 
     /**
@@ -624,19 +758,20 @@ public class GameGrid implements Disposable {
      */
     @Override
     public void dispose() {
-        txGridBackground.dispose();
-        txGridSlot.dispose();
+        planner.close();
         for (NumberBox[] row : grid) {
             for (NumberBox box : row) {
                 if (box != null) box.dispose();
             }
         }
 
-        for (NumberBox box : boxesToRemove) {
-            box.dispose();
+        for (int i = 0; i < boxesToRemove.size; ++i) {
+            boxesToRemove.get(i).dispose();
         }
 
-        texturePalette.dispose();
+        tileRenderer.dispose();
+        BoxTexturePalettePool.free(texturePalette);
+        if (nextTexturePalette != null) BoxTexturePalettePool.free(nextTexturePalette);
     }
 
 
@@ -670,6 +805,8 @@ public class GameGrid implements Disposable {
         posX = x;
         posY = y;
 
+        updateSlotCoords();
+        updateStaticLayer();
         updateBoxCoords();
     }
 
@@ -677,15 +814,44 @@ public class GameGrid implements Disposable {
      * Updates all of this {@code GameGrid}'s {@link NumberBox}es' X, Y coordinates.
      */
     private void updateBoxCoords() {
-        IntStream.range(0, GRID_SIDE).parallel().forEach(r -> {
-            IntStream.range(0, GRID_SIDE).parallel().forEach(c -> {
+        for (int r = 0; r < side; ++r) {
+            for (int c = 0; c < side; ++c) {
                 NumberBox box = grid[r][c];
-                if (box == null) return;
+                if (box != null) box.setCoords(slotX[r * side + c], slotY[r * side + c]);
+            }
+        }
+    }
 
-                Vector2 slotCoords = getSlotCoords(r, c);
-                box.setCoords((int) slotCoords.x, (int) slotCoords.y);
-            });
-        });
+    /**
+     * Gets the X coordinate of the bottom-left corner of this {@code GameGrid}.
+     * @return The X coordinate, in pixels.
+     */
+    public int getPosX() {
+        return posX;
+    }
+
+    /**
+     * Gets the Y coordinate of the bottom-left corner of this {@code GameGrid}.
+     * @return The Y coordinate, in pixels.
+     */
+    public int getPosY() {
+        return posY;
+    }
+
+    /**
+     * Gets the length of one side of this {@code GameGrid}.
+     * @return The length of one side, in NumberBoxes.
+     */
+    public int getSide() {
+        return side;
+    }
+
+    /**
+     * Gets the length of a side of a single slot of this {@code GameGrid}.
+     * @return The length of a side of a slot, in pixels.
+     */
+    public int getSlotSize() {
+        return slotSize;
     }
 
     /**
@@ -710,13 +876,24 @@ public class GameGrid implements Disposable {
      * @return {@code true} if such a value exists on the board, {@code false} if not.
      */
     public boolean isValueOnBoard(int value) {
-        if (!MathNumUtils.isPowerOfTwo(value)) return false;
+        return logic.isValueOnBoard(value);
+    }
+
+    /**
+     * Gets the current score of the game on this {@code GameGrid}.
+     * @return The current score.
+     * @see GameLogic#getScore()
+     */
+    public int getScore() {
+        return logic.getScore();
+    }
 
-        return Stream.of(grid)
-            .flatMap(Stream::of)
-            .filter(Objects::nonNull)
-            .parallel()
-            .anyMatch(box -> box.getValue() == value);
+    /**
+     * Gets the logic of the game displayed by this {@code GameGrid}.
+     * @return The {@link GameLogic} of this {@code GameGrid}.
+     */
+    public GameLogic getLogic() {
+        return logic;
     }
 
     /**
@@ -1,49 +1,282 @@
 package pl.kaitou_dev.clone2048.game_entities.number_box;
 
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.*;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.graphics.glutils.FrameBuffer;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.utils.BufferUtils;
 import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
 import pl.kaitou_dev.clone2048.Constants;
+import pl.kaitou_dev.clone2048.game_entities.GameGrid;
 import pl.kaitou_dev.clone2048.utils.GraphicsUtils;
-import java.util.Map;
+import pl.kaitou_dev.clone2048.utils.MathNumUtils;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
 
 /**
- * Generates and then serves {@link com.badlogic.gdx.graphics.Texture}s for {@link NumberBox}es,
- * associating said {@code Texture}s with consecutive binary powers.
+ * Serves the colors of the {@link NumberBox}es, and generates and then serves {@link TextureRegion}s
+ * of their numbers, associating said {@code TextureRegion}s with consecutive binary powers.
+ * <p>
+ * The tiles themselves are shaped by the {@link TileRenderer}, so only their numbers, as well as a slot
+ * and the background of a {@link GameGrid}, are baked into a single atlas page. The numbers are baked in white,
+ * and tinted with the font color of their tiles when drawn.
+ * </p>
+ * <p>
+ * The numbers are baked lazily, the first time they are asked for, by {@link #bakePending(long)} which is called
+ * once per frame with a time budget. Until then, a tile is drawn without its number.
+ * </p>
+ * <p>
+ * The atlas page is cached on the disk, under a key describing everything that is baked onto it,
+ * and uploaded from the cache with a single call the next time an identical palette is created.
+ * The cache is written when the palette is disposed of, if any numbers have been baked since it was loaded.
+ * </p>
+ * <p>
+ * The atlas is baked at a density, i.e. with a number of its pixels per pixel of the game, which follows
+ * the size of the window, so that the numbers stay sharp on big screens without taking up memory on small ones.
+ * It is mipmapped, so it can also be drawn smaller than it has been baked.
+ * </p>
  */
-public class BoxTexturePalette extends BinaryPalette<Texture> implements Disposable {
+public class BoxTexturePalette extends BinaryPalette<TextureRegion> implements Disposable {
+    /**
+     * The transparent margin around every region of the atlas, in pixels at the density of 1,
+     * which keeps the filtering from bleeding the neighboring regions into each other.
+     */
+    private static final int CELL_PADDING = 2;
+
+    /**
+     * The highest density the atlas is baked at, so that even the biggest windows do not need a page
+     * of more than 4096 pixels.
+     */
+    public static final float MAX_DENSITY = 4f;
+
+    /**
+     * The step the densities are rounded up to, so that resizing a window only bakes the atlas again
+     * once its size has changed noticeably.
+     */
+    public static final float DENSITY_STEP = 0.5f;
+
+    /**
+     * The index of the cell holding the slot. The cells of the numbers follow it, indexed by their exponents.
+     */
+    private static final int SLOT_CELL = 0;
+
+    /**
+     * The directory of the cached atlas pages, relative to the local storage.
+     */
+    static final String CACHE_DIRECTORY = "cache/labels/";
+
+    /**
+     * The version of the layout of the atlas page, to be increased whenever it changes, so that the pages
+     * cached before are not used anymore.
+     */
+    private static final int CACHE_VERSION = 2;
+
+    /**
+     * The number of the pixels of the atlas per pixel of the game, which the sizes of all its regions are scaled by.
+     */
+    private final float density;
+
+    /**
+     * The transparent margin around every region of the atlas, in pixels.
+     */
+    private final int cellPadding;
+
+    /**
+     * The length of a side of a single number, and of the slot, in pixels.
+     */
+    private final int labelSize;
+
+    /**
+     * The length of a side of a cell of the atlas holding a single number, in pixels.
+     */
+    private final int cellSize;
+
+    /**
+     * The length of a side of the background of a grid, in pixels.
+     */
+    private final int backgroundSize;
+
+    /**
+     * The length of a side of the atlas page, in pixels. The background occupies its bottom-left corner,
+     * and the cells fill the rest of it.
+     */
+    private final int pageSize;
+
     private final BoxColorPalette colorPalette;
     private final BitmapFont font;
     private final boolean shouldDisplayText;
 
-    private final Map<Long, Texture> textureMap;
+    /**
+     * The frame buffer whose color texture is the atlas page.
+     */
+    private final FrameBuffer atlas;
+
+    /**
+     * The X coordinates of the bottom-left corners of the cells of the atlas, in the order they are filled.
+     */
+    private final int[] cellX;
+
+    /**
+     * The Y coordinates of the bottom-left corners of the cells of the atlas, in the order they are filled.
+     */
+    private final int[] cellY;
+
+    /**
+     * The numbers of the boxes, indexed by their exponents, so that no value has to be boxed to find its number.
+     */
+    private final TextureRegion[] labels = new TextureRegion[Long.SIZE];
+
+    /**
+     * The colors of the tiles, indexed by their exponents, or {@code null} for those the palette has no color for.
+     */
+    private final Color[] faceColors = new Color[Long.SIZE];
+
+    /**
+     * The colors of the numbers, indexed by their exponents, or {@code null} for those the palette has no color for.
+     */
+    private final Color[] fontColors = new Color[Long.SIZE];
 
     /**
-     * The default constructor. It sets this palette up, but does not generate any {@link Texture}s.
-     * @param colorPalette The color palette to use for future {@code Texture}s.
-     * @param font The font to use for future {@code Texture}s. If {@code null}, then no text will be rendered.
+     * The highest exponent whose number may be baked.
+     */
+    private int maxExponent;
+
+    /**
+     * The bitmask of the exponents whose numbers have been asked for, but not baked yet.
+     */
+    private long pendingLabels;
+
+    /**
+     * The bitmask of the exponents whose numbers have been baked onto the atlas, or loaded with it from the cache.
+     */
+    private long bakedLabels;
+
+    /**
+     * The key under which the atlas page is cached, describing everything that is baked onto it.
+     */
+    private final String cacheKey;
+
+    /**
+     * Whether some numbers have been baked since the atlas page was loaded from the cache.
+     */
+    private boolean cacheOutdated;
+
+    /**
+     * The region of the atlas holding the background of a grid.
+     */
+    private final TextureRegion background;
+
+    /**
+     * The region of the atlas holding a slot of a grid.
+     */
+    private final TextureRegion slot;
+
+    /**
+     * The batch used to bake the atlas.
+     */
+    private final SpriteBatch bakeBatch;
+
+    /**
+     * The projection of the batch onto the atlas page, with the Y axis pointing up.
+     */
+    private final Matrix4 bakeProjection;
+
+    /**
+     * A buffer receiving the viewport, to be restored after the atlas has been drawn onto.
+     */
+    private final IntBuffer savedViewport = BufferUtils.newIntBuffer(16);
+
+    /**
+     * The default constructor. It sets this palette up at the density of 1, and bakes the slot and the background,
+     * but does not allow the numbers of any boxes to be generated.
+     * @param colorPalette The color palette to use for the tiles and their numbers.
+     * @param font The font to use for future numbers. If {@code null}, then no text will be rendered.
      */
     public BoxTexturePalette(BoxColorPalette colorPalette, BitmapFont font) {
+        this(colorPalette, font, 1f);
+    }
+
+    /**
+     * A constructor which sets this palette up at a given density, and bakes the slot and the background,
+     * but does not allow the numbers of any boxes to be generated.
+     * @param colorPalette The color palette to use for the tiles and their numbers.
+     * @param font The font to use for future numbers, already scaled by the density.
+     *             If {@code null}, then no text will be rendered.
+     * @param density The number of the pixels of the atlas per pixel of the game.
+     * @see #densityFor(int)
+     */
+    public BoxTexturePalette(BoxColorPalette colorPalette, BitmapFont font, float density) {
         super();
 
+        this.density = density;
+        cellPadding = MathUtils.ceil(CELL_PADDING * density);
+        labelSize = MathUtils.round(Constants.SLOT_SIZE * density);
+        cellSize = labelSize + 2 * cellPadding;
+        backgroundSize = MathUtils.round(GameGrid.SIZE * density);
+        int backgroundCellSize = backgroundSize + 2 * cellPadding;
+        pageSize = MathUtils.nextPowerOfTwo(backgroundCellSize + cellSize);
+        bakeProjection = new Matrix4().setToOrtho2D(0, 0, pageSize, pageSize);
+
         this.colorPalette = colorPalette;
         this.font = font;
         this.shouldDisplayText = (font != null);
-        this.textureMap = super.items;
+
+        atlas = new FrameBuffer(Pixmap.Format.RGBA8888, pageSize, pageSize, false);
+        // Mipmapped, so that a page baked for a bigger window still looks right until the one for a smaller is ready.
+        atlas.getColorBufferTexture().setFilter(Texture.TextureFilter.MipMapLinearLinear, Texture.TextureFilter.Linear);
+
+        int cellsPerRow = pageSize / cellSize;
+        int cellsBesideBackground = (pageSize - backgroundCellSize) / cellSize;
+        int rowsBesideBackground = (backgroundCellSize + cellSize - 1) / cellSize;
+        int rowsAboveBackground = (pageSize - rowsBesideBackground * cellSize) / cellSize;
+        int besideCells = rowsBesideBackground * cellsBesideBackground;
+        int cellCount = besideCells + rowsAboveBackground * cellsPerRow;
+
+        cellX = new int[cellCount];
+        cellY = new int[cellCount];
+        for (int cell = 0; cell < cellCount; ++cell) {
+            if (cell < besideCells) {
+                cellX[cell] = pageSize - (cell % cellsBesideBackground + 1) * cellSize;
+                cellY[cell] = cell / cellsBesideBackground * cellSize;
+            } else {
+                cellX[cell] = (cell - besideCells) % cellsPerRow * cellSize;
+                cellY[cell] = (rowsBesideBackground + (cell - besideCells) / cellsPerRow) * cellSize;
+            }
+        }
+
+        bakeBatch = new SpriteBatch();
+        bakeBatch.setBlendFunctionSeparate(
+            GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA,
+            GL20.GL_ONE, GL20.GL_ONE_MINUS_SRC_ALPHA
+        );
+
+        background = region(cellPadding, cellPadding, backgroundSize);
+        slot = cellRegion(SLOT_CELL);
+
+        for (int exponent = 1; exponent < Long.SIZE; ++exponent) {
+            faceColors[exponent] = colorPalette.getColor(1L << exponent);
+            if (faceColors[exponent] != null) fontColors[exponent] = colorPalette.getFontColor(faceColors[exponent]);
+        }
+
+        cacheKey = createCacheKey();
+        if (!loadCache()) bakeStatic();
     }
 
     /**
-     * An alternative constructor. It sets this palette up, and also generates {@link Texture}s,
+     * An alternative constructor. It sets this palette up, and also allows the numbers to be generated,
      * associating them with consecutive binary powers that are less than or equal to a provided maximum.
-     * @param colorPalette The color palette to use for {@code Texture}s.
-     * @param font The font to use for generated {@code Texture}s. If {@code null}, then no text will be rendered.
+     * @param colorPalette The color palette to use for the tiles and their numbers.
+     * @param font The font to use for generated numbers. If {@code null}, then no text will be rendered.
      * @param maxInclusive The maximum value, which generated binary powers will not exceed.
      *                     It is an inclusive boundary.
      * @see #generateTextures(long)
-
      */
     public BoxTexturePalette(BoxColorPalette colorPalette, BitmapFont font, long maxInclusive) {
         this(colorPalette, font);
@@ -51,111 +284,386 @@ public class BoxTexturePalette extends BinaryPalette<Texture> implements Disposa
     }
 
     /**
-     * Generates {@link Texture}s for consecutive binary powers less than or equal to the provided number.
+     * An alternative constructor. It sets this palette up at a given density, and also allows the numbers
+     * to be generated, associating them with consecutive binary powers that are less than or equal
+     * to a provided maximum.
+     * @param colorPalette The color palette to use for the tiles and their numbers.
+     * @param font The font to use for generated numbers, already scaled by the density.
+     *             If {@code null}, then no text will be rendered.
+     * @param density The number of the pixels of the atlas per pixel of the game.
      * @param maxInclusive The maximum value, which generated binary powers will not exceed.
      *                     It is an inclusive boundary.
+     * @see #generateTextures(long)
      */
-    public void generateTextures(long maxInclusive) {
-        clear();
+    public BoxTexturePalette(BoxColorPalette colorPalette, BitmapFont font, float density, long maxInclusive) {
+        this(colorPalette, font, density);
+        generateTextures(maxInclusive);
+    }
 
-        for (long binPow = 2; binPow <= maxInclusive; binPow <<= 1) {
-            addItem(createTexture(binPow));
-        }
+    /**
+     * Computes the density the atlas should be baked at, for the game to be displayed at a given height.
+     * It is rounded up to {@link #DENSITY_STEP}, and limited by {@link #MAX_DENSITY}
+     * and by the biggest texture the graphics card supports.
+     * @param screenHeight The height of the game on the screen, in physical pixels.
+     * @return The density of the atlas, at least 1.
+     */
+    public static float densityFor(int screenHeight) {
+        float density = MathUtils.ceil((float) screenHeight / Constants.GAME_HEIGHT / DENSITY_STEP) * DENSITY_STEP;
+
+        IntBuffer maxTextureSize = BufferUtils.newIntBuffer(16);
+        Gdx.gl.glGetIntegerv(GL20.GL_MAX_TEXTURE_SIZE, maxTextureSize);
+        // The background and a single cell beside it have to fit on a page.
+        float maxDensity = (float) maxTextureSize.get(0) / (GameGrid.SIZE + Constants.SLOT_SIZE + 4 * CELL_PADDING);
+        maxDensity = MathUtils.floor(maxDensity / DENSITY_STEP) * DENSITY_STEP;
+
+        return MathUtils.clamp(density, 1f, Math.max(1f, Math.min(MAX_DENSITY, maxDensity)));
+    }
+
+    /**
+     * Creates a region of the atlas, flipped so that it is drawn upright.
+     * @param x The X coordinate of the bottom-left corner of the region.
+     * @param y The Y coordinate of the bottom-left corner of the region.
+     * @param size The length of a side of the region.
+     * @return The region of the atlas.
+     */
+    private TextureRegion region(int x, int y, int size) {
+        TextureRegion region = new TextureRegion(atlas.getColorBufferTexture(), x, y, size, size);
+        region.flip(false, true);
+        return region;
     }
 
     /**
-     * Creates a texture corresponding to the provided binary power.
-     * @param binPow The binary power to create a {@link Texture} for.
-     * @return A {@code Texture} for the provided binary power, or {@code null} if the number was not a binary power,
-     *         or exceeded used palettes' maximum binary powers.
+     * Creates the region of the number held by a cell of the atlas.
+     * @param cell The index of the cell.
+     * @return The region of the atlas.
      */
-    private Texture createTexture(long binPow) {
-        Color bgColor = colorPalette.getColor(binPow);
-        if (bgColor == null) return null;
+    private TextureRegion cellRegion(int cell) {
+        return region(cellX[cell] + cellPadding, cellY[cell] + cellPadding, labelSize);
+    }
 
-        Color fontColor = colorPalette.getFontColor(bgColor);
-        Pixmap boxBgPixmap = GraphicsUtils.getRoundRectPixmap(
-            Constants.SLOT_SIZE,
-            Constants.SLOT_SIZE,
-            Constants.SLOT_SIZE * 20 / 100,
-            bgColor
+    /**
+     * Bakes the background and the slot onto the atlas, clearing everything else.
+     */
+    private void bakeStatic() {
+        Pixmap pmBackground = GraphicsUtils.getRoundRectPixmap(
+            backgroundSize,
+            backgroundSize,
+            backgroundSize * 5 / 100,
+            Color.DARK_GRAY
         );
+        Texture txBackground = new Texture(pmBackground);
+        pmBackground.dispose();
+
+        Pixmap pmSlot = GraphicsUtils.getRoundRectPixmap(
+            labelSize,
+            labelSize,
+            labelSize * 20 / 100,
+            Color.LIGHT_GRAY
+        );
+        Texture txSlot = new Texture(pmSlot);
+        pmSlot.dispose();
+
+        beginBaking();
+        Gdx.gl.glClearColor(0, 0, 0, 0);
+        Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
 
-        return shouldDisplayText
-            ? createTextureWithText(boxBgPixmap, binPow, fontColor)
-            : new Texture(boxBgPixmap);
+        bakeBatch.draw(txBackground, cellPadding, cellPadding);
+        bakeBatch.draw(txSlot, cellX[SLOT_CELL] + cellPadding, cellY[SLOT_CELL] + cellPadding);
+
+        endBaking();
+        txBackground.dispose();
+        txSlot.dispose();
     }
 
     /**
-     * A helper method for {@link #createTexture(long)}. Creates a {@link Texture} using the provided {@link Pixmap},
-     * binary power and font color.
-     * @param bg The {@code Pixmap} to serve as a background.
-     * @param binPow The binary power to render on the {@code Texture} as text.
-     * @param fontColor The color for the font.
-     * @return A {@code Texture} for the provided binary power, with text rendered onto it.
+     * Allows the numbers to be generated for consecutive binary powers less than or equal to the provided number.
+     * The numbers are not baked until they are asked for, unless they have been baked or loaded before.
+     * @param maxInclusive The maximum value, which generated binary powers will not exceed.
+     *                     It is an inclusive boundary.
      */
-    private Texture createTextureWithText(Pixmap bg, long binPow, Color fontColor) {
-        font.setColor(fontColor);
+    public void generateTextures(long maxInclusive) {
+        clear();
+        Arrays.fill(labels, null);
+        pendingLabels = 0;
 
-        FrameBuffer fb = new FrameBuffer(
-            Pixmap.Format.RGBA8888,
-            Constants.SLOT_SIZE,
-            Constants.SLOT_SIZE,
-            true
-        );
+        maxExponent = Math.min(63 - Long.numberOfLeadingZeros(maxInclusive), cellX.length - 1 - SLOT_CELL);
 
+        for (long baked = bakedLabels; baked != 0; baked &= baked - 1) {
+            int exponent = Long.numberOfTrailingZeros(baked);
+            if (exponent > maxExponent) break;
 
-        OrthographicCamera camera = new OrthographicCamera();
-        camera.setToOrtho(true, Constants.SLOT_SIZE, Constants.SLOT_SIZE);
+            labels[exponent] = cellRegion(SLOT_CELL + exponent);
+            items.put(1L << exponent, labels[exponent]);
+        }
+    }
+
+    /**
+     * Bakes the numbers which have been asked for, in the order of their values, until the time budget runs out.
+     * At least one number is baked per call, if any is pending. It must not be called while a batch is drawing.
+     * @param budgetNanos The time budget, in nanoseconds.
+     * @return {@code true} if there are still some numbers pending, {@code false} if there are none.
+     */
+    public boolean bakePending(long budgetNanos) {
+        if (pendingLabels == 0) return false;
 
-        SpriteBatch batch = new SpriteBatch();
+        long start = System.nanoTime();
+        beginBaking();
 
-        Texture tempTx = new Texture(bg);
-        fb.begin();
+        do {
+            int exponent = Long.numberOfTrailingZeros(pendingLabels);
+            pendingLabels &= pendingLabels - 1;
 
-        Gdx.gl.glClearColor(1, 1,1 ,0);
-        Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
+            TextureRegion label = bakeLabel(exponent);
+            labels[exponent] = label;
+            items.put(1L << exponent, label);
 
-        batch.begin();
-        batch.setProjectionMatrix(camera.combined);
+            bakedLabels |= 1L << exponent;
+            cacheOutdated = true;
+        } while (pendingLabels != 0 && System.nanoTime() - start < budgetNanos);
 
-        batch.draw(tempTx, 0, 0);
+        endBaking();
+        return pendingLabels != 0;
+    }
+
+    /**
+     * Bakes the number corresponding to the provided exponent onto the atlas, in white.
+     * Has to be called between {@link #beginBaking()} and {@link #endBaking()}.
+     * @param exponent The exponent of the binary power to bake a number for.
+     * @return The region of the number.
+     */
+    private TextureRegion bakeLabel(int exponent) {
+        int cell = SLOT_CELL + exponent;
+
+        font.setColor(Color.WHITE);
         GraphicsUtils.drawCenteredTextLine(
-            batch,
-            String.valueOf(binPow),
+            bakeBatch,
+            String.valueOf(1L << exponent),
             font,
-            Constants.SLOT_SIZE / 2,
-            Constants.SLOT_SIZE / 2
+            cellX[cell] + cellPadding + labelSize / 2,
+            cellY[cell] + cellPadding + labelSize / 2
         );
 
-        batch.end();
+        return cellRegion(cell);
+    }
+
+    /**
+     * Asks for the number of the provided exponent to be baked, unless there can be no such number.
+     * @param exponent The exponent of the binary power.
+     */
+    private void requestLabel(int exponent) {
+        if (!shouldDisplayText || exponent > maxExponent || faceColors[exponent] == null) return;
+
+        pendingLabels |= 1L << exponent;
+    }
+
+    /**
+     * Starts drawing onto the atlas, remembering the viewport to be restored afterward.
+     */
+    private void beginBaking() {
+        bindAtlas();
+        bakeBatch.setProjectionMatrix(bakeProjection);
+        bakeBatch.begin();
+    }
+
+    /**
+     * Finishes drawing onto the atlas, and restores the viewport from before {@link #beginBaking()}.
+     */
+    private void endBaking() {
+        bakeBatch.end();
+        unbindAtlas();
+        updateMipmaps();
+    }
+
+    /**
+     * Generates the mipmaps of the atlas page again, after it has been drawn onto.
+     */
+    private void updateMipmaps() {
+        atlas.getColorBufferTexture().bind();
+        Gdx.gl.glGenerateMipmap(GL20.GL_TEXTURE_2D);
+    }
+
+    /**
+     * Binds the atlas as the target of drawing, remembering the viewport to be restored afterward.
+     */
+    private void bindAtlas() {
+        savedViewport.clear();
+        Gdx.gl.glGetIntegerv(GL20.GL_VIEWPORT, savedViewport);
+        atlas.begin();
+    }
+
+    /**
+     * Unbinds the atlas, and restores the viewport from before {@link #bindAtlas()}.
+     */
+    private void unbindAtlas() {
+        atlas.end(savedViewport.get(0), savedViewport.get(1), savedViewport.get(2), savedViewport.get(3));
+    }
 
-        Pixmap fbPixmap = Pixmap.createFromFrameBuffer(0, 0, Constants.SLOT_SIZE, Constants.SLOT_SIZE);
-        fb.end();
+    /**
+     * Creates the key under which the atlas page is cached. It describes the layout of the page,
+     * the sizes of its regions, the colors of the tiles and the font of their numbers.
+     * @return The key of the atlas page.
+     */
+    private String createCacheKey() {
+        StringBuilder description = new StringBuilder()
+            .append(CACHE_VERSION).append(':')
+            .append(pageSize).append(':')
+            .append(labelSize).append(':')
+            .append(backgroundSize).append(':');
 
-        Texture result = new Texture(fbPixmap);
+        for (Color color : faceColors) {
+            if (color != null) description.append(Integer.toHexString(Color.rgba8888(color))).append(',');
+        }
 
-        fb.dispose();
-        fbPixmap.dispose();
-        batch.dispose();
+        String fontName = shouldDisplayText ? font.getData().name : "blank";
+        return fontName + "-" + labelSize + "-" + Integer.toHexString(description.toString().hashCode());
+    }
 
-        return result;
+    /**
+     * Gets the file of the cached atlas page, or of the bitmask of the numbers baked onto it.
+     * @param extension The extension of the file, which tells the two apart.
+     * @return The handle of the file in the local storage.
+     */
+    FileHandle getCacheFile(String extension) {
+        return Gdx.files.local(CACHE_DIRECTORY + cacheKey + extension);
     }
 
     /**
-     * Gets a {@link Texture} based on the provided binary power.
-     * @param binPow The binary power to get a {@code Texture} associated with.
-     * @return A {@code Texture} associated with the provided binary power,
-     *         or {@code null} if there is no {@code Texture} associated with such a power.
+     * Loads the atlas page from the cache, uploading it with a single call.
+     * @return {@code true} if the page has been loaded, {@code false} if it is not cached, or cannot be read.
+     */
+    private boolean loadCache() {
+        FileHandle pageFile = getCacheFile(".png");
+        FileHandle labelsFile = getCacheFile(".labels");
+        if (!pageFile.exists() || !labelsFile.exists()) return false;
+
+        try {
+            long cachedLabels = Long.parseUnsignedLong(labelsFile.readString().trim(), 16);
+
+            Pixmap page = new Pixmap(pageFile);
+            try {
+                if (page.getWidth() != pageSize || page.getHeight() != pageSize) return false;
+                atlas.getColorBufferTexture().draw(page, 0, 0);
+                updateMipmaps();
+            } finally {
+                page.dispose();
+            }
+
+            bakedLabels = cachedLabels;
+            return true;
+        } catch (GdxRuntimeException | NumberFormatException e) {
+            // A damaged cache is no different from a missing one; the page is baked again.
+            return false;
+        }
+    }
+
+    /**
+     * Reads the atlas page back, and writes it to the cache on a background thread,
+     * along with the bitmask of the numbers baked onto it.
+     */
+    private void saveCache() {
+        bindAtlas();
+        Pixmap page = Pixmap.createFromFrameBuffer(0, 0, pageSize, pageSize);
+        unbindAtlas();
+
+        FileHandle pageFile = getCacheFile(".png");
+        FileHandle labelsFile = getCacheFile(".labels");
+        String labels = Long.toHexString(bakedLabels);
+
+        Thread.ofPlatform().name("label-cache-writer").start(() -> {
+            // Written aside and then moved, so that a page is never read while it is being written.
+            // The page goes first: it is never older than the bitmask, so no number is ever read before it was baked.
+            FileHandle pageTemp = pageFile.sibling(pageFile.name() + "." + Thread.currentThread().threadId());
+            FileHandle labelsTemp = labelsFile.sibling(labelsFile.name() + "." + Thread.currentThread().threadId());
+
+            try {
+                PixmapIO.writePNG(pageTemp, page);
+                pageTemp.moveTo(pageFile);
+
+                labelsTemp.writeString(labels, false);
+                labelsTemp.moveTo(labelsFile);
+            } catch (GdxRuntimeException e) {
+                // The cache only saves time; the page is baked again if it could not be written.
+                pageTemp.delete();
+                labelsTemp.delete();
+            } finally {
+                page.dispose();
+            }
+        });
+    }
+
+    /**
+     * Gets the number of a box based on the provided binary power, asking for it to be baked if it has not been yet.
+     * @param binPow The binary power to get a number associated with.
+     * @return A {@code TextureRegion} associated with the provided binary power,
+     *         or {@code null} if there is no number associated with such a power, or it has not been baked yet.
      * @throws IllegalArgumentException if the provided number is not a binary power.
      */
-    public Texture getTexture(long binPow) {
-        return getItem(binPow);
+    public TextureRegion getLabel(long binPow) {
+        if (!MathNumUtils.isPowerOfTwo(binPow))
+            throw new IllegalArgumentException("The provided number must be a power of two");
+
+        int exponent = Long.numberOfTrailingZeros(binPow);
+        if (labels[exponent] == null) requestLabel(exponent);
+
+        return labels[exponent];
+    }
+
+    /**
+     * Gets the color of a tile, without boxing its value.
+     * @param exponent The exponent of the value of the tile.
+     * @return The color of the tile, or {@code null} if the palette has no color for it.
+     */
+    public Color getFaceColor(int exponent) {
+        return faceColors[exponent];
+    }
+
+    /**
+     * Gets the color of the number of a tile, without boxing its value.
+     * @param exponent The exponent of the value of the tile.
+     * @return The color of the number, or {@code null} if the palette has no color for the tile.
+     */
+    public Color getFontColor(int exponent) {
+        return fontColors[exponent];
+    }
+
+    /**
+     * Gets the density this palette has been baked at.
+     * @return The number of the pixels of the atlas per pixel of the game.
+     */
+    public float getDensity() {
+        return density;
+    }
+
+    /**
+     * Gets the texture of the atlas page, which holds the numbers, the slot and the background.
+     * @return The texture of the atlas page.
+     */
+    public Texture getAtlasTexture() {
+        return atlas.getColorBufferTexture();
+    }
+
+    /**
+     * Gets the background of a grid, baked onto the same atlas page as the numbers.
+     * @return The region of the background, {@link GameGrid#SIZE} pixels of the game wide.
+     */
+    public TextureRegion getBackground() {
+        return background;
+    }
+
+    /**
+     * Gets a slot of a grid, baked onto the same atlas page as the numbers.
+     * @return The region of the slot, {@link Constants#SLOT_SIZE} pixels of the game wide.
+     */
+    public TextureRegion getSlot() {
+        return slot;
     }
 
     @Override
     public void dispose() {
-        textureMap.values().forEach(Texture::dispose);
+        if (cacheOutdated) saveCache();
+
+        atlas.dispose();
+        bakeBatch.dispose();
         if (font != null) font.dispose();
     }
 }
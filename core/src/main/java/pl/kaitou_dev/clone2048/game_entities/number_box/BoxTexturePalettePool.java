@@ -0,0 +1,171 @@
+package pl.kaitou_dev.clone2048.game_entities.number_box;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.Array;
+import pl.kaitou_dev.clone2048.Constants;
+import pl.kaitou_dev.clone2048.utils.FontUtils;
+
+/**
+ * Shares {@link BoxTexturePalette}s between the {@link pl.kaitou_dev.clone2048.game_entities.GameGrid}s
+ * which look the same, so that a new grid reuses the atlas page, and the numbers baked onto it, of the grids before it.
+ * <p>
+ * The palettes are counted by reference. A palette nobody uses anymore is not disposed of at once,
+ * but only after it has stayed unused for {@link #IDLE_SECONDS}, so that a grid replacing another one
+ * finds it ready. The pool must only be used on the rendering thread.
+ * </p>
+ */
+public class BoxTexturePalettePool {
+    /**
+     * The time an unused palette is kept for, in seconds, before it is disposed of.
+     */
+    public static final float IDLE_SECONDS = 30f;
+
+    /**
+     * Describes the palettes which can be shared.
+     * @param colorPalette The color palette of the tiles.
+     * @param showNumbers Whether the tiles display their numbers.
+     * @param fontSize The size of the font of the numbers, at the density of 1.
+     * @param density The density the palette is baked at.
+     */
+    private record Key(BoxColorPalette colorPalette, boolean showNumbers, int fontSize, float density) {}
+
+    /**
+     * A palette of the pool, along with its users.
+     */
+    private static class Entry {
+        /**
+         * The key the palette is pooled under.
+         */
+        private final Key key;
+
+        /**
+         * The shared palette.
+         */
+        private final BoxTexturePalette palette;
+
+        /**
+         * The number of the users of the palette.
+         */
+        private int references;
+
+        /**
+         * The time the palette has been unused for, in seconds.
+         */
+        private float idleTime;
+
+        /**
+         * The default constructor.
+         * @param key The key the palette is pooled under.
+         * @param palette The shared palette.
+         */
+        private Entry(Key key, BoxTexturePalette palette) {
+            this.key = key;
+            this.palette = palette;
+        }
+    }
+
+    /**
+     * The pooled palettes. There are only ever a few of them, so they are searched linearly,
+     * and the pool does not allocate anything while it is updated every frame.
+     */
+    private static final Array<Entry> ENTRIES = new Array<>();
+
+    /**
+     * A private constructor to prevent instantiation.
+     */
+    private BoxTexturePalettePool() {}
+
+    /**
+     * Obtains a palette of the described look, creating it only if none is pooled yet.
+     * Every palette obtained must be returned with {@link #free(BoxTexturePalette)} instead of being disposed of.
+     * @param colorPalette The color palette of the tiles.
+     * @param showNumbers Whether the tiles should display their numbers.
+     * @param fontSize The size of the font of the numbers. Ignored if they are not displayed.
+     * @return The shared palette, able to generate the numbers up to {@link Constants#MAX_VALUE}.
+     */
+    public static BoxTexturePalette obtain(BoxColorPalette colorPalette, boolean showNumbers, int fontSize) {
+        return obtain(colorPalette, showNumbers, fontSize, 1f);
+    }
+
+    /**
+     * Obtains a palette of the described look and density, creating it only if none is pooled yet.
+     * Every palette obtained must be returned with {@link #free(BoxTexturePalette)} instead of being disposed of.
+     * @param colorPalette The color palette of the tiles.
+     * @param showNumbers Whether the tiles should display their numbers.
+     * @param fontSize The size of the font of the numbers, at the density of 1. Ignored if they are not displayed.
+     * @param density The density to bake the palette at.
+     * @return The shared palette, able to generate the numbers up to {@link Constants#MAX_VALUE}.
+     */
+    public static BoxTexturePalette obtain(
+        BoxColorPalette colorPalette, boolean showNumbers, int fontSize, float density
+    ) {
+        Key key = new Key(colorPalette, showNumbers, showNumbers ? fontSize : 0, density);
+
+        Entry entry = null;
+        for (int i = 0; i < ENTRIES.size && entry == null; ++i) {
+            if (ENTRIES.get(i).key.equals(key)) entry = ENTRIES.get(i);
+        }
+
+        if (entry == null) {
+            BoxTexturePalette palette = new BoxTexturePalette(
+                colorPalette,
+                showNumbers ? FontUtils.losevka(MathUtils.round(fontSize * density)) : null,
+                density,
+                Constants.MAX_VALUE
+            );
+
+            entry = new Entry(key, palette);
+            ENTRIES.add(entry);
+        }
+
+        ++entry.references;
+        entry.idleTime = 0;
+
+        return entry.palette;
+    }
+
+    /**
+     * Returns a palette obtained with {@link #obtain(BoxColorPalette, boolean, int, float)}.
+     * It is disposed of once it has stayed unused for {@link #IDLE_SECONDS}.
+     * @param palette The palette to return.
+     * @throws IllegalArgumentException if the palette does not come from this pool, or has been returned already.
+     */
+    public static void free(BoxTexturePalette palette) throws IllegalArgumentException {
+        Entry entry = null;
+        for (int i = 0; i < ENTRIES.size && entry == null; ++i) {
+            if (ENTRIES.get(i).palette == palette) entry = ENTRIES.get(i);
+        }
+
+        if (entry == null || entry.references == 0)
+            throw new IllegalArgumentException("The palette is not in use");
+
+        --entry.references;
+        entry.idleTime = 0;
+    }
+
+    /**
+     * Disposes of the palettes which have stayed unused for long enough. To be called once per frame.
+     * @param delta Delta-time at the moment of calling.
+     */
+    public static void update(float delta) {
+        for (int i = ENTRIES.size - 1; i >= 0; --i) {
+            Entry entry = ENTRIES.get(i);
+            if (entry.references > 0) continue;
+
+            entry.idleTime += delta;
+            if (entry.idleTime < IDLE_SECONDS) continue;
+
+            ENTRIES.removeIndex(i);
+            entry.palette.dispose();
+        }
+    }
+
+    /**
+     * Disposes of all the pooled palettes, whether they are used or not. To be called when the game closes.
+     */
+    public static void disposeAll() {
+        for (int i = 0; i < ENTRIES.size; ++i) ENTRIES.get(i).palette.dispose();
+
+        ENTRIES.clear();
+    }
+}
@@ -1,21 +1,26 @@
 package pl.kaitou_dev.clone2048.game_entities.number_box;
 
-import com.badlogic.gdx.graphics.Texture;
-import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Pool;
 import pl.kaitou_dev.clone2048.Constants;
 import pl.kaitou_dev.clone2048.game_entities.GameGrid;
 import pl.kaitou_dev.clone2048.game_entities.number_box.actions.BoxAction;
 import pl.kaitou_dev.clone2048.game_entities.number_box.actions.BoxMoveAction;
+import pl.kaitou_dev.clone2048.game_entities.number_box.actions.BoxScaleAction;
 import pl.kaitou_dev.clone2048.utils.MathNumUtils;
 import pl.kaitou_dev.clone2048.utils.timed_actions.Action;
+import pl.kaitou_dev.clone2048.utils.timed_actions.SequentialAction;
 import pl.kaitou_dev.clone2048.utils.timed_actions.interpolators.Interpolator;
 
 /**
  * Represents a number box that appears on the screen.
  * It has its own value, which is a power of 2.
+ * <p>
+ * Boxes are meant to be reused through a {@link Pool}, so every box creates its own movement and spawning actions
+ * up front, and restarts them instead of creating new ones.
+ * </p>
  */
-public class NumberBox {
+public class NumberBox implements Pool.Poolable {
     /**
      * The value of the box.
      */
@@ -41,14 +46,24 @@ public class NumberBox {
     private Action action;
 
     /**
-     * The texture of this {@code NumberBox}
+     * The reusable action moving this {@code NumberBox}.
      */
-    private Texture texture;
+    private final BoxMoveAction moveAction;
 
     /**
-     * The texture palette of this {@code NumberBox}
+     * The reusable action scaling this {@code NumberBox} up past its size, as the first part of {@link #spawnAction}.
      */
-    private final BoxTexturePalette texturePalette;
+    private final BoxScaleAction growAction;
+
+    /**
+     * The reusable action scaling this {@code NumberBox} back to its size, as the second part of {@link #spawnAction}.
+     */
+    private final BoxScaleAction settleAction;
+
+    /**
+     * The reusable action animating the appearance of this {@code NumberBox}.
+     */
+    private final SequentialAction spawnAction;
 
     /**
      * The parameter for scaling this {@code NumberBox}'s size.
@@ -60,6 +75,11 @@ public class NumberBox {
      */
     public static final int FONT_SIZE = Constants.SLOT_SIZE * 40 / 100;
 
+    /**
+     * The scale a {@code NumberBox} grows to while spawning, before settling at its size.
+     */
+    private static final double SPAWN_OVERSHOOT_SCALE = 1.2;
+
     /**
      * The constructor which takes the parent {@link GameGrid}
      * and the value for this {@code NumberBox} to represent.
@@ -67,31 +87,32 @@ public class NumberBox {
      * @param value The value, which has to be a power of 2.
      * @throws IllegalArgumentException if the provided value is not a power of 2.
      */
+    @SuppressWarnings("this-escape")
     public NumberBox(GameGrid grid, int value) throws IllegalArgumentException {
         if (!MathNumUtils.isPowerOfTwo(value)) throw new IllegalArgumentException("Value must be a power of two");
 
         this.value = value;
         this.grid = grid;
 
-        texturePalette = this.grid.getTexturePalette();
-
-        texture = texturePalette.getTexture(value);
+        // The actions only keep a reference to this box, which they do not use until they are run.
+        moveAction = new BoxMoveAction(this, 0, 0, Constants.BASIC_MOVEMENT_SPEED, GameGrid.DEFAULT_INTERPOLATOR);
+        growAction = new BoxScaleAction(this, SPAWN_OVERSHOOT_SCALE, 0, GameGrid.DEFAULT_INTERPOLATOR);
+        settleAction = new BoxScaleAction(this, 1.0, 0, GameGrid.DEFAULT_INTERPOLATOR);
+        spawnAction = new SequentialAction(growAction, settleAction);
     }
 
     /**
-     * Draws this {@code NumberBox} onto the specified {@link SpriteBatch}.
-     * @param batch The {@code SpriteBatch} onto which to draw.
+     * Adds this {@code NumberBox} to the specified {@link TileRenderer}, scaled to fit a slot of its parent grid.
+     * @param renderer The {@code TileRenderer} to draw with.
      */
-    public void draw(SpriteBatch batch) {
-        int w = texture.getWidth();
-        int h = texture.getHeight();
-
-        batch.draw(
-            texture,
-            (float) (posX + (1.0 - scale) / 2 * w),
-            (float) (posY + (1.0 - scale) / 2 * h),
-            (float) (w * scale),
-            (float) (h * scale)
+    public void draw(TileRenderer renderer) {
+        int size = grid.getSlotSize();
+
+        renderer.add(
+            (float) (posX + (1.0 - scale) / 2 * size),
+            (float) (posY + (1.0 - scale) / 2 * size),
+            (float) (size * scale),
+            value
         );
     }
 
@@ -100,7 +121,7 @@ public class NumberBox {
      */
     public void upgrade() {
         value <<= 1;
-        updateTexture();
+        requestLabel();
     }
 
     /**
@@ -153,7 +174,26 @@ public class NumberBox {
      * @param interpolator The {@link Interpolator} used for this movement action.
      */
     public void actMove(int x, int y, float durationSeconds, Interpolator interpolator) {
-        action = new BoxMoveAction(this, x, y, durationSeconds, interpolator);
+        moveAction.set(x, y, durationSeconds, interpolator);
+        action = moveAction;
+    }
+
+    /**
+     * Starts a spawning action for this {@code NumberBox}: it grows from nothing a bit past its size,
+     * and then settles at its size.
+     * @param durationSeconds The duration of the whole spawning, measured in seconds.
+     * @param interpolator The {@link Interpolator} used for both parts of the spawning.
+     */
+    public void actSpawn(float durationSeconds, Interpolator interpolator) {
+        float growSeconds = durationSeconds * 2 / 3;
+        float settleSeconds = durationSeconds / 3;
+
+        growAction.set(SPAWN_OVERSHOOT_SCALE, growSeconds, interpolator);
+        settleAction.set(1.0, settleSeconds, interpolator);
+        spawnAction.reset();
+
+        scale = 0;
+        action = spawnAction;
     }
 
     /**
@@ -172,6 +212,18 @@ public class NumberBox {
         this.action = action;
     }
 
+    /**
+     * Changes the value of this {@code NumberBox}, and updates its appearance.
+     * @param value The new value, which has to be a power of 2.
+     * @throws IllegalArgumentException if the provided value is not a power of 2.
+     */
+    public void setValue(int value) throws IllegalArgumentException {
+        if (!MathNumUtils.isPowerOfTwo(value)) throw new IllegalArgumentException("Value must be a power of two");
+
+        this.value = value;
+        requestLabel();
+    }
+
     /**
      * Gets the value of this {@code NumberBox}.
      * @return The value of this {@code NumberBox}.
@@ -234,13 +286,23 @@ public class NumberBox {
     }
 
     /**
-     * Gets a new {@link Texture} from its {@link GameGrid}'s {@link BoxTexturePalette}.
+     * Asks its {@link GameGrid}'s {@link BoxTexturePalette} for the number of the current value,
+     * so that it is baked as soon as possible.
      */
-    private void updateTexture() {
-        texture = texturePalette.getTexture(value);
+    private void requestLabel() {
+        grid.getTexturePalette().getLabel(value);
     }
 
 
+    /**
+     * Stops the action of this {@code NumberBox} and restores its scale, when it is returned to its {@link Pool}.
+     */
+    @Override
+    public void reset() {
+        action = null;
+        scale = 1.0;
+    }
+
     /**
      * Disposes of unneeded resources.
      */
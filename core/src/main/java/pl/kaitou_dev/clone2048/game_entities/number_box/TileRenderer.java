@@ -0,0 +1,400 @@
+package pl.kaitou_dev.clone2048.game_entities.number_box;
+
+import com.badlogic.gdx.Application;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.VertexAttribute;
+import com.badlogic.gdx.graphics.VertexAttributes;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.utils.BufferUtils;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.nio.IntBuffer;
+
+/**
+ * Draws the tiles of {@link NumberBox}es with a shader, which shapes their rounded rectangles analytically,
+ * as a signed distance field, instead of sampling them from baked textures.
+ * <p>
+ * Every tile is described by a single instance: its position, size, corner radius, colors, and the region
+ * of its number on the atlas of a {@link BoxTexturePalette}. Where OpenGL ES 3.0 is available, a whole board is
+ * drawn with a single instanced call. Otherwise the instances are expanded into quads, and drawn as a single
+ * batch, with the very same shader.
+ * </p>
+ */
+public class TileRenderer implements Disposable {
+    /**
+     * The number of the attributes of a single instance: its rectangle, two packed colors, and a region.
+     */
+    private static final int INSTANCE_FLOATS = 4 + 1 + 1 + 4;
+
+    /**
+     * The number of the attributes of a single vertex of a tile: its corner, followed by its instance.
+     */
+    private static final int VERTEX_FLOATS = 2 + INSTANCE_FLOATS;
+
+    /**
+     * The ratio of the corner radius of a tile to its size, the same as of a slot.
+     */
+    private static final float CORNER_RADIUS_RATIO = 0.2f;
+
+    /**
+     * The corners of a unit quad, in the order of the vertices of a tile.
+     */
+    private static final float[] CORNERS = { 0, 0, 0, 1, 1, 1, 1, 0 };
+
+    /**
+     * Positions each tile, and passes its instance on to the fragment shader.
+     * Written in GLSL 1.00, and translated by {@link #GL30_VERTEX_HEADER} where instancing is used.
+     */
+    private static final String VERTEX_SHADER = """
+        attribute vec2 a_corner;
+        attribute vec4 i_rect;
+        attribute vec4 i_color;
+        attribute vec4 i_fontColor;
+        attribute vec4 i_label;
+
+        uniform mat4 u_projTrans;
+
+        varying vec2 v_local;
+        varying vec2 v_shape;
+        varying vec4 v_color;
+        varying vec4 v_fontColor;
+        varying vec2 v_labelUV;
+
+        void main() {
+            v_local = (a_corner - 0.5) * i_rect.z;
+            v_shape = vec2(0.5 * i_rect.z, i_rect.w);
+            v_color = i_color;
+            v_fontColor = i_fontColor;
+            v_labelUV = mix(i_label.xy, i_label.zw, a_corner);
+
+            gl_Position = u_projTrans * vec4(i_rect.xy + a_corner * i_rect.z, 0.0, 1.0);
+        }
+        """;
+
+    /**
+     * Shapes each tile as a rounded rectangle, anti-aliased over a single pixel, and tints its number over it.
+     */
+    private static final String FRAGMENT_SHADER = """
+        #ifdef GL_ES
+        precision mediump float;
+        #endif
+
+        varying vec2 v_local;
+        varying vec2 v_shape;
+        varying vec4 v_color;
+        varying vec4 v_fontColor;
+        varying vec2 v_labelUV;
+
+        uniform sampler2D u_texture;
+        uniform float u_pixelsPerUnit;
+
+        void main() {
+            vec2 q = abs(v_local) - vec2(v_shape.x - v_shape.y);
+            float distance = length(max(q, 0.0)) + min(max(q.x, q.y), 0.0) - v_shape.y;
+            float coverage = clamp(0.5 - distance * u_pixelsPerUnit, 0.0, 1.0);
+
+            float label = texture2D(u_texture, v_labelUV).a;
+            gl_FragColor = vec4(mix(v_color.rgb, v_fontColor.rgb, label), v_color.a * coverage);
+        }
+        """;
+
+    /**
+     * Translates {@link #VERTEX_SHADER} into GLSL 3.00 ES, or GLSL 1.50 on the desktop.
+     */
+    private static final String GL30_VERTEX_HEADER = "#define attribute in\n#define varying out\n";
+
+    /**
+     * Translates {@link #FRAGMENT_SHADER} into GLSL 3.00 ES, or GLSL 1.50 on the desktop.
+     */
+    private static final String GL30_FRAGMENT_HEADER =
+        "#define varying in\n#define texture2D texture\nout vec4 fragColor;\n#define gl_FragColor fragColor\n";
+
+    /**
+     * The shader shared by all the renderers, compiled by the first of them.
+     */
+    private static ShaderProgram shader;
+
+    /**
+     * The palette providing the colors of the tiles, and the atlas holding their numbers.
+     */
+    private BoxTexturePalette palette;
+
+    /**
+     * Whether the tiles are drawn with a single instanced call ({@code true}),
+     * or expanded into a batch of quads ({@code false}).
+     */
+    private final boolean instanced;
+
+    /**
+     * The mesh of the tiles: a single quad with one instance per tile, or a quad per tile.
+     */
+    private final Mesh mesh;
+
+    /**
+     * The attributes of the instances to be drawn, or of the vertices of the expanded quads.
+     */
+    private final float[] data;
+
+    /**
+     * The maximum number of tiles drawn at once.
+     */
+    private final int capacity;
+
+    /**
+     * The number of the tiles added since {@link #begin()}.
+     */
+    private int count;
+
+    /**
+     * A buffer receiving the viewport, to measure the size of a pixel.
+     */
+    private final IntBuffer viewport = BufferUtils.newIntBuffer(16);
+
+    /**
+     * The number of draw calls issued since {@link #begin()}.
+     */
+    public int renderCalls;
+
+    /**
+     * The number of draw calls issued since the renderer was created.
+     */
+    public int totalRenderCalls;
+
+    /**
+     * The default constructor, which decides between instancing and batching based on the available OpenGL version.
+     * @param palette The palette providing the colors and the numbers of the tiles.
+     * @param capacity The maximum number of tiles drawn at once.
+     */
+    public TileRenderer(BoxTexturePalette palette, int capacity) {
+        this.palette = palette;
+        this.capacity = capacity;
+        this.instanced = Gdx.gl30 != null;
+
+        if (shader == null) shader = createShader(instanced);
+
+        VertexAttribute corner = new VertexAttribute(VertexAttributes.Usage.Position, 2, "a_corner");
+        VertexAttribute[] tile = {
+            new VertexAttribute(VertexAttributes.Usage.Generic, 4, "i_rect"),
+            new VertexAttribute(VertexAttributes.Usage.ColorPacked, 4, GL20.GL_UNSIGNED_BYTE, true, "i_color"),
+            new VertexAttribute(VertexAttributes.Usage.ColorPacked, 4, GL20.GL_UNSIGNED_BYTE, true, "i_fontColor"),
+            new VertexAttribute(VertexAttributes.Usage.Generic, 4, "i_label")
+        };
+
+        if (instanced) {
+            mesh = new Mesh(true, 4, 6, corner);
+            mesh.setVertices(CORNERS);
+            mesh.setIndices(new short[] { 0, 1, 2, 2, 3, 0 });
+            mesh.enableInstancedRendering(false, capacity, tile);
+
+            data = new float[capacity * INSTANCE_FLOATS];
+        } else {
+            VertexAttribute[] attributes = new VertexAttribute[1 + tile.length];
+            attributes[0] = corner;
+            System.arraycopy(tile, 0, attributes, 1, tile.length);
+
+            mesh = new Mesh(false, capacity * 4, capacity * 6, attributes);
+
+            short[] indices = new short[capacity * 6];
+            for (int i = 0, vertex = 0; i < indices.length; i += 6, vertex += 4) {
+                indices[i] = (short) vertex;
+                indices[i + 1] = (short) (vertex + 1);
+                indices[i + 2] = (short) (vertex + 2);
+                indices[i + 3] = (short) (vertex + 2);
+                indices[i + 4] = (short) (vertex + 3);
+                indices[i + 5] = (short) vertex;
+            }
+            mesh.setIndices(indices);
+
+            data = new float[capacity * 4 * VERTEX_FLOATS];
+        }
+    }
+
+    /**
+     * Compiles the shader of the tiles.
+     * @param instanced Whether the shader is used for instancing, which needs GLSL 3.
+     * @return The compiled shader.
+     * @throws GdxRuntimeException if the shader does not compile.
+     */
+    private static ShaderProgram createShader(boolean instanced) throws GdxRuntimeException {
+        String vertexShader = VERTEX_SHADER;
+        String fragmentShader = FRAGMENT_SHADER;
+
+        if (instanced) {
+            String version = Gdx.app.getType() == Application.ApplicationType.Desktop
+                ? "#version 150\n"
+                : "#version 300 es\n";
+
+            vertexShader = version + GL30_VERTEX_HEADER + vertexShader;
+            fragmentShader = version + GL30_FRAGMENT_HEADER + fragmentShader;
+        }
+
+        ShaderProgram program = new ShaderProgram(vertexShader, fragmentShader);
+        if (!program.isCompiled())
+            throw new GdxRuntimeException("Could not compile the tile shader: " + program.getLog());
+
+        return program;
+    }
+
+    /**
+     * Changes the palette of the tiles, e.g. for one baked at another density.
+     * @param palette The palette providing the colors and the numbers of the tiles.
+     */
+    public void setPalette(BoxTexturePalette palette) {
+        this.palette = palette;
+    }
+
+    /**
+     * Starts collecting the tiles to be drawn.
+     */
+    public void begin() {
+        count = 0;
+        renderCalls = 0;
+    }
+
+    /**
+     * Adds a tile to be drawn. Tiles beyond the capacity of this renderer, and values the palette has no color for,
+     * are ignored.
+     * @param x The X coordinate of the bottom-left corner of the tile.
+     * @param y The Y coordinate of the bottom-left corner of the tile.
+     * @param size The length of a side of the tile.
+     * @param value The value of the box, which has to be a power of 2.
+     */
+    public void add(float x, float y, float size, int value) {
+        int exponent = Integer.numberOfTrailingZeros(value);
+        Color color = palette.getFaceColor(exponent);
+        if (count == capacity || color == null) return;
+
+        float packedColor = color.toFloatBits();
+        float packedFontColor = palette.getFontColor(exponent).toFloatBits();
+
+        // Until its number is baked, a tile samples the transparent corner of the atlas, and shows no number.
+        TextureRegion label = palette.getLabel(value);
+        float u = 0, v = 0, u2 = 0, v2 = 0;
+        if (label != null) {
+            u = label.getU();
+            v = label.getV2();
+            u2 = label.getU2();
+            v2 = label.getV();
+        }
+
+        float radius = size * CORNER_RADIUS_RATIO;
+
+        if (instanced) {
+            int i = count * INSTANCE_FLOATS;
+            putInstance(i, x, y, size, radius, packedColor, packedFontColor, u, v, u2, v2);
+        } else {
+            for (int corner = 0; corner < 4; ++corner) {
+                int i = (count * 4 + corner) * VERTEX_FLOATS;
+                data[i] = CORNERS[corner * 2];
+                data[i + 1] = CORNERS[corner * 2 + 1];
+                putInstance(i + 2, x, y, size, radius, packedColor, packedFontColor, u, v, u2, v2);
+            }
+        }
+
+        ++count;
+    }
+
+    /**
+     * Puts the attributes of a single instance into {@link #data}.
+     * @param i The index of the first attribute.
+     * @param x The X coordinate of the bottom-left corner of the tile.
+     * @param y The Y coordinate of the bottom-left corner of the tile.
+     * @param size The length of a side of the tile.
+     * @param radius The corner radius of the tile.
+     * @param color The packed color of the tile.
+     * @param fontColor The packed color of the number.
+     * @param u The horizontal texture coordinate of the left edge of the number.
+     * @param v The vertical texture coordinate of the bottom edge of the number.
+     * @param u2 The horizontal texture coordinate of the right edge of the number.
+     * @param v2 The vertical texture coordinate of the top edge of the number.
+     */
+    private void putInstance(
+        int i, float x, float y, float size, float radius, float color, float fontColor,
+        float u, float v, float u2, float v2
+    ) {
+        data[i] = x;
+        data[i + 1] = y;
+        data[i + 2] = size;
+        data[i + 3] = radius;
+        data[i + 4] = color;
+        data[i + 5] = fontColor;
+        data[i + 6] = u;
+        data[i + 7] = v;
+        data[i + 8] = u2;
+        data[i + 9] = v2;
+    }
+
+    /**
+     * Draws the tiles added since {@link #begin()} with a single call. No batch may be drawing at the time.
+     * @param projection The projection of the tiles onto the screen.
+     */
+    public void render(Matrix4 projection) {
+        if (count == 0) return;
+
+        viewport.clear();
+        Gdx.gl.glGetIntegerv(GL20.GL_VIEWPORT, viewport);
+        float pixelsPerUnit = projection.val[Matrix4.M00] * viewport.get(2) / 2f;
+
+        Gdx.gl.glEnable(GL20.GL_BLEND);
+        Gdx.gl.glBlendFuncSeparate(
+            GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA,
+            GL20.GL_ONE, GL20.GL_ONE_MINUS_SRC_ALPHA
+        );
+
+        palette.getAtlasTexture().bind(0);
+        shader.bind();
+        shader.setUniformMatrix("u_projTrans", projection);
+        shader.setUniformi("u_texture", 0);
+        shader.setUniformf("u_pixelsPerUnit", pixelsPerUnit);
+
+        if (instanced) {
+            mesh.setInstanceData(data, 0, count * INSTANCE_FLOATS);
+            mesh.render(shader, GL20.GL_TRIANGLES, 0, 6);
+        } else {
+            mesh.setVertices(data, 0, count * 4 * VERTEX_FLOATS);
+            mesh.render(shader, GL20.GL_TRIANGLES, 0, count * 6);
+        }
+
+        Gdx.gl.glDisable(GL20.GL_BLEND);
+
+        ++renderCalls;
+        ++totalRenderCalls;
+    }
+
+    /**
+     * Gets the number of the vertices the last {@link #render(Matrix4)} has uploaded.
+     * @return 4 per tile if the tiles are batched, or the 4 corners of the shared quad if they are instanced.
+     */
+    public int getVertexCount() {
+        return mesh.getNumVertices();
+    }
+
+    /**
+     * Checks if the tiles are drawn with a single instanced call, or expanded into a batch of quads.
+     * @return {@code true} if the tiles are instanced, {@code false} if they are batched.
+     */
+    public boolean isInstanced() {
+        return instanced;
+    }
+
+    @Override
+    public void dispose() {
+        mesh.dispose();
+    }
+
+    /**
+     * Disposes of the shader shared by all the renderers. To be called when the game closes.
+     */
+    public static void disposeShader() {
+        if (shader == null) return;
+
+        shader.dispose();
+        shader = null;
+    }
+}
@@ -19,16 +19,16 @@ public class BoxMoveAction extends BoxAction {
     /**
      * The X coordinate of the destination point.
      */
-    private final int destX;
+    private int destX;
     /**
      * The Y coordinate of the destination point.
      */
-    private final int destY;
+    private int destY;
 
     /**
      * The duration of this {@code BoxMoveAction}, measured in seconds.
      */
-    private final float durationSeconds;
+    private float durationSeconds;
     /**
      * Measures how much time has passed since the start of this {@code BoxMoveAction}.
      */
@@ -55,6 +55,22 @@ public class BoxMoveAction extends BoxAction {
         this.startY = box.getPosY();
     }
 
+    /**
+     * Reuses this {@code BoxMoveAction} for another movement, and restarts it.
+     * @param destX The X coordinate of the destination point.
+     * @param destY The Y coordinate of the destination point.
+     * @param durationSeconds The duration of the movement, measured in seconds.
+     * @param interpolator The {@link Interpolator} to be used for interpolation, or {@code null} to keep the current one.
+     */
+    public void set(int destX, int destY, float durationSeconds, Interpolator interpolator) {
+        this.destX = destX;
+        this.destY = destY;
+        this.durationSeconds = durationSeconds;
+        if (interpolator != null) this.interpolator = interpolator;
+
+        reset();
+    }
+
     @Override
     public void actWithDelta(float delta) {
         if (elapsedSeconds == 0) {
@@ -77,6 +93,7 @@ public class BoxMoveAction extends BoxAction {
 
     @Override
     public void reset() {
+        super.reset();
         elapsedSeconds = 0;
     }
 }
@@ -15,12 +15,12 @@ public class BoxScaleAction extends BoxAction {
     /**
      * The destination value of the scale.
      */
-    private final double destScale;
+    private double destScale;
 
     /**
      * The duration of this {@code BoxScaleAction}, measured in seconds.
      */
-    private final float durationSeconds;
+    private float durationSeconds;
 
     /**
      * Measures how much time has passed since the start of this {@code BoxScaleAction}.
@@ -45,6 +45,20 @@ public class BoxScaleAction extends BoxAction {
         startScale = box.getScale();
     }
 
+    /**
+     * Reuses this {@code BoxScaleAction} for another scaling, and restarts it.
+     * @param destScale The value of the destination scale.
+     * @param durationSeconds The duration of the scaling, measured in seconds.
+     * @param interpolator The {@link Interpolator} to be used for interpolation, or {@code null} to keep the current one.
+     */
+    public void set(double destScale, float durationSeconds, Interpolator interpolator) {
+        this.destScale = destScale;
+        this.durationSeconds = durationSeconds;
+        if (interpolator != null) this.interpolator = interpolator;
+
+        reset();
+    }
+
     @Override
     public void actWithDelta(float delta) {
         if (elapsedSeconds == 0) startScale = box.getScale();
@@ -63,6 +77,7 @@ public class BoxScaleAction extends BoxAction {
 
     @Override
     public void reset() {
+        super.reset();
         elapsedSeconds = 0;
     }
 }
@@ -4,21 +4,30 @@ import com.badlogic.gdx.Game;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input;
 import com.badlogic.gdx.Screen;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.*;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
-import com.badlogic.gdx.graphics.glutils.FrameBuffer;
+import com.badlogic.gdx.math.Matrix4;
 import com.badlogic.gdx.utils.ScreenUtils;
 import com.badlogic.gdx.utils.viewport.FitViewport;
 import pl.kaitou_dev.clone2048.Clone2048;
 import pl.kaitou_dev.clone2048.Constants;
-import pl.kaitou_dev.clone2048.utils.Directions;
+import pl.kaitou_dev.clone2048.engine.Directions;
+import pl.kaitou_dev.clone2048.engine.ai.MonteCarloTreeSearch;
+import pl.kaitou_dev.clone2048.engine.ntuple.NTupleNetwork;
+import pl.kaitou_dev.clone2048.engine.strategy.MonteCarloStrategy;
+import pl.kaitou_dev.clone2048.engine.strategy.MoveStrategy;
+import pl.kaitou_dev.clone2048.engine.strategy.NTupleStrategy;
+import pl.kaitou_dev.clone2048.engine.strategy.RandomStrategy;
 import pl.kaitou_dev.clone2048.game_entities.GameGrid;
+import pl.kaitou_dev.clone2048.game_entities.number_box.BoxTexturePalette;
 import pl.kaitou_dev.clone2048.utils.FontUtils;
 import pl.kaitou_dev.clone2048.utils.GraphicsUtils;
-import pl.kaitou_dev.clone2048.utils.MathNumUtils;
 import pl.kaitou_dev.clone2048.utils.timed_actions.Blinker;
 
+import java.io.IOException;
+
 /**
  * First screen of the application. Displayed after the application is created.
  */
@@ -29,6 +38,35 @@ public class FirstScreen implements Screen {
      */
     private final static float ANIMATION_INTERVAL_SECONDS = 1.0f;
 
+    /**
+     * The scale at which the animated grid is drawn, relative to the grid of the game.
+     */
+    private final static float PREVIEW_SCALE = 2f / 3f;
+
+    /**
+     * The file in the local storage, which the trained {@link NTupleNetwork} of the autoplayer is read from,
+     * e.g. a checkpoint written by {@link pl.kaitou_dev.clone2048.engine.ntuple.TDTrainer}.
+     */
+    private final static String AUTOPLAYER_NETWORK_FILE = "ntuple.weights";
+
+    /**
+     * The time the autoplayer may search a move for when there is no trained network, measured in nanoseconds.
+     * The search blocks the rendering thread, so it is kept well below the duration of a frame.
+     */
+    private final static long AUTOPLAYER_SEARCH_NANOS = 4_000_000;
+
+    /**
+     * The strategy animating 4x4 grids: the trained network if there is one, or a {@link MonteCarloStrategy}
+     * otherwise. It is set up only once, and shared by all the instances of this screen.
+     */
+    private static MoveStrategy autoplayer;
+
+    /**
+     * The strategy of the animation on the grids the {@link #autoplayer} does not support.
+     */
+    private static final MoveStrategy FALLBACK_PLAYER = new RandomStrategy();
+
+
     /**
      * The {@link Game} instance (specialized as {@link Clone2048}), required for switching between the screens.
      */
@@ -47,9 +85,9 @@ public class FirstScreen implements Screen {
      */
     private final SpriteBatch batch;
     /**
-     * A {@link FrameBuffer} to act as a virtual screen on this screen, to display the animation.
+     * The projection which draws the animated grid scaled by {@link #PREVIEW_SCALE} around the center of the screen.
      */
-    private final FrameBuffer frameBuffer;
+    private final Matrix4 previewProjection = new Matrix4();
 
     /**
      * A font to be used to render the logo.
@@ -69,6 +107,14 @@ public class FirstScreen implements Screen {
      * A {@link GameGrid} to animate.
      */
     private GameGrid grid;
+    /**
+     * The length of one side of the grids, both the animated one and the one of the game to begin, in boxes.
+     */
+    private int gridSide = Constants.DEFAULT_GRID_SIDE;
+    /**
+     * The density the numbers of the animated grid are baked at, following the size of the window.
+     */
+    private float gridDensity = 1f;
     /**
      * The time elapsed since the last move of the animation, measured in seconds.
      */
@@ -91,10 +137,6 @@ public class FirstScreen implements Screen {
         batch = new SpriteBatch();
         batch.setBlendFunction(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
 
-        frameBuffer = new FrameBuffer(
-            Pixmap.Format.RGBA8888, Constants.GAME_WIDTH, Constants.GAME_HEIGHT, true
-        );
-
         fontLogo = FontUtils.monofett(120 * Constants.UNIT_FONT_SIZE);
         fontLogo.setColor(Color.BLACK);
         fontText = FontUtils.losevka(30 * Constants.UNIT_FONT_SIZE);
@@ -102,18 +144,40 @@ public class FirstScreen implements Screen {
         fontCredits = FontUtils.losevka(15 * Constants.UNIT_FONT_SIZE);
         fontCredits.setColor(Color.BLACK);
 
+        loadAutoplayer();
         createGrid();
 
         blinker = new Blinker(Constants.DEFAULT_BLINK, Constants.DEFAULT_BLINK, true);
     }
 
+    /**
+     * Sets up the {@link #autoplayer}, unless it has been set up already. It reads the trained network from the local
+     * storage, and falls back to a Monte Carlo tree search if there is no network, or it cannot be read.
+     */
+    private static void loadAutoplayer() {
+        if (autoplayer != null) return;
+
+        FileHandle file = Gdx.files.local(AUTOPLAYER_NETWORK_FILE);
+        if (file.exists()) {
+            try {
+                autoplayer = new NTupleStrategy(NTupleNetwork.load(file.file().toPath()));
+                return;
+            } catch (IOException e) {
+                // A damaged network is no different from a missing one; the search plays instead.
+            }
+        }
+
+        autoplayer = new MonteCarloStrategy(new MonteCarloTreeSearch(), AUTOPLAYER_SEARCH_NANOS, Long.MAX_VALUE);
+    }
+
     /**
      * Creates a {@link GameGrid} for the animation purposes.
      */
     private void createGrid() {
-        grid = new GameGrid(false);
+        grid = new GameGrid(false, gridSide);
         grid.setCoords(Constants.GAME_WIDTH / 2 - GameGrid.SIZE / 2, Constants.GAME_HEIGHT / 2 - GameGrid.SIZE / 2);
         grid.setSoundOn(false);
+        grid.setDensity(gridDensity);
     }
 
     @Override
@@ -142,39 +206,43 @@ public class FirstScreen implements Screen {
     }
 
     /**
-     * Handles the animation of the grid, by trying to issue a random move to this screen's {@link GameGrid}
-     * every {@link FirstScreen#ANIMATION_INTERVAL_SECONDS} seconds. The timer does not reset if the move was illegal,
-     * so that it has a chance to make a correct guess next time this method is called.
+     * Handles the animation of the grid, by trying to issue a move to this screen's {@link GameGrid}
+     * every {@link FirstScreen#ANIMATION_INTERVAL_SECONDS} seconds. The timer does not reset if no move was made,
+     * so that it has a chance to make one next time this method is called.
      */
     private void animateGrid() {
         if (timeSinceLastMove < ANIMATION_INTERVAL_SECONDS) return;
 
         if (!grid.isBusy()) {
-            Directions[] directions = Directions.values();
-            grid.move(MathNumUtils.randChoice(directions));
+            Directions direction = grid.chooseMove(chooseAnimationPlayer());
+            if (direction != null) grid.move(direction);
             if (grid.isBusy()) timeSinceLastMove = 0;
         }
     }
 
+    /**
+     * Chooses the player of the animation: the {@link #autoplayer} if it supports the size of the grid,
+     * or the {@link #FALLBACK_PLAYER} otherwise.
+     * @return The strategy choosing the moves of the animation.
+     */
+    private MoveStrategy chooseAnimationPlayer() {
+        return autoplayer.supportsSide(grid.getSide()) ? autoplayer : FALLBACK_PLAYER;
+    }
+
     @Override
     public void render(float delta) {
         update(delta);
         // Draw your screen here. "delta" is the time since last render in seconds.
         ScreenUtils.clear(new Color(0xFFCCBFFF));
 
-        Pixmap pixmap = createGridPixmap();
-
-        Texture gridTexture = new Texture(pixmap);
-        pixmap.dispose();
-
         viewport.apply();
-        batch.setProjectionMatrix(camera.combined);
+        batch.setProjectionMatrix(getPreviewProjection());
         batch.begin();
 
-        int w = gridTexture.getWidth() * 2 / 3;
-        int h = gridTexture.getHeight() * 2 / 3;
+        grid.drawGrid(batch);
+        grid.drawBoxes(batch);
 
-        batch.draw(gridTexture, Constants.GAME_WIDTH / 2 - w / 2, Constants.GAME_HEIGHT / 2 - h / 2, w, h);
+        batch.setProjectionMatrix(camera.combined);
 
         GraphicsUtils.drawCenteredTextLine(
             batch, "2048", fontLogo, Constants.GAME_WIDTH / 2, (int) (Constants.GAME_HEIGHT - fontLogo.getCapHeight())
@@ -184,36 +252,35 @@ public class FirstScreen implements Screen {
                 batch, "Press ENTER to begin", fontText, Constants.GAME_WIDTH / 2, 50 + (int) fontText.getCapHeight()
             );
 
+        GraphicsUtils.drawCenteredTextLine(
+            batch, "Board: %dx%d (press %d-%d to change)".formatted(
+                gridSide, gridSide, Constants.MIN_GRID_SIDE, Constants.MAX_GRID_SIDE
+            ),
+            fontCredits, Constants.GAME_WIDTH / 2, 100 + (int) (fontText.getCapHeight() + fontCredits.getCapHeight())
+        );
+
         GraphicsUtils.drawCenteredTextLine(
             batch, "©2024, Kait0u", fontCredits, Constants.GAME_WIDTH / 2, (int) fontCredits.getCapHeight()
         );
 
         batch.end();
 
-        gridTexture.dispose();
-
         handleInput();
     }
 
     /**
-     * Creates a {@link Pixmap} out of this screen's {@link GameGrid} using a {@link FrameBuffer}.
-     * @return A {@code Pixmap} of the current situation of the grid.
+     * Computes the projection which draws this screen's {@link GameGrid} scaled down in place,
+     * so that it does not have to be rendered to a {@link com.badlogic.gdx.graphics.glutils.FrameBuffer} first.
+     * @return The projection of the animated grid, reused between the calls.
      */
-    private Pixmap createGridPixmap() {
-        viewport.apply();
-        frameBuffer.begin();
-        Gdx.gl.glClearColor(1, 1, 1, 0);
-        Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
-        batch.setProjectionMatrix(camera.combined);
-        batch.begin();
-
-        grid.drawGrid(batch);
-        grid.drawBoxes(batch);
-
-        batch.end();
-        Pixmap pixmap = Pixmap.createFromFrameBuffer(0, 0, frameBuffer.getWidth(), frameBuffer.getHeight());
-        frameBuffer.end();
-        return pixmap;
+    private Matrix4 getPreviewProjection() {
+        float centerX = Constants.GAME_WIDTH / 2f;
+        float centerY = Constants.GAME_HEIGHT / 2f;
+
+        return previewProjection.set(camera.combined)
+            .translate(centerX, centerY, 0)
+            .scale(PREVIEW_SCALE, PREVIEW_SCALE, 1)
+            .translate(-centerX, -centerY, 0);
     }
 
     /**
@@ -221,8 +288,17 @@ public class FirstScreen implements Screen {
      */
     private void handleInput() {
         if (Gdx.input.isKeyJustPressed(Input.Keys.ENTER)) {
-            game.setScreen(new GameScreen());
+            game.setScreen(new GameScreen(gridSide));
             dispose();
+            return;
+        }
+
+        for (int side = Constants.MIN_GRID_SIDE; side <= Constants.MAX_GRID_SIDE; ++side) {
+            if (side != gridSide && Gdx.input.isKeyJustPressed(Input.Keys.NUM_0 + side)) {
+                gridSide = side;
+                grid.dispose();
+                createGrid();
+            }
         }
 
         if (Gdx.input.isKeyJustPressed(Input.Keys.ESCAPE))
@@ -243,6 +319,11 @@ public class FirstScreen implements Screen {
         // Resize your screen here. The parameters represent the new window size.
         viewport.update(width, height, true);
         camera.update();
+
+        // The grid is drawn scaled down, but the mipmaps of the numbers take care of that.
+        float backBufferScale = Gdx.graphics.getBackBufferScale();
+        gridDensity = BoxTexturePalette.densityFor((int) (viewport.getScreenHeight() * backBufferScale));
+        grid.setDensity(gridDensity);
     }
 
     @Override
@@ -267,7 +348,6 @@ public class FirstScreen implements Screen {
         fontLogo.dispose();
         fontCredits.dispose();
         grid.dispose();
-        frameBuffer.dispose();
         batch.dispose();
     }
 }
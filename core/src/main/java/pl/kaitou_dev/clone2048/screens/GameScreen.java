@@ -11,6 +11,7 @@ import com.badlogic.gdx.utils.viewport.FitViewport;
 import pl.kaitou_dev.clone2048.Clone2048;
 import pl.kaitou_dev.clone2048.Constants;
 import pl.kaitou_dev.clone2048.game_entities.GameGrid;
+import pl.kaitou_dev.clone2048.game_entities.number_box.BoxTexturePalette;
 import pl.kaitou_dev.clone2048.utils.AudioUtils;
 
 /**
@@ -44,10 +45,31 @@ public class GameScreen implements Screen {
     private GameGrid gameGrid;
 
     /**
-     * The default constructor which and sets up the basic components to display the screen.
+     * The length of one side of the {@link GameGrid}, in boxes.
+     */
+    private final int gridSide;
+
+    /**
+     * The number of draw calls issued while drawing the last frame, by the {@link SpriteBatch} and the tiles together.
+     */
+    private int renderCalls;
+
+    /**
+     * The default constructor which and sets up the basic components to display the screen,
+     * with a grid of the default size.
+     * @see Constants#DEFAULT_GRID_SIDE
      */
     public GameScreen() {
+        this(Constants.DEFAULT_GRID_SIDE);
+    }
+
+    /**
+     * A constructor which sets up the basic components to display the screen, with a grid of the chosen size.
+     * @param gridSide The length of one side of the grid, in boxes.
+     */
+    public GameScreen(int gridSide) {
         this.game = Clone2048.getInstance();
+        this.gridSide = gridSide;
 
         camera = new OrthographicCamera();
         camera.setToOrtho(false, Constants.GAME_WIDTH, Constants.GAME_HEIGHT);
@@ -60,7 +82,7 @@ public class GameScreen implements Screen {
 
     @Override
     public void show() {
-        gameGrid = new GameGrid();
+        gameGrid = new GameGrid(true, gridSide);
         gameGrid.setCoords(
             Constants.GAME_WIDTH / 2 - GameGrid.SIZE / 2,
             Constants.GAME_HEIGHT / 2 - GameGrid.SIZE / 2
@@ -73,11 +95,15 @@ public class GameScreen implements Screen {
     public void render(float delta) {
         ScreenUtils.clear(Color.WHITE);
 
+        // The batch is restarted around the tiles, which resets its own counter, so the total is followed instead.
+        int batchCallsBefore = spriteBatch.totalRenderCalls;
+
         spriteBatch.setProjectionMatrix(camera.combined);
         spriteBatch.begin();
         gameGrid.drawGrid(spriteBatch);
         gameGrid.drawBoxes(spriteBatch);
         spriteBatch.end();
+        renderCalls = spriteBatch.totalRenderCalls - batchCallsBefore + gameGrid.getTileRenderCalls();
 
         handleInput();
 
@@ -124,10 +150,34 @@ public class GameScreen implements Screen {
             goToResults(Constants.GameResult.GAME_OVER);
     }
 
+    /**
+     * Gets the number of draw calls issued while drawing the last frame, i.e. flushes of the {@link SpriteBatch},
+     * and the calls drawing the tiles. The tiles are drawn with a shader of their own, so they cannot share the flush
+     * of the batch: a frame takes exactly two calls, a flush of the batch for the background and the slots,
+     * and a call for all the tiles, whatever the size of the grid.
+     * @return The number of draw calls of the last frame.
+     * @see GameGrid#drawBoxes(SpriteBatch)
+     */
+    public int getRenderCalls() {
+        return renderCalls;
+    }
+
+    /**
+     * Gets the {@link GameGrid} of this screen.
+     * @return The grid, or {@code null} until the screen is shown.
+     */
+    public GameGrid getGameGrid() {
+        return gameGrid;
+    }
+
     @Override
     public void resize(int width, int height) {
         viewport.update(width, height, true);
         camera.update();
+
+        // Bake the numbers for the pixels the grid actually covers, which are more than its own on big screens.
+        float backBufferScale = Gdx.graphics.getBackBufferScale();
+        gameGrid.setDensity(BoxTexturePalette.densityFor((int) (viewport.getScreenHeight() * backBufferScale)));
     }
 
     @Override
@@ -7,6 +7,7 @@ import com.badlogic.gdx.Screen;
 import com.badlogic.gdx.graphics.*;
 import com.badlogic.gdx.graphics.g2d.*;
 import com.badlogic.gdx.graphics.glutils.FrameBuffer;
+import com.badlogic.gdx.math.Matrix4;
 import com.badlogic.gdx.utils.ScreenUtils;
 import com.badlogic.gdx.utils.viewport.FitViewport;
 import pl.kaitou_dev.clone2048.Clone2048;
@@ -57,9 +58,20 @@ public class ResultsScreen implements Screen {
     private final Constants.GameResult gameResult;
 
     /**
-     * The sprite that represents the final situation on the {@link GameGrid}.
+     * The frame buffer holding the snapshot of the final situation on the {@link GameGrid}.
+     * It is {@link GameGrid#SIZE} pixels wide, created once and reused by every results screen after the first one.
      */
-    private final Sprite gridSprite;
+    private static FrameBuffer snapshotBuffer;
+
+    /**
+     * The region of {@link #snapshotBuffer} that represents the final situation on the {@link GameGrid}.
+     */
+    private final TextureRegion gridSnapshot;
+
+    /**
+     * The projection which maps the {@link GameGrid} onto {@link #snapshotBuffer}.
+     */
+    private final Matrix4 snapshotProjection = new Matrix4();
 
     /**
      * The default constructor, which prepares the screen
@@ -84,7 +96,7 @@ public class ResultsScreen implements Screen {
         fontText = FontUtils.losevka(30 * Constants.UNIT_FONT_SIZE);
         fontText.setColor(Color.BLACK);
 
-        gridSprite = getGridSprite(grid);
+        gridSnapshot = takeGridSnapshot(grid);
         grid.dispose();
 
         blinker = new Blinker(Constants.DEFAULT_BLINK, Constants.DEFAULT_BLINK, true);
@@ -130,10 +142,10 @@ public class ResultsScreen implements Screen {
                 batch, "Press ENTER to return to the Main Menu", fontText, Constants.GAME_WIDTH / 2, 100
         );
 
-        int w = gridSprite.getRegionWidth() / 2;
-        int h = gridSprite.getRegionHeight() / 2;
+        int w = gridSnapshot.getRegionWidth() / 2;
+        int h = gridSnapshot.getRegionHeight() / 2;
 
-        batch.draw(gridSprite, Constants.GAME_WIDTH / 2 - w / 2, Constants.GAME_HEIGHT / 2 - h / 2, w, h);
+        batch.draw(gridSnapshot, Constants.GAME_WIDTH / 2 - w / 2, Constants.GAME_HEIGHT / 2 - h / 2, w, h);
         batch.end();
 
         handleInput();
@@ -150,36 +162,43 @@ public class ResultsScreen implements Screen {
     }
 
     /**
-     * Turns the {@link GameGrid} into a sprite, for resource efficiency.
+     * Renders the {@link GameGrid} into {@link #snapshotBuffer}, for resource efficiency.
+     * The snapshot stays on the GPU, and only covers the grid itself.
      * @param grid The {@code GameGrid} from the previous screen.
-     * @return A {@link Sprite} representing the final situation on the grid.
+     * @return A {@link TextureRegion} representing the final situation on the grid.
      */
-    private Sprite getGridSprite(GameGrid grid) {
-        FrameBuffer frameBuffer = new FrameBuffer(
-            Pixmap.Format.RGBA8888, Constants.GAME_WIDTH, Constants.GAME_HEIGHT, true
-        );
+    private TextureRegion takeGridSnapshot(GameGrid grid) {
+        if (snapshotBuffer == null)
+            snapshotBuffer = new FrameBuffer(Pixmap.Format.RGBA8888, GameGrid.SIZE, GameGrid.SIZE, false);
 
-        frameBuffer.begin();
+        snapshotProjection.setToOrtho2D(grid.getPosX(), grid.getPosY(), GameGrid.SIZE, GameGrid.SIZE);
+
+        snapshotBuffer.begin();
         Gdx.gl.glClearColor(1, 1, 1, 0);
         Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
-        batch.setProjectionMatrix(camera.combined);
+        batch.setProjectionMatrix(snapshotProjection);
         batch.begin();
 
         grid.drawGrid(batch);
         grid.drawBoxes(batch);
 
         batch.end();
-        Pixmap pixmap = Pixmap.createFromFrameBuffer(0, 0, frameBuffer.getWidth(), frameBuffer.getHeight());
-        frameBuffer.end();
-        frameBuffer.dispose();
+        snapshotBuffer.end();
+
+        TextureRegion snapshot = new TextureRegion(snapshotBuffer.getColorBufferTexture());
+        snapshot.flip(false, true);
 
-        Texture tex = new Texture(pixmap);
-        pixmap.dispose();
+        return snapshot;
+    }
 
-        Sprite sprite = new Sprite(tex);
-        sprite.flip(false, true);
+    /**
+     * Disposes of the frame buffer shared by the results screens. To be called when the game closes.
+     */
+    public static void disposeSnapshotBuffer() {
+        if (snapshotBuffer == null) return;
 
-        return sprite;
+        snapshotBuffer.dispose();
+        snapshotBuffer = null;
     }
 
     @Override
@@ -201,7 +220,6 @@ public class ResultsScreen implements Screen {
     public void dispose() {
         fontHeading.dispose();
         fontText.dispose();
-        gridSprite.getTexture().dispose();
         batch.dispose();
     }
 }
@@ -2,6 +2,7 @@ package pl.kaitou_dev.clone2048.utils;
 
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input;
+import pl.kaitou_dev.clone2048.engine.Directions;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -16,6 +17,16 @@ public class ControlUtils {
      */
     private static final Map<Integer, Directions> keysDirectionsMap;
 
+    /**
+     * The Gdx-encoded direction keys, in the same order as {@link #KEY_DIRECTIONS}.
+     */
+    private static final int[] DIRECTION_KEYS;
+
+    /**
+     * The {@link Directions} mapped from the keys of {@link #DIRECTION_KEYS}, at the same indices.
+     */
+    private static final Directions[] KEY_DIRECTIONS;
+
     static {
         keysDirectionsMap = new HashMap<>() {{
             // Up
@@ -34,6 +45,16 @@ public class ControlUtils {
             put(Input.Keys.RIGHT, Directions.RIGHT);
             put(Input.Keys.D, Directions.RIGHT);
         }};
+
+        DIRECTION_KEYS = new int[keysDirectionsMap.size()];
+        KEY_DIRECTIONS = new Directions[keysDirectionsMap.size()];
+
+        int i = 0;
+        for (Map.Entry<Integer, Directions> entry : keysDirectionsMap.entrySet()) {
+            DIRECTION_KEYS[i] = entry.getKey();
+            KEY_DIRECTIONS[i] = entry.getValue();
+            ++i;
+        }
     }
 
     /**
@@ -44,6 +65,19 @@ public class ControlUtils {
         return keysDirectionsMap.keySet();
     }
 
+    /**
+     * Gets the direction whose key has <b>just</b> been pressed. Unlike iterating over
+     * {@link #getDirectionKeys()}, it does not allocate anything, so it can be called every frame.
+     * @return One of the {@link Directions} whose key has just been pressed, or {@code null} if there is none.
+     */
+    public static Directions getJustPressedDirection() {
+        for (int i = 0; i < DIRECTION_KEYS.length; ++i) {
+            if (Gdx.input.isKeyJustPressed(DIRECTION_KEYS[i])) return KEY_DIRECTIONS[i];
+        }
+
+        return null;
+    }
+
     /**
      * Gets a corresponding of the {@link Directions}, based on the Gdx key code provided.
      * @param gdxKey Gdx-encoded key.
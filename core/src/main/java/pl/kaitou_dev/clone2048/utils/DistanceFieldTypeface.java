@@ -0,0 +1,376 @@
+package pl.kaitou_dev.clone2048.utils;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.DistanceFieldFont;
+import com.badlogic.gdx.graphics.g2d.PixmapPacker;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.g2d.freetype.FreeTypeFontGenerator;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/**
+ * A typeface rasterized once into a single atlas of signed distance fields, which serves fonts of every size.
+ * <p>
+ * The glyphs are rasterized with FreeType at {@link #BASE_SIZE}, and turned into distance fields
+ * spreading {@link #SPREAD} pixels around their outlines, on a background thread, as neither touches OpenGL.
+ * The atlas is uploaded the first time a font is created, and every font then shares it, only scaling its glyphs,
+ * so creating a font of another size does no FreeType work and takes no glyph memory.
+ * </p>
+ * <p>
+ * The fonts have to be drawn with the shader of {@link DistanceFieldFont}, which
+ * {@link FontUtils#useDistanceFieldShader(com.badlogic.gdx.graphics.g2d.SpriteBatch)} sets up.
+ * </p>
+ */
+public class DistanceFieldTypeface implements Disposable {
+    /**
+     * The size the glyphs are rasterized at, in pixels. Fonts of any other size scale them.
+     */
+    public static final int BASE_SIZE = 64;
+
+    /**
+     * The distance from the outlines of the glyphs over which their distance fields fall off, in pixels of the atlas.
+     */
+    public static final int SPREAD = 8;
+
+    /**
+     * The length of a side of a page of the atlas, in pixels.
+     */
+    private static final int PAGE_SIZE = 1024;
+
+    /**
+     * The squared distance standing for infinity in the distance transforms.
+     */
+    private static final double INFINITY = 1e20;
+
+    /**
+     * The name of the font file in the assets/fonts directory, and of the fonts of this typeface.
+     */
+    private final String filename;
+
+    /**
+     * The thread rasterizing the glyphs, or {@code null} once the atlas has been uploaded.
+     */
+    private Thread rasterizer;
+
+    /**
+     * The data of the glyphs, at {@link #BASE_SIZE}, published by {@link #rasterizer} once it has finished.
+     */
+    private volatile BitmapFont.BitmapFontData data;
+
+    /**
+     * The packer holding the pages of the distance fields until they are uploaded.
+     */
+    private volatile PixmapPacker packer;
+
+    /**
+     * The failure of {@link #rasterizer}, if any, rethrown on the rendering thread.
+     */
+    private volatile RuntimeException failure;
+
+    /**
+     * The uploaded pages of the atlas, shared by all the fonts of this typeface.
+     */
+    private Array<TextureRegion> regions;
+
+    /**
+     * The constructor, which starts rasterizing the typeface in the background at once.
+     * @param filename The filename of the font file.
+     *                 WARNING: it is NOT a path, it is the name of the file in the assets/fonts directory
+     */
+    public DistanceFieldTypeface(String filename) {
+        this.filename = filename;
+
+        rasterizer = Thread.ofPlatform().name("typeface-rasterizer-" + filename).daemon().start(this::rasterize);
+    }
+
+    /**
+     * Rasterizes the glyphs with FreeType, and turns them into distance fields. Touches no OpenGL state.
+     */
+    private void rasterize() {
+        try {
+            PixmapPacker glyphPacker = new PixmapPacker(PAGE_SIZE, PAGE_SIZE, Pixmap.Format.RGBA8888, 2, false);
+
+            FreeTypeFontGenerator generator = new FreeTypeFontGenerator(Gdx.files.internal("fonts/" + filename));
+            FreeTypeFontGenerator.FreeTypeFontParameter parameter = new FreeTypeFontGenerator.FreeTypeFontParameter();
+            parameter.size = BASE_SIZE;
+            parameter.packer = glyphPacker;
+            parameter.padTop = SPREAD;
+            parameter.padLeft = SPREAD;
+            parameter.padBottom = SPREAD;
+            parameter.padRight = SPREAD;
+
+            // Seen as plain font data, as the FreeType one hides its glyphs behind a field of the same name.
+            BitmapFont.BitmapFontData glyphData = generator.generateData(parameter);
+            generator.dispose();
+
+            DistanceField field = new DistanceField();
+            for (BitmapFont.Glyph[] page : glyphData.glyphs) {
+                if (page == null) continue;
+
+                for (BitmapFont.Glyph glyph : page) {
+                    if (glyph == null || glyph.width == 0 || glyph.height == 0) continue;
+
+                    Pixmap pixmap = glyphPacker.getPages().get(glyph.page).getPixmap();
+                    field.apply(pixmap, glyph.srcX, glyph.srcY, glyph.width, glyph.height);
+                }
+            }
+
+            packer = glyphPacker;
+            data = glyphData;
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+    }
+
+    /**
+     * Waits for the glyphs to be rasterized, and uploads the atlas. Has to be called on the rendering thread.
+     * @throws GdxRuntimeException if the glyphs could not be rasterized.
+     */
+    private void upload() throws GdxRuntimeException {
+        if (rasterizer == null) return;
+
+        try {
+            rasterizer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GdxRuntimeException("Interrupted while rasterizing " + filename);
+        }
+        rasterizer = null;
+
+        if (failure != null) throw new GdxRuntimeException("Could not rasterize " + filename, failure);
+
+        regions = new Array<>();
+        packer.updateTextureRegions(regions, Texture.TextureFilter.Linear, Texture.TextureFilter.Linear, false);
+        // The pages which have been uploaded are disposed of along with their textures.
+        packer.dispose();
+        packer = null;
+    }
+
+    /**
+     * Creates a font of this typeface. The first call waits for the glyphs to be rasterized, and uploads them;
+     * every later one only scales them. Has to be called on the rendering thread.
+     * @param size The size of the font, in pixels.
+     * @return The font, sharing the atlas of this typeface, which it does not dispose of.
+     * @throws GdxRuntimeException if the glyphs could not be rasterized.
+     */
+    public DistanceFieldFont createFont(int size) throws GdxRuntimeException {
+        upload();
+
+        BitmapFont.BitmapFontData scaled = new BitmapFont.BitmapFontData();
+        scaled.name = filename + "-sdf-" + size;
+        scaled.imagePaths = data.imagePaths;
+        scaled.fontFile = data.fontFile;
+        scaled.flipped = data.flipped;
+        scaled.padTop = data.padTop;
+        scaled.padRight = data.padRight;
+        scaled.padBottom = data.padBottom;
+        scaled.padLeft = data.padLeft;
+        scaled.lineHeight = data.lineHeight;
+        scaled.capHeight = data.capHeight;
+        scaled.ascent = data.ascent;
+        scaled.descent = data.descent;
+        scaled.down = data.down;
+        scaled.blankLineScale = data.blankLineScale;
+        scaled.markupEnabled = data.markupEnabled;
+        scaled.cursorX = data.cursorX;
+        scaled.missingGlyph = data.missingGlyph;
+        scaled.spaceXadvance = data.spaceXadvance;
+        scaled.xHeight = data.xHeight;
+        scaled.breakChars = data.breakChars;
+        scaled.xChars = data.xChars;
+        scaled.capChars = data.capChars;
+        // The glyphs themselves are only ever scaled while being laid out, so they can be shared.
+        System.arraycopy(data.glyphs, 0, scaled.glyphs, 0, data.glyphs.length);
+        scaled.setScale((float) size / BASE_SIZE);
+
+        DistanceFieldFont font = new DistanceFieldFont(scaled, regions, false);
+        font.setDistanceFieldSmoothing(SPREAD);
+        return font;
+    }
+
+    @Override
+    public void dispose() {
+        if (rasterizer != null) {
+            // The glyphs are discarded as soon as they are rasterized, since nobody will upload them.
+            try {
+                rasterizer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (packer != null) packer.dispose();
+            rasterizer = null;
+        }
+
+        if (regions != null) {
+            for (TextureRegion region : regions) region.getTexture().dispose();
+            regions = null;
+        }
+    }
+
+    /**
+     * Turns the coverage of glyphs into signed distance fields, with the exact Euclidean distance transform
+     * of Felzenszwalb and Huttenlocher. It reuses its buffers between the glyphs, and grows them as needed.
+     * It only touches the pixmaps, never OpenGL, so it can be tested on its own.
+     */
+    static class DistanceField {
+        /**
+         * The squared distances from the pixels to the nearest pixel inside the glyph.
+         */
+        private double[] toInside = new double[0];
+
+        /**
+         * The squared distances from the pixels to the nearest pixel outside the glyph.
+         */
+        private double[] toOutside = new double[0];
+
+        /**
+         * The coverage of the pixels of the glyph, from 0 to 1.
+         */
+        private float[] coverage = new float[0];
+
+        /**
+         * The input of a single one-dimensional transform.
+         */
+        private double[] line = new double[0];
+
+        /**
+         * The output of a single one-dimensional transform.
+         */
+        private double[] transformed = new double[0];
+
+        /**
+         * The positions of the parabolas of the lower envelope.
+         */
+        private int[] vertices = new int[0];
+
+        /**
+         * The boundaries between the parabolas of the lower envelope.
+         */
+        private double[] boundaries = new double[0];
+
+        /**
+         * Replaces the coverage of a glyph on a page with its signed distance field, in white,
+         * with the alpha of 0.5 on its outline, rising inside it and falling outside of it over {@link #SPREAD} pixels.
+         * @param pixmap The page holding the glyph.
+         * @param x The X coordinate of the top-left corner of the glyph on the page.
+         * @param y The Y coordinate of the top-left corner of the glyph on the page.
+         * @param width The width of the glyph, including its padding.
+         * @param height The height of the glyph, including its padding.
+         */
+        void apply(Pixmap pixmap, int x, int y, int width, int height) {
+            int size = width * height;
+            if (coverage.length < size) {
+                coverage = new float[size];
+                toInside = new double[size];
+                toOutside = new double[size];
+            }
+
+            int longest = Math.max(width, height);
+            if (line.length < longest) {
+                line = new double[longest];
+                transformed = new double[longest];
+                vertices = new int[longest];
+                boundaries = new double[longest + 1];
+            }
+
+            for (int row = 0; row < height; ++row) {
+                for (int col = 0; col < width; ++col) {
+                    int i = row * width + col;
+                    coverage[i] = (pixmap.getPixel(x + col, y + row) & 0xFF) / 255f;
+
+                    boolean inside = coverage[i] >= 0.5f;
+                    toInside[i] = inside ? 0 : INFINITY;
+                    toOutside[i] = inside ? INFINITY : 0;
+                }
+            }
+
+            transform(toInside, width, height);
+            transform(toOutside, width, height);
+
+            pixmap.setBlending(Pixmap.Blending.None);
+            for (int row = 0; row < height; ++row) {
+                for (int col = 0; col < width; ++col) {
+                    int i = row * width + col;
+
+                    // The outline passes between the pixels, half a pixel from the centers of those along it.
+                    float distance = coverage[i] > 0 && coverage[i] < 1
+                        ? 0.5f - coverage[i]
+                        : coverage[i] >= 0.5f
+                            ? 0.5f - (float) Math.sqrt(toOutside[i])
+                            : (float) Math.sqrt(toInside[i]) - 0.5f;
+
+                    float value = Math.min(Math.max(0.5f - distance / (2 * SPREAD), 0), 1);
+                    pixmap.drawPixel(x + col, y + row, 0xFFFFFF00 | Math.round(value * 255));
+                }
+            }
+        }
+
+        /**
+         * Transforms a grid of zeros and infinities into the squared distances to the nearest zeros,
+         * first along its columns, and then along its rows.
+         * @param grid The grid, transformed in place.
+         * @param width The width of the grid.
+         * @param height The height of the grid.
+         */
+        private void transform(double[] grid, int width, int height) {
+            for (int col = 0; col < width; ++col) {
+                for (int row = 0; row < height; ++row) line[row] = grid[row * width + col];
+                transformLine(height);
+                for (int row = 0; row < height; ++row) grid[row * width + col] = transformed[row];
+            }
+
+            for (int row = 0; row < height; ++row) {
+                System.arraycopy(grid, row * width, line, 0, width);
+                transformLine(width);
+                System.arraycopy(transformed, 0, grid, row * width, width);
+            }
+        }
+
+        /**
+         * Computes the one-dimensional squared distance transform of {@link #line} into {@link #transformed},
+         * as the lower envelope of the parabolas rooted at its samples.
+         * @param length The number of the samples.
+         */
+        private void transformLine(int length) {
+            int k = 0;
+            vertices[0] = 0;
+            boundaries[0] = -INFINITY;
+            boundaries[1] = INFINITY;
+
+            for (int q = 1; q < length; ++q) {
+                double s = intersection(q, vertices[k]);
+                while (s <= boundaries[k]) {
+                    --k;
+                    s = intersection(q, vertices[k]);
+                }
+
+                ++k;
+                vertices[k] = q;
+                boundaries[k] = s;
+                boundaries[k + 1] = INFINITY;
+            }
+
+            k = 0;
+            for (int q = 0; q < length; ++q) {
+                while (boundaries[k + 1] < q) ++k;
+
+                int vertex = vertices[k];
+                transformed[q] = (q - vertex) * (q - vertex) + line[vertex];
+            }
+        }
+
+        /**
+         * Computes where the parabolas rooted at two samples of {@link #line} intersect.
+         * @param q The position of the later sample.
+         * @param p The position of the earlier sample.
+         * @return The position of the intersection.
+         */
+        private double intersection(int q, int p) {
+            return ((line[q] + q * q) - (line[p] + p * p)) / (2.0 * q - 2.0 * p);
+        }
+    }
+}
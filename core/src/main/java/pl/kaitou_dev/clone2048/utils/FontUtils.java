@@ -1,52 +1,99 @@
 package pl.kaitou_dev.clone2048.utils;
 
-import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
-import com.badlogic.gdx.graphics.g2d.freetype.FreeTypeFontGenerator;
+import com.badlogic.gdx.graphics.g2d.DistanceFieldFont;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
 
 /**
  * Contains various font-related utilities,
  * as well as methods that produce {@link BitmapFont}s for the TTF fonts provided with the game.
+ * <p>
+ * Every typeface is rasterized only once, into a {@link DistanceFieldTypeface}, which then serves fonts of any size.
+ * </p>
  */
 public class FontUtils {
     /**
-     * Gets a font from the "fonts" directory, given its filename,
-     * turning it into a {@link BitmapFont} of provided size.
-     * @param filename The filename of the font file.
-     *                 WARNING: it is NOT a path, it is the name of the file in the assets/fonts directory
-     * @param size The size value for the {@code BitmapFont} to be produced.
-     * @return The TTF font as a {@code BitmapFont}
+     * The typeface of the "losevka" font, or {@code null} until it is first needed.
      */
-    private static BitmapFont getFont(String filename, int size) {
-        FreeTypeFontGenerator generator = new FreeTypeFontGenerator(Gdx.files.internal("fonts/" + filename));
-        FreeTypeFontGenerator.FreeTypeFontParameter parameter = new FreeTypeFontGenerator.FreeTypeFontParameter();
-        parameter.size = size;
+    private static DistanceFieldTypeface losevka;
 
-        BitmapFont font = generator.generateFont(parameter);
-        generator.dispose();
+    /**
+     * The typeface of the "monofett" font, or {@code null} until it is first needed.
+     */
+    private static DistanceFieldTypeface monofett;
 
-        font.getRegion().getTexture().setFilter(Texture.TextureFilter.Linear, Texture.TextureFilter.Linear);
+    /**
+     * The shader drawing the distance-field fonts, shared by all the batches, or {@code null} until it is first needed.
+     */
+    private static ShaderProgram distanceFieldShader;
 
-        return font;
+    /**
+     * Starts rasterizing all the typefaces in the background, so that they are ready, or at least closer to it,
+     * by the time the first fonts are created. To be called when the game starts.
+     */
+    public static void prepare() {
+        getLosevka();
+        getMonofett();
+    }
 
+    /**
+     * Gets the typeface of the "losevka" font, starting to rasterize it if it has not been yet.
+     * @return The typeface of the "losevka" font.
+     */
+    private static DistanceFieldTypeface getLosevka() {
+        if (losevka == null) losevka = new DistanceFieldTypeface("losevka.ttf");
+        return losevka;
+    }
+
+    /**
+     * Gets the typeface of the "monofett" font, starting to rasterize it if it has not been yet.
+     * @return The typeface of the "monofett" font.
+     */
+    private static DistanceFieldTypeface getMonofett() {
+        if (monofett == null) monofett = new DistanceFieldTypeface("Monofett-Regular.ttf");
+        return monofett;
     }
 
     /**
      * Gets the "losevka" font.
      * @param size The size of the produced {@link BitmapFont}.
-     * @return The "losevka" font as a {@link BitmapFont}
+     * @return The "losevka" font as a {@link BitmapFont}, drawn from the distance fields of its typeface.
      */
     public static BitmapFont losevka(int size) {
-        return getFont("losevka.ttf", size);
+        return getLosevka().createFont(size);
     }
 
     /**
      * Gets the "monofett" font.
      * @param size The size of the produced {@link BitmapFont}.
-     * @return The "monofett" font as a {@link BitmapFont}
+     * @return The "monofett" font as a {@link BitmapFont}, drawn from the distance fields of its typeface.
      */
     public static BitmapFont monofett(int size) {
-        return getFont("Monofett-Regular.ttf", size);
+        return getMonofett().createFont(size);
+    }
+
+    /**
+     * Makes a batch draw with the shader of the distance-field fonts, unless it already does.
+     * The shader draws any other texture just like the default one, so the batch can keep it.
+     * @param batch The batch to draw the fonts with.
+     */
+    public static void useDistanceFieldShader(SpriteBatch batch) {
+        if (distanceFieldShader == null) distanceFieldShader = DistanceFieldFont.createDistanceFieldShader();
+
+        if (batch.getShader() != distanceFieldShader) batch.setShader(distanceFieldShader);
+    }
+
+    /**
+     * Disposes of the typefaces, and of the shader of their fonts. To be called when the game closes.
+     */
+    public static void dispose() {
+        if (losevka != null) losevka.dispose();
+        if (monofett != null) monofett.dispose();
+        if (distanceFieldShader != null) distanceFieldShader.dispose();
+
+        losevka = null;
+        monofett = null;
+        distanceFieldShader = null;
     }
 }
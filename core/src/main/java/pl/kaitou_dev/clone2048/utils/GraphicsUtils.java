@@ -3,6 +3,7 @@ package pl.kaitou_dev.clone2048.utils;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.Pixmap;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.DistanceFieldFont;
 import com.badlogic.gdx.graphics.g2d.GlyphLayout;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 
@@ -52,11 +53,14 @@ public class GraphicsUtils {
      *              It is required to call {@link SpriteBatch#begin()} sometime before,
      *              and {@link SpriteBatch#end()} sometime after calling this method.
      * @param text The text to be drawn.
-     * @param font The font for the text.
+     * @param font The font for the text. If it is a {@link DistanceFieldFont},
+     *             then the batch is switched to its shader, and keeps it afterward.
      * @param posX The X position of the central point of the text.
      * @param posY The Y position of the central point of the text.
      */
     public static void drawCenteredTextLine(SpriteBatch batch, String text, BitmapFont font, int posX, int posY) {
+        if (font instanceof DistanceFieldFont) FontUtils.useDistanceFieldShader(batch);
+
         GLYPH_LAYOUT.setText(font, text);
         int textWidth = (int) GLYPH_LAYOUT.width;
         int textHeight = (int) GLYPH_LAYOUT.height;
@@ -0,0 +1,34 @@
+package pl.kaitou_dev.clone2048.utils;
+
+import pl.kaitou_dev.clone2048.engine.BoardSnapshot;
+import pl.kaitou_dev.clone2048.engine.Directions;
+import pl.kaitou_dev.clone2048.engine.strategy.MoveStrategy;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * A {@link MoveStrategy} which lets the player choose the moves with the direction keys.
+ * It does not wait for a key: until one is <b>just</b> pressed, it chooses no move at all.
+ * @see ControlUtils#getJustPressedDirection()
+ */
+public class KeyboardStrategy implements MoveStrategy {
+    @Override
+    public Directions chooseMove(long board, RandomGenerator random) {
+        return ControlUtils.getJustPressedDirection();
+    }
+
+    @Override
+    public Directions chooseMove(BoardSnapshot board, RandomGenerator random) {
+        return ControlUtils.getJustPressedDirection();
+    }
+
+    @Override
+    public boolean supportsSide(int side) {
+        return true;
+    }
+
+    @Override
+    public boolean readsBoard() {
+        return false;
+    }
+}
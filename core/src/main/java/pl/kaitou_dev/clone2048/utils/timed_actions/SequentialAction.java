@@ -1,7 +1,6 @@
 package pl.kaitou_dev.clone2048.utils.timed_actions;
 
 import java.util.ArrayDeque;
-import java.util.List;
 import java.util.Queue;
 
 /**
@@ -81,20 +80,20 @@ public class SequentialAction extends Action {
     public void reset() {
         super.reset();
 
-        List<Action> stillUndone = actions.stream().toList();
-        actions.clear();
-
-        actionsDone.stream().parallel().forEach(Action::reset);
-        actions.addAll(actionsDone);
-
+        // Line up all the children in their original order behind the finished ones, then restart them all.
+        // Only the queues are reused, so that restarting does not allocate anything.
         if (currentAction != null) {
-            currentAction.reset();
-            actions.add(currentAction);
+            actionsDone.add(currentAction);
+            currentAction = null;
         }
 
-        currentAction = null;
+        while (!actions.isEmpty()) actionsDone.add(actions.poll());
 
-        actions.addAll(stillUndone);
+        while (!actionsDone.isEmpty()) {
+            Action action = actionsDone.poll();
+            action.reset();
+            actions.add(action);
+        }
 
     }
 }
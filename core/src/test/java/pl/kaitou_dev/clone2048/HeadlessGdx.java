@@ -0,0 +1,43 @@
+package pl.kaitou_dev.clone2048;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import pl.kaitou_dev.clone2048.utils.FontUtils;
+
+/**
+ * Starts libGDX without a window for the tests, once per JVM, with a {@link CountingGL} in place of OpenGL.
+ * The assets are read from the classpath, and the caches are written to the working directory.
+ */
+public final class HeadlessGdx {
+    /**
+     * The stub of OpenGL installed by {@link #start()}, or {@code null} until then.
+     */
+    private static CountingGL gl;
+
+    /**
+     * A private constructor, as this class only holds the shared headless application.
+     */
+    private HeadlessGdx() {}
+
+    /**
+     * Starts the headless application and prepares the fonts, unless it has been done before.
+     * @return The stub of OpenGL, shared by all the tests.
+     */
+    public static synchronized CountingGL start() {
+        if (gl != null) return gl;
+
+        HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+        // The tests drive the game themselves, so the application never renders on its own.
+        config.updatesPerSecond = -1;
+        new HeadlessApplication(new ApplicationAdapter() {}, config);
+
+        gl = new CountingGL();
+        Gdx.gl = gl;
+        Gdx.gl20 = gl;
+
+        FontUtils.prepare();
+        return gl;
+    }
+}
@@ -0,0 +1,249 @@
+package pl.kaitou_dev.clone2048.game_entities;
+
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import pl.kaitou_dev.clone2048.Constants;
+import pl.kaitou_dev.clone2048.HeadlessGdx;
+import pl.kaitou_dev.clone2048.engine.BoardSnapshot;
+import pl.kaitou_dev.clone2048.engine.Directions;
+import pl.kaitou_dev.clone2048.engine.strategy.MoveStrategy;
+import pl.kaitou_dev.clone2048.game_entities.number_box.BoxColorPalette;
+import pl.kaitou_dev.clone2048.game_entities.number_box.BoxTexturePalette;
+import pl.kaitou_dev.clone2048.game_entities.number_box.BoxTexturePalettePool;
+import pl.kaitou_dev.clone2048.game_entities.number_box.NumberBox;
+
+import java.lang.management.ManagementFactory;
+import java.util.random.RandomGenerator;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Checks that the steady-state game loop does not allocate: once warmed up, scripted games of 1000 moves,
+ * chosen by the controller of the grid and drawn frame after frame until each is animated to its end, must stay
+ * within a tiny budget of allocated bytes, both on the game thread and on the
+ * {@link pl.kaitou_dev.clone2048.engine.MovePlanner} thread.
+ * <p>
+ * Creating a grid allocates, so whenever a scripted game ends, a new one is started outside the measurement.
+ * All the numbers are baked during the warm-up, since baking a number the first time it shows up allocates as well.
+ * </p>
+ */
+class GameGridAllocationTest {
+    /**
+     * The number of the measured moves.
+     */
+    private static final int MOVES = 1000;
+
+    /**
+     * The number of the moves played before the measurement, to let the JIT compiler and the pools settle.
+     */
+    private static final int WARM_UP_MOVES = 3000;
+
+    /**
+     * The highest number of bytes allocated per move, on average, by either thread.
+     */
+    private static final double BYTES_PER_MOVE_BUDGET = 8;
+
+    /**
+     * The time of a single frame, in seconds.
+     */
+    private static final float FRAME_SECONDS = 1 / 60f;
+
+    /**
+     * The directions of the scripted moves, in the order of preference.
+     */
+    private static final Directions[] SCRIPT = {Directions.DOWN, Directions.LEFT, Directions.RIGHT, Directions.UP};
+
+    /**
+     * The name of the threads of the move planners.
+     */
+    private static final String PLANNER_THREAD_NAME = "move-planner";
+
+    /**
+     * The bean measuring the allocations of every thread.
+     */
+    private static com.sun.management.ThreadMXBean threads;
+
+    /**
+     * The batch the grids are drawn with.
+     */
+    private static SpriteBatch batch;
+
+    /**
+     * The palette shared by all the grids, held for the whole test, so that its baked numbers are kept.
+     */
+    private static BoxTexturePalette palette;
+
+    /**
+     * Starts libGDX, and bakes every number a grid may show.
+     */
+    @BeforeAll
+    static void setUp() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        HeadlessGdx.start();
+        batch = new SpriteBatch();
+
+        palette = BoxTexturePalettePool.obtain(BoxColorPalette.COLORFUL, true, NumberBox.FONT_SIZE);
+        for (long value = 2; value <= Constants.MAX_VALUE; value *= 2) palette.getLabel(value);
+        palette.bakePending(Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns the palette held by the test, and disposes of the batch.
+     */
+    @AfterAll
+    static void tearDown() {
+        if (palette != null) BoxTexturePalettePool.free(palette);
+        if (batch != null) batch.dispose();
+    }
+
+    /**
+     * Plays scripted games on a grid of the provided size, and checks the allocations of their moves.
+     * @param side The length of one side of the grid.
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {4, 6})
+    void steadyStateMovesDoNotAllocate(int side) {
+        play(side, WARM_UP_MOVES);
+        long[] allocated = play(side, MOVES);
+
+        double gameBytesPerMove = (double) allocated[0] / MOVES;
+        double plannerBytesPerMove = (double) allocated[1] / MOVES;
+
+        assertTrue(gameBytesPerMove <= BYTES_PER_MOVE_BUDGET,
+            "The game thread allocated " + allocated[0] + " bytes in " + MOVES + " moves on a " + side + "x" + side
+                + " grid");
+        assertTrue(plannerBytesPerMove <= BYTES_PER_MOVE_BUDGET,
+            "The planner thread allocated " + allocated[1] + " bytes in " + MOVES + " moves on a " + side + "x" + side
+                + " grid");
+    }
+
+    /**
+     * Plays scripted games until the requested number of moves, starting a new game whenever one ends.
+     * Every frame goes the way of the game screen: the grid is drawn, its controller chooses a move, and the
+     * animations are updated, until the last move has been animated to its end.
+     * @param side The length of one side of the grid.
+     * @param moves The number of the moves to play.
+     * @return The bytes allocated by the frames on the game thread, and by the planner threads.
+     */
+    private static long[] play(int side, int moves) {
+        long gameBytes = 0;
+        long plannerBytes = 0;
+        int played = 0;
+
+        while (played < moves) {
+            GameGrid grid = new GameGrid(true, side);
+            grid.setCoords(0, 0);
+
+            ScriptedController controller = new ScriptedController(grid, moves - played);
+            grid.setController(controller);
+
+            long[] plannerIds = findPlannerThreads();
+            long[] plannerBefore = threads.getThreadAllocatedBytes(plannerIds);
+
+            while (!grid.isGameOver() && !grid.isVictory() && (controller.remaining > 0 || grid.isBusy())) {
+                long before = threads.getCurrentThreadAllocatedBytes();
+
+                batch.begin();
+                grid.drawGrid(batch);
+                grid.drawBoxes(batch);
+                batch.end();
+
+                grid.handleInput();
+                grid.update(FRAME_SECONDS);
+
+                gameBytes += threads.getCurrentThreadAllocatedBytes() - before;
+            }
+
+            long[] plannerAfter = threads.getThreadAllocatedBytes(plannerIds);
+            for (int i = 0; i < plannerIds.length; ++i) {
+                // The planners of the grids disposed of in the meantime are gone, and planned nothing anyway.
+                if (plannerBefore[i] >= 0 && plannerAfter[i] >= 0) plannerBytes += plannerAfter[i] - plannerBefore[i];
+            }
+
+            played += controller.chosen;
+            grid.dispose();
+        }
+
+        return new long[] {gameBytes, plannerBytes};
+    }
+
+    /**
+     * Plays the first legal direction of the {@link #SCRIPT} whenever the grid is ready for a move, like a player
+     * pressing the keys, until it has played the requested number of moves.
+     */
+    private static class ScriptedController implements MoveStrategy {
+        /**
+         * The grid being played.
+         */
+        private final GameGrid grid;
+
+        /**
+         * The number of the moves left to play.
+         */
+        private int remaining;
+
+        /**
+         * The number of the moves played so far.
+         */
+        private int chosen;
+
+        /**
+         * The default constructor.
+         * @param grid The grid to play.
+         * @param moves The number of the moves to play.
+         */
+        private ScriptedController(GameGrid grid, int moves) {
+            this.grid = grid;
+            this.remaining = moves;
+        }
+
+        @Override
+        public Directions chooseMove(long board, RandomGenerator random) {
+            if (remaining == 0 || grid.isBusy()) return null;
+
+            for (Directions direction : SCRIPT) {
+                if (grid.isMovementPossible(direction)) {
+                    --remaining;
+                    ++chosen;
+                    return direction;
+                }
+            }
+
+            return null;
+        }
+
+        @Override
+        public Directions chooseMove(BoardSnapshot board, RandomGenerator random) {
+            return chooseMove(0, random);
+        }
+
+        @Override
+        public boolean supportsSide(int side) {
+            return true;
+        }
+
+        @Override
+        public boolean readsBoard() {
+            return false;
+        }
+    }
+
+    /**
+     * Finds the threads of all the live move planners.
+     * @return The IDs of the threads.
+     */
+    private static long[] findPlannerThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+            .filter(thread -> thread.getName().equals(PLANNER_THREAD_NAME))
+            .mapToLong(Thread::threadId)
+            .toArray();
+    }
+}
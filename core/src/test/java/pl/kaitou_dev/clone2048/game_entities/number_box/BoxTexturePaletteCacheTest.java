@@ -0,0 +1,167 @@
+package pl.kaitou_dev.clone2048.game_entities.number_box;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.PixmapIO;
+import com.badlogic.gdx.math.MathUtils;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import pl.kaitou_dev.clone2048.Constants;
+import pl.kaitou_dev.clone2048.CountingGL;
+import pl.kaitou_dev.clone2048.HeadlessGdx;
+import pl.kaitou_dev.clone2048.utils.FontUtils;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Checks the disk cache of the {@link BoxTexturePalette}: that a palette reloads the atlas page, and the numbers
+ * baked onto it, which an identical palette has left behind, and that it bakes everything again instead when
+ * the cache is damaged. A palette loaded from the cache draws nothing, while a baked one draws its background.
+ */
+class BoxTexturePaletteCacheTest {
+    /**
+     * The density of the palettes of the tests, which no other test uses, so that no other palette touches
+     * their cache.
+     */
+    private static final float DENSITY = 2.5f;
+
+    /**
+     * The longest time the cache is waited for, in milliseconds, as it is written on a background thread.
+     */
+    private static final long CACHE_TIMEOUT_MILLIS = 10_000;
+
+    /**
+     * The time between two checks whether the cache has been written, in milliseconds.
+     */
+    private static final long CACHE_POLL_MILLIS = 10;
+
+    /**
+     * The stub of OpenGL counting the draw calls.
+     */
+    private static CountingGL gl;
+
+    /**
+     * Starts libGDX.
+     */
+    @BeforeAll
+    static void setUp() {
+        gl = HeadlessGdx.start();
+    }
+
+    /**
+     * Deletes the cache left behind by the earlier tests, and by the earlier runs.
+     */
+    @BeforeEach
+    void clearCache() {
+        Gdx.files.local(BoxTexturePalette.CACHE_DIRECTORY).deleteDirectory();
+    }
+
+    /**
+     * Creates a palette of the tests, with numbers.
+     * @return The new palette.
+     */
+    private static BoxTexturePalette newPalette() {
+        return new BoxTexturePalette(
+            BoxColorPalette.COLORFUL, FontUtils.losevka(MathUtils.round(NumberBox.FONT_SIZE * DENSITY)),
+            DENSITY, Constants.MAX_VALUE
+        );
+    }
+
+    /**
+     * Bakes the numbers 2 and 4, and disposes of the palette, which writes them to the cache,
+     * and waits until they have been written.
+     * @return The files of the cache: the atlas page, and the bitmask of the numbers baked onto it.
+     * @throws InterruptedException if the test is interrupted while waiting.
+     */
+    private static FileHandle[] writeCache() throws InterruptedException {
+        BoxTexturePalette palette = newPalette();
+        assertNull(palette.getLabel(2));
+        assertNull(palette.getLabel(4));
+
+        assertFalse(palette.bakePending(Long.MAX_VALUE));
+        assertNotNull(palette.getLabel(2));
+
+        // Other palettes may write their own caches in the meantime, so only the files of this one are waited for.
+        FileHandle pageFile = palette.getCacheFile(".png");
+        FileHandle labelsFile = palette.getCacheFile(".labels");
+        palette.dispose();
+
+        long deadline = System.currentTimeMillis() + CACHE_TIMEOUT_MILLIS;
+
+        // The bitmask is moved in place last, so the page is complete once the bitmask is there.
+        while (!labelsFile.exists()) {
+            if (System.currentTimeMillis() > deadline) fail("The cache has not been written");
+            Thread.sleep(CACHE_POLL_MILLIS);
+        }
+
+        return new FileHandle[] {pageFile, labelsFile};
+    }
+
+    /**
+     * Checks that a palette identical to one which has baked some numbers reloads its page, without baking anything,
+     * along with exactly the numbers baked onto it.
+     * @throws InterruptedException if the test is interrupted while waiting for the cache.
+     */
+    @Test
+    void cachedPageIsReloaded() throws InterruptedException {
+        writeCache();
+
+        gl.reset();
+        BoxTexturePalette palette = newPalette();
+        assertEquals(0, gl.drawCalls);
+
+        assertNotNull(palette.getLabel(2));
+        assertNotNull(palette.getLabel(4));
+        assertNull(palette.getLabel(8));
+
+        palette.dispose();
+    }
+
+    /**
+     * Damages the cache, and checks that a palette bakes its page again, and none of the numbers of the cache
+     * is taken for baked.
+     * @param damage The damage done to the cache.
+     * @throws InterruptedException if the test is interrupted while waiting for the cache.
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"page of another size", "broken page", "broken bitmask", "empty bitmask", "no bitmask"})
+    void damagedCacheIsBakedAgain(String damage) throws InterruptedException {
+        FileHandle[] files = writeCache();
+        FileHandle pageFile = files[0];
+        FileHandle labelsFile = files[1];
+
+        switch (damage) {
+            case "page of another size" -> {
+                Pixmap page = new Pixmap(8, 8, Pixmap.Format.RGBA8888);
+                PixmapIO.writePNG(pageFile, page);
+                page.dispose();
+            }
+            case "broken page" -> {
+                byte[] bytes = pageFile.readBytes();
+                pageFile.writeBytes(Arrays.copyOf(bytes, bytes.length / 2), false);
+            }
+            case "broken bitmask" -> labelsFile.writeString("not a bitmask", false);
+            case "empty bitmask" -> labelsFile.writeString("", false);
+            case "no bitmask" -> labelsFile.delete();
+            default -> fail("Unknown damage: " + damage);
+        }
+
+        gl.reset();
+        BoxTexturePalette palette = newPalette();
+        assertNotEquals(0, gl.drawCalls);
+        assertNull(palette.getLabel(2));
+
+        palette.dispose();
+    }
+}
@@ -0,0 +1,65 @@
+package pl.kaitou_dev.clone2048.game_entities.number_box;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import pl.kaitou_dev.clone2048.CountingGL;
+import pl.kaitou_dev.clone2048.HeadlessGdx;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks {@link BoxTexturePalette#densityFor(int)}: that the density follows the height of the game on the screen,
+ * rounded up to {@link BoxTexturePalette#DENSITY_STEP}, and stays between 1 and the lower of
+ * {@link BoxTexturePalette#MAX_DENSITY} and the density the biggest texture of the graphics card allows.
+ */
+class BoxTexturePaletteDensityTest {
+    /**
+     * The stub of OpenGL reporting the biggest texture.
+     */
+    private static CountingGL gl;
+
+    /**
+     * Starts libGDX.
+     */
+    @BeforeAll
+    static void setUp() {
+        gl = HeadlessGdx.start();
+    }
+
+    /**
+     * Restores the biggest texture reported by the stub, for the other tests.
+     */
+    @AfterEach
+    void restoreMaxTextureSize() {
+        gl.maxTextureSize = CountingGL.MAX_TEXTURE_SIZE;
+    }
+
+    /**
+     * Checks the density of a height of the game, on a graphics card of a given biggest texture. The background
+     * and a slot beside it, 734 pixels of the game together with their padding, have to fit on a texture.
+     * @param screenHeight The height of the game on the screen, in physical pixels. The game is 768 pixels high.
+     * @param maxTextureSize The biggest texture of the graphics card, in pixels.
+     * @param expected The expected density.
+     */
+    @ParameterizedTest
+    @CsvSource({
+        "768, 4096, 1",
+        "769, 4096, 1.5",
+        "1152, 4096, 1.5",
+        "1153, 4096, 2",
+        "2304, 4096, 3",
+        "0, 4096, 1",
+        "300, 4096, 1",
+        "10000, 4096, 4",
+        "1536, 2048, 2",
+        "10000, 2048, 2.5",
+        "10000, 512, 1",
+    })
+    void densityIsRoundedUpAndClamped(int screenHeight, int maxTextureSize, float expected) {
+        gl.maxTextureSize = maxTextureSize;
+
+        assertEquals(expected, BoxTexturePalette.densityFor(screenHeight));
+    }
+}
@@ -0,0 +1,130 @@
+package pl.kaitou_dev.clone2048.game_entities.number_box;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import pl.kaitou_dev.clone2048.HeadlessGdx;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the sharing and the reference counting of the {@link BoxTexturePalettePool}. The palettes are obtained
+ * without numbers, at densities no other test uses, so that they are never shared with the other tests.
+ */
+class BoxTexturePalettePoolTest {
+    /**
+     * The density of the palettes of the tests.
+     */
+    private static final float DENSITY = 1.5f;
+
+    /**
+     * Another density, which makes palettes of another key.
+     */
+    private static final float OTHER_DENSITY = 2f;
+
+    /**
+     * Starts libGDX.
+     */
+    @BeforeAll
+    static void setUp() {
+        HeadlessGdx.start();
+    }
+
+    /**
+     * Obtains a palette of the tests.
+     * @param density The density of the palette.
+     * @return The shared palette.
+     */
+    private static BoxTexturePalette obtain(float density) {
+        return BoxTexturePalettePool.obtain(BoxColorPalette.COLORFUL, false, NumberBox.FONT_SIZE, density);
+    }
+
+    /**
+     * Checks whether a palette has been disposed of, i.e. whether its atlas page has been deleted.
+     * @param palette The palette.
+     * @return {@code true} if the palette has been disposed of.
+     */
+    private static boolean isDisposed(BoxTexturePalette palette) {
+        return palette.getAtlasTexture().getTextureObjectHandle() == 0;
+    }
+
+    /**
+     * Checks that the same look gives the same palette, whatever the font size of a palette without numbers,
+     * and that another density gives another palette.
+     */
+    @Test
+    void sameKeyGivesSameInstance() {
+        BoxTexturePalette palette = obtain(DENSITY);
+        BoxTexturePalette samePalette = BoxTexturePalettePool.obtain(BoxColorPalette.COLORFUL, false, 1, DENSITY);
+        BoxTexturePalette otherPalette = obtain(OTHER_DENSITY);
+
+        assertSame(palette, samePalette);
+        assertNotSame(palette, otherPalette);
+
+        BoxTexturePalettePool.free(palette);
+        BoxTexturePalettePool.free(samePalette);
+        BoxTexturePalettePool.free(otherPalette);
+    }
+
+    /**
+     * Checks that an unused palette is kept, and handed out again, until it has stayed unused
+     * for {@link BoxTexturePalettePool#IDLE_SECONDS}, and is only disposed of then.
+     */
+    @Test
+    void unusedPaletteIsDisposedAfterIdleSeconds() {
+        BoxTexturePalette palette = obtain(DENSITY);
+        BoxTexturePalettePool.free(palette);
+
+        BoxTexturePalettePool.update(BoxTexturePalettePool.IDLE_SECONDS - 1);
+        assertFalse(isDisposed(palette));
+        assertSame(palette, obtain(DENSITY));
+
+        // Obtaining the palette again starts its idle time over.
+        BoxTexturePalettePool.free(palette);
+        BoxTexturePalettePool.update(BoxTexturePalettePool.IDLE_SECONDS - 1);
+        assertFalse(isDisposed(palette));
+
+        BoxTexturePalettePool.update(1);
+        assertTrue(isDisposed(palette));
+
+        BoxTexturePalette newPalette = obtain(DENSITY);
+        assertNotSame(palette, newPalette);
+        BoxTexturePalettePool.free(newPalette);
+    }
+
+    /**
+     * Checks that a palette in use is never disposed of, however long it is used for.
+     */
+    @Test
+    void usedPaletteIsKept() {
+        BoxTexturePalette palette = obtain(DENSITY);
+        BoxTexturePalette samePalette = obtain(DENSITY);
+        BoxTexturePalettePool.free(samePalette);
+
+        BoxTexturePalettePool.update(2 * BoxTexturePalettePool.IDLE_SECONDS);
+
+        assertFalse(isDisposed(palette));
+        assertSame(palette, obtain(DENSITY));
+
+        BoxTexturePalettePool.free(palette);
+        BoxTexturePalettePool.free(palette);
+    }
+
+    /**
+     * Checks that returning a palette more times than it has been obtained, or returning a palette
+     * that does not come from the pool, is rejected.
+     */
+    @Test
+    void doubleFreeIsRejected() {
+        BoxTexturePalette palette = obtain(DENSITY);
+        BoxTexturePalettePool.free(palette);
+        assertThrows(IllegalArgumentException.class, () -> BoxTexturePalettePool.free(palette));
+
+        BoxTexturePalette foreignPalette = new BoxTexturePalette(BoxColorPalette.COLORFUL, null);
+        assertThrows(IllegalArgumentException.class, () -> BoxTexturePalettePool.free(foreignPalette));
+        foreignPalette.dispose();
+    }
+}
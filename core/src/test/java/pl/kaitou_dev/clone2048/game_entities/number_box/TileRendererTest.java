@@ -0,0 +1,118 @@
+package pl.kaitou_dev.clone2048.game_entities.number_box;
+
+import com.badlogic.gdx.math.Matrix4;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import pl.kaitou_dev.clone2048.CountingGL;
+import pl.kaitou_dev.clone2048.HeadlessGdx;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Checks the GL20 fallback of the {@link TileRenderer}, which expands every tile into a quad of its own,
+ * and draws all of them with a single indexed call.
+ */
+class TileRendererTest {
+    /**
+     * The maximum number of tiles drawn at once by the tested renderer.
+     */
+    private static final int CAPACITY = 128;
+
+    /**
+     * The length of a side of every tile.
+     */
+    private static final float TILE_SIZE = 50;
+
+    /**
+     * The stub of OpenGL counting the draw calls.
+     */
+    private static CountingGL gl;
+
+    /**
+     * The palette of the tiles.
+     */
+    private static BoxTexturePalette palette;
+
+    /**
+     * Starts libGDX, without OpenGL ES 3.0.
+     */
+    @BeforeAll
+    static void setUp() {
+        gl = HeadlessGdx.start();
+        palette = BoxTexturePalettePool.obtain(BoxColorPalette.COLORFUL, true, NumberBox.FONT_SIZE);
+    }
+
+    /**
+     * Returns the palette of the tiles.
+     */
+    @AfterAll
+    static void tearDown() {
+        BoxTexturePalettePool.free(palette);
+    }
+
+    /**
+     * Draws a number of tiles, and checks they have been expanded into a quad each, drawn by a single call.
+     * @param renderer The renderer to draw with.
+     * @param count The number of the tiles to add.
+     * @param expected The number of the tiles expected to be drawn.
+     */
+    private static void checkFrame(TileRenderer renderer, int count, int expected) {
+        renderer.begin();
+        for (int i = 0; i < count; ++i) renderer.add(i * TILE_SIZE, 0, TILE_SIZE, 2 << (i % 11));
+
+        gl.reset();
+        renderer.render(new Matrix4());
+
+        assertEquals(1, renderer.renderCalls);
+        assertEquals(1, gl.drawCalls);
+        assertEquals(expected * 4, renderer.getVertexCount());
+        assertEquals(expected * 6, gl.lastDrawCount);
+    }
+
+    /**
+     * Checks that every frame uploads exactly 4 vertices per tile, and draws them with a single call,
+     * whether the renderer is full or not.
+     */
+    @Test
+    void fallbackDrawsFourVerticesPerTile() {
+        TileRenderer renderer = new TileRenderer(palette, CAPACITY);
+        assertFalse(renderer.isInstanced());
+
+        checkFrame(renderer, 16, 16);
+        checkFrame(renderer, CAPACITY, CAPACITY);
+        checkFrame(renderer, 1, 1);
+
+        renderer.dispose();
+    }
+
+    /**
+     * Checks that the tiles beyond the capacity are ignored, instead of overflowing the mesh.
+     */
+    @Test
+    void fallbackIgnoresTilesBeyondCapacity() {
+        TileRenderer renderer = new TileRenderer(palette, CAPACITY);
+
+        checkFrame(renderer, CAPACITY + 10, CAPACITY);
+
+        renderer.dispose();
+    }
+
+    /**
+     * Checks that a frame without any tiles draws nothing at all.
+     */
+    @Test
+    void emptyFrameDrawsNothing() {
+        TileRenderer renderer = new TileRenderer(palette, CAPACITY);
+
+        renderer.begin();
+        gl.reset();
+        renderer.render(new Matrix4());
+
+        assertEquals(0, renderer.renderCalls);
+        assertEquals(0, gl.drawCalls);
+
+        renderer.dispose();
+    }
+}
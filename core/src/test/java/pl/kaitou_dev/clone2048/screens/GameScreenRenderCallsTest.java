@@ -0,0 +1,64 @@
+package pl.kaitou_dev.clone2048.screens;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import pl.kaitou_dev.clone2048.CountingGL;
+import pl.kaitou_dev.clone2048.HeadlessGdx;
+import pl.kaitou_dev.clone2048.game_entities.GameGrid;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks the draw calls of a frame of the {@link GameScreen}, as counted by the screen itself, and as actually
+ * issued to OpenGL, on full boards of different sizes.
+ */
+class GameScreenRenderCallsTest {
+    /**
+     * The draw calls of a frame of a full board, whatever its size: a flush of the batch for the background and the
+     * slots, and a single call for all the tiles.
+     */
+    private static final int FULL_BOARD_RENDER_CALLS = 2;
+
+    /**
+     * The stub of OpenGL counting the draw calls.
+     */
+    private static CountingGL gl;
+
+    /**
+     * Starts libGDX.
+     */
+    @BeforeAll
+    static void setUp() {
+        gl = HeadlessGdx.start();
+    }
+
+    /**
+     * Renders a single frame of a full board, and checks its draw calls.
+     * @param side The length of one side of the board.
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {4, 8})
+    void fullBoardTakesTwoDrawCalls(int side) {
+        GameScreen screen = new GameScreen(side);
+        screen.show();
+
+        GameGrid grid = screen.getGameGrid();
+        while (grid.addNewBox(2) != null) {
+            // Spawn boxes until every slot is taken.
+        }
+
+        // Bake the number up front, so that the frame draws nothing but the board.
+        grid.getTexturePalette().getLabel(2);
+        grid.getTexturePalette().bakePending(Long.MAX_VALUE);
+
+        gl.reset();
+        screen.render(0);
+
+        assertEquals(FULL_BOARD_RENDER_CALLS, screen.getRenderCalls());
+        assertEquals(FULL_BOARD_RENDER_CALLS, gl.drawCalls);
+
+        grid.dispose();
+        screen.dispose();
+    }
+}
@@ -0,0 +1,194 @@
+package pl.kaitou_dev.clone2048.utils;
+
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.utils.GdxNativesLoader;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks the {@link DistanceFieldTypeface.DistanceField} transform on the CPU alone, against distances to the outline
+ * of a glyph found by brute force: that every pixel gets the alpha of its signed distance, that the pixels along
+ * an antialiased outline keep theirs, and that nothing around the glyph is touched.
+ */
+class DistanceFieldTest {
+    /**
+     * The width of the glyphs of the tests, in pixels.
+     */
+    private static final int WIDTH = 24;
+
+    /**
+     * The height of the glyphs of the tests, in pixels.
+     */
+    private static final int HEIGHT = 18;
+
+    /**
+     * The position of the glyphs on their pages, away from the corner, so that an offset gets in the way.
+     */
+    private static final int OFFSET = 3;
+
+    /**
+     * The color of the pixels around the glyphs, which must stay untouched.
+     */
+    private static final int SURROUNDING = 0x12345678;
+
+    /**
+     * Loads the native code of the pixmaps. Nothing else of libGDX is needed, not even OpenGL.
+     */
+    @BeforeAll
+    static void loadNatives() {
+        GdxNativesLoader.load();
+    }
+
+    /**
+     * Creates a page with a glyph on it, surrounded by a frame of the {@link #SURROUNDING} color.
+     * @param coverage The coverage of the pixels of the glyph, from 0 to 255, row by row.
+     * @return The page.
+     */
+    private static Pixmap page(int[] coverage) {
+        Pixmap pixmap = new Pixmap(WIDTH + 2 * OFFSET, HEIGHT + 2 * OFFSET, Pixmap.Format.RGBA8888);
+        pixmap.setBlending(Pixmap.Blending.None);
+        pixmap.setColor(SURROUNDING);
+        pixmap.fill();
+
+        for (int row = 0; row < HEIGHT; ++row) {
+            for (int col = 0; col < WIDTH; ++col)
+                pixmap.drawPixel(OFFSET + col, OFFSET + row, 0xFFFFFF00 | coverage[row * WIDTH + col]);
+        }
+
+        return pixmap;
+    }
+
+    /**
+     * Creates a glyph of a few random rectangles, without any antialiasing.
+     * @param seed The seed of the rectangles.
+     * @return The coverage of the pixels of the glyph, either 0 or 255, row by row.
+     */
+    private static int[] randomGlyph(long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] coverage = new int[WIDTH * HEIGHT];
+
+        for (int rectangle = 0; rectangle < 3; ++rectangle) {
+            int left = random.nextInt(WIDTH);
+            int top = random.nextInt(HEIGHT);
+            int right = left + random.nextInt(WIDTH - left);
+            int bottom = top + random.nextInt(HEIGHT - top);
+
+            for (int row = top; row <= bottom; ++row) {
+                for (int col = left; col <= right; ++col) coverage[row * WIDTH + col] = 255;
+            }
+        }
+
+        return coverage;
+    }
+
+    /**
+     * Finds the distance from a pixel to the nearest pixel of the other side of the outline, by brute force.
+     * @param coverage The coverage of the pixels of the glyph, either 0 or 255, row by row.
+     * @param index The index of the pixel.
+     * @return The distance, in pixels, or {@link Double#POSITIVE_INFINITY} if there is no pixel on the other side.
+     */
+    private static double distanceAcross(int[] coverage, int index) {
+        boolean inside = coverage[index] >= 128;
+        double nearest = Double.POSITIVE_INFINITY;
+
+        for (int other = 0; other < coverage.length; ++other) {
+            if (coverage[other] >= 128 == inside) continue;
+
+            int dx = other % WIDTH - index % WIDTH;
+            int dy = other / WIDTH - index / WIDTH;
+            nearest = Math.min(nearest, Math.sqrt(dx * dx + dy * dy));
+        }
+
+        return nearest;
+    }
+
+    /**
+     * Computes the alpha of the distance field at a signed distance from the outline, positive outside the glyph.
+     * @param distance The signed distance, in pixels.
+     * @return The alpha, from 0 to 255.
+     */
+    private static int alphaOf(double distance) {
+        double value = Math.min(Math.max(0.5 - distance / (2 * DistanceFieldTypeface.SPREAD), 0), 1);
+        return (int) Math.round(value * 255);
+    }
+
+    /**
+     * Checks a page after the transform: the distance field of the glyph in white, and the untouched frame around it.
+     * @param pixmap The page.
+     * @param expectedAlphas The expected alphas of the pixels of the glyph, row by row.
+     */
+    private static void assertField(Pixmap pixmap, int[] expectedAlphas) {
+        for (int row = 0; row < pixmap.getHeight(); ++row) {
+            for (int col = 0; col < pixmap.getWidth(); ++col) {
+                int pixel = pixmap.getPixel(col, row);
+                int glyphRow = row - OFFSET;
+                int glyphCol = col - OFFSET;
+
+                if (glyphRow < 0 || glyphRow >= HEIGHT || glyphCol < 0 || glyphCol >= WIDTH) {
+                    assertEquals(SURROUNDING, pixel, "Touched outside the glyph at " + col + ", " + row);
+                    continue;
+                }
+
+                int expected = expectedAlphas[glyphRow * WIDTH + glyphCol];
+                assertEquals(0xFFFFFF00, pixel & 0xFFFFFF00, "Not white at " + col + ", " + row);
+                assertEquals(expected, pixel & 0xFF, 1, "Wrong distance at " + col + ", " + row);
+            }
+        }
+    }
+
+    /**
+     * Checks the transform of glyphs without antialiasing against the distances found by brute force,
+     * with a single instance, whose buffers are reused from one glyph to the next.
+     */
+    @Test
+    void fieldMatchesBruteForceDistances() {
+        DistanceFieldTypeface.DistanceField field = new DistanceFieldTypeface.DistanceField();
+
+        for (long seed = 0; seed < 8; ++seed) {
+            int[] coverage = randomGlyph(seed);
+            int[] expectedAlphas = new int[coverage.length];
+
+            for (int i = 0; i < coverage.length; ++i) {
+                double distance = distanceAcross(coverage, i);
+                expectedAlphas[i] = alphaOf(coverage[i] >= 128 ? 0.5 - distance : distance - 0.5);
+            }
+
+            Pixmap pixmap = page(coverage);
+            field.apply(pixmap, OFFSET, OFFSET, WIDTH, HEIGHT);
+            assertField(pixmap, expectedAlphas);
+            pixmap.dispose();
+        }
+    }
+
+    /**
+     * Checks that the pixels along an antialiased outline are placed by their coverage alone: half covered on
+     * the outline, and farther inside or outside the more or the less they are covered.
+     */
+    @Test
+    void antialiasedOutlineFollowsCoverage() {
+        int outline = WIDTH / 2;
+        int[] coverage = new int[WIDTH * HEIGHT];
+
+        for (int row = 0; row < HEIGHT; ++row) {
+            for (int col = 0; col < WIDTH; ++col)
+                coverage[row * WIDTH + col] = col < outline ? 255 : col == outline ? row * 255 / (HEIGHT - 1) : 0;
+        }
+
+        Pixmap pixmap = page(coverage);
+        new DistanceFieldTypeface.DistanceField().apply(pixmap, OFFSET, OFFSET, WIDTH, HEIGHT);
+
+        // The first and the last pixel of the outline are not covered at all, or fully, so they are not on it.
+        for (int row = 1; row < HEIGHT - 1; ++row) {
+            int expected = alphaOf(0.5 - coverage[row * WIDTH + outline] / 255.0);
+            assertEquals(expected, pixmap.getPixel(OFFSET + outline, OFFSET + row) & 0xFF, 1);
+        }
+
+        assertEquals(SURROUNDING, pixmap.getPixel(0, 0));
+        assertEquals(SURROUNDING, pixmap.getPixel(OFFSET + WIDTH, OFFSET + HEIGHT));
+        pixmap.dispose();
+    }
+}
@@ -0,0 +1,437 @@
+package pl.kaitou_dev.clone2048.engine;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * A pure-logic engine operating on a 4x4 board packed into a single {@code long}.
+ * <p>
+ * Every slot is stored as a 4-bit exponent, so that {@code 0} means an empty slot and {@code n} means a box of
+ * the value {@code 2^n}. The slot at row {@code r} and column {@code c} occupies the nibble with the index
+ * {@code 4 * r + c}, counting from the least significant bits, which makes every row a single 16-bit chunk.
+ * </p>
+ * <p>
+ * Moves are resolved by means of precomputed tables, which map each of the 65536 possible rows onto the row they
+ * become after being slid to the left or to the right. Vertical moves transpose the board, reuse the row tables,
+ * and transpose it back. None of the methods of this class allocate memory.
+ * </p>
+ */
+public final class BitBoard {
+    /**
+     * The length of one side of the board, in slots.
+     */
+    public static final int SIDE = 4;
+
+    /**
+     * The number of slots on the board.
+     */
+    public static final int SLOTS = SIDE * SIDE;
+
+    /**
+     * The highest exponent a nibble can hold. Boxes of this exponent are not merged any further.
+     */
+    public static final int MAX_EXPONENT = 15;
+
+    /**
+     * A board without any boxes on it.
+     */
+    public static final long EMPTY = 0L;
+
+    /**
+     * The number of all possible rows.
+     */
+    private static final int ROW_COUNT = 1 << 16;
+
+    /**
+     * A mask of a single row.
+     */
+    private static final long ROW_MASK = 0xFFFFL;
+
+    /**
+     * A mask with the lowest bit of every nibble set.
+     */
+    private static final long NIBBLE_LOW_BITS = 0x1111111111111111L;
+
+    /**
+     * Maps every row onto the row it becomes after being slid to the left.
+     */
+    private static final char[] ROW_LEFT = new char[ROW_COUNT];
+
+    /**
+     * Maps every row onto the row it becomes after being slid to the right.
+     */
+    private static final char[] ROW_RIGHT = new char[ROW_COUNT];
+
+    /**
+     * Maps every row onto the score gained by sliding it to the left.
+     */
+    private static final int[] SCORE_LEFT = new int[ROW_COUNT];
+
+    /**
+     * Maps every row onto the score gained by sliding it to the right.
+     */
+    private static final int[] SCORE_RIGHT = new int[ROW_COUNT];
+
+    /**
+     * Maps every row onto the destinations of its slots after being slid to the left.
+     * The destination of the slot {@code k} is stored in the bits {@code [2k; 2k + 1]}.
+     */
+    private static final char[] DEST_LEFT = new char[ROW_COUNT];
+
+    /**
+     * Maps every row onto the destinations of its slots after being slid to the right.
+     * The destination of the slot {@code k} is stored in the bits {@code [2k; 2k + 1]}.
+     */
+    private static final char[] DEST_RIGHT = new char[ROW_COUNT];
+
+    static {
+        int[] line = new int[SIDE];
+        int[] destinations = new int[SIDE];
+
+        for (int row = 0; row < ROW_COUNT; ++row) {
+            for (int k = 0; k < SIDE; ++k) line[k] = (row >>> (4 * k)) & 0xF;
+            SCORE_LEFT[row] = slideLine(line, destinations, false);
+            ROW_LEFT[row] = (char) packLine(line);
+            DEST_LEFT[row] = (char) packDestinations(destinations);
+
+            for (int k = 0; k < SIDE; ++k) line[k] = (row >>> (4 * k)) & 0xF;
+            SCORE_RIGHT[row] = slideLine(line, destinations, true);
+            ROW_RIGHT[row] = (char) packLine(line);
+            DEST_RIGHT[row] = (char) packDestinations(destinations);
+        }
+    }
+
+    /**
+     * A private constructor, as this class only contains static methods.
+     */
+    private BitBoard() {}
+
+    /**
+     * Slides a single line of exponents in place, merging equal neighbors the same way the game does.
+     * It is only used to build the lookup tables.
+     * @param line The exponents of the line, which get replaced with the result.
+     * @param destinations An array to receive the destination of every slot of the line.
+     *                     Empty slots get the destination of {@code -1}.
+     * @param towardsEnd Whether the line is slid towards its last slot ({@code true}) or its first slot.
+     * @return The score gained by the merges.
+     */
+    private static int slideLine(int[] line, int[] destinations, boolean towardsEnd) {
+        int start = towardsEnd ? SIDE - 1 : 0;
+        int step = towardsEnd ? -1 : 1;
+
+        int[] result = new int[SIDE];
+        int score = 0;
+        int target = start;
+        boolean targetMergeable = false;
+
+        for (int k = start; k >= 0 && k < SIDE; k += step) {
+            int exponent = line[k];
+            if (exponent == 0) {
+                destinations[k] = -1;
+                continue;
+            }
+
+            int previous = target - step;
+            if (targetMergeable && result[previous] == exponent && exponent < MAX_EXPONENT) {
+                result[previous] = exponent + 1;
+                score += 1 << (exponent + 1);
+                destinations[k] = previous;
+                targetMergeable = false;
+            } else {
+                result[target] = exponent;
+                destinations[k] = target;
+                target += step;
+                targetMergeable = true;
+            }
+        }
+
+        System.arraycopy(result, 0, line, 0, SIDE);
+        return score;
+    }
+
+    /**
+     * Packs a line of exponents into a 16-bit row.
+     * @param line The exponents of the line.
+     * @return The packed row.
+     */
+    private static int packLine(int[] line) {
+        int row = 0;
+        for (int k = 0; k < SIDE; ++k) row |= line[k] << (4 * k);
+        return row;
+    }
+
+    /**
+     * Packs the destinations of a line's slots into 8 bits. Empty slots are packed as staying in place.
+     * @param destinations The destinations of the line's slots.
+     * @return The packed destinations.
+     */
+    private static int packDestinations(int[] destinations) {
+        int packed = 0;
+        for (int k = 0; k < SIDE; ++k) packed |= (destinations[k] < 0 ? k : destinations[k]) << (2 * k);
+        return packed;
+    }
+
+    /**
+     * Transposes the board, so that its rows become its columns.
+     * @param board The board to transpose.
+     * @return The transposed board.
+     */
+    public static long transpose(long board) {
+        long a1 = board & 0xF0F00F0FF0F00F0FL;
+        long a2 = board & 0x0000F0F00000F0F0L;
+        long a3 = board & 0x0F0F00000F0F0000L;
+        long a = a1 | (a2 << 12) | (a3 >>> 12);
+        long b1 = a & 0xFF00FF0000FF00FFL;
+        long b2 = a & 0x00FF00FF00000000L;
+        long b3 = a & 0x00000000FF00FF00L;
+        return b1 | (b2 >>> 24) | (b3 << 24);
+    }
+
+    /**
+     * Mirrors the board horizontally, so that the first column becomes the last one.
+     * @param board The board to mirror.
+     * @return The mirrored board.
+     */
+    public static long mirror(long board) {
+        return ((board & 0x000F000F000F000FL) << 12)
+            | ((board & 0x00F000F000F000F0L) << 4)
+            | ((board >>> 4) & 0x00F000F000F000F0L)
+            | ((board >>> 12) & 0x000F000F000F000FL);
+    }
+
+    /**
+     * Flips the board vertically, so that the first row becomes the last one.
+     * @param board The board to flip.
+     * @return The flipped board.
+     */
+    public static long flip(long board) {
+        return (board << 48)
+            | ((board & 0xFFFF0000L) << 16)
+            | ((board >>> 16) & 0xFFFF0000L)
+            | (board >>> 48);
+    }
+
+    /**
+     * Slides every row of the board using the provided table.
+     * @param board The board to slide.
+     * @param table The row table to use.
+     * @return The board after the slide.
+     */
+    private static long slideRows(long board, char[] table) {
+        return (long) table[(int) (board & ROW_MASK)]
+            | (long) table[(int) ((board >>> 16) & ROW_MASK)] << 16
+            | (long) table[(int) ((board >>> 32) & ROW_MASK)] << 32
+            | (long) table[(int) ((board >>> 48) & ROW_MASK)] << 48;
+    }
+
+    /**
+     * Sums up the scores of every row of the board using the provided table.
+     * @param board The board to evaluate.
+     * @param table The score table to use.
+     * @return The score gained by the slide.
+     */
+    private static int scoreRows(long board, int[] table) {
+        return table[(int) (board & ROW_MASK)]
+            + table[(int) ((board >>> 16) & ROW_MASK)]
+            + table[(int) ((board >>> 32) & ROW_MASK)]
+            + table[(int) ((board >>> 48) & ROW_MASK)];
+    }
+
+    /**
+     * Performs a move on the board. Does not add any new boxes.
+     * @param board The board to perform the move on.
+     * @param direction The direction of the move.
+     * @return The board after the move. It is equal to the provided board if the move was illegal.
+     */
+    public static long move(long board, Directions direction) {
+        return switch (direction) {
+            case LEFT -> slideRows(board, ROW_LEFT);
+            case RIGHT -> slideRows(board, ROW_RIGHT);
+            case UP -> transpose(slideRows(transpose(board), ROW_LEFT));
+            case DOWN -> transpose(slideRows(transpose(board), ROW_RIGHT));
+        };
+    }
+
+    /**
+     * Calculates the score gained by performing a move on the board.
+     * The score is the sum of the values of all the boxes created by merges.
+     * @param board The board to perform the move on.
+     * @param direction The direction of the move.
+     * @return The score gained by the move.
+     */
+    public static int score(long board, Directions direction) {
+        return switch (direction) {
+            case LEFT -> scoreRows(board, SCORE_LEFT);
+            case RIGHT -> scoreRows(board, SCORE_RIGHT);
+            case UP -> scoreRows(transpose(board), SCORE_LEFT);
+            case DOWN -> scoreRows(transpose(board), SCORE_RIGHT);
+        };
+    }
+
+    /**
+     * Checks if a move in the provided direction changes the board.
+     * @param board The board to check.
+     * @param direction The direction of the move.
+     * @return {@code true} if the move is legal, {@code false} if it is not.
+     */
+    public static boolean canMove(long board, Directions direction) {
+        return move(board, direction) != board;
+    }
+
+    /**
+     * Establishes, where every box of the board ends up after a move.
+     * If two boxes share a destination, they get merged there.
+     * @param board The board to perform the move on.
+     * @param direction The direction of the move.
+     * @param destinations An array of at least {@link #SLOTS} elements, to receive the destination slot index
+     *                     of every slot index, or {@code -1} for empty slots.
+     */
+    public static void trace(long board, Directions direction, int[] destinations) {
+        boolean isVertical = direction.isVertical();
+        char[] table = (direction == Directions.LEFT || direction == Directions.UP) ? DEST_LEFT : DEST_RIGHT;
+        long lines = isVertical ? transpose(board) : board;
+
+        for (int line = 0; line < SIDE; ++line) {
+            int row = (int) ((lines >>> (16 * line)) & ROW_MASK);
+            int packed = table[row];
+
+            for (int k = 0; k < SIDE; ++k) {
+                int src = isVertical ? index(k, line) : index(line, k);
+
+                if (((row >>> (4 * k)) & 0xF) == 0) {
+                    destinations[src] = -1;
+                    continue;
+                }
+
+                int dest = (packed >>> (2 * k)) & 0x3;
+                destinations[src] = isVertical ? index(dest, line) : index(line, dest);
+            }
+        }
+    }
+
+    /**
+     * Gets a bitmask of the directions in which a move is legal. The bit {@code d} is set if a move
+     * in the direction with the ordinal {@code d} is legal.
+     * @param board The board to check.
+     * @return The bitmask of legal directions.
+     */
+    public static int legalMoves(long board) {
+        long transposed = transpose(board);
+        int mask = 0;
+
+        if (transpose(slideRows(transposed, ROW_LEFT)) != board) mask |= 1 << Directions.UP.ordinal();
+        if (transpose(slideRows(transposed, ROW_RIGHT)) != board) mask |= 1 << Directions.DOWN.ordinal();
+        if (slideRows(board, ROW_LEFT) != board) mask |= 1 << Directions.LEFT.ordinal();
+        if (slideRows(board, ROW_RIGHT) != board) mask |= 1 << Directions.RIGHT.ordinal();
+
+        return mask;
+    }
+
+    /**
+     * Calculates the index of a slot.
+     * @param row The row-index.
+     * @param col The column-index.
+     * @return The index of the slot.
+     */
+    public static int index(int row, int col) {
+        return row * SIDE + col;
+    }
+
+    /**
+     * Gets the exponent stored in a slot.
+     * @param board The board to read.
+     * @param index The index of the slot.
+     * @return The exponent, or {@code 0} if the slot is empty.
+     */
+    public static int getExponent(long board, int index) {
+        return (int) ((board >>> (4 * index)) & 0xF);
+    }
+
+    /**
+     * Stores an exponent in a slot.
+     * @param board The board to modify.
+     * @param index The index of the slot.
+     * @param exponent The exponent to store, or {@code 0} to empty the slot.
+     * @return The modified board.
+     */
+    public static long withExponent(long board, int index, int exponent) {
+        int shift = 4 * index;
+        return (board & ~(0xFL << shift)) | ((long) (exponent & 0xF) << shift);
+    }
+
+    /**
+     * Gets a mask with the lowest bit of every empty nibble set.
+     * @param board The board to check.
+     * @return The mask of empty slots.
+     */
+    public static long emptyMask(long board) {
+        long x = board;
+        x |= (x >>> 2) & 0x3333333333333333L;
+        x |= (x >>> 1);
+        return ~x & NIBBLE_LOW_BITS;
+    }
+
+    /**
+     * Counts the empty slots of the board.
+     * @param board The board to check.
+     * @return The number of empty slots.
+     */
+    public static int countEmpty(long board) {
+        return Long.bitCount(emptyMask(board));
+    }
+
+    /**
+     * Finds the {@code n}-th empty slot of the board, counting from the slot {@code 0}.
+     * @param board The board to check.
+     * @param n The ordinal number of the empty slot, counting from {@code 0}.
+     * @return The index of the slot, or {@code -1} if there are not enough empty slots.
+     */
+    public static int nthEmpty(long board, int n) {
+        long empty = emptyMask(board);
+        for (int i = 0; i < n && empty != 0; ++i) empty &= empty - 1;
+
+        return empty == 0 ? -1 : Long.numberOfTrailingZeros(empty) / 4;
+    }
+
+    /**
+     * Spawns a new box in a random empty slot, drawing from the same distribution as {@link GameLogic#spawn()}.
+     * @param board The board, which must have an empty slot.
+     * @param fourProbability The probability of the new box having the value of 4 instead of 2.
+     * @param random The source of randomness.
+     * @return The board with the new box.
+     */
+    public static long spawn(long board, double fourProbability, RandomGenerator random) {
+        int exponent = random.nextDouble() < fourProbability ? 2 : 1;
+        int index = nthEmpty(board, random.nextInt(countEmpty(board)));
+
+        return withExponent(board, index, exponent);
+    }
+
+    /**
+     * Gets the highest exponent on the board.
+     * @param board The board to check.
+     * @return The highest exponent, or {@code 0} if the board is empty.
+     */
+    public static int maxExponent(long board) {
+        int max = 0;
+        for (long x = board; x != 0; x >>>= 4) max = Math.max(max, (int) (x & 0xF));
+        return max;
+    }
+
+    /**
+     * Converts a value of a box into an exponent.
+     * @param value The value, which has to be a power of 2.
+     * @return The exponent of the value.
+     */
+    public static int toExponent(long value) {
+        return 63 - Long.numberOfLeadingZeros(value);
+    }
+
+    /**
+     * Converts an exponent into a value of a box.
+     * @param exponent The exponent.
+     * @return The value, or {@code 0} if the exponent is {@code 0}.
+     */
+    public static int toValue(int exponent) {
+        return exponent == 0 ? 0 : 1 << exponent;
+    }
+}
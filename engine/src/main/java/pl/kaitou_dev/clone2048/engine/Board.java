@@ -0,0 +1,132 @@
+package pl.kaitou_dev.clone2048.engine;
+
+/**
+ * A square board of exponents, where {@code 0} means an empty slot and {@code n} means a box of the value
+ * {@code 2^n}. The slot at row {@code r} and column {@code c} has the index {@code r * side + c}.
+ * <p>
+ * The storage is specialized by the size of the board: 4x4 boards are packed into a single {@code long}
+ * (see {@link PackedBoard}), while boards of other sizes keep one byte per slot (see {@link ByteBoard}).
+ * Use {@link #create(int)} to get the best one for a given size.
+ * </p>
+ */
+public interface Board {
+    /**
+     * The length of a side of the smallest supported board.
+     */
+    int MIN_SIDE = 2;
+
+    /**
+     * Creates an empty board, using the storage best suited for its size.
+     * @param side The length of one side of the board, in slots.
+     * @return The board.
+     * @throws IllegalArgumentException if the board would be too small.
+     */
+    static Board create(int side) throws IllegalArgumentException {
+        return side == BitBoard.SIDE ? new PackedBoard() : new ByteBoard(side);
+    }
+
+    /**
+     * Gets the length of one side of this board.
+     * @return The length of one side, in slots.
+     */
+    int getSide();
+
+    /**
+     * Gets the number of slots of this board.
+     * @return The number of slots.
+     */
+    default int getSlots() {
+        return getSide() * getSide();
+    }
+
+    /**
+     * Gets the highest exponent this board can store. Boxes of this exponent are not merged any further.
+     * @return The highest exponent.
+     */
+    int getExponentLimit();
+
+    /**
+     * Gets the exponent stored in a slot.
+     * @param index The index of the slot.
+     * @return The exponent, or {@code 0} if the slot is empty.
+     */
+    int getExponent(int index);
+
+    /**
+     * Stores an exponent in a slot.
+     * @param index The index of the slot.
+     * @param exponent The exponent, or {@code 0} to empty the slot.
+     */
+    void setExponent(int index, int exponent);
+
+    /**
+     * Empties every slot of this board.
+     */
+    void clear();
+
+    /**
+     * Copies the layout of another board of the same size onto this board.
+     * @param other The board to copy the layout from.
+     * @throws IllegalArgumentException if the boards differ in size.
+     */
+    default void load(Board other) throws IllegalArgumentException {
+        if (other.getSide() != getSide()) throw new IllegalArgumentException("The boards differ in size");
+
+        for (int i = 0; i < getSlots(); ++i) setExponent(i, other.getExponent(i));
+    }
+
+    /**
+     * Performs a move on this board, if it is legal. Does not spawn any new boxes.
+     * @param direction The direction of the move.
+     * @param destinations An array of at least {@link #getSlots()} elements to receive the destination slot index
+     *                     of every slot index, or {@code -1} for empty slots. If two boxes share a destination,
+     *                     they get merged there. May be {@code null} if the destinations are not needed.
+     * @return The score gained by the move, or {@code -1} if the move was illegal and nothing has changed.
+     */
+    int move(Directions direction, int[] destinations);
+
+    /**
+     * Checks if a move in the provided direction is legal, without performing it.
+     * @param direction The direction of the move.
+     * @return {@code true} if the move is legal, {@code false} if it is not.
+     */
+    boolean canMove(Directions direction);
+
+    /**
+     * Gets a bitmask of the directions in which a move is legal. The bit {@code d} is set if a move
+     * in the direction with the ordinal {@code d} is legal.
+     * @return The bitmask of legal directions.
+     */
+    default int legalMoves() {
+        int mask = 0;
+        for (Directions direction : Directions.values()) {
+            if (canMove(direction)) mask |= 1 << direction.ordinal();
+        }
+        return mask;
+    }
+
+    /**
+     * Counts the empty slots of this board.
+     * @return The number of empty slots.
+     */
+    int countEmpty();
+
+    /**
+     * Finds the {@code n}-th empty slot of this board, counting from the slot {@code 0}.
+     * @param n The ordinal number of the empty slot, counting from {@code 0}.
+     * @return The index of the slot, or {@code -1} if there are not enough empty slots.
+     */
+    int nthEmpty(int n);
+
+    /**
+     * Gets the highest exponent on this board.
+     * @return The highest exponent, or {@code 0} if the board is empty.
+     */
+    int maxExponent();
+
+    /**
+     * Creates an independent copy of this board.
+     * @return The copy.
+     */
+    Board copy();
+}
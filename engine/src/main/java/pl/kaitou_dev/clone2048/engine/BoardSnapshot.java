@@ -0,0 +1,143 @@
+package pl.kaitou_dev.clone2048.engine;
+
+/**
+ * An immutable copy of the layout of a {@link Board} of any size, along with its legal moves,
+ * so that it can be handed over to code which must not change the game, e.g. a
+ * {@link pl.kaitou_dev.clone2048.engine.strategy.MoveStrategy}.
+ * <p>
+ * 4x4 boards are kept packed, as described by {@link BitBoard}, while boards of other sizes keep one byte per slot.
+ * </p>
+ */
+public final class BoardSnapshot {
+    /**
+     * The length of one side of the board.
+     */
+    private final int side;
+
+    /**
+     * The packed layout of a 4x4 board, or {@code 0} for boards of other sizes.
+     */
+    private final long packed;
+
+    /**
+     * The exponents of every slot of a board which is not 4x4, or {@code null} for 4x4 boards.
+     */
+    private final byte[] exponents;
+
+    /**
+     * The bitmask of the directions in which a move is legal.
+     */
+    private final int legalMoves;
+
+    /**
+     * The default constructor.
+     * @param side The length of one side of the board.
+     * @param packed The packed layout of a 4x4 board, or {@code 0} for boards of other sizes.
+     * @param exponents The exponents of every slot of a board which is not 4x4, or {@code null} for 4x4 boards.
+     * @param legalMoves The bitmask of the directions in which a move is legal.
+     */
+    private BoardSnapshot(int side, long packed, byte[] exponents, int legalMoves) {
+        this.side = side;
+        this.packed = packed;
+        this.exponents = exponents;
+        this.legalMoves = legalMoves;
+    }
+
+    /**
+     * Takes a snapshot of a 4x4 board.
+     * @param packed The board, packed as described by {@link BitBoard}.
+     * @return The snapshot.
+     */
+    public static BoardSnapshot of(long packed) {
+        return new BoardSnapshot(BitBoard.SIDE, packed, null, BitBoard.legalMoves(packed));
+    }
+
+    /**
+     * Takes a snapshot of a board.
+     * @param board The board.
+     * @return The snapshot, which does not follow any later changes of the board.
+     */
+    public static BoardSnapshot of(Board board) {
+        return of(board, board.legalMoves());
+    }
+
+    /**
+     * Takes a snapshot of a board whose legal moves are already known.
+     * @param board The board.
+     * @param legalMoves The bitmask of the directions in which a move is legal on the board.
+     * @return The snapshot, which does not follow any later changes of the board.
+     */
+    public static BoardSnapshot of(Board board, int legalMoves) {
+        if (board instanceof PackedBoard packedBoard)
+            return new BoardSnapshot(BitBoard.SIDE, packedBoard.getPacked(), null, legalMoves);
+
+        byte[] exponents = new byte[board.getSlots()];
+        for (int i = 0; i < exponents.length; ++i) exponents[i] = (byte) board.getExponent(i);
+
+        return new BoardSnapshot(board.getSide(), 0, exponents, legalMoves);
+    }
+
+    /**
+     * Gets the length of one side of the board.
+     * @return The length of one side, in slots.
+     */
+    public int getSide() {
+        return side;
+    }
+
+    /**
+     * Gets the number of slots of the board.
+     * @return The number of slots.
+     */
+    public int getSlots() {
+        return side * side;
+    }
+
+    /**
+     * Gets the exponent stored in a slot.
+     * @param index The index of the slot, {@code row * side + col}.
+     * @return The exponent, or {@code 0} if the slot is empty.
+     */
+    public int getExponent(int index) {
+        return exponents == null ? BitBoard.getExponent(packed, index) : exponents[index];
+    }
+
+    /**
+     * Gets a bitmask of the directions in which a move is legal.
+     * @return The bitmask of legal directions.
+     * @see Board#legalMoves()
+     */
+    public int getLegalMoves() {
+        return legalMoves;
+    }
+
+    /**
+     * Checks if the board is 4x4, and can therefore be packed.
+     * @return {@code true} if the board is 4x4, {@code false} otherwise.
+     */
+    public boolean isPacked() {
+        return exponents == null;
+    }
+
+    /**
+     * Gets the packed layout of a 4x4 board.
+     * @return The board, packed as described by {@link BitBoard}.
+     * @throws UnsupportedOperationException if the board is not 4x4.
+     */
+    public long getPacked() throws UnsupportedOperationException {
+        if (exponents != null) throw new UnsupportedOperationException("Only 4x4 boards can be packed");
+        return packed;
+    }
+
+    /**
+     * Creates a mutable board with the layout of this snapshot, e.g. for a strategy to simulate moves on.
+     * @return A new board, independent of this snapshot.
+     */
+    public Board toBoard() {
+        if (exponents == null) return new PackedBoard(packed);
+
+        Board board = Board.create(side);
+        for (int i = 0; i < exponents.length; ++i) board.setExponent(i, exponents[i]);
+        return board;
+    }
+}
@@ -0,0 +1,158 @@
+package pl.kaitou_dev.clone2048.engine;
+
+import java.util.Arrays;
+
+/**
+ * An index of a {@link Board}, which answers the questions asked about it most often in constant time:
+ * which slots are empty, what is the highest exponent, and in which directions a move is legal.
+ * <p>
+ * It has to be told about every change of the board: {@link #rebuild(Board)} after a move,
+ * and {@link #occupy(int, int)} after a spawn. The legal moves are evaluated lazily, at most once per change.
+ * </p>
+ */
+public class BoardSummary {
+    /**
+     * The mask of the 16 nibbles of a {@link BitBoard} which hold their lowest bits.
+     */
+    private static final long LOW_NIBBLE_BITS = 0x1111_1111_1111_1111L;
+
+    /**
+     * The bitmask of the empty slots, 64 slots per word. The bit {@code i % 64} of the word {@code i / 64}
+     * is set if the slot {@code i} is empty.
+     */
+    private final long[] emptyMask;
+
+    /**
+     * The number of the empty slots.
+     */
+    private int emptyCount;
+
+    /**
+     * The highest exponent on the board.
+     */
+    private int maxExponent;
+
+    /**
+     * The bitmask of the legal directions, as described by {@link Board#legalMoves()}, or {@code -1} if it has to
+     * be evaluated again.
+     */
+    private int legalMoves = -1;
+
+    /**
+     * The default constructor, which describes an empty board.
+     * @param slots The number of slots of the board.
+     */
+    public BoardSummary(int slots) {
+        emptyMask = new long[(slots + Long.SIZE - 1) / Long.SIZE];
+        clear(slots);
+    }
+
+    /**
+     * Describes an empty board again.
+     * @param slots The number of slots of the board.
+     */
+    private void clear(int slots) {
+        Arrays.fill(emptyMask, -1L);
+        if (slots % Long.SIZE != 0) emptyMask[emptyMask.length - 1] = (1L << (slots % Long.SIZE)) - 1;
+
+        emptyCount = slots;
+        maxExponent = 0;
+        legalMoves = -1;
+    }
+
+    /**
+     * Evaluates the whole board again, e.g. after a move.
+     * @param board The board to describe.
+     */
+    public void rebuild(Board board) {
+        if (board instanceof PackedBoard packedBoard) {
+            long packed = packedBoard.getPacked();
+            emptyMask[0] = Long.compress(BitBoard.emptyMask(packed), LOW_NIBBLE_BITS);
+            emptyCount = Long.bitCount(emptyMask[0]);
+            maxExponent = BitBoard.maxExponent(packed);
+            legalMoves = -1;
+            return;
+        }
+
+        Arrays.fill(emptyMask, 0);
+        emptyCount = 0;
+        maxExponent = 0;
+        legalMoves = -1;
+
+        for (int i = 0; i < board.getSlots(); ++i) {
+            int exponent = board.getExponent(i);
+
+            if (exponent == 0) {
+                emptyMask[i / Long.SIZE] |= 1L << i;
+                ++emptyCount;
+            } else if (exponent > maxExponent) {
+                maxExponent = exponent;
+            }
+        }
+    }
+
+    /**
+     * Records that a box has been placed in an empty slot.
+     * @param index The index of the slot.
+     * @param exponent The exponent of the box.
+     */
+    public void occupy(int index, int exponent) {
+        emptyMask[index / Long.SIZE] &= ~(1L << index);
+        --emptyCount;
+        maxExponent = Math.max(maxExponent, exponent);
+        legalMoves = -1;
+    }
+
+    /**
+     * Gets the number of the empty slots.
+     * @return The number of the empty slots.
+     */
+    public int getEmptyCount() {
+        return emptyCount;
+    }
+
+    /**
+     * Checks if a slot is empty.
+     * @param index The index of the slot.
+     * @return {@code true} if the slot is empty, {@code false} if it is not.
+     */
+    public boolean isEmpty(int index) {
+        return (emptyMask[index / Long.SIZE] & (1L << index)) != 0;
+    }
+
+    /**
+     * Finds the {@code n}-th empty slot, counting from the slot {@code 0}.
+     * @param n The ordinal number of the empty slot, counting from {@code 0}.
+     * @return The index of the slot, or {@code -1} if there are not enough empty slots.
+     */
+    public int nthEmpty(int n) {
+        for (int word = 0; word < emptyMask.length; ++word) {
+            int count = Long.bitCount(emptyMask[word]);
+
+            if (n < count)
+                return word * Long.SIZE + Long.numberOfTrailingZeros(Long.expand(1L << n, emptyMask[word]));
+
+            n -= count;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Gets the highest exponent on the board.
+     * @return The highest exponent, or {@code 0} if the board is empty.
+     */
+    public int getMaxExponent() {
+        return maxExponent;
+    }
+
+    /**
+     * Gets the bitmask of the legal directions, evaluating it only if the board has changed since the last time.
+     * @param board The described board.
+     * @return The bitmask of legal directions, as described by {@link Board#legalMoves()}.
+     */
+    public int getLegalMoves(Board board) {
+        if (legalMoves < 0) legalMoves = board.legalMoves();
+        return legalMoves;
+    }
+}
@@ -0,0 +1,400 @@
+package pl.kaitou_dev.clone2048.engine;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * A {@link Board} of any size, which stores one exponent per byte, row after row.
+ * Every move slides and merges each line in a single pass, so it costs {@code O(side^2)}.
+ * <p>
+ * The lines of a move are independent of each other: a line only ever touches its own slots, and its own
+ * elements of the destinations array. Moves on big boards are therefore split by lines across a
+ * {@link ForkJoinPool}, without any locks. Splitting a move allocates its tasks, so only the moves of boards
+ * smaller than {@link #PARALLEL_THRESHOLD} are free of allocations.
+ * </p>
+ * <p>
+ * If the {@code jdk.incubator.vector} module is present, boards of at least {@link #VECTOR_THRESHOLD} slots
+ * a side move and check their moves with SIMD instructions, unless the destinations of the boxes are needed.
+ * Vertical moves transpose the board first, so that every line is contiguous. The scalar path can be forced
+ * with {@code -Dclone2048.vectorize=false}.
+ * </p>
+ */
+public class ByteBoard implements Board {
+    /**
+     * The highest exponent this board can store, chosen so that every value still fits in an {@code int}.
+     */
+    public static final int MAX_EXPONENT = 30;
+
+    /**
+     * The lowest number of slots of a board whose moves get split across the pool.
+     * Smaller boards are moved on the calling thread, as forking would cost more than it saves.
+     */
+    public static final int PARALLEL_THRESHOLD = 64 * 64;
+
+    /**
+     * The lowest number of slots moved by a single task without splitting it any further.
+     */
+    private static final int MIN_SLOTS_PER_TASK = 1024;
+
+    /**
+     * The lowest length of a side of a board which uses the Vector API, as shorter lines fill too few lanes.
+     */
+    public static final int VECTOR_THRESHOLD = 64;
+
+    /**
+     * Whether the Vector API may be used, i.e. it is present and has not been disabled.
+     */
+    private static final boolean VECTORIZE =
+        Boolean.parseBoolean(System.getProperty("clone2048.vectorize", "true")) && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    /**
+     * All the directions, cached to avoid copying {@link Directions#values()} on every evaluation of the legal moves.
+     */
+    private static final Directions[] DIRECTIONS = Directions.values();
+
+    /**
+     * The buffer every thread slides its lines in on the vector path, grown to the longest line it has seen.
+     * It is kept per thread, since the lines of a single move may be slid by many threads of the pool at once.
+     */
+    private static final ThreadLocal<byte[]> LINE_BUFFER = ThreadLocal.withInitial(() -> new byte[0]);
+
+    /**
+     * The length of one side of this board.
+     */
+    private final int side;
+
+    /**
+     * The exponents of all the slots, row after row.
+     */
+    private final byte[] cells;
+
+    /**
+     * The pool the moves of big boards are split across.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The transposed exponents used by vertical moves on the vector path, or {@code null} until the first of them.
+     */
+    private byte[] transposed;
+
+    /**
+     * The default constructor, which creates an empty board, whose big moves are split across
+     * the common {@link ForkJoinPool}.
+     * @param side The length of one side of the board, in slots.
+     * @throws IllegalArgumentException if the board would be too small.
+     */
+    public ByteBoard(int side) throws IllegalArgumentException {
+        this(side, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * A constructor which creates an empty board.
+     * @param side The length of one side of the board, in slots.
+     * @param pool The pool the moves are split across, if the board has at least {@link #PARALLEL_THRESHOLD} slots.
+     * @throws IllegalArgumentException if the board would be too small.
+     */
+    public ByteBoard(int side, ForkJoinPool pool) throws IllegalArgumentException {
+        if (side < MIN_SIDE) throw new IllegalArgumentException("The board must be at least " + MIN_SIDE + " wide");
+
+        this.side = side;
+        this.cells = new byte[side * side];
+        this.pool = pool;
+    }
+
+    /**
+     * A copying constructor.
+     * @param other The board to copy.
+     */
+    private ByteBoard(ByteBoard other) {
+        this.side = other.side;
+        this.cells = other.cells.clone();
+        this.pool = other.pool;
+    }
+
+    @Override
+    public int getSide() {
+        return side;
+    }
+
+    @Override
+    public int getExponentLimit() {
+        return MAX_EXPONENT;
+    }
+
+    @Override
+    public int getExponent(int index) {
+        return cells[index];
+    }
+
+    @Override
+    public void setExponent(int index, int exponent) {
+        cells[index] = (byte) exponent;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(cells, (byte) 0);
+    }
+
+    @Override
+    public void load(Board other) throws IllegalArgumentException {
+        if (other instanceof ByteBoard byteBoard && byteBoard.side == side)
+            System.arraycopy(byteBoard.cells, 0, cells, 0, cells.length);
+        else
+            Board.super.load(other);
+    }
+
+    /**
+     * Gets the index of the first slot of a line, i.e. the one at the wall the line is slid towards.
+     * @param direction The direction of the move.
+     * @param line The index of the row or column.
+     * @return The index of the first slot of the line.
+     */
+    private int lineStart(Directions direction, int line) {
+        return switch (direction) {
+            case LEFT -> line * side;
+            case RIGHT -> line * side + side - 1;
+            case UP -> line;
+            case DOWN -> (side - 1) * side + line;
+        };
+    }
+
+    /**
+     * Gets the distance between the indices of two consecutive slots of a line, going away from the wall.
+     * @param direction The direction of the move.
+     * @return The stride of a line.
+     */
+    private int lineStride(Directions direction) {
+        return switch (direction) {
+            case LEFT -> 1;
+            case RIGHT -> -1;
+            case UP -> side;
+            case DOWN -> -side;
+        };
+    }
+
+    @Override
+    public int move(Directions direction, int[] destinations) {
+        boolean transpose = isVectorized(destinations) && direction.isVertical();
+        if (transpose) {
+            if (transposed == null) transposed = new byte[cells.length];
+            VectorKernel.transpose(cells, transposed, side);
+        }
+
+        long score = cells.length < PARALLEL_THRESHOLD
+            ? moveLines(direction, 0, side, destinations)
+            : pool.invoke(new LineRange(direction, 0, side, Math.max(1, MIN_SLOTS_PER_TASK / side), destinations));
+
+        if (transpose && score >= 0) VectorKernel.transpose(transposed, cells, side);
+
+        return (int) Math.min(score, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Checks if a move should take the vector path.
+     * @param destinations The array to receive the destinations, or {@code null}.
+     * @return {@code true} if the move should be vectorized, {@code false} if it should stay scalar.
+     */
+    private boolean isVectorized(int[] destinations) {
+        return VECTORIZE && destinations == null && side >= VECTOR_THRESHOLD;
+    }
+
+    /**
+     * Slides and merges a range of lines. Touches only the slots of these lines.
+     * @param direction The direction of the move.
+     * @param fromLine The index of the first line of the range.
+     * @param toLine The index following the last line of the range.
+     * @param destinations The array to receive the destinations, as described by {@link #move(Directions, int[])},
+     *                     or {@code null}.
+     * @return The score gained by the lines, or {@code -1} if none of them has changed.
+     */
+    private long moveLines(Directions direction, int fromLine, int toLine, int[] destinations) {
+        if (isVectorized(destinations)) {
+            byte[] rows = direction.isVertical() ? transposed : cells;
+            boolean reversed = direction == Directions.DOWN || direction == Directions.RIGHT;
+            byte[] line = LINE_BUFFER.get();
+            if (line.length < side + VectorKernel.LANES) {
+                line = new byte[side + VectorKernel.LANES];
+                LINE_BUFFER.set(line);
+            }
+            long score = -1;
+
+            for (int row = fromLine; row < toLine; ++row)
+                score = combine(score, VectorKernel.slideRow(rows, row * side, side, reversed, line, MAX_EXPONENT));
+
+            return score;
+        }
+
+        int stride = lineStride(direction);
+        long score = 0;
+        boolean moved = false;
+
+        for (int line = fromLine; line < toLine; ++line) {
+            int start = lineStart(direction, line);
+            int target = start;
+            boolean targetMergeable = false;
+
+            for (int k = 0, src = start; k < side; ++k, src += stride) {
+                int exponent = cells[src];
+                if (exponent == 0) {
+                    if (destinations != null) destinations[src] = -1;
+                    continue;
+                }
+
+                cells[src] = 0;
+                int previous = target - stride;
+                int dest;
+
+                if (targetMergeable && cells[previous] == exponent && exponent < MAX_EXPONENT) {
+                    cells[previous] = (byte) (exponent + 1);
+                    score += 1L << (exponent + 1);
+                    dest = previous;
+                    targetMergeable = false;
+                } else {
+                    cells[target] = (byte) exponent;
+                    dest = target;
+                    target += stride;
+                    targetMergeable = true;
+                }
+
+                moved |= dest != src;
+                if (destinations != null) destinations[src] = dest;
+            }
+        }
+
+        return moved ? score : -1;
+    }
+
+    /**
+     * Combines the results of two ranges of lines of the same move.
+     * @param first The result of the first range, as returned by {@link #moveLines(Directions, int, int, int[])}.
+     * @param second The result of the second range.
+     * @return The result of both ranges.
+     */
+    private static long combine(long first, long second) {
+        if (first < 0) return second;
+        if (second < 0) return first;
+        return first + second;
+    }
+
+    /**
+     * A range of lines of a move, which splits itself in halves until it is small enough to be moved
+     * on a single thread.
+     */
+    @SuppressWarnings("serial")
+    private class LineRange extends RecursiveTask<Long> {
+        /**
+         * The direction of the move.
+         */
+        private final Directions direction;
+
+        /**
+         * The index of the first line of the range.
+         */
+        private final int fromLine;
+
+        /**
+         * The index following the last line of the range.
+         */
+        private final int toLine;
+
+        /**
+         * The highest number of lines moved without splitting.
+         */
+        private final int linesPerTask;
+
+        /**
+         * The array to receive the destinations, or {@code null}.
+         */
+        private final int[] destinations;
+
+        /**
+         * The default constructor.
+         * @param direction The direction of the move.
+         * @param fromLine The index of the first line of the range.
+         * @param toLine The index following the last line of the range.
+         * @param linesPerTask The highest number of lines moved without splitting.
+         * @param destinations The array to receive the destinations, or {@code null}.
+         */
+        private LineRange(Directions direction, int fromLine, int toLine, int linesPerTask, int[] destinations) {
+            this.direction = direction;
+            this.fromLine = fromLine;
+            this.toLine = toLine;
+            this.linesPerTask = linesPerTask;
+            this.destinations = destinations;
+        }
+
+        @Override
+        protected Long compute() {
+            if (toLine - fromLine <= linesPerTask) return moveLines(direction, fromLine, toLine, destinations);
+
+            int middle = (fromLine + toLine) >>> 1;
+            LineRange left = new LineRange(direction, fromLine, middle, linesPerTask, destinations);
+            left.fork();
+
+            long right = new LineRange(direction, middle, toLine, linesPerTask, destinations).compute();
+            return combine(left.join(), right);
+        }
+    }
+
+    @Override
+    public boolean canMove(Directions direction) {
+        if (isVectorized(null)) return VectorKernel.canMove(cells, side, direction, MAX_EXPONENT);
+
+        int stride = lineStride(direction);
+
+        for (int line = 0; line < side; ++line) {
+            int previous = cells[lineStart(direction, line)];
+
+            for (int k = 1, src = lineStart(direction, line) + stride; k < side; ++k, src += stride) {
+                int exponent = cells[src];
+                if (exponent != 0 && (previous == 0 || (previous == exponent && exponent < MAX_EXPONENT)))
+                    return true;
+
+                previous = exponent;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public int legalMoves() {
+        int mask = 0;
+        for (Directions direction : DIRECTIONS) {
+            if (canMove(direction)) mask |= 1 << direction.ordinal();
+        }
+        return mask;
+    }
+
+    @Override
+    public int countEmpty() {
+        int count = 0;
+        for (byte cell : cells) {
+            if (cell == 0) ++count;
+        }
+        return count;
+    }
+
+    @Override
+    public int nthEmpty(int n) {
+        for (int i = 0; i < cells.length; ++i) {
+            if (cells[i] == 0 && n-- == 0) return i;
+        }
+        return -1;
+    }
+
+    @Override
+    public int maxExponent() {
+        int max = 0;
+        for (byte cell : cells) max = Math.max(max, cell);
+        return max;
+    }
+
+    @Override
+    public ByteBoard copy() {
+        return new ByteBoard(this);
+    }
+}
@@ -1,4 +1,4 @@
-package pl.kaitou_dev.clone2048.utils;
+package pl.kaitou_dev.clone2048.engine;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -0,0 +1,368 @@
+package pl.kaitou_dev.clone2048.engine;
+
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * Holds the state of a single game of 2048 and enforces its rules: movement, merging, spawning new boxes,
+ * keeping the score and evaluating whether the game has been won or lost.
+ * <p>
+ * It does not depend on any rendering or audio, so it can be used both as the model behind
+ * a rendered grid, and on its own, e.g. in headless simulations.
+ * </p>
+ * @see Board
+ */
+public class GameLogic {
+    /**
+     * An enum of the statuses a game can have, based on the layout of the board.
+     */
+    public enum Status {
+        /**
+         * Signifies that the game is still in progress.
+         */
+        IN_PROGRESS,
+        /**
+         * Signifies that the winning value has appeared on the board.
+         */
+        VICTORY,
+        /**
+         * Signifies that no move is possible anymore.
+         */
+        GAME_OVER
+    }
+
+    /**
+     * The source of randomness for spawning new boxes.
+     */
+    private final RandomGenerator random;
+
+    /**
+     * The rules of this game.
+     */
+    private final GameRules rules;
+
+    /**
+     * The exponent of the value whose appearance on the board wins the game.
+     */
+    private final int winningExponent;
+
+    /**
+     * The board of this game.
+     */
+    private final Board board;
+
+    /**
+     * The index of the board, kept up to date with every change of it.
+     */
+    private final BoardSummary summary;
+
+    /**
+     * The sum of the values of all the boxes created by merges so far.
+     */
+    private int score;
+
+    /**
+     * The number of successful moves made so far.
+     */
+    private int moveCount;
+
+    /**
+     * The version of the board, increased by every change of it, so that outdated {@link MovePlan}s can be told apart.
+     */
+    private long version;
+
+    /**
+     * The latest snapshot of the board, or {@code null} if none has been taken yet.
+     */
+    private BoardSnapshot snapshot;
+
+    /**
+     * The version of the board the {@link #snapshot} has been taken at.
+     */
+    private long snapshotVersion;
+
+    /**
+     * The default constructor, which sets up an empty board with the default rules,
+     * and its own source of randomness.
+     * @see GameRules#DEFAULT
+     */
+    public GameLogic() {
+        this(BitBoard.SIDE, GameRules.DEFAULT, new SplittableRandom());
+    }
+
+    /**
+     * A constructor which sets up an empty 4x4 board.
+     * @param rules The rules of the game.
+     * @param random The source of randomness for spawning new boxes.
+     */
+    public GameLogic(GameRules rules, RandomGenerator random) {
+        this(BitBoard.SIDE, rules, random);
+    }
+
+    /**
+     * A constructor which sets up an empty board of the provided size.
+     * @param side The length of one side of the board, in slots.
+     * @param rules The rules of the game.
+     * @param random The source of randomness for spawning new boxes.
+     * @throws IllegalArgumentException if the board would be too small, or cannot store the winning value.
+     * @see Board#create(int)
+     */
+    public GameLogic(int side, GameRules rules, RandomGenerator random) throws IllegalArgumentException {
+        this.board = Board.create(side);
+        this.summary = new BoardSummary(board.getSlots());
+        this.rules = rules;
+        this.winningExponent = rules.winningExponent();
+        this.random = random;
+
+        if (winningExponent > board.getExponentLimit())
+            throw new IllegalArgumentException("The winning value is too big for this board");
+    }
+
+    /**
+     * Clears the board and the score.
+     */
+    public void reset() {
+        board.clear();
+        summary.rebuild(board);
+        score = 0;
+        moveCount = 0;
+        ++version;
+    }
+
+    /**
+     * Performs a move, if it is legal. Does not spawn any new boxes.
+     * @param direction The direction of the move.
+     * @param destinations An array with an element for every slot, to receive the destination of every slot,
+     *                     as described by {@link Board#move(Directions, int[])},
+     *                     or {@code null} if the destinations are not needed.
+     * @return {@code true} if the move has been performed, {@code false} if it was illegal.
+     */
+    public boolean move(Directions direction, int[] destinations) {
+        int gained = board.move(direction, destinations);
+        if (gained < 0) return false;
+
+        summary.rebuild(board);
+        score += gained;
+        ++moveCount;
+        ++version;
+
+        return true;
+    }
+
+    /**
+     * Computes the outcome of a move without performing it. Does not change the game in any way, so it can be
+     * called from another thread, as long as the game does not change in the meantime.
+     * @param plan The plan to compute, whose previous contents get overwritten.
+     */
+    public void plan(MovePlan plan) {
+        plan.compute(board, version);
+    }
+
+    /**
+     * Checks if a plan has been computed for the current state of the game.
+     * @param plan The plan to check.
+     * @return {@code true} if the plan is up-to-date, {@code false} if the game has changed since.
+     */
+    public boolean isCurrent(MovePlan plan) {
+        return plan.getVersion() == version;
+    }
+
+    /**
+     * Performs a planned move, if it is legal. Does not spawn any new boxes.
+     * @param plan The plan, computed for the current state of the game.
+     * @return {@code true} if the move has been performed, {@code false} if it was illegal.
+     * @throws IllegalStateException if the plan has been computed for an older state of the game.
+     */
+    public boolean commit(MovePlan plan) throws IllegalStateException {
+        if (!isCurrent(plan)) throw new IllegalStateException("The plan is outdated");
+        if (!plan.isLegal()) return false;
+
+        board.load(plan.getResult());
+        summary.rebuild(board);
+        score += plan.getGained();
+        ++moveCount;
+        ++version;
+
+        return true;
+    }
+
+    /**
+     * Spawns a new box in a random empty slot.
+     * The chance that the box will have the value of 4 instead of 2 is given by {@link GameRules#fourProbability()}.
+     * @return The index of the slot the box has been spawned in, or {@code -1} if the board is full.
+     */
+    public int spawn() {
+        int exponent = random.nextDouble() < rules.fourProbability() ? 2 : 1;
+        return spawn(exponent);
+    }
+
+    /**
+     * Spawns a new box of the provided exponent in a random empty slot.
+     * @param exponent The exponent of the value of the new box.
+     * @return The index of the slot the box has been spawned in, or {@code -1} if the board is full.
+     */
+    public int spawn(int exponent) {
+        int emptyCount = summary.getEmptyCount();
+        if (emptyCount == 0) return -1;
+
+        int index = summary.nthEmpty(random.nextInt(emptyCount));
+        board.setExponent(index, exponent);
+        summary.occupy(index, exponent);
+        ++version;
+
+        return index;
+    }
+
+    /**
+     * Evaluates the status of the game, based on the current layout of the board.
+     * @return The status of the game.
+     * @see Status
+     */
+    public Status getStatus() {
+        if (isWon()) return Status.VICTORY;
+        if (getLegalMoves() == 0) return Status.GAME_OVER;
+        return Status.IN_PROGRESS;
+    }
+
+    /**
+     * Checks if the winning value has appeared on the board.
+     * Unlike {@link #getStatus()}, it does not evaluate the legal moves.
+     * @return {@code true} if the game has been won, {@code false} if not.
+     */
+    public boolean isWon() {
+        return summary.getMaxExponent() >= winningExponent;
+    }
+
+    /**
+     * Checks if a move in the provided direction is legal. The legal moves are evaluated at most once per change
+     * of the board.
+     * @param direction The direction of the move.
+     * @return {@code true} if the move is legal, {@code false} if it is not.
+     */
+    public boolean canMove(Directions direction) {
+        return (getLegalMoves() & (1 << direction.ordinal())) != 0;
+    }
+
+    /**
+     * Gets a bitmask of the directions in which a move is legal.
+     * @return The bitmask of legal directions.
+     * @see Board#legalMoves()
+     */
+    public int getLegalMoves() {
+        return summary.getLegalMoves(board);
+    }
+
+    /**
+     * Checks if the provided value exists on the board.
+     * @param value The value to be checked.
+     * @return {@code true} if such a value exists on the board, {@code false} if not.
+     */
+    public boolean isValueOnBoard(int value) {
+        if (value < 2 || (value & (value - 1)) != 0) return false;
+
+        int exponent = BitBoard.toExponent(value);
+        if (exponent > summary.getMaxExponent()) return false;
+        if (exponent == summary.getMaxExponent()) return true;
+
+        for (int i = 0; i < board.getSlots(); ++i) {
+            if (board.getExponent(i) == exponent) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Gets the value of the box in the slot given by row, column indices.
+     * @param row Row-index.
+     * @param col Column-index.
+     * @return The value of the box, or {@code 0} if the slot is empty.
+     */
+    public int getValue(int row, int col) {
+        return BitBoard.toValue(board.getExponent(row * board.getSide() + col));
+    }
+
+    /**
+     * Gets the index of the board of this game.
+     * @return The {@link BoardSummary} of the board.
+     */
+    public BoardSummary getSummary() {
+        return summary;
+    }
+
+    /**
+     * Gets the board of this game. It should not be modified directly, as its {@link BoardSummary} would not follow.
+     * @return The board of this game.
+     */
+    public Board getBoard() {
+        return board;
+    }
+
+    /**
+     * Gets an immutable snapshot of the current layout of the board. It is taken at most once per change
+     * of the board, so it can be asked for every frame without allocating anything in the meantime.
+     * @return The snapshot of the board.
+     */
+    public BoardSnapshot getSnapshot() {
+        if (snapshot == null || snapshotVersion != version) {
+            snapshot = BoardSnapshot.of(board, getLegalMoves());
+            snapshotVersion = version;
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * Gets the latest snapshot taken of the board, which may not follow the latest changes of the board, taking one
+     * only if none has been taken yet. It is meant for strategies which do not read the board, and never allocates
+     * anything once the first snapshot has been taken.
+     * @return A snapshot of the board, not necessarily of its current layout.
+     * @see pl.kaitou_dev.clone2048.engine.strategy.MoveStrategy#readsBoard()
+     */
+    public BoardSnapshot getLatestSnapshot() {
+        return snapshot == null ? getSnapshot() : snapshot;
+    }
+
+    /**
+     * Gets the current layout of a 4x4 board, packed into a {@code long}.
+     * @return The board, packed as described by {@link BitBoard}.
+     * @throws UnsupportedOperationException if the board is not 4x4.
+     */
+    public long getPackedBoard() throws UnsupportedOperationException {
+        if (!(board instanceof PackedBoard packedBoard))
+            throw new UnsupportedOperationException("Only 4x4 boards can be packed");
+
+        return packedBoard.getPacked();
+    }
+
+    /**
+     * Gets the current score.
+     * @return The sum of the values of all the boxes created by merges so far.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Gets the number of successful moves made so far.
+     * @return The number of moves.
+     */
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * Gets the rules of this game.
+     * @return The {@link GameRules} of this game.
+     */
+    public GameRules getRules() {
+        return rules;
+    }
+
+    /**
+     * Gets the length of one side of the board.
+     * @return The length of one side of the board, in slots.
+     */
+    public int getSide() {
+        return board.getSide();
+    }
+}
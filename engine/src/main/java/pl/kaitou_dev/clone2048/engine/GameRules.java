@@ -0,0 +1,54 @@
+package pl.kaitou_dev.clone2048.engine;
+
+/**
+ * Describes the balance of a game: which value wins it, and how often new boxes are 4s instead of 2s.
+ * @param winningValue The value whose appearance on the board wins the game. It has to be a power of 2,
+ *                     which can be stored on a {@link Board}.
+ * @param fourProbability The probability of a new box having the value of 4 instead of 2, within [0; 1].
+ */
+public record GameRules(int winningValue, double fourProbability) {
+    /**
+     * The rules of the original game: 2048 wins, and 10% of new boxes are 4s.
+     */
+    public static final GameRules DEFAULT = new GameRules(2048, 0.1);
+
+    /**
+     * The compact constructor, which validates the rules.
+     * @throws IllegalArgumentException if the winning value is not a power of 2, cannot be stored on the board,
+     *                                  or the probability is out of range.
+     */
+    public GameRules {
+        if (winningValue < 2 || (winningValue & (winningValue - 1)) != 0)
+            throw new IllegalArgumentException("The winning value must be a power of two");
+        if (BitBoard.toExponent(winningValue) > ByteBoard.MAX_EXPONENT)
+            throw new IllegalArgumentException("The winning value is too big");
+        if (!(0 <= fourProbability && fourProbability <= 1))
+            throw new IllegalArgumentException("The probability must be within [0; 1]");
+    }
+
+    /**
+     * Gets the exponent of the winning value.
+     * @return The exponent of the winning value.
+     */
+    public int winningExponent() {
+        return BitBoard.toExponent(winningValue);
+    }
+
+    /**
+     * Creates a copy of these rules with a different winning value.
+     * @param winningValue The new winning value.
+     * @return The modified rules.
+     */
+    public GameRules withWinningValue(int winningValue) {
+        return new GameRules(winningValue, fourProbability);
+    }
+
+    /**
+     * Creates a copy of these rules with a different probability of spawning 4s.
+     * @param fourProbability The new probability.
+     * @return The modified rules.
+     */
+    public GameRules withFourProbability(double fourProbability) {
+        return new GameRules(winningValue, fourProbability);
+    }
+}
@@ -0,0 +1,110 @@
+package pl.kaitou_dev.clone2048.engine;
+
+/**
+ * The precomputed outcome of a move in one direction: the resulting layout, the destinations of the boxes,
+ * the score gained, and whether the move is legal at all.
+ * <p>
+ * A plan is computed by {@link GameLogic#plan(MovePlan)} without changing the game, which makes it safe to compute
+ * on another thread, as long as the game does not change in the meantime. It is applied by
+ * {@link GameLogic#commit(MovePlan)}, which refuses plans made for an older state of the game.
+ * Plans are reusable: computing a plan again overwrites its previous contents.
+ * </p>
+ */
+public class MovePlan {
+    /**
+     * The direction of the planned move.
+     */
+    private final Directions direction;
+
+    /**
+     * The layout of the board after the move.
+     */
+    private final Board result;
+
+    /**
+     * The destination of every slot, as described by {@link Board#move(Directions, int[])}.
+     * Boxes sharing a destination get merged there.
+     */
+    private final int[] destinations;
+
+    /**
+     * The score gained by the move, or {@code -1} if the move is illegal.
+     */
+    private int gained = -1;
+
+    /**
+     * The version of the game the plan has been computed for, or {@code -1} if it has not been computed yet.
+     */
+    private long version = -1;
+
+    /**
+     * The default constructor, which creates an empty plan.
+     * @param direction The direction of the planned move.
+     * @param side The length of one side of the board, in slots.
+     */
+    public MovePlan(Directions direction, int side) {
+        this.direction = direction;
+        this.result = Board.create(side);
+        this.destinations = new int[side * side];
+    }
+
+    /**
+     * Computes this plan for a board, overwriting its previous contents.
+     * @param board The board before the move. It is not modified.
+     * @param version The version of the game the board belongs to.
+     */
+    void compute(Board board, long version) {
+        result.load(board);
+        gained = result.move(direction, destinations);
+        this.version = version;
+    }
+
+    /**
+     * Gets the direction of the planned move.
+     * @return The direction of the move.
+     */
+    public Directions getDirection() {
+        return direction;
+    }
+
+    /**
+     * Gets the layout of the board after the move. It is only meaningful if the move is legal.
+     * @return The resulting board. It should not be modified.
+     */
+    public Board getResult() {
+        return result;
+    }
+
+    /**
+     * Gets the destinations of the boxes, as described by {@link Board#move(Directions, int[])}.
+     * They are only meaningful if the move is legal.
+     * @return The destination of every slot. The array should not be modified.
+     */
+    public int[] getDestinations() {
+        return destinations;
+    }
+
+    /**
+     * Gets the score gained by the move.
+     * @return The score gained, or {@code -1} if the move is illegal.
+     */
+    public int getGained() {
+        return gained;
+    }
+
+    /**
+     * Checks if the planned move is legal.
+     * @return {@code true} if the move is legal, {@code false} if it is not.
+     */
+    public boolean isLegal() {
+        return gained >= 0;
+    }
+
+    /**
+     * Gets the version of the game this plan has been computed for.
+     * @return The version, or {@code -1} if the plan has not been computed yet.
+     */
+    long getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,130 @@
+package pl.kaitou_dev.clone2048.engine;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Plans the next move of a game in every direction on its own background thread, so that the plans are ready
+ * by the time the player chooses a direction.
+ * <p>
+ * The owner of the game calls {@link #schedule()} after every change of it, and {@link #await()} before the next
+ * change, so that the plans are never computed from a changing board. The handoff between the threads only parks
+ * and unparks them, so it does not allocate anything once the planner has been created.
+ * </p>
+ * @see MovePlan
+ */
+public class MovePlanner implements AutoCloseable {
+    /**
+     * The game whose moves are planned.
+     */
+    private final GameLogic logic;
+
+    /**
+     * The plans of the next move in every direction, indexed by the ordinals of the directions.
+     */
+    private final MovePlan[] plans;
+
+    /**
+     * The background thread computing the plans, started by {@link #start(GameLogic)}.
+     */
+    private Thread worker;
+
+    /**
+     * The thread waiting in {@link #await()}, if any.
+     */
+    private volatile Thread waiter;
+
+    /**
+     * Whether the plans have been requested, and are not ready yet.
+     */
+    private volatile boolean requested;
+
+    /**
+     * Whether this planner has been closed, and its thread should finish.
+     */
+    private volatile boolean closed;
+
+    /**
+     * The default constructor, which does not start the background thread yet.
+     * @param logic The game whose moves are to be planned.
+     */
+    private MovePlanner(GameLogic logic) {
+        this.logic = logic;
+
+        plans = new MovePlan[Directions.values().length];
+        for (Directions direction : Directions.values())
+            plans[direction.ordinal()] = new MovePlan(direction, logic.getSide());
+    }
+
+    /**
+     * Creates a planner, and starts its background thread once the planner is fully constructed.
+     * @param logic The game whose moves are to be planned.
+     * @return The new planner.
+     */
+    public static MovePlanner start(GameLogic logic) {
+        MovePlanner planner = new MovePlanner(logic);
+        planner.worker = Thread.ofPlatform().name("move-planner").daemon().start(planner::work);
+        return planner;
+    }
+
+    /**
+     * The loop of the background thread, which computes the plans whenever they are requested.
+     */
+    private void work() {
+        while (!closed) {
+            if (!requested) {
+                LockSupport.park(this);
+                continue;
+            }
+
+            for (MovePlan plan : plans) logic.plan(plan);
+            requested = false;
+
+            Thread toWake = waiter;
+            if (toWake != null) LockSupport.unpark(toWake);
+        }
+    }
+
+    /**
+     * Starts planning the moves of the current state of the game in the background.
+     * The game must not change until {@link #await()} returns.
+     */
+    public void schedule() {
+        requested = true;
+        LockSupport.unpark(worker);
+    }
+
+    /**
+     * Waits until the plans requested by {@link #schedule()} are ready. Returns immediately if there are none.
+     */
+    public void await() {
+        if (!requested) return;
+
+        waiter = Thread.currentThread();
+        while (requested && !closed) LockSupport.park(this);
+        waiter = null;
+    }
+
+    /**
+     * Gets the plan of the next move in the provided direction, computing it on the calling thread
+     * if the game has changed since it was planned.
+     * @param direction The direction of the move.
+     * @return The plan of the move, up-to-date with the game.
+     */
+    public MovePlan getPlan(Directions direction) {
+        await();
+
+        MovePlan plan = plans[direction.ordinal()];
+        if (!logic.isCurrent(plan)) logic.plan(plan);
+
+        return plan;
+    }
+
+    /**
+     * Stops the background thread. The plans can still be computed on the calling thread afterwards.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(worker);
+    }
+}
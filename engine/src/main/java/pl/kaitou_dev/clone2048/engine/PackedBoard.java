@@ -0,0 +1,115 @@
+package pl.kaitou_dev.clone2048.engine;
+
+/**
+ * A 4x4 {@link Board} packed into a single {@code long}, which delegates all the work to {@link BitBoard}.
+ */
+public class PackedBoard implements Board {
+    /**
+     * The packed layout of this board.
+     */
+    private long packed;
+
+    /**
+     * The default constructor, which creates an empty board.
+     */
+    public PackedBoard() {
+        this(BitBoard.EMPTY);
+    }
+
+    /**
+     * A constructor which wraps an already packed layout.
+     * @param packed The layout, packed as described by {@link BitBoard}.
+     */
+    public PackedBoard(long packed) {
+        this.packed = packed;
+    }
+
+    /**
+     * Gets the packed layout of this board.
+     * @return The layout, packed as described by {@link BitBoard}.
+     */
+    public long getPacked() {
+        return packed;
+    }
+
+    /**
+     * Replaces the layout of this board.
+     * @param packed The layout, packed as described by {@link BitBoard}.
+     */
+    public void setPacked(long packed) {
+        this.packed = packed;
+    }
+
+    @Override
+    public int getSide() {
+        return BitBoard.SIDE;
+    }
+
+    @Override
+    public int getExponentLimit() {
+        return BitBoard.MAX_EXPONENT;
+    }
+
+    @Override
+    public int getExponent(int index) {
+        return BitBoard.getExponent(packed, index);
+    }
+
+    @Override
+    public void setExponent(int index, int exponent) {
+        packed = BitBoard.withExponent(packed, index, exponent);
+    }
+
+    @Override
+    public void clear() {
+        packed = BitBoard.EMPTY;
+    }
+
+    @Override
+    public void load(Board other) throws IllegalArgumentException {
+        if (other instanceof PackedBoard packedBoard) packed = packedBoard.packed;
+        else Board.super.load(other);
+    }
+
+    @Override
+    public int move(Directions direction, int[] destinations) {
+        long moved = BitBoard.move(packed, direction);
+        if (moved == packed) return -1;
+
+        if (destinations != null) BitBoard.trace(packed, direction, destinations);
+
+        int score = BitBoard.score(packed, direction);
+        packed = moved;
+        return score;
+    }
+
+    @Override
+    public boolean canMove(Directions direction) {
+        return BitBoard.canMove(packed, direction);
+    }
+
+    @Override
+    public int legalMoves() {
+        return BitBoard.legalMoves(packed);
+    }
+
+    @Override
+    public int countEmpty() {
+        return BitBoard.countEmpty(packed);
+    }
+
+    @Override
+    public int nthEmpty(int n) {
+        return BitBoard.nthEmpty(packed, n);
+    }
+
+    @Override
+    public int maxExponent() {
+        return BitBoard.maxExponent(packed);
+    }
+
+    @Override
+    public PackedBoard copy() {
+        return new PackedBoard(packed);
+    }
+}
@@ -0,0 +1,169 @@
+package pl.kaitou_dev.clone2048.engine;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The SIMD counterparts of the loops of {@link ByteBoard}, written with the incubating Vector API.
+ * <p>
+ * This class must only be loaded if the {@code jdk.incubator.vector} module is present, which is checked
+ * by {@link ByteBoard} before touching it. Rows are compacted many slots at a time, and equal neighbors are
+ * detected across many lines at once. Merging the compacted boxes stays scalar, as it depends on the merges
+ * before it.
+ * </p>
+ */
+final class VectorKernel {
+    /**
+     * The widest species of bytes supported by the hardware.
+     */
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+
+    /**
+     * The number of slots processed at a time.
+     */
+    static final int LANES = SPECIES.length();
+
+    /**
+     * The shuffle which reverses the order of the lanes of a vector.
+     */
+    private static final VectorShuffle<Byte> REVERSE = VectorShuffle.fromOp(SPECIES, lane -> LANES - 1 - lane);
+
+    /**
+     * A private constructor to prevent instantiation.
+     */
+    private VectorKernel() {}
+
+    /**
+     * Slides and merges a single row towards one of its ends.
+     * @param cells The exponents of the board, row after row.
+     * @param start The index of the leftmost slot of the row.
+     * @param side The length of the row.
+     * @param reversed Whether the row is slid to the right ({@code true}), or to the left ({@code false}).
+     * @param line A buffer of at least {@code side + LANES} elements for the compacted boxes.
+     * @param maxExponent The highest exponent; boxes of this exponent are not merged any further.
+     * @return The score gained by the row, or {@code -1} if it has not changed.
+     */
+    static long slideRow(byte[] cells, int start, int side, boolean reversed, byte[] line, int maxExponent) {
+        int count = 0;
+        int end = 0;
+        int k = 0;
+
+        // Compact the boxes in the order of their distance from the wall.
+        for (; k <= side - LANES; k += LANES) {
+            ByteVector chunk = reversed
+                ? ByteVector.fromArray(SPECIES, cells, start + side - k - LANES).rearrange(REVERSE)
+                : ByteVector.fromArray(SPECIES, cells, start + k);
+
+            VectorMask<Byte> occupied = chunk.compare(VectorOperators.NE, 0);
+            if (!occupied.anyTrue()) continue;
+
+            chunk.compress(occupied).intoArray(line, count);
+            count += occupied.trueCount();
+            end = k + occupied.lastTrue() + 1;
+        }
+
+        for (; k < side; ++k) {
+            byte exponent = cells[reversed ? start + side - 1 - k : start + k];
+            if (exponent == 0) continue;
+
+            line[count++] = exponent;
+            end = k + 1;
+        }
+
+        long score = 0;
+        int merged = 0;
+
+        for (int i = 0; i < count; ++i) {
+            int exponent = line[i];
+
+            if (i + 1 < count && line[i + 1] == exponent && exponent < maxExponent) {
+                line[merged++] = (byte) (exponent + 1);
+                score += 1L << (exponent + 1);
+                ++i;
+            } else {
+                line[merged++] = (byte) exponent;
+            }
+        }
+
+        if (merged == count && end == count) return -1;
+
+        for (int i = 0; i < side; ++i) {
+            cells[reversed ? start + side - 1 - i : start + i] = i < merged ? line[i] : 0;
+        }
+
+        return score;
+    }
+
+    /**
+     * Checks if a move in the provided direction is legal, comparing many pairs of neighbors at once.
+     * @param cells The exponents of the board, row after row.
+     * @param side The length of one side of the board.
+     * @param direction The direction of the move.
+     * @param maxExponent The highest exponent; boxes of this exponent are not merged any further.
+     * @return {@code true} if the move is legal, {@code false} if it is not.
+     */
+    static boolean canMove(byte[] cells, int side, Directions direction, int maxExponent) {
+        boolean vertical = direction.isVertical();
+        boolean towardsStart = direction == Directions.UP || direction == Directions.LEFT;
+
+        // Vertical neighbors are whole rows apart, so consecutive columns fill the lanes.
+        // Horizontal neighbors are next to each other, so a row is compared with itself shifted by one.
+        int offset = vertical ? side : 1;
+        int lineCount = vertical ? side - 1 : side;
+        int lineLength = vertical ? side : side - 1;
+
+        for (int line = 0; line < lineCount; ++line) {
+            int lineStart = line * side;
+            int k = 0;
+
+            for (; k <= lineLength - LANES; k += LANES) {
+                ByteVector first = ByteVector.fromArray(SPECIES, cells, lineStart + k);
+                ByteVector second = ByteVector.fromArray(SPECIES, cells, lineStart + k + offset);
+                ByteVector near = towardsStart ? first : second;
+                ByteVector far = towardsStart ? second : first;
+
+                VectorMask<Byte> mergeable = near.compare(VectorOperators.EQ, far)
+                    .and(near.compare(VectorOperators.LT, (byte) maxExponent));
+                VectorMask<Byte> legal = far.compare(VectorOperators.NE, 0)
+                    .and(near.compare(VectorOperators.EQ, 0).or(mergeable));
+
+                if (legal.anyTrue()) return true;
+            }
+
+            for (; k < lineLength; ++k) {
+                int first = cells[lineStart + k];
+                int second = cells[lineStart + k + offset];
+                int near = towardsStart ? first : second;
+                int far = towardsStart ? second : first;
+
+                if (far != 0 && (near == 0 || (near == far && near < maxExponent))) return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Transposes a square board, swapping its rows with its columns.
+     * @param source The exponents of the board, row after row.
+     * @param target The array to receive the transposed board.
+     * @param side The length of one side of the board.
+     */
+    static void transpose(byte[] source, byte[] target, int side) {
+        final int block = LANES;
+
+        for (int r0 = 0; r0 < side; r0 += block) {
+            for (int c0 = 0; c0 < side; c0 += block) {
+                int rEnd = Math.min(r0 + block, side);
+                int cEnd = Math.min(c0 + block, side);
+
+                for (int r = r0; r < rEnd; ++r) {
+                    for (int c = c0; c < cEnd; ++c) target[c * side + r] = source[r * side + c];
+                }
+            }
+        }
+    }
+}
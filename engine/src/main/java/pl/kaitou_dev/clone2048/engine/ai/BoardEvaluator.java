@@ -0,0 +1,17 @@
+package pl.kaitou_dev.clone2048.engine.ai;
+
+import pl.kaitou_dev.clone2048.engine.BitBoard;
+
+/**
+ * Estimates how promising a board is. Higher values describe better boards.
+ * Implementations have to be thread-safe, as searches evaluate boards from multiple threads at once.
+ */
+@FunctionalInterface
+public interface BoardEvaluator {
+    /**
+     * Evaluates a board.
+     * @param board The board, packed as described by {@link BitBoard}.
+     * @return The estimated value of the board.
+     */
+    double evaluate(long board);
+}
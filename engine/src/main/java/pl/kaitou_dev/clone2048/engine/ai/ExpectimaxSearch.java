@@ -0,0 +1,399 @@
+package pl.kaitou_dev.clone2048.engine.ai;
+
+import pl.kaitou_dev.clone2048.engine.BitBoard;
+import pl.kaitou_dev.clone2048.engine.Directions;
+import pl.kaitou_dev.clone2048.engine.GameRules;
+
+import java.io.Serial;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Chooses the best move for a board using expectimax: the player maximizes the expected value of the board,
+ * while new boxes appear according to the spawning odds of the {@link GameRules}.
+ * <p>
+ * The search deepens iteratively until its wall-clock budget runs out, and answers with the result of the
+ * deepest completed iteration, so it always has an answer ready. Spawns whose cumulative probability falls
+ * below a cutoff are not expanded any further, but evaluated right away. Every legal root move may be searched
+ * on a separate thread of a {@link ForkJoinPool}.
+ * </p>
+ * <p>
+ * The same boards are reached through many different orders of moves and spawns, so the values of the chance nodes
+ * are cached in a {@link TranspositionTable}, which is shared by all the threads, and may be shared by many searches,
+ * even running at the same time, as long as they have the same evaluator, rules and cutoff. The searches do not age
+ * the table themselves, which would mark the entries of the others as stale all the time: their callers do it with
+ * {@link #ageTable()}, once per move of a game, or per round of moves of a batch of games.
+ * The search itself is thread-safe.
+ * </p>
+ */
+public class ExpectimaxSearch {
+    /**
+     * The cumulative probability below which spawns are not expanded, unless specified otherwise.
+     */
+    public static final double DEFAULT_PROBABILITY_CUTOFF = 1e-4;
+
+    /**
+     * The depth at which the iterative deepening stops, unless specified otherwise.
+     */
+    public static final int DEFAULT_MAX_DEPTH = 8;
+
+    /**
+     * The number of nodes visited between two checks of the clock.
+     */
+    private static final int CLOCK_CHECK_INTERVAL = 256;
+
+    /**
+     * All the directions, cached to avoid copying {@link Directions#values()} on every search.
+     */
+    private static final Directions[] DIRECTIONS = Directions.values();
+
+    /**
+     * The result of a search.
+     * @param direction The best direction, or {@code null} if no move is legal.
+     * @param depth The depth of the deepest completed iteration.
+     * @param value The expected value of the best move.
+     * @param nodes The number of nodes visited in all the iterations.
+     */
+    public record Result(Directions direction, int depth, double value, long nodes) {}
+
+    /**
+     * Thrown when the budget of a search runs out. It is shared, as it carries no information.
+     */
+    private static final class OutOfTime extends RuntimeException {
+        /**
+         * The version of the serialized form.
+         */
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The shared instance.
+         */
+        private static final OutOfTime INSTANCE = new OutOfTime();
+
+        /**
+         * A private constructor, which skips the stack trace.
+         */
+        private OutOfTime() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * The function evaluating the leaves.
+     */
+    private final BoardEvaluator evaluator;
+
+    /**
+     * The probability of a new box having the value of 4 instead of 2.
+     */
+    private final double fourProbability;
+
+    /**
+     * The cumulative probability below which spawns are not expanded.
+     */
+    private final double probabilityCutoff;
+
+    /**
+     * The depth at which the iterative deepening stops.
+     */
+    private final int maxDepth;
+
+    /**
+     * The pool the root moves are split across, or {@code null} to search on the calling thread only.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The cache of the values of the chance nodes, or {@code null} not to cache them.
+     */
+    private final TranspositionTable table;
+
+    /**
+     * A constructor which uses the {@link HeuristicEvaluator}, the default rules and cutoffs,
+     * splits root moves across the common {@link ForkJoinPool}, and caches the values in a new table
+     * of the default size. It suits interactive play; searches run by many threads at once should not fork,
+     * and pass a {@code null} pool to the full constructor instead.
+     */
+    public ExpectimaxSearch() {
+        this(new TranspositionTable());
+    }
+
+    /**
+     * A constructor which uses the {@link HeuristicEvaluator}, the default rules and cutoffs,
+     * and splits root moves across the common {@link ForkJoinPool}.
+     * @param table The cache of the values of the chance nodes, or {@code null} not to cache them.
+     */
+    public ExpectimaxSearch(TranspositionTable table) {
+        this(
+            HeuristicEvaluator.INSTANCE, GameRules.DEFAULT,
+            DEFAULT_PROBABILITY_CUTOFF, DEFAULT_MAX_DEPTH, ForkJoinPool.commonPool(), table
+        );
+    }
+
+    /**
+     * The full constructor.
+     * @param evaluator The function evaluating the leaves.
+     * @param rules The rules providing the spawning odds.
+     * @param probabilityCutoff The cumulative probability below which spawns are not expanded.
+     * @param maxDepth The depth at which the iterative deepening stops. It has to be positive.
+     * @param pool The pool the root moves are split across, or {@code null} to search on the calling thread only,
+     *             e.g. when many searches already run in parallel.
+     * @param table The cache of the values of the chance nodes, or {@code null} not to cache them.
+     * @throws IllegalArgumentException if the maximum depth is not positive, or too big for the table.
+     */
+    public ExpectimaxSearch(
+        BoardEvaluator evaluator, GameRules rules, double probabilityCutoff, int maxDepth, ForkJoinPool pool,
+        TranspositionTable table
+    ) throws IllegalArgumentException {
+        if (maxDepth < 1) throw new IllegalArgumentException("The maximum depth must be positive");
+        if (table != null && maxDepth > TranspositionTable.MAX_DEPTH)
+            throw new IllegalArgumentException("The maximum depth cannot exceed " + TranspositionTable.MAX_DEPTH);
+
+        this.evaluator = evaluator;
+        this.fourProbability = rules.fourProbability();
+        this.probabilityCutoff = probabilityCutoff;
+        this.maxDepth = maxDepth;
+        this.pool = pool;
+        this.table = table;
+    }
+
+    /**
+     * Gets the cache of the values of the chance nodes, e.g. to read its statistics.
+     * @return The table, or {@code null} if the values are not cached.
+     */
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    /**
+     * Starts a new generation of the table, after which the entries of the earlier searches are the first to be
+     * replaced, e.g. once the game has moved on from their boards. It does nothing if the values are not cached.
+     * @see TranspositionTable#newSearch()
+     */
+    public void ageTable() {
+        if (table != null) table.newSearch();
+    }
+
+    /**
+     * Searches for the best move within a wall-clock budget. It does not age the table, see {@link #ageTable()}. The first iteration is always completed,
+     * even if it exceeds the budget, so that there is an answer.
+     * @param board The board, packed as described by {@link BitBoard}.
+     * @param budgetNanos The budget, in nanoseconds, or {@link Long#MAX_VALUE} for none, in which case every search
+     *                    goes down to the maximum depth, whatever the speed of the machine.
+     * @return The result of the deepest completed iteration.
+     */
+    public Result search(long board, long budgetNanos) {
+        long deadline = budgetNanos == Long.MAX_VALUE ? Long.MAX_VALUE : System.nanoTime() + budgetNanos;
+
+        int legalMoves = BitBoard.legalMoves(board);
+        if (legalMoves == 0) return new Result(null, 0, 0, 0);
+
+        RootMove[] roots = new RootMove[Integer.bitCount(legalMoves)];
+        for (int i = 0, mask = legalMoves; mask != 0; ++i, mask &= mask - 1) {
+            Directions direction = DIRECTIONS[Integer.numberOfTrailingZeros(mask)];
+            roots[i] = new RootMove(direction, BitBoard.move(board, direction));
+        }
+
+        Result best = null;
+        long nodes = 0;
+
+        for (int depth = 1; depth <= maxDepth; ++depth) {
+            long iterationDeadline = depth == 1 ? Long.MAX_VALUE : deadline;
+
+            for (RootMove root : roots) root.prepare(depth, iterationDeadline);
+
+            if (pool == null || roots.length == 1) {
+                for (RootMove root : roots) root.compute();
+            } else {
+                pool.invoke(new RootSplit(roots));
+            }
+
+            boolean complete = true;
+            RootMove bestRoot = null;
+            for (RootMove root : roots) {
+                nodes += root.nodes;
+                complete &= root.complete;
+                if (bestRoot == null || root.value > bestRoot.value) bestRoot = root;
+            }
+
+            if (!complete) break;
+            best = new Result(bestRoot.direction, depth, bestRoot.value, nodes);
+
+            if (System.nanoTime() >= deadline) break;
+        }
+
+        return new Result(best.direction(), best.depth(), best.value(), nodes);
+    }
+
+    /**
+     * Forks every root move onto the pool, and waits for all of them.
+     */
+    @SuppressWarnings("serial")
+    private static class RootSplit extends RecursiveAction {
+        /**
+         * The root moves to search.
+         */
+        private final RootMove[] roots;
+
+        /**
+         * The default constructor.
+         * @param roots The root moves to search.
+         */
+        private RootSplit(RootMove[] roots) {
+            this.roots = roots;
+        }
+
+        @Override
+        protected void compute() {
+            invokeAll(roots);
+        }
+    }
+
+    /**
+     * The search of a single legal root move, i.e. of the chance node following it.
+     */
+    @SuppressWarnings("serial")
+    private class RootMove extends RecursiveAction {
+        /**
+         * The direction of the move.
+         */
+        private final Directions direction;
+
+        /**
+         * The board after the move, before a new box is spawned.
+         */
+        private final long afterstate;
+
+        /**
+         * The depth of the current iteration.
+         */
+        private int depth;
+
+        /**
+         * The deadline of the current iteration, as given by {@link System#nanoTime()}.
+         */
+        private long deadline;
+
+        /**
+         * The expected value found by the current iteration.
+         */
+        private double value;
+
+        /**
+         * Whether the current iteration has completed before its deadline.
+         */
+        private boolean complete;
+
+        /**
+         * The number of nodes visited by the current iteration.
+         */
+        private long nodes;
+
+        /**
+         * The default constructor.
+         * @param direction The direction of the move.
+         * @param afterstate The board after the move.
+         */
+        private RootMove(Directions direction, long afterstate) {
+            this.direction = direction;
+            this.afterstate = afterstate;
+        }
+
+        /**
+         * Prepares this root move for the next iteration.
+         * @param depth The depth of the iteration.
+         * @param deadline The deadline of the iteration.
+         */
+        private void prepare(int depth, long deadline) {
+            this.depth = depth;
+            this.deadline = deadline;
+            this.value = 0;
+            this.complete = false;
+            this.nodes = 0;
+            reinitialize();
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                value = chanceNode(afterstate, depth - 1, 1.0);
+                complete = true;
+            } catch (OutOfTime e) {
+                complete = false;
+            }
+        }
+
+        /**
+         * Counts a visited node, and checks the clock every now and then.
+         * @throws OutOfTime if the deadline has passed.
+         */
+        private void visit() throws OutOfTime {
+            if (++nodes % CLOCK_CHECK_INTERVAL == 0 && System.nanoTime() >= deadline) throw OutOfTime.INSTANCE;
+        }
+
+        /**
+         * Evaluates a board after a move, as the average over all the possible spawns.
+         * @param board The board after a move.
+         * @param depth The number of moves left to search.
+         * @param probability The cumulative probability of reaching this board.
+         * @return The expected value of the board.
+         */
+        private double chanceNode(long board, int depth, double probability) {
+            visit();
+
+            if (depth == 0 || probability < probabilityCutoff) return evaluator.evaluate(board);
+
+            if (table != null) {
+                double cached = table.probe(board, depth);
+                if (!Double.isNaN(cached)) return cached;
+            }
+
+            long empty = BitBoard.emptyMask(board);
+            int emptyCount = Long.bitCount(empty);
+
+            double value;
+            if (emptyCount == 0) {
+                value = maxNode(board, depth, probability);
+            } else {
+                double twoBranch = probability * (1 - fourProbability) / emptyCount;
+                double fourBranch = probability * fourProbability / emptyCount;
+
+                double sum = 0;
+                for (; empty != 0; empty &= empty - 1) {
+                    long tile = empty & -empty;
+
+                    sum += (1 - fourProbability) * maxNode(board | tile, depth, twoBranch);
+                    if (fourProbability > 0)
+                        sum += fourProbability * maxNode(board | (tile << 1), depth, fourBranch);
+                }
+
+                value = sum / emptyCount;
+            }
+
+            if (table != null) table.store(board, depth, value);
+            return value;
+        }
+
+        /**
+         * Evaluates a board before a move, as the best of the moves that can be made.
+         * @param board The board before a move.
+         * @param depth The number of moves left to search, including this one.
+         * @param probability The cumulative probability of reaching this board.
+         * @return The expected value of the best move, or {@code 0} if no move is possible.
+         */
+        private double maxNode(long board, int depth, double probability) {
+            visit();
+
+            double best = 0;
+            for (Directions direction : DIRECTIONS) {
+                long moved = BitBoard.move(board, direction);
+                if (moved == board) continue;
+
+                best = Math.max(best, chanceNode(moved, depth - 1, probability));
+            }
+
+            return best;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package pl.kaitou_dev.clone2048.engine.ai;
+
+import pl.kaitou_dev.clone2048.engine.BitBoard;
+
+/**
+ * A {@link BoardEvaluator} based on hand-tuned heuristics: it rewards empty slots and possible merges,
+ * and penalizes rows and columns which are not monotonic, as well as boards crowded with big values.
+ * <p>
+ * Every row is scored once, when the class is loaded, so evaluating a board only takes 8 table lookups:
+ * one for every row, and one for every column.
+ * </p>
+ */
+public class HeuristicEvaluator implements BoardEvaluator {
+    /**
+     * The shared instance. It is stateless, so there is no need for more.
+     */
+    public static final HeuristicEvaluator INSTANCE = new HeuristicEvaluator();
+
+    /**
+     * A constant added to every row, so that any board that is still alive scores above a lost one.
+     */
+    private static final double LOST_PENALTY = 200000.0;
+
+    /**
+     * The exponent the ranks are raised to before calculating the monotonicity.
+     */
+    private static final double MONOTONICITY_POWER = 4.0;
+
+    /**
+     * The weight of the monotonicity penalty.
+     */
+    private static final double MONOTONICITY_WEIGHT = 47.0;
+
+    /**
+     * The exponent the ranks are raised to before summing them up.
+     */
+    private static final double SUM_POWER = 3.5;
+
+    /**
+     * The weight of the sum penalty.
+     */
+    private static final double SUM_WEIGHT = 11.0;
+
+    /**
+     * The weight of the possible merges.
+     */
+    private static final double MERGES_WEIGHT = 700.0;
+
+    /**
+     * The weight of the empty slots.
+     */
+    private static final double EMPTY_WEIGHT = 270.0;
+
+    /**
+     * Maps every row onto its heuristic score.
+     */
+    private static final float[] ROW_SCORES = new float[1 << 16];
+
+    static {
+        int[] line = new int[BitBoard.SIDE];
+
+        for (int row = 0; row < ROW_SCORES.length; ++row) {
+            for (int k = 0; k < BitBoard.SIDE; ++k) line[k] = (row >>> (4 * k)) & 0xF;
+            ROW_SCORES[row] = (float) scoreLine(line);
+        }
+    }
+
+    /**
+     * A private constructor, as the only instance is {@link #INSTANCE}.
+     */
+    private HeuristicEvaluator() {}
+
+    /**
+     * Scores a single line of exponents.
+     * @param line The exponents of the line.
+     * @return The heuristic score of the line.
+     */
+    private static double scoreLine(int[] line) {
+        double sum = 0;
+        int empty = 0;
+        int merges = 0;
+
+        int previous = 0;
+        int counter = 0;
+        for (int rank : line) {
+            sum += Math.pow(rank, SUM_POWER);
+
+            if (rank == 0) {
+                ++empty;
+                continue;
+            }
+
+            if (previous == rank) {
+                ++counter;
+            } else if (counter > 0) {
+                merges += 1 + counter;
+                counter = 0;
+            }
+            previous = rank;
+        }
+        if (counter > 0) merges += 1 + counter;
+
+        double monotonicityLeft = 0;
+        double monotonicityRight = 0;
+        for (int k = 1; k < line.length; ++k) {
+            double before = Math.pow(line[k - 1], MONOTONICITY_POWER);
+            double after = Math.pow(line[k], MONOTONICITY_POWER);
+
+            if (line[k - 1] > line[k]) monotonicityLeft += before - after;
+            else monotonicityRight += after - before;
+        }
+
+        return LOST_PENALTY
+            + EMPTY_WEIGHT * empty
+            + MERGES_WEIGHT * merges
+            - MONOTONICITY_WEIGHT * Math.min(monotonicityLeft, monotonicityRight)
+            - SUM_WEIGHT * sum;
+    }
+
+    /**
+     * Sums up the scores of all the rows of a board.
+     * @param board The board.
+     * @return The sum of the rows' scores.
+     */
+    private static double scoreRows(long board) {
+        return ROW_SCORES[(int) (board & 0xFFFF)]
+            + ROW_SCORES[(int) ((board >>> 16) & 0xFFFF)]
+            + ROW_SCORES[(int) ((board >>> 32) & 0xFFFF)]
+            + ROW_SCORES[(int) ((board >>> 48) & 0xFFFF)];
+    }
+
+    @Override
+    public double evaluate(long board) {
+        return scoreRows(board) + scoreRows(BitBoard.transpose(board));
+    }
+}
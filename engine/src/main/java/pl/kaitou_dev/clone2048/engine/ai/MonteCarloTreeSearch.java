@@ -0,0 +1,629 @@
+package pl.kaitou_dev.clone2048.engine.ai;
+
+import pl.kaitou_dev.clone2048.engine.BitBoard;
+import pl.kaitou_dev.clone2048.engine.Directions;
+import pl.kaitou_dev.clone2048.engine.GameRules;
+import pl.kaitou_dev.clone2048.engine.strategy.MoveStrategy;
+import pl.kaitou_dev.clone2048.engine.strategy.RandomStrategy;
+
+import java.util.ArrayDeque;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
+
+/**
+ * Chooses the best move for a board using Monte Carlo tree search: every iteration descends the tree with UCT,
+ * samples the new boxes from the spawning odds of the {@link GameRules}, adds one node to the tree, and plays
+ * the rest of the game with a rollout policy to find out how much score it brings.
+ * <p>
+ * The iterations run on all the threads of a {@link ForkJoinPool} at once, sharing a single tree. Every thread
+ * descending through a move adds a virtual loss to it, i.e. counts it as visited without any score, until its
+ * rollout finishes, which steers the other threads towards the other moves in the meantime. The search stops
+ * when either its wall-clock or its rollout budget runs out, and chooses the most visited move.
+ * </p>
+ * <p>
+ * The values of the moves are unbounded scores, so they are normalized between the lowest and the highest mean
+ * among the siblings before being compared with UCT.
+ * </p>
+ */
+public class MonteCarloTreeSearch {
+    /**
+     * The weight of the exploration term of UCT, unless specified otherwise.
+     */
+    public static final double DEFAULT_EXPLORATION = 0.7;
+
+    /**
+     * The highest number of nodes of the tree, unless specified otherwise. Iterations which reach the limit
+     * roll out from the sampled board without adding it to the tree.
+     */
+    public static final int DEFAULT_MAX_NODES = 1 << 20;
+
+    /**
+     * The number of visits a thread descending through a move counts until its rollout finishes.
+     */
+    private static final int VIRTUAL_LOSS = 3;
+
+    /**
+     * The highest depth of the tree, in moves.
+     */
+    private static final int MAX_TREE_DEPTH = 256;
+
+    /**
+     * All the directions, cached to avoid copying {@link Directions#values()} on every expansion.
+     */
+    private static final Directions[] DIRECTIONS = Directions.values();
+
+    /**
+     * The result of a search.
+     * @param direction The best direction, or {@code null} if no move is legal.
+     * @param rollouts The number of rollouts played.
+     * @param nodes The number of nodes of the tree.
+     * @param elapsedNanos The wall-clock duration of the search, in nanoseconds.
+     */
+    public record Result(Directions direction, long rollouts, int nodes, long elapsedNanos) {
+        /**
+         * Gets the throughput of the search.
+         * @return The number of rollouts played per second.
+         */
+        public double rolloutsPerSecond() {
+            return elapsedNanos == 0 ? 0 : rollouts * 1e9 / elapsedNanos;
+        }
+    }
+
+    /**
+     * The probability of a new box having the value of 4 instead of 2.
+     */
+    private final double fourProbability;
+
+    /**
+     * Creates the rollout policy of every thread, as strategies are not required to be thread-safe.
+     */
+    private final Supplier<? extends MoveStrategy> rolloutPolicy;
+
+    /**
+     * The highest number of moves of a rollout, after which it is cut short.
+     */
+    private final int maxRolloutMoves;
+
+    /**
+     * The weight of the exploration term of UCT.
+     */
+    private final double exploration;
+
+    /**
+     * The highest number of nodes of the tree.
+     */
+    private final int maxNodes;
+
+    /**
+     * The pool the iterations run on, or {@code null} to search on the calling thread only.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * A constructor which plays the rollouts at random until the end of the game, with the default rules,
+     * and runs the iterations on the common {@link ForkJoinPool}. It suits interactive play; searches run by many
+     * threads at once should not fork, and pass a {@code null} pool to the full constructor instead.
+     */
+    public MonteCarloTreeSearch() {
+        this(
+            GameRules.DEFAULT, RandomStrategy::new, Integer.MAX_VALUE,
+            DEFAULT_EXPLORATION, DEFAULT_MAX_NODES, ForkJoinPool.commonPool()
+        );
+    }
+
+    /**
+     * The full constructor.
+     * @param rules The rules providing the spawning odds.
+     * @param rolloutPolicy Creates the {@link MoveStrategy} playing the rollouts, for every thread.
+     * @param maxRolloutMoves The highest number of moves of a rollout, after which it is cut short.
+     * @param exploration The weight of the exploration term of UCT.
+     * @param maxNodes The highest number of nodes of the tree.
+     * @param pool The pool the iterations run on, or {@code null} to search on the calling thread only,
+     *             e.g. when many searches already run in parallel.
+     * @throws IllegalArgumentException if the rollouts cannot make any moves, the exploration is negative,
+     *                                  or the tree cannot hold its root.
+     */
+    public MonteCarloTreeSearch(
+        GameRules rules, Supplier<? extends MoveStrategy> rolloutPolicy, int maxRolloutMoves,
+        double exploration, int maxNodes, ForkJoinPool pool
+    ) throws IllegalArgumentException {
+        if (maxRolloutMoves < 1) throw new IllegalArgumentException("The rollouts must be able to make moves");
+        if (!(exploration >= 0)) throw new IllegalArgumentException("The exploration must not be negative");
+        if (maxNodes < 1) throw new IllegalArgumentException("The tree must be able to hold its root");
+
+        this.fourProbability = rules.fourProbability();
+        this.rolloutPolicy = rolloutPolicy;
+        this.maxRolloutMoves = maxRolloutMoves;
+        this.exploration = exploration;
+        this.maxNodes = maxNodes;
+        this.pool = pool;
+    }
+
+    /**
+     * Searches for the best move within a wall-clock and a rollout budget, whichever runs out first.
+     * At least one rollout is always played, so that there is an answer, unless there is only one legal move,
+     * which is then chosen right away.
+     * @param board The board, packed as described by {@link BitBoard}.
+     * @param budgetNanos The wall-clock budget, in nanoseconds.
+     * @param rolloutBudget The highest number of rollouts.
+     * @param seed The seed of the spawns and the rollouts.
+     * @return The result of the search.
+     */
+    public Result search(long board, long budgetNanos, long rolloutBudget, long seed) {
+        long start = System.nanoTime();
+
+        int legalMoves = BitBoard.legalMoves(board);
+        if (legalMoves == 0) return new Result(null, 0, 0, 0);
+        if (Integer.bitCount(legalMoves) == 1) {
+            Directions onlyMove = DIRECTIONS[Integer.numberOfTrailingZeros(legalMoves)];
+            return new Result(onlyMove, 0, 0, System.nanoTime() - start);
+        }
+
+        Tree tree = grow(board, start, budgetNanos, rolloutBudget, seed);
+
+        return new Result(
+            tree.bestDirection(),
+            Math.min(tree.rollouts.get(), tree.rolloutBudget),
+            Math.min(tree.nodes.get(), maxNodes),
+            System.nanoTime() - start
+        );
+    }
+
+    /**
+     * Grows the tree of a search, on all the threads of the pool, until either of the budgets runs out.
+     * @param board The board of the root, with at least one legal move.
+     * @param start The start of the search, as given by {@link System#nanoTime()}.
+     * @param budgetNanos The wall-clock budget, in nanoseconds.
+     * @param rolloutBudget The highest number of rollouts.
+     * @param seed The seed of the spawns and the rollouts.
+     * @return The tree.
+     */
+    private Tree grow(long board, long start, long budgetNanos, long rolloutBudget, long seed) {
+        Tree tree = new Tree(board, start, budgetNanos, Math.max(1, rolloutBudget));
+
+        int workerCount = pool == null ? 1 : pool.getParallelism();
+        SplittableRandom random = new SplittableRandom(seed);
+
+        Worker[] workers = new Worker[workerCount];
+        for (int i = 0; i < workerCount; ++i) workers[i] = new Worker(tree, random.split());
+
+        if (workerCount == 1) workers[0].compute();
+        else pool.invoke(new WorkerSplit(workers));
+
+        return tree;
+    }
+
+    /**
+     * Grows the tree of a search with a rollout budget only, and checks that the backups have left its visits
+     * consistent, without any virtual loss behind: the root has a visit per rollout, every node as many visits
+     * as its moves together, and every move at least as many as the nodes following it. It is meant for tests.
+     * @param board The board of the root, with at least one legal move.
+     * @param rolloutBudget The number of rollouts.
+     * @param seed The seed of the spawns and the rollouts.
+     * @return The number of nodes and moves whose visits are inconsistent.
+     */
+    int countInconsistentVisits(long board, long rolloutBudget, long seed) {
+        Tree tree = grow(board, System.nanoTime(), Long.MAX_VALUE, rolloutBudget, seed);
+        int inconsistent = tree.root.visits == Math.min(tree.rollouts.get(), tree.rolloutBudget) ? 0 : 1;
+
+        ArrayDeque<DecisionNode> pending = new ArrayDeque<>();
+        pending.push(tree.root);
+
+        while (!pending.isEmpty()) {
+            DecisionNode node = pending.pop();
+            if (node.moves == null) continue;
+
+            long moveVisits = 0;
+            for (Move move : node.moves) {
+                moveVisits += move.visits;
+                if (move.outcomes == null) continue;
+
+                long outcomeVisits = 0;
+                for (DecisionNode outcome : move.outcomes) {
+                    if (outcome == null) continue;
+
+                    outcomeVisits += outcome.visits;
+                    pending.push(outcome);
+                }
+
+                if (move.visits < outcomeVisits) ++inconsistent;
+            }
+
+            if (node.visits != moveVisits) ++inconsistent;
+        }
+
+        return inconsistent;
+    }
+
+    /**
+     * Searches for the best move within a wall-clock budget.
+     * @param board The board, packed as described by {@link BitBoard}.
+     * @param budgetNanos The wall-clock budget, in nanoseconds.
+     * @param seed The seed of the spawns and the rollouts.
+     * @return The result of the search.
+     */
+    public Result search(long board, long budgetNanos, long seed) {
+        return search(board, budgetNanos, Long.MAX_VALUE, seed);
+    }
+
+    /**
+     * A board before a move. All the fields of a node, and of its moves, are guarded by the node's monitor.
+     */
+    private static final class DecisionNode {
+        /**
+         * The board of this node.
+         */
+        private final long board;
+
+        /**
+         * The legal moves of this node, or {@code null} until it has been expanded.
+         */
+        private Move[] moves;
+
+        /**
+         * The number of visits of this node, including the virtual ones.
+         */
+        private long visits;
+
+        /**
+         * The default constructor.
+         * @param board The board of this node.
+         */
+        private DecisionNode(long board) {
+            this.board = board;
+        }
+
+        /**
+         * Creates the legal moves of this node, unless they have been created already.
+         */
+        private void expand() {
+            if (moves != null) return;
+
+            int legalMoves = BitBoard.legalMoves(board);
+            moves = new Move[Integer.bitCount(legalMoves)];
+
+            for (int i = 0, mask = legalMoves; mask != 0; ++i, mask &= mask - 1) {
+                Directions direction = DIRECTIONS[Integer.numberOfTrailingZeros(mask)];
+                moves[i] = new Move(direction, BitBoard.move(board, direction), BitBoard.score(board, direction));
+            }
+        }
+    }
+
+    /**
+     * A legal move of a {@link DecisionNode}, along with the chance node of the board after it.
+     */
+    private static final class Move {
+        /**
+         * The direction of the move.
+         */
+        private final Directions direction;
+
+        /**
+         * The board after the move, before a new box is spawned.
+         */
+        private final long afterstate;
+
+        /**
+         * The score gained by the move.
+         */
+        private final int reward;
+
+        /**
+         * The number of visits of this move, including the virtual ones.
+         */
+        private long visits;
+
+        /**
+         * The sum of the scores the visits of this move have brought, including the score of the move itself.
+         */
+        private long totalReturn;
+
+        /**
+         * The boards following the spawns sampled so far, indexed by {@code 2 * slot + exponent - 1},
+         * or {@code null} until the first one is sampled.
+         */
+        private DecisionNode[] outcomes;
+
+        /**
+         * The default constructor.
+         * @param direction The direction of the move.
+         * @param afterstate The board after the move.
+         * @param reward The score gained by the move.
+         */
+        private Move(Directions direction, long afterstate, int reward) {
+            this.direction = direction;
+            this.afterstate = afterstate;
+            this.reward = reward;
+        }
+    }
+
+    /**
+     * The tree of a single search, shared by all its threads.
+     */
+    private final class Tree {
+        /**
+         * The root of the tree.
+         */
+        private final DecisionNode root;
+
+        /**
+         * The start of the search, as given by {@link System#nanoTime()}.
+         */
+        private final long start;
+
+        /**
+         * The wall-clock budget of the search, in nanoseconds.
+         */
+        private final long budgetNanos;
+
+        /**
+         * The highest number of rollouts.
+         */
+        private final long rolloutBudget;
+
+        /**
+         * The number of rollouts claimed so far. It may overshoot the budget by one per thread.
+         */
+        private final AtomicLong rollouts = new AtomicLong();
+
+        /**
+         * The number of nodes claimed so far. It may overshoot the limit, as the failed claims count too.
+         */
+        private final AtomicInteger nodes = new AtomicInteger(1);
+
+        /**
+         * The default constructor.
+         * @param board The board of the root.
+         * @param start The start of the search.
+         * @param budgetNanos The wall-clock budget of the search.
+         * @param rolloutBudget The highest number of rollouts.
+         */
+        private Tree(long board, long start, long budgetNanos, long rolloutBudget) {
+            this.root = new DecisionNode(board);
+            this.start = start;
+            this.budgetNanos = budgetNanos;
+            this.rolloutBudget = rolloutBudget;
+
+            root.expand();
+        }
+
+        /**
+         * Claims the next rollout of the budget, unless it has run out.
+         * @return {@code true} if the rollout may be played, {@code false} if the search is over.
+         */
+        private boolean claimRollout() {
+            if (rollouts.get() > 0 && System.nanoTime() - start >= budgetNanos) return false;
+            return rollouts.getAndIncrement() < rolloutBudget;
+        }
+
+        /**
+         * Claims a place for a new node of the tree, unless it is full.
+         * @return {@code true} if the node may be added, {@code false} if the tree is full.
+         */
+        private boolean claimNode() {
+            return nodes.getAndIncrement() < maxNodes;
+        }
+
+        /**
+         * Chooses the most visited move of the root.
+         * @return The direction of the move.
+         */
+        private Directions bestDirection() {
+            synchronized (root) {
+                Move best = root.moves[0];
+                for (Move move : root.moves) {
+                    if (move.visits > best.visits) best = move;
+                }
+
+                return best.direction;
+            }
+        }
+
+        /**
+         * Chooses the move to descend through with UCT, between the lowest and the highest mean of the moves.
+         * Moves which have not been visited yet come first. Has to be called while holding the node's monitor.
+         * @param node The expanded node, with at least one move.
+         * @return The chosen move.
+         */
+        private Move select(DecisionNode node) {
+            double lowest = Double.POSITIVE_INFINITY;
+            double highest = Double.NEGATIVE_INFINITY;
+
+            for (Move move : node.moves) {
+                if (move.visits == 0) return move;
+
+                double mean = (double) move.totalReturn / move.visits;
+                lowest = Math.min(lowest, mean);
+                highest = Math.max(highest, mean);
+            }
+
+            double range = highest - lowest;
+            double logVisits = Math.log(node.visits);
+
+            Move best = null;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for (Move move : node.moves) {
+                double mean = (double) move.totalReturn / move.visits;
+                double exploitation = range > 0 ? (mean - lowest) / range : 0.5;
+                double value = exploitation + exploration * Math.sqrt(logVisits / move.visits);
+
+                if (value > bestValue) {
+                    best = move;
+                    bestValue = value;
+                }
+            }
+
+            return best;
+        }
+    }
+
+    /**
+     * Forks every worker onto the pool, and waits for all of them.
+     */
+    @SuppressWarnings("serial")
+    private static class WorkerSplit extends RecursiveAction {
+        /**
+         * The workers to run.
+         */
+        private final Worker[] workers;
+
+        /**
+         * The default constructor.
+         * @param workers The workers to run.
+         */
+        private WorkerSplit(Worker[] workers) {
+            this.workers = workers;
+        }
+
+        @Override
+        protected void compute() {
+            invokeAll(workers);
+        }
+    }
+
+    /**
+     * A single thread of a search, which runs iterations until the budget runs out.
+     */
+    @SuppressWarnings("serial")
+    private class Worker extends RecursiveAction {
+        /**
+         * The shared tree.
+         */
+        private final Tree tree;
+
+        /**
+         * The source of randomness of this thread.
+         */
+        private final RandomGenerator random;
+
+        /**
+         * The rollout policy of this thread.
+         */
+        private final MoveStrategy policy;
+
+        /**
+         * The nodes the current iteration has descended through.
+         */
+        private final DecisionNode[] pathNodes = new DecisionNode[MAX_TREE_DEPTH];
+
+        /**
+         * The moves the current iteration has descended through.
+         */
+        private final Move[] pathMoves = new Move[MAX_TREE_DEPTH];
+
+        /**
+         * The default constructor.
+         * @param tree The shared tree.
+         * @param random The source of randomness of this thread.
+         */
+        private Worker(Tree tree, RandomGenerator random) {
+            this.tree = tree;
+            this.random = random;
+            this.policy = rolloutPolicy.get();
+        }
+
+        @Override
+        protected void compute() {
+            while (tree.claimRollout()) iterate();
+        }
+
+        /**
+         * Runs a single iteration: the descent, the expansion, the rollout and the backpropagation.
+         */
+        private void iterate() {
+            DecisionNode node = tree.root;
+            int depth = 0;
+            long leafReturn;
+
+            while (true) {
+                DecisionNode child;
+                long outcome;
+                boolean isLeaf;
+
+                synchronized (node) {
+                    node.expand();
+                    if (node.moves.length == 0) {
+                        leafReturn = 0;
+                        break;
+                    }
+
+                    Move move = tree.select(node);
+                    move.visits += VIRTUAL_LOSS;
+                    node.visits += VIRTUAL_LOSS;
+
+                    pathNodes[depth] = node;
+                    pathMoves[depth] = move;
+                    ++depth;
+
+                    outcome = BitBoard.spawn(move.afterstate, fourProbability, random);
+                    int index = outcomeIndex(move.afterstate, outcome);
+
+                    if (move.outcomes == null) move.outcomes = new DecisionNode[2 * BitBoard.SLOTS];
+                    child = move.outcomes[index];
+                    isLeaf = child == null || depth == MAX_TREE_DEPTH;
+
+                    if (child == null && tree.claimNode()) move.outcomes[index] = new DecisionNode(outcome);
+                }
+
+                if (isLeaf) {
+                    leafReturn = rollout(outcome);
+                    break;
+                }
+
+                node = child;
+            }
+
+            long totalReturn = leafReturn;
+            for (int i = depth - 1; i >= 0; --i) {
+                DecisionNode pathNode = pathNodes[i];
+                Move move = pathMoves[i];
+                totalReturn += move.reward;
+
+                synchronized (pathNode) {
+                    move.visits -= VIRTUAL_LOSS - 1;
+                    move.totalReturn += totalReturn;
+                    pathNode.visits -= VIRTUAL_LOSS - 1;
+                }
+
+                pathNodes[i] = null;
+                pathMoves[i] = null;
+            }
+        }
+
+        /**
+         * Plays the rest of a game with the rollout policy.
+         * @param board The board to start from, before a move.
+         * @return The score gained by the rollout.
+         */
+        private long rollout(long board) {
+            long score = 0;
+
+            for (int moves = 0; moves < maxRolloutMoves && BitBoard.legalMoves(board) != 0; ++moves) {
+                Directions direction = policy.chooseMove(board, random);
+
+                score += BitBoard.score(board, direction);
+                board = BitBoard.spawn(BitBoard.move(board, direction), fourProbability, random);
+            }
+
+            return score;
+        }
+    }
+
+    /**
+     * Computes the index of a spawn among the outcomes of a move.
+     * @param afterstate The board after the move.
+     * @param outcome The board after the spawn.
+     * @return The index of the spawn, {@code 2 * slot + exponent - 1}.
+     */
+    private static int outcomeIndex(long afterstate, long outcome) {
+        long spawned = afterstate ^ outcome;
+        int slot = Long.numberOfTrailingZeros(spawned) / 4;
+
+        return 2 * slot + BitBoard.getExponent(outcome, slot) - 1;
+    }
+}
@@ -0,0 +1,418 @@
+package pl.kaitou_dev.clone2048.engine.ai;
+
+import pl.kaitou_dev.clone2048.engine.BitBoard;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-size cache of the values of the boards a search has already evaluated, shared by any number of threads
+ * without any locking.
+ * <p>
+ * The entries live in a single {@code long[]}, two slots each: the key XOR-ed with the data, and the data itself.
+ * The packed board is its own key, as it fits in 64 bits exactly. A reader only accepts an entry whose two slots
+ * agree with each other, so an entry torn apart by two threads writing it at once simply reads as a miss.
+ * Every slot is read and written atomically through a {@link VarHandle}, with no ordering guarantees beyond that.
+ * </p>
+ * <p>
+ * The table is open-addressed in buckets of {@value #BUCKET_SIZE} entries, which share a line of the cache.
+ * When a bucket is full, depth-preferred replacement keeps the entries which have cost the most to compute:
+ * a new entry only evicts an entry of a shallower search, or one left behind by an earlier search. The number of
+ * the search is stored in every entry, since a game never returns to the boards of its earlier moves.
+ * </p>
+ * <p>
+ * The hit rate, the collision rate and the occupancy of the table are gathered on the way,
+ * so that its size can be tuned to the host.
+ * </p>
+ */
+public class TranspositionTable {
+    /**
+     * The size of the table, in megabytes, unless specified otherwise.
+     */
+    public static final int DEFAULT_MEGABYTES = 64;
+
+    /**
+     * The number of entries of a bucket.
+     */
+    public static final int BUCKET_SIZE = 4;
+
+    /**
+     * The number of {@code long} slots of an entry: the key XOR-ed with the data, and the data.
+     */
+    private static final int ENTRY_SLOTS = 2;
+
+    /**
+     * The size of an entry, in bytes.
+     */
+    public static final int ENTRY_BYTES = ENTRY_SLOTS * Long.BYTES;
+
+    /**
+     * The highest number of entries, which keeps the slots within the limits of a Java array.
+     */
+    private static final int MAX_ENTRIES = 1 << 29;
+
+    /**
+     * The highest depth an entry can store, limited by its {@value #DEPTH_BITS} bits.
+     */
+    public static final int MAX_DEPTH = 0xFF;
+
+    /**
+     * The number of bits of the depth within the data of an entry, right above the value.
+     */
+    private static final int DEPTH_BITS = 8;
+
+    /**
+     * The position of the depth within the data of an entry.
+     */
+    private static final int DEPTH_SHIFT = Float.SIZE;
+
+    /**
+     * The position of the generation within the data of an entry, right above the depth.
+     */
+    private static final int GENERATION_SHIFT = DEPTH_SHIFT + DEPTH_BITS;
+
+    /**
+     * The mask of the generation within the data of an entry, once shifted down.
+     */
+    private static final int GENERATION_MASK = 0xFF;
+
+    /**
+     * Gives atomic access to single slots of the table.
+     */
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    /**
+     * The entries, {@value #ENTRY_SLOTS} slots each. A slot of data equal to {@code 0} marks an empty entry,
+     * which no stored entry can have, as their depth is always positive.
+     */
+    private final long[] slots;
+
+    /**
+     * The mask of the index of a bucket.
+     */
+    private final int bucketMask;
+
+    /**
+     * The number of the current search, of which only the lowest bits are stored in the entries.
+     */
+    private final AtomicInteger generation = new AtomicInteger();
+
+    /**
+     * The number of lookups.
+     */
+    private final LongAdder probes = new LongAdder();
+
+    /**
+     * The number of lookups which have found a deep enough entry.
+     */
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * The number of attempts to store an entry.
+     */
+    private final LongAdder stores = new LongAdder();
+
+    /**
+     * The number of stored entries which have evicted the entry of another board.
+     */
+    private final LongAdder collisions = new LongAdder();
+
+    /**
+     * The number of entries which have not been stored, as the whole bucket held deeper entries of the current search.
+     */
+    private final LongAdder rejections = new LongAdder();
+
+    /**
+     * A constructor which creates a table of {@link #DEFAULT_MEGABYTES}.
+     */
+    public TranspositionTable() {
+        this((long) DEFAULT_MEGABYTES << 20);
+    }
+
+    /**
+     * The full constructor. The number of entries is rounded down to a power of 2.
+     * @param bytes The size of the table, in bytes. It has to fit at least one bucket, and at most 8 GB.
+     * @throws IllegalArgumentException if the size does not fit a single bucket, or is too big.
+     */
+    public TranspositionTable(long bytes) throws IllegalArgumentException {
+        long entries = bytes / ENTRY_BYTES;
+        if (entries < BUCKET_SIZE)
+            throw new IllegalArgumentException("The table must fit at least " + BUCKET_SIZE + " entries");
+        if (entries > MAX_ENTRIES)
+            throw new IllegalArgumentException("The table cannot have more than " + MAX_ENTRIES + " entries");
+
+        int capacity = Integer.highestOneBit((int) entries);
+        slots = new long[capacity * ENTRY_SLOTS];
+        bucketMask = capacity / BUCKET_SIZE - 1;
+    }
+
+    /**
+     * Creates a table of a size given in megabytes, e.g. read from the command line.
+     * @param megabytes The size of the table, in megabytes.
+     * @return The new, empty table.
+     * @throws IllegalArgumentException if the size is not positive, or too big.
+     */
+    public static TranspositionTable ofMegabytes(int megabytes) throws IllegalArgumentException {
+        if (megabytes <= 0) throw new IllegalArgumentException("The size of the table must be positive");
+        return new TranspositionTable((long) megabytes << 20);
+    }
+
+    /**
+     * Finds the first slot of the bucket of a board, spreading the bits of the board over the index,
+     * as the boards of a search differ from each other in a few slots only.
+     * @param board The board, packed as described by {@link BitBoard}.
+     * @return The index of the first slot of the bucket.
+     */
+    private int bucketOf(long board) {
+        long z = board * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 32)) * 0xD6E8FEB86659FD93L;
+        z ^= z >>> 32;
+
+        return ((int) z & bucketMask) * BUCKET_SIZE * ENTRY_SLOTS;
+    }
+
+    /**
+     * Gets the depth stored in the data of an entry.
+     * @param data The data of the entry.
+     * @return The depth.
+     */
+    private static int depthOf(long data) {
+        return (int) (data >>> DEPTH_SHIFT) & MAX_DEPTH;
+    }
+
+    /**
+     * Gets the generation stored in the data of an entry.
+     * @param data The data of the entry.
+     * @return The lowest bits of the number of the search which has stored the entry.
+     */
+    private static int generationOf(long data) {
+        return (int) (data >>> GENERATION_SHIFT) & GENERATION_MASK;
+    }
+
+    /**
+     * Starts a new search, after which the entries of the earlier ones are the first to be replaced.
+     * Their values stay available for as long as they are not. Since the entries of any search still running
+     * become the first to be replaced as well, a table shared by many searches at once should be aged once per round
+     * of them, rather than by every single one.
+     */
+    public void newSearch() {
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Looks up the value of a board.
+     * @param board The board, packed as described by {@link BitBoard}.
+     * @param depth The lowest acceptable depth of the search the value has come from.
+     * @return The value, or {@link Double#NaN} if the table holds no value of the board from a search
+     *         as deep as requested.
+     */
+    public double probe(long board, int depth) {
+        probes.increment();
+
+        int bucket = bucketOf(board);
+        for (int i = bucket; i < bucket + BUCKET_SIZE * ENTRY_SLOTS; i += ENTRY_SLOTS) {
+            long data = (long) SLOTS.getOpaque(slots, i + 1);
+            long key = (long) SLOTS.getOpaque(slots, i) ^ data;
+
+            if (data != 0 && key == board) {
+                if (depthOf(data) < depth) return Double.NaN;
+
+                hits.increment();
+                return Float.intBitsToFloat((int) data);
+            }
+        }
+
+        return Double.NaN;
+    }
+
+    /**
+     * Stores the value of a board, unless the table already holds a deeper one, or the whole bucket of the board
+     * holds deeper entries of the current search.
+     * @param board The board, packed as described by {@link BitBoard}.
+     * @param depth The depth of the search the value has come from, within [1; {@link #MAX_DEPTH}].
+     * @param value The value of the board, which is stored with the precision of a {@code float}.
+     */
+    public void store(long board, int depth, double value) {
+        stores.increment();
+
+        int currentGeneration = generation.get() & GENERATION_MASK;
+        long newData = Float.floatToRawIntBits((float) value) & 0xFFFFFFFFL
+            | (long) Math.min(depth, MAX_DEPTH) << DEPTH_SHIFT
+            | (long) currentGeneration << GENERATION_SHIFT;
+
+        int bucket = bucketOf(board);
+        int victim = -1;
+        int victimPriority = Integer.MAX_VALUE;
+
+        for (int i = bucket; i < bucket + BUCKET_SIZE * ENTRY_SLOTS; i += ENTRY_SLOTS) {
+            long data = (long) SLOTS.getOpaque(slots, i + 1);
+            long key = (long) SLOTS.getOpaque(slots, i) ^ data;
+
+            if (data != 0 && key == board) {
+                if (depthOf(data) <= depth) {
+                    write(i, board, newData);
+                } else if (generationOf(data) != currentGeneration) {
+                    // The deeper entry is still the better one, so it only needs to be marked as current.
+                    long refreshed = data & ~((long) GENERATION_MASK << GENERATION_SHIFT);
+                    write(i, board, refreshed | (long) currentGeneration << GENERATION_SHIFT);
+                }
+
+                return;
+            }
+
+            // Empty entries go first, then those of the earlier searches, then the shallowest ones.
+            int priority = data == 0 ? -2 : generationOf(data) != currentGeneration ? -1 : depthOf(data);
+            if (priority < victimPriority) {
+                victim = i;
+                victimPriority = priority;
+            }
+        }
+
+        if (victimPriority > depth) {
+            rejections.increment();
+            return;
+        }
+
+        if (victimPriority != -2) collisions.increment();
+        write(victim, board, newData);
+    }
+
+    /**
+     * Writes an entry. The data goes first, so that a reader in the meantime sees a mismatched key.
+     * @param index The index of the first slot of the entry.
+     * @param board The board.
+     * @param data The data of the entry.
+     */
+    private void write(int index, long board, long data) {
+        SLOTS.setOpaque(slots, index + 1, data);
+        SLOTS.setOpaque(slots, index, board ^ data);
+    }
+
+    /**
+     * Empties the table, and resets its statistics. It must not be called while the table is in use.
+     */
+    public void clear() {
+        Arrays.fill(slots, 0);
+        resetStatistics();
+    }
+
+    /**
+     * Resets the statistics of the table, without touching its entries, e.g. to measure a single search.
+     */
+    public void resetStatistics() {
+        probes.reset();
+        hits.reset();
+        stores.reset();
+        collisions.reset();
+        rejections.reset();
+    }
+
+    /**
+     * Gets the number of entries the table can hold.
+     * @return The number of entries.
+     */
+    public int getCapacity() {
+        return slots.length / ENTRY_SLOTS;
+    }
+
+    /**
+     * Gets the memory taken by the entries of the table.
+     * @return The size of the table, in bytes.
+     */
+    public long getMemoryBytes() {
+        return (long) slots.length * Long.BYTES;
+    }
+
+    /**
+     * Counts the entries in use. It goes through the whole table, so it is not meant to be called during a search.
+     * @return The number of stored entries.
+     */
+    public int countEntries() {
+        int count = 0;
+        for (int i = 1; i < slots.length; i += ENTRY_SLOTS) {
+            if ((long) SLOTS.getOpaque(slots, i) != 0) ++count;
+        }
+
+        return count;
+    }
+
+    /**
+     * Gets the number of lookups since the statistics were last reset.
+     * @return The number of lookups.
+     */
+    public long getProbes() {
+        return probes.sum();
+    }
+
+    /**
+     * Gets the number of lookups which have found a deep enough entry since the statistics were last reset.
+     * @return The number of hits.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of attempts to store an entry since the statistics were last reset.
+     * @return The number of stores.
+     */
+    public long getStores() {
+        return stores.sum();
+    }
+
+    /**
+     * Gets the number of stored entries which have evicted the entry of another board
+     * since the statistics were last reset.
+     * @return The number of collisions.
+     */
+    public long getCollisions() {
+        return collisions.sum();
+    }
+
+    /**
+     * Gets the number of entries which have not been stored, as their whole bucket held deeper entries,
+     * since the statistics were last reset.
+     * @return The number of rejected entries.
+     */
+    public long getRejections() {
+        return rejections.sum();
+    }
+
+    /**
+     * Gets the share of the lookups which have found a deep enough entry.
+     * @return The hit rate, within [0; 1], or {@code 0} if there were no lookups.
+     */
+    public double getHitRate() {
+        long probeCount = getProbes();
+        return probeCount == 0 ? 0 : (double) getHits() / probeCount;
+    }
+
+    /**
+     * Gets the share of the stores which have collided with the entry of another board, whether they have evicted it,
+     * or have been rejected. A high collision rate calls for a bigger table.
+     * @return The collision rate, within [0; 1], or {@code 0} if there were no stores.
+     */
+    public double getCollisionRate() {
+        long storeCount = getStores();
+        return storeCount == 0 ? 0 : (double) (getCollisions() + getRejections()) / storeCount;
+    }
+
+    /**
+     * Gets a human-readable summary of the size and the statistics of the table.
+     * It does not count the entries in use, see {@link #countEntries()}.
+     * @return A single-line summary.
+     */
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+            "TranspositionTable: %d entries (%.1f MB), hit rate %.2f%% of %d probes, "
+                + "collision rate %.2f%% of %d stores",
+            getCapacity(), getMemoryBytes() / (double) (1 << 20),
+            100 * getHitRate(), getProbes(), 100 * getCollisionRate(), getStores()
+        );
+    }
+}
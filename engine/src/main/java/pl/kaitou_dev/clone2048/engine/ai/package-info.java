@@ -0,0 +1,5 @@
+/**
+ * Contains the artificial intelligence of the game: board evaluation functions and the searches which use them
+ * to choose the best moves, along with the caches they share.
+ */
+package pl.kaitou_dev.clone2048.engine.ai;
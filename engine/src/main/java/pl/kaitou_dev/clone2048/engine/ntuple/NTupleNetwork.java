@@ -0,0 +1,399 @@
+package pl.kaitou_dev.clone2048.engine.ntuple;
+
+import pl.kaitou_dev.clone2048.engine.BitBoard;
+import pl.kaitou_dev.clone2048.engine.ai.BoardEvaluator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A {@link BoardEvaluator} built from an n-tuple network: every tuple is a fixed set of slots, whose exponents
+ * index a table of weights, and the value of a board is the sum of the weights its tuples point at.
+ * <p>
+ * Every tuple is applied to all the 8 symmetries of the board, i.e. its rotations and reflections, so the tables
+ * are shared between them, and learn 8 times as fast. The weights are kept in plain {@code float[]} tables, which
+ * are read and written from many threads at once without any locking: the writes of a {@code float} are atomic,
+ * and a lost update every now and then does not hurt the learning.
+ * </p>
+ * <p>
+ * Checkpoints are written to, and read from, memory-mapped files, so that even tables of hundreds of megabytes
+ * are copied in bulk, without going through any streams.
+ * </p>
+ * @see TDTrainer
+ */
+public class NTupleNetwork implements BoardEvaluator {
+    /**
+     * The tuples of the network of Szubert and Jaśkowski: the outer and the inner line,
+     * and the squares in a corner, at an edge, and in the middle. They take 1.25 MB of weights.
+     */
+    public static final int[][] FOUR_TUPLES = {
+        {0, 1, 2, 3},
+        {4, 5, 6, 7},
+        {0, 1, 4, 5},
+        {1, 2, 5, 6},
+        {5, 6, 9, 10},
+    };
+
+    /**
+     * The tuples of the network of Yeh et al.: two rectangles and two lines with a bend,
+     * covering the outer and the inner part of the board. They take 256 MB of weights.
+     */
+    public static final int[][] SIX_TUPLES = {
+        {0, 1, 2, 3, 4, 5},
+        {4, 5, 6, 7, 8, 9},
+        {0, 1, 2, 4, 5, 6},
+        {4, 5, 6, 8, 9, 10},
+    };
+
+    /**
+     * The highest number of slots in a tuple, which keeps every table within the limits of a Java array.
+     */
+    public static final int MAX_TUPLE_LENGTH = 7;
+
+    /**
+     * The number of symmetries every tuple is applied to.
+     */
+    private static final int SYMMETRIES = 8;
+
+    /**
+     * The first bytes of every checkpoint file, which tell it apart from any other file.
+     */
+    private static final int CHECKPOINT_MAGIC = 0x4E54504C;
+
+    /**
+     * The version of the checkpoint format, to be increased whenever the format changes.
+     */
+    private static final int CHECKPOINT_VERSION = 1;
+
+    /**
+     * The slots of every tuple.
+     */
+    private final int[][] tuples;
+
+    /**
+     * The weights of every tuple, indexed by the exponents of its slots, 4 bits each, the first slot lowest.
+     */
+    private final float[][] weights;
+
+    /**
+     * The share of a change of the value of a board, which falls on every weight the board points at.
+     */
+    private final float updateShare;
+
+    /**
+     * The default constructor, which creates a network of the provided tuples, with all the weights set to zero.
+     * @param tuples The slots of every tuple, as given by {@link BitBoard#index(int, int)}.
+     * @throws IllegalArgumentException if there are no tuples, if any tuple is empty or too long,
+     *                                  or if any of them refers to a slot that does not exist.
+     */
+    public NTupleNetwork(int[][] tuples) throws IllegalArgumentException {
+        if (tuples.length == 0) throw new IllegalArgumentException("The network must have tuples");
+
+        this.tuples = new int[tuples.length][];
+        this.weights = new float[tuples.length][];
+
+        for (int t = 0; t < tuples.length; ++t) {
+            int[] tuple = tuples[t];
+            if (tuple.length == 0 || tuple.length > MAX_TUPLE_LENGTH)
+                throw new IllegalArgumentException("A tuple must have between 1 and " + MAX_TUPLE_LENGTH + " slots");
+
+            for (int slot : tuple) {
+                if (slot < 0 || slot >= BitBoard.SLOTS)
+                    throw new IllegalArgumentException("The slot " + slot + " does not exist");
+            }
+
+            this.tuples[t] = tuple.clone();
+            this.weights[t] = new float[1 << (4 * tuple.length)];
+        }
+
+        updateShare = 1f / (SYMMETRIES * tuples.length);
+    }
+
+    /**
+     * Creates a network of the 4-tuples of Szubert and Jaśkowski.
+     * @return The network, with all the weights set to zero.
+     * @see #FOUR_TUPLES
+     */
+    public static NTupleNetwork fourTuples() {
+        return new NTupleNetwork(FOUR_TUPLES);
+    }
+
+    /**
+     * Creates a network of the 6-tuples of Yeh et al.
+     * @return The network, with all the weights set to zero.
+     * @see #SIX_TUPLES
+     */
+    public static NTupleNetwork sixTuples() {
+        return new NTupleNetwork(SIX_TUPLES);
+    }
+
+    /**
+     * Computes the index of the weight a tuple points at.
+     * @param board The board.
+     * @param tuple The slots of the tuple.
+     * @return The index within the table of the tuple.
+     */
+    private static int indexOf(long board, int[] tuple) {
+        int index = 0;
+        for (int i = 0; i < tuple.length; ++i) index |= BitBoard.getExponent(board, tuple[i]) << (4 * i);
+        return index;
+    }
+
+    /**
+     * Sums up the weights a single symmetry of a board points at.
+     * @param board The symmetry of the board.
+     * @return The sum of the weights.
+     */
+    private double evaluateSymmetry(long board) {
+        double sum = 0;
+        for (int t = 0; t < tuples.length; ++t) sum += weights[t][indexOf(board, tuples[t])];
+        return sum;
+    }
+
+    /**
+     * Adds the same amount to every weight a single symmetry of a board points at.
+     * @param board The symmetry of the board.
+     * @param amount The amount to add.
+     */
+    private void updateSymmetry(long board, float amount) {
+        for (int t = 0; t < tuples.length; ++t) weights[t][indexOf(board, tuples[t])] += amount;
+    }
+
+    /**
+     * Evaluates a board, usually an afterstate, i.e. a board right after a move, before a new box is spawned.
+     * The value estimates the sum of the scores the rest of the game is going to bring.
+     * @param board The board, packed as described by {@link BitBoard}.
+     * @return The estimated value of the board.
+     */
+    @Override
+    public double evaluate(long board) {
+        long mirrored = BitBoard.mirror(board);
+        long flipped = BitBoard.flip(board);
+        long rotated = BitBoard.mirror(flipped);
+
+        return evaluateSymmetry(board) + evaluateSymmetry(mirrored)
+            + evaluateSymmetry(flipped) + evaluateSymmetry(rotated)
+            + evaluateSymmetry(BitBoard.transpose(board)) + evaluateSymmetry(BitBoard.transpose(mirrored))
+            + evaluateSymmetry(BitBoard.transpose(flipped)) + evaluateSymmetry(BitBoard.transpose(rotated));
+    }
+
+    /**
+     * Evaluates a batch of boards, table by table rather than board by board, so that the accesses to each table
+     * follow one another, instead of being spread over all the tables at once.
+     * @param boards The boards, packed as described by {@link BitBoard}.
+     * @param values An array to receive the estimated values of the boards, at the same indices.
+     * @param count The number of boards, counting from the index {@code 0}.
+     * @see #evaluate(long)
+     */
+    public void evaluate(long[] boards, double[] values, int count) {
+        long[] symmetries = new long[SYMMETRIES * count];
+
+        for (int i = 0; i < count; ++i) {
+            long board = boards[i];
+            long mirrored = BitBoard.mirror(board);
+            long flipped = BitBoard.flip(board);
+            long rotated = BitBoard.mirror(flipped);
+
+            int base = SYMMETRIES * i;
+            symmetries[base] = board;
+            symmetries[base + 1] = mirrored;
+            symmetries[base + 2] = flipped;
+            symmetries[base + 3] = rotated;
+            symmetries[base + 4] = BitBoard.transpose(board);
+            symmetries[base + 5] = BitBoard.transpose(mirrored);
+            symmetries[base + 6] = BitBoard.transpose(flipped);
+            symmetries[base + 7] = BitBoard.transpose(rotated);
+
+            values[i] = 0;
+        }
+
+        for (int t = 0; t < tuples.length; ++t) {
+            int[] tuple = tuples[t];
+            float[] table = weights[t];
+
+            for (int j = 0; j < symmetries.length; ++j) values[j / SYMMETRIES] += table[indexOf(symmetries[j], tuple)];
+        }
+    }
+
+    /**
+     * Changes the value of a board, by spreading the change evenly over all the weights the board points at.
+     * The value changes by exactly the provided amount, unless some of the symmetries share a weight.
+     * It can be called from many threads at once, without any locking.
+     * @param board The board, packed as described by {@link BitBoard}.
+     * @param delta The change of the value.
+     */
+    public void update(long board, double delta) {
+        float amount = (float) (delta * updateShare);
+
+        long mirrored = BitBoard.mirror(board);
+        long flipped = BitBoard.flip(board);
+        long rotated = BitBoard.mirror(flipped);
+
+        updateSymmetry(board, amount);
+        updateSymmetry(mirrored, amount);
+        updateSymmetry(flipped, amount);
+        updateSymmetry(rotated, amount);
+        updateSymmetry(BitBoard.transpose(board), amount);
+        updateSymmetry(BitBoard.transpose(mirrored), amount);
+        updateSymmetry(BitBoard.transpose(flipped), amount);
+        updateSymmetry(BitBoard.transpose(rotated), amount);
+    }
+
+    /**
+     * Gets the number of tuples of this network.
+     * @return The number of tuples.
+     */
+    public int getTupleCount() {
+        return tuples.length;
+    }
+
+    /**
+     * Gets the slots of a tuple.
+     * @param tuple The index of the tuple.
+     * @return A copy of the slots of the tuple.
+     */
+    public int[] getTuple(int tuple) {
+        return tuples[tuple].clone();
+    }
+
+    /**
+     * Gets the number of the weights of all the tuples.
+     * @return The number of weights.
+     */
+    public long getWeightCount() {
+        long count = 0;
+        for (float[] table : weights) count += table.length;
+        return count;
+    }
+
+    /**
+     * Computes the size of the header of a checkpoint.
+     * @return The size of the header, in bytes.
+     */
+    private int headerSize() {
+        int size = 3 * Integer.BYTES;
+        for (int[] tuple : tuples) size += (1 + tuple.length) * Integer.BYTES;
+        return size;
+    }
+
+    /**
+     * Writes the weights of this network to a checkpoint file, through memory-mapped buffers.
+     * The checkpoint is written to a temporary file first, and moved in place of the previous one once it is complete,
+     * so a crash never leaves a broken checkpoint behind. It can be called while the network is being trained,
+     * in which case the checkpoint may contain some of the updates in progress, but not others.
+     * @param path The path of the checkpoint file.
+     * @throws IOException if the checkpoint cannot be written.
+     */
+    public void save(Path path) throws IOException {
+        Path absolute = path.toAbsolutePath();
+        if (absolute.getParent() != null) Files.createDirectories(absolute.getParent());
+
+        Path temporary = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(
+            temporary,
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.READ, StandardOpenOption.WRITE
+        )) {
+            int headerSize = headerSize();
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, headerSize);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+
+            header.putInt(CHECKPOINT_MAGIC).putInt(CHECKPOINT_VERSION).putInt(tuples.length);
+            for (int[] tuple : tuples) {
+                header.putInt(tuple.length);
+                for (int slot : tuple) header.putInt(slot);
+            }
+            header.force();
+
+            long position = headerSize;
+            for (float[] table : weights) {
+                long size = (long) table.length * Float.BYTES;
+
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, position, size);
+                buffer.order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().put(table);
+                buffer.force();
+
+                position += size;
+            }
+        }
+
+        Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a network from a checkpoint file written by {@link #save(Path)}, through memory-mapped buffers.
+     * @param path The path of the checkpoint file.
+     * @return The network, with the tuples and the weights of the checkpoint.
+     * @throws IOException if the checkpoint cannot be read, or is not a valid checkpoint.
+     */
+    public static NTupleNetwork load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+
+            ByteBuffer prefix = ByteBuffer.allocate(3 * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            if (channel.read(prefix, 0) < prefix.capacity())
+                throw new IOException("The checkpoint is truncated: " + path);
+            prefix.flip();
+
+            if (prefix.getInt() != CHECKPOINT_MAGIC) throw new IOException("Not a checkpoint: " + path);
+            if (prefix.getInt() != CHECKPOINT_VERSION)
+                throw new IOException("The checkpoint has an unsupported version: " + path);
+
+            int tupleCount = prefix.getInt();
+            if (tupleCount <= 0 || (long) tupleCount * (1 + MAX_TUPLE_LENGTH) * Integer.BYTES > fileSize)
+                throw new IOException("The checkpoint is corrupted: " + path);
+
+            MappedByteBuffer header = channel.map(
+                FileChannel.MapMode.READ_ONLY, prefix.capacity(),
+                Math.min(fileSize - prefix.capacity(), (long) tupleCount * (1 + MAX_TUPLE_LENGTH) * Integer.BYTES)
+            );
+            header.order(ByteOrder.LITTLE_ENDIAN);
+
+            int[][] tuples = new int[tupleCount][];
+            for (int t = 0; t < tupleCount; ++t) {
+                int length = header.getInt();
+                if (length <= 0 || length > MAX_TUPLE_LENGTH)
+                    throw new IOException("The checkpoint is corrupted: " + path);
+
+                tuples[t] = new int[length];
+                for (int i = 0; i < length; ++i) tuples[t][i] = header.getInt();
+            }
+
+            NTupleNetwork network;
+            try {
+                network = new NTupleNetwork(tuples);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("The checkpoint is corrupted: " + path, e);
+            }
+
+            long position = network.headerSize();
+            if (position + network.getWeightCount() * Float.BYTES != fileSize)
+                throw new IOException("The checkpoint is truncated: " + path);
+
+            for (float[] table : network.weights) {
+                long size = (long) table.length * Float.BYTES;
+
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+                buffer.order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(table);
+
+                position += size;
+            }
+
+            return network;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "NTupleNetwork" + Arrays.deepToString(tuples);
+    }
+}
@@ -0,0 +1,292 @@
+package pl.kaitou_dev.clone2048.engine.ntuple;
+
+import pl.kaitou_dev.clone2048.engine.BitBoard;
+import pl.kaitou_dev.clone2048.engine.Directions;
+import pl.kaitou_dev.clone2048.engine.GameRules;
+import pl.kaitou_dev.clone2048.engine.simulation.SimulationReport;
+import pl.kaitou_dev.clone2048.engine.simulation.Simulator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.random.RandomGenerator;
+
+/**
+ * Trains an {@link NTupleNetwork} by self-play, with temporal difference learning of the values of afterstates.
+ * <p>
+ * Every move is chosen greedily, as the one maximizing its score plus the value of the board it leads to.
+ * The value of the previous afterstate is then moved towards that sum, by TD(0), or, with a non-zero {@code lambda},
+ * by TD(&lambda;) over a trace of the last few afterstates, whose weights decay by {@code lambda} every move.
+ * </p>
+ * <p>
+ * The games are played on a number of threads at once, which all update the same network without any locking,
+ * in the Hogwild! manner: the updates are sparse, so they rarely touch the same weights at the same time,
+ * and the few that get lost do not hurt the learning. Every game gets its own source of randomness,
+ * seeded as by {@link Simulator#gameSeed(long, long)}, but the outcome still depends on the interleaving
+ * of the threads.
+ * </p>
+ */
+public class TDTrainer {
+    /**
+     * The learning rate, unless specified otherwise.
+     */
+    public static final double DEFAULT_LEARNING_RATE = 0.1;
+
+    /**
+     * The decay of the trace, unless specified otherwise. Zero means TD(0).
+     */
+    public static final double DEFAULT_LAMBDA = 0;
+
+    /**
+     * The highest number of afterstates in the trace.
+     */
+    public static final int MAX_TRACE_LENGTH = 16;
+
+    /**
+     * The weight below which the afterstates are dropped from the trace.
+     */
+    private static final double TRACE_CUTOFF = 0.01;
+
+    /**
+     * The number of games trained between two checkpoints of {@link #main(String[])}.
+     */
+    private static final long CHECKPOINT_INTERVAL = 100_000;
+
+    /**
+     * All the directions, cached to avoid copying {@link Directions#values()} on every move.
+     */
+    private static final Directions[] DIRECTIONS = Directions.values();
+
+    /**
+     * The trained network.
+     */
+    private final NTupleNetwork network;
+
+    /**
+     * The rules of the games played.
+     */
+    private final GameRules rules;
+
+    /**
+     * The learning rate, i.e. the share of the error of a value by which it is corrected.
+     */
+    private final double learningRate;
+
+    /**
+     * The weights of the updates of the afterstates of the trace, the latest one first.
+     */
+    private final double[] traceWeights;
+
+    /**
+     * The number of threads the games are played on.
+     */
+    private final int threads;
+
+    /**
+     * A constructor which trains by TD(0) with the default rules and learning rate, on all the cores.
+     * @param network The network to train.
+     */
+    public TDTrainer(NTupleNetwork network) {
+        this(
+            network, GameRules.DEFAULT,
+            DEFAULT_LEARNING_RATE, DEFAULT_LAMBDA, Runtime.getRuntime().availableProcessors()
+        );
+    }
+
+    /**
+     * The full constructor.
+     * @param network The network to train.
+     * @param rules The rules of the games played.
+     * @param learningRate The learning rate, i.e. the share of the error of a value by which it is corrected.
+     * @param lambda The decay of the trace, within [0; 1). Zero means TD(0).
+     * @param threads The number of threads to play the games on.
+     * @throws IllegalArgumentException if the learning rate is not positive, the decay is out of range,
+     *                                  or the number of threads is not positive.
+     */
+    public TDTrainer(
+        NTupleNetwork network, GameRules rules, double learningRate, double lambda, int threads
+    ) throws IllegalArgumentException {
+        if (!(learningRate > 0)) throw new IllegalArgumentException("The learning rate must be positive");
+        if (!(lambda >= 0 && lambda < 1)) throw new IllegalArgumentException("Lambda must be within [0; 1)");
+        if (threads < 1) throw new IllegalArgumentException("There must be at least one thread");
+
+        this.network = network;
+        this.rules = rules;
+        this.learningRate = learningRate;
+        this.threads = threads;
+
+        int traceLength = 1;
+        while (traceLength < MAX_TRACE_LENGTH && Math.pow(lambda, traceLength) >= TRACE_CUTOFF) ++traceLength;
+
+        traceWeights = new double[traceLength];
+        for (int k = 0; k < traceLength; ++k) traceWeights[k] = Math.pow(lambda, k);
+    }
+
+    /**
+     * Trains the network on a batch of games, and waits for all of them to finish.
+     * @param games The number of games to play.
+     * @param seed The base seed of the games.
+     * @return The statistics of the games played.
+     * @throws InterruptedException if the calling thread is interrupted while waiting.
+     */
+    public SimulationReport train(long games, long seed) throws InterruptedException {
+        AtomicLong nextGame = new AtomicLong();
+        SimulationReport[] reports = new SimulationReport[threads];
+        Thread[] workers = new Thread[threads];
+
+        long start = System.nanoTime();
+
+        for (int i = 0; i < threads; ++i) {
+            SimulationReport report = reports[i] = new SimulationReport();
+            workers[i] = Thread.ofPlatform().name("td-trainer-" + i).daemon().start(() -> {
+                long[] trace = new long[traceWeights.length];
+
+                for (long game = nextGame.getAndIncrement(); game < games; game = nextGame.getAndIncrement())
+                    playGame(new SplittableRandom(Simulator.gameSeed(seed, game)), trace, report);
+            });
+        }
+
+        SimulationReport total = new SimulationReport();
+        for (int i = 0; i < threads; ++i) {
+            workers[i].join();
+            total.add(reports[i]);
+        }
+
+        total.setElapsedNanos(System.nanoTime() - start);
+        return total;
+    }
+
+    /**
+     * Plays a single complete game, learning from every move of it.
+     * @param random The source of randomness for the spawns.
+     * @param trace A reusable array for the trace of afterstates, used as a ring buffer.
+     * @param report The report to record the game in.
+     */
+    private void playGame(RandomGenerator random, long[] trace, SimulationReport report) {
+        long board = BitBoard.spawn(BitBoard.EMPTY, rules.fourProbability(), random);
+        int score = 0;
+        int moves = 0;
+
+        int traceHead = 0;
+        int traced = 0;
+
+        while (true) {
+            Directions best = null;
+            long bestAfterstate = 0;
+            double bestValue = Double.NEGATIVE_INFINITY;
+
+            for (Directions direction : DIRECTIONS) {
+                long afterstate = BitBoard.move(board, direction);
+                if (afterstate == board) continue;
+
+                double value = BitBoard.score(board, direction) + network.evaluate(afterstate);
+                if (value > bestValue) {
+                    best = direction;
+                    bestAfterstate = afterstate;
+                    bestValue = value;
+                }
+            }
+
+            if (best == null) break;
+
+            if (traced > 0) learn(trace, traceHead, traced, bestValue);
+
+            traceHead = (traceHead + 1) % trace.length;
+            trace[traceHead] = bestAfterstate;
+            traced = Math.min(traced + 1, trace.length);
+
+            score += BitBoard.score(board, best);
+            ++moves;
+            board = BitBoard.spawn(bestAfterstate, rules.fourProbability(), random);
+        }
+
+        if (traced > 0) learn(trace, traceHead, traced, 0);
+
+        report.recordGame(board, score, moves, BitBoard.maxExponent(board) >= rules.winningExponent());
+    }
+
+    /**
+     * Moves the value of the latest afterstate of the trace towards a target,
+     * and the values of the earlier ones along with it, according to their weights.
+     * @param trace The trace of afterstates.
+     * @param traceHead The index of the latest afterstate of the trace.
+     * @param traced The number of afterstates in the trace.
+     * @param target The target value of the latest afterstate: the score of the next move plus the value
+     *               of the afterstate it leads to, or {@code 0} if the game is over.
+     */
+    private void learn(long[] trace, int traceHead, int traced, double target) {
+        double error = target - network.evaluate(trace[traceHead]);
+
+        for (int k = 0; k < traced; ++k) {
+            int index = (traceHead - k + trace.length) % trace.length;
+            network.update(trace[index], learningRate * traceWeights[k] * error);
+        }
+    }
+
+    /**
+     * Gets the trained network.
+     * @return The trained network.
+     */
+    public NTupleNetwork getNetwork() {
+        return network;
+    }
+
+    /**
+     * Trains a network, resuming from its checkpoint if there is one, and writes a new checkpoint
+     * after every {@value #CHECKPOINT_INTERVAL} games, along with the statistics of those games.
+     * @param args Optional arguments, in order: the number of games, the path of the checkpoint, the learning rate,
+     *             and lambda. Adding {@code --six-tuples} anywhere trains the network of
+     *             {@link NTupleNetwork#SIX_TUPLES} instead of {@link NTupleNetwork#FOUR_TUPLES}, unless there is
+     *             a checkpoint to resume from already.
+     * @throws IOException if the checkpoint cannot be read or written.
+     * @throws InterruptedException if the training is interrupted.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        long games = 1_000_000;
+        Path checkpoint = Path.of("ntuple.weights");
+        double learningRate = DEFAULT_LEARNING_RATE;
+        double lambda = DEFAULT_LAMBDA;
+        boolean sixTuples = false;
+
+        int position = 0;
+        for (String arg : args) {
+            if (arg.equals("--six-tuples")) {
+                sixTuples = true;
+                continue;
+            }
+
+            switch (position++) {
+                case 0 -> games = Long.parseLong(arg);
+                case 1 -> checkpoint = Path.of(arg);
+                case 2 -> learningRate = Double.parseDouble(arg);
+                case 3 -> lambda = Double.parseDouble(arg);
+                default -> throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+        }
+
+        NTupleNetwork network;
+        if (Files.exists(checkpoint)) {
+            network = NTupleNetwork.load(checkpoint);
+            System.out.println("Resuming from " + checkpoint + ": " + network);
+        } else {
+            network = sixTuples ? NTupleNetwork.sixTuples() : NTupleNetwork.fourTuples();
+            System.out.println("Starting anew: " + network);
+        }
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        TDTrainer trainer = new TDTrainer(network, GameRules.DEFAULT, learningRate, lambda, threads);
+        long seed = System.nanoTime();
+
+        for (long trained = 0; trained < games; trained += CHECKPOINT_INTERVAL) {
+            long batch = Math.min(CHECKPOINT_INTERVAL, games - trained);
+            SimulationReport report = trainer.train(batch, Simulator.gameSeed(seed, trained));
+
+            network.save(checkpoint);
+
+            System.out.printf("Games %d-%d:%n", trained + 1, trained + batch);
+            System.out.print(report);
+        }
+    }
+}
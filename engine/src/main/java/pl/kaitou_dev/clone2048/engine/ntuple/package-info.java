@@ -0,0 +1,5 @@
+/**
+ * Contains the n-tuple networks, which evaluate boards with large tables of learned weights,
+ * and the temporal difference learning which trains them by self-play.
+ */
+package pl.kaitou_dev.clone2048.engine.ntuple;
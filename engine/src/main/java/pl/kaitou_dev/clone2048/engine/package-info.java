@@ -0,0 +1,5 @@
+/**
+ * Contains the pure-logic engine of the game, which operates on packed representations of the board,
+ * without any dependency on rendering or audio.
+ */
+package pl.kaitou_dev.clone2048.engine;
@@ -0,0 +1,117 @@
+package pl.kaitou_dev.clone2048.engine.simulation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * The running statistics of the differences between pairs of observations, e.g. the scores of two strategies
+ * which have played the same game. Comparing the pairs cancels out whatever both observations share, like the luck
+ * of the spawns, so their mean is known much more precisely than the difference of two independent means would be.
+ * This class is not thread-safe; statistics gathered by different threads should be combined with
+ * {@link #add(PairedDifference)}.
+ */
+public class PairedDifference {
+    /**
+     * The number of recorded differences.
+     */
+    private long count;
+
+    /**
+     * The sum of all recorded differences.
+     */
+    private double sum;
+
+    /**
+     * The sum of the squares of all recorded differences.
+     */
+    private double sumOfSquares;
+
+    /**
+     * Records the difference of a pair of observations.
+     * @param first The observation of the first of the pair.
+     * @param second The observation of the second of the pair.
+     */
+    public void record(double first, double second) {
+        double difference = first - second;
+
+        ++count;
+        sum += difference;
+        sumOfSquares += difference * difference;
+    }
+
+    /**
+     * Adds all the differences recorded by another instance to this one.
+     * @param other The other instance.
+     */
+    public void add(PairedDifference other) {
+        count += other.count;
+        sum += other.sum;
+        sumOfSquares += other.sumOfSquares;
+    }
+
+    /**
+     * Swaps the roles of the observations of every recorded pair, which negates every difference.
+     */
+    void negate() {
+        sum = -sum;
+    }
+
+    /**
+     * Gets the number of recorded differences.
+     * @return The number of pairs.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the mean of the recorded differences.
+     * @return The mean difference, or {@code 0} if nothing was recorded.
+     */
+    public double getMean() {
+        return count == 0 ? 0 : sum / count;
+    }
+
+    /**
+     * Gets the sample standard deviation of the recorded differences.
+     * @return The standard deviation, or {@code 0} if fewer than 2 differences were recorded.
+     */
+    public double getStandardDeviation() {
+        if (count < 2) return 0;
+
+        double mean = getMean();
+        return Math.sqrt(Math.max(0, (sumOfSquares - count * mean * mean) / (count - 1)));
+    }
+
+    /**
+     * Gets the standard error of the mean difference.
+     * @return The standard error, or {@code 0} if fewer than 2 differences were recorded.
+     */
+    public double getStandardError() {
+        return count < 2 ? 0 : getStandardDeviation() / Math.sqrt(count);
+    }
+
+    /**
+     * Writes the recorded differences, e.g. to a checkpoint.
+     * @param out The output to write to.
+     * @throws IOException if the differences cannot be written.
+     * @see #read(DataInput)
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeLong(count);
+        out.writeDouble(sum);
+        out.writeDouble(sumOfSquares);
+    }
+
+    /**
+     * Reads the differences written by {@link #write(DataOutput)}, adding them to the ones recorded by this instance.
+     * @param in The input to read from.
+     * @throws IOException if the differences cannot be read.
+     */
+    public void read(DataInput in) throws IOException {
+        count += in.readLong();
+        sum += in.readDouble();
+        sumOfSquares += in.readDouble();
+    }
+}
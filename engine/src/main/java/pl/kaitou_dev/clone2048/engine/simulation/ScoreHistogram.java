@@ -0,0 +1,193 @@
+package pl.kaitou_dev.clone2048.engine.simulation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A fixed-size histogram of non-negative values, which allows estimating percentiles without storing the values.
+ * <p>
+ * Values below {@code 2^SIGNIFICANT_BITS} are counted exactly. Bigger values are bucketed by their
+ * {@link #SIGNIFICANT_BITS} most significant bits, so the relative error of a percentile never exceeds
+ * {@code 1 / 2^(SIGNIFICANT_BITS - 1)}. This class is not thread-safe; histograms filled by different threads
+ * should be combined with {@link #add(ScoreHistogram)}.
+ * </p>
+ */
+public class ScoreHistogram {
+    /**
+     * The number of the most significant bits which distinguish buckets.
+     */
+    private static final int SIGNIFICANT_BITS = 7;
+
+    /**
+     * The number of values counted exactly, which is also the number of buckets for every further power of 2.
+     */
+    private static final int EXACT_COUNT = 1 << SIGNIFICANT_BITS;
+
+    /**
+     * The number of buckets for every power of 2 above the exact range.
+     */
+    private static final int BUCKETS_PER_POWER = EXACT_COUNT / 2;
+
+    /**
+     * The counts of values in every bucket.
+     */
+    private final long[] counts = new long[EXACT_COUNT + (Long.SIZE - SIGNIFICANT_BITS) * BUCKETS_PER_POWER];
+
+    /**
+     * The total number of recorded values.
+     */
+    private long totalCount;
+
+    /**
+     * The sum of all recorded values.
+     */
+    private double sum;
+
+    /**
+     * The sum of the squares of all recorded values.
+     */
+    private double sumOfSquares;
+
+    /**
+     * The highest recorded value.
+     */
+    private long max;
+
+    /**
+     * Records a value.
+     * @param value The value to record. It has to be non-negative.
+     */
+    public void record(long value) {
+        ++counts[bucketOf(value)];
+        ++totalCount;
+        sum += value;
+        sumOfSquares += (double) value * value;
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Adds all the values recorded by another histogram to this one.
+     * @param other The other histogram.
+     */
+    public void add(ScoreHistogram other) {
+        for (int i = 0; i < counts.length; ++i) counts[i] += other.counts[i];
+        totalCount += other.totalCount;
+        sum += other.sum;
+        sumOfSquares += other.sumOfSquares;
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Finds the bucket of a value.
+     * @param value The value.
+     * @return The index of the bucket.
+     */
+    private static int bucketOf(long value) {
+        if (value < EXACT_COUNT) return (int) value;
+
+        int power = 63 - Long.numberOfLeadingZeros(value);
+        int shift = power - (SIGNIFICANT_BITS - 1);
+        int subBucket = (int) (value >>> shift) - BUCKETS_PER_POWER;
+        return EXACT_COUNT + (shift - 1) * BUCKETS_PER_POWER + subBucket;
+    }
+
+    /**
+     * Finds the lowest value that falls into a bucket.
+     * @param bucket The index of the bucket.
+     * @return The lowest value of the bucket.
+     */
+    private static long lowestValueOf(int bucket) {
+        if (bucket < EXACT_COUNT) return bucket;
+
+        int shift = (bucket - EXACT_COUNT) / BUCKETS_PER_POWER + 1;
+        int subBucket = (bucket - EXACT_COUNT) % BUCKETS_PER_POWER;
+        return (long) (subBucket + BUCKETS_PER_POWER) << shift;
+    }
+
+    /**
+     * Estimates a percentile of the recorded values.
+     * @param percentile The percentile, within [0; 100].
+     * @return The lowest value of the bucket the percentile falls into, or {@code 0} if nothing was recorded.
+     */
+    public long getPercentile(double percentile) {
+        if (totalCount == 0) return 0;
+
+        long rank = (long) Math.ceil(percentile / 100.0 * totalCount);
+        rank = Math.max(1, Math.min(rank, totalCount));
+
+        long seen = 0;
+        for (int i = 0; i < counts.length; ++i) {
+            seen += counts[i];
+            if (seen >= rank) return Math.min(lowestValueOf(i), max);
+        }
+
+        return max;
+    }
+
+    /**
+     * Gets the total number of recorded values.
+     * @return The number of recorded values.
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Gets the mean of the recorded values.
+     * @return The mean, or {@code 0} if nothing was recorded.
+     */
+    public double getMean() {
+        return totalCount == 0 ? 0 : sum / totalCount;
+    }
+
+    /**
+     * Gets the sample standard deviation of the recorded values.
+     * @return The standard deviation, or {@code 0} if fewer than 2 values were recorded.
+     */
+    public double getStandardDeviation() {
+        if (totalCount < 2) return 0;
+
+        double mean = getMean();
+        return Math.sqrt(Math.max(0, (sumOfSquares - totalCount * mean * mean) / (totalCount - 1)));
+    }
+
+    /**
+     * Gets the highest recorded value.
+     * @return The highest recorded value, or {@code 0} if nothing was recorded.
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Writes all the recorded values, e.g. to a checkpoint.
+     * @param out The output to write to.
+     * @throws IOException if the values cannot be written.
+     * @see #read(DataInput)
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeLong(totalCount);
+        out.writeDouble(sum);
+        out.writeDouble(sumOfSquares);
+        out.writeLong(max);
+
+        out.writeInt(counts.length);
+        for (long count : counts) out.writeLong(count);
+    }
+
+    /**
+     * Reads the values written by {@link #write(DataOutput)}, adding them to the ones recorded by this histogram.
+     * @param in The input to read from.
+     * @throws IOException if the values cannot be read, or have been written by a histogram of another size.
+     */
+    public void read(DataInput in) throws IOException {
+        totalCount += in.readLong();
+        sum += in.readDouble();
+        sumOfSquares += in.readDouble();
+        max = Math.max(max, in.readLong());
+
+        if (in.readInt() != counts.length) throw new IOException("The histogram has a different number of buckets");
+        for (int i = 0; i < counts.length; ++i) counts[i] += in.readLong();
+    }
+}
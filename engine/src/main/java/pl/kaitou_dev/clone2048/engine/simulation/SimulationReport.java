@@ -0,0 +1,208 @@
+package pl.kaitou_dev.clone2048.engine.simulation;
+
+import pl.kaitou_dev.clone2048.engine.BitBoard;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * The statistics gathered while simulating a batch of games.
+ * Reports of separate shards are combined with {@link #add(SimulationReport)}.
+ */
+public class SimulationReport {
+    /**
+     * The number of finished games.
+     */
+    private long games;
+
+    /**
+     * The number of moves made in all the games.
+     */
+    private long moves;
+
+    /**
+     * The number of games in which the winning value has been reached.
+     */
+    private long wins;
+
+    /**
+     * The number of games which ended with a given exponent as the highest one on the board.
+     */
+    private final long[] maxExponentCounts = new long[BitBoard.MAX_EXPONENT + 1];
+
+    /**
+     * The histogram of the final scores.
+     */
+    private final ScoreHistogram scores = new ScoreHistogram();
+
+    /**
+     * The wall-clock duration of the simulation, in nanoseconds.
+     */
+    private long elapsedNanos;
+
+    /**
+     * Records a finished game.
+     * @param finalBoard The layout of the board at the end of the game.
+     * @param score The final score.
+     * @param moveCount The number of moves made.
+     * @param won Whether the winning value has been reached.
+     */
+    public void recordGame(long finalBoard, int score, int moveCount, boolean won) {
+        ++games;
+        moves += moveCount;
+        if (won) ++wins;
+
+        ++maxExponentCounts[BitBoard.maxExponent(finalBoard)];
+        scores.record(score);
+    }
+
+    /**
+     * Adds the statistics of another report to this one. The elapsed time is not summed up.
+     * @param other The other report.
+     */
+    public void add(SimulationReport other) {
+        games += other.games;
+        moves += other.moves;
+        wins += other.wins;
+
+        for (int i = 0; i < maxExponentCounts.length; ++i) maxExponentCounts[i] += other.maxExponentCounts[i];
+        scores.add(other.scores);
+    }
+
+    /**
+     * Sets the wall-clock duration of the simulation.
+     * @param elapsedNanos The duration, in nanoseconds.
+     */
+    public void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Gets the wall-clock duration of the simulation.
+     * @return The duration, in nanoseconds.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Gets the number of finished games.
+     * @return The number of games.
+     */
+    public long getGames() {
+        return games;
+    }
+
+    /**
+     * Gets the number of moves made in all the games.
+     * @return The number of moves.
+     */
+    public long getMoves() {
+        return moves;
+    }
+
+    /**
+     * Gets the number of games in which the winning value has been reached.
+     * @return The number of won games.
+     */
+    public long getWins() {
+        return wins;
+    }
+
+    /**
+     * Gets the number of games which ended with the provided value as the highest one on the board.
+     * @param exponent The exponent of the value.
+     * @return The number of such games.
+     */
+    public long getMaxTileCount(int exponent) {
+        return maxExponentCounts[exponent];
+    }
+
+    /**
+     * Gets the histogram of the final scores.
+     * @return The histogram of the final scores.
+     */
+    public ScoreHistogram getScores() {
+        return scores;
+    }
+
+    /**
+     * Gets the throughput of the simulation in games.
+     * @return The number of games finished per second.
+     */
+    public double getGamesPerSecond() {
+        return elapsedNanos == 0 ? 0 : games * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * Gets the throughput of the simulation in moves.
+     * @return The number of moves made per second.
+     */
+    public double getMovesPerSecond() {
+        return elapsedNanos == 0 ? 0 : moves * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * Writes the statistics of this report, including the elapsed time, e.g. to a checkpoint.
+     * @param out The output to write to.
+     * @throws IOException if the statistics cannot be written.
+     * @see #read(DataInput)
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeLong(games);
+        out.writeLong(moves);
+        out.writeLong(wins);
+        out.writeLong(elapsedNanos);
+
+        out.writeInt(maxExponentCounts.length);
+        for (long count : maxExponentCounts) out.writeLong(count);
+
+        scores.write(out);
+    }
+
+    /**
+     * Reads the statistics written by {@link #write(DataOutput)}, adding them to the ones of this report,
+     * and replacing its elapsed time.
+     * @param in The input to read from.
+     * @throws IOException if the statistics cannot be read, or do not come from a compatible report.
+     */
+    public void read(DataInput in) throws IOException {
+        games += in.readLong();
+        moves += in.readLong();
+        wins += in.readLong();
+        elapsedNanos = in.readLong();
+
+        if (in.readInt() != maxExponentCounts.length) throw new IOException("The report has a different maximum tile");
+        for (int i = 0; i < maxExponentCounts.length; ++i) maxExponentCounts[i] += in.readLong();
+
+        scores.read(in);
+    }
+
+    /**
+     * Gets a human-readable summary of this report.
+     * @return A multi-line summary of this report.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+
+        sb.append(String.format(Locale.ROOT, "Games: %d in %.3f s (%.0f games/s, %.0f moves/s)%n",
+            games, elapsedNanos / 1e9, getGamesPerSecond(), getMovesPerSecond()));
+        sb.append(String.format(Locale.ROOT, "Wins: %d (%.3f%%)%n", wins, games == 0 ? 0 : 100.0 * wins / games));
+        sb.append(String.format(Locale.ROOT, "Score: mean %.1f, p50 %d, p90 %d, p99 %d, max %d%n",
+            scores.getMean(), scores.getPercentile(50), scores.getPercentile(90), scores.getPercentile(99),
+            scores.getMax()));
+
+        sb.append("Max tile:");
+        for (int exponent = 1; exponent < maxExponentCounts.length; ++exponent) {
+            if (maxExponentCounts[exponent] == 0) continue;
+            sb.append(String.format(Locale.ROOT, " %d: %.3f%%",
+                BitBoard.toValue(exponent), 100.0 * maxExponentCounts[exponent] / games));
+        }
+        sb.append(System.lineSeparator());
+
+        return sb.toString();
+    }
+}
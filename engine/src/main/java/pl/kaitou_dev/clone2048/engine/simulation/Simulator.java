@@ -0,0 +1,288 @@
+package pl.kaitou_dev.clone2048.engine.simulation;
+
+import pl.kaitou_dev.clone2048.engine.Directions;
+import pl.kaitou_dev.clone2048.engine.GameLogic;
+import pl.kaitou_dev.clone2048.engine.GameRules;
+import pl.kaitou_dev.clone2048.engine.strategy.MoveStrategy;
+import pl.kaitou_dev.clone2048.engine.strategy.MoveStrategies;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
+
+/**
+ * Plays large numbers of complete headless games across all the cores, and gathers statistics about them.
+ * <p>
+ * The games are split into shards, which are processed by a {@link ForkJoinPool} with work-stealing.
+ * Every game gets its own source of randomness, seeded from the base seed and the index of the game,
+ * so the results of a simulation do not depend on how it has been sharded, or on the number of threads.
+ * </p>
+ * <p>
+ * Within a shard, the games are played in lockstep batches, so that strategies which evaluate many boards at once
+ * choose the moves of up to {@value #BATCH_SIZE} games with a single call.
+ * </p>
+ */
+public class Simulator {
+    /**
+     * The highest number of games processed by a single shard without splitting it any further.
+     */
+    private static final long MAX_SHARD_SIZE = 4096;
+
+    /**
+     * The highest number of games played in lockstep, whose moves are chosen with a single call of the strategy.
+     */
+    static final int BATCH_SIZE = 1024;
+
+    /**
+     * The rules of the simulated games.
+     */
+    private final GameRules rules;
+
+    /**
+     * Creates the {@link MoveStrategy} for every shard, as strategies are not required to be thread-safe.
+     */
+    private final Supplier<? extends MoveStrategy> strategyFactory;
+
+    /**
+     * Whether a game ends as soon as the winning value appears ({@code true}),
+     * or continues until no move is possible ({@code false}).
+     */
+    private final boolean stopAtVictory;
+
+    /**
+     * The pool the shards are processed on.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * A constructor which simulates games on the common {@link ForkJoinPool}.
+     * @param rules The rules of the simulated games.
+     * @param strategyFactory Creates the {@link MoveStrategy} for every shard.
+     * @param stopAtVictory Whether a game ends as soon as the winning value appears.
+     */
+    public Simulator(GameRules rules, Supplier<? extends MoveStrategy> strategyFactory, boolean stopAtVictory) {
+        this(rules, strategyFactory, stopAtVictory, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * The full constructor.
+     * @param rules The rules of the simulated games.
+     * @param strategyFactory Creates the {@link MoveStrategy} for every shard.
+     * @param stopAtVictory Whether a game ends as soon as the winning value appears.
+     * @param pool The pool the shards are processed on.
+     */
+    public Simulator(
+        GameRules rules, Supplier<? extends MoveStrategy> strategyFactory, boolean stopAtVictory, ForkJoinPool pool
+    ) {
+        this.rules = rules;
+        this.strategyFactory = strategyFactory;
+        this.stopAtVictory = stopAtVictory;
+        this.pool = pool;
+    }
+
+    /**
+     * Simulates a batch of games.
+     * @param games The number of games to play.
+     * @param seed The base seed of the simulation. The same seed always leads to the same games.
+     * @return The statistics of the simulated games.
+     */
+    public SimulationReport run(long games, long seed) {
+        long shardSize = Math.max(1, Math.min(MAX_SHARD_SIZE, games / (16L * pool.getParallelism())));
+
+        long start = System.nanoTime();
+        SimulationReport report = pool.invoke(new Shard(0, games, shardSize, seed));
+        report.setElapsedNanos(System.nanoTime() - start);
+
+        return report;
+    }
+
+    /**
+     * Plays a batch of complete games in lockstep: every step, the strategy chooses the moves of all the games
+     * still in progress at once, with {@link MoveStrategy#chooseMoves}. Every game has its own sources of randomness,
+     * so the games are the same as if they were played one by one.
+     * @param rules The rules of the games.
+     * @param stopAtVictory Whether a game ends as soon as the winning value appears.
+     * @param strategy The strategy choosing the moves.
+     * @param spawnRandoms The sources of randomness of the spawns of every game.
+     * @param strategyRandoms The sources of randomness of the strategy in every game, at the same indices.
+     *                        They may be the same as {@code spawnRandoms}.
+     * @param count The number of games, counting from the index {@code 0}.
+     * @param report The report to record the games in.
+     * @param scores An array to receive the final score of every game, at the same indices, or {@code null}.
+     * @param wins An array to receive whether every game has been won, at the same indices, or {@code null}.
+     * @throws IllegalStateException if the strategy chooses no move, or an illegal one.
+     */
+    static void playBatch(
+        GameRules rules, boolean stopAtVictory, MoveStrategy strategy,
+        RandomGenerator[] spawnRandoms, RandomGenerator[] strategyRandoms, int count,
+        SimulationReport report, int[] scores, boolean[] wins
+    ) {
+        GameLogic[] games = new GameLogic[count];
+        int[] gameIndices = new int[count];
+        RandomGenerator[] randoms = new RandomGenerator[count];
+
+        for (int i = 0; i < count; ++i) {
+            games[i] = new GameLogic(rules, spawnRandoms[i]);
+            games[i].spawn();
+            gameIndices[i] = i;
+            randoms[i] = strategyRandoms[i];
+        }
+
+        long[] boards = new long[count];
+        Directions[] moves = new Directions[count];
+
+        while (count > 0) {
+            int active = 0;
+
+            for (int i = 0; i < count; ++i) {
+                GameLogic logic = games[i];
+
+                if (logic.getLegalMoves() == 0 || (stopAtVictory && logic.isWon())) {
+                    report.recordGame(logic.getPackedBoard(), logic.getScore(), logic.getMoveCount(), logic.isWon());
+                    if (scores != null) scores[gameIndices[i]] = logic.getScore();
+                    if (wins != null) wins[gameIndices[i]] = logic.isWon();
+                    continue;
+                }
+
+                games[active] = logic;
+                gameIndices[active] = gameIndices[i];
+                randoms[active] = randoms[i];
+                boards[active] = logic.getPackedBoard();
+                ++active;
+            }
+
+            count = active;
+            strategy.chooseMoves(boards, randoms, moves, count);
+
+            for (int i = 0; i < count; ++i) {
+                if (moves[i] == null || !games[i].move(moves[i], null))
+                    throw new IllegalStateException("The strategy has chosen an illegal move: " + moves[i]);
+
+                games[i].spawn();
+            }
+        }
+    }
+
+    /**
+     * Derives the seed of a single game from the base seed of a simulation.
+     * Games with the same base seed and index always get the same seed.
+     * @param seed The base seed.
+     * @param gameIndex The index of the game.
+     * @return The seed of the game.
+     */
+    public static long gameSeed(long seed, long gameIndex) {
+        long z = seed + (gameIndex + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * A range of games, which splits itself in halves until it is small enough to be played on a single thread.
+     */
+    @SuppressWarnings("serial")
+    private class Shard extends RecursiveTask<SimulationReport> {
+        /**
+         * The index of the first game of the range.
+         */
+        private final long from;
+
+        /**
+         * The index following the last game of the range.
+         */
+        private final long to;
+
+        /**
+         * The highest number of games played without splitting.
+         */
+        private final long shardSize;
+
+        /**
+         * The base seed of the simulation.
+         */
+        private final long seed;
+
+        /**
+         * The default constructor.
+         * @param from The index of the first game of the range.
+         * @param to The index following the last game of the range.
+         * @param shardSize The highest number of games played without splitting.
+         * @param seed The base seed of the simulation.
+         */
+        private Shard(long from, long to, long shardSize, long seed) {
+            this.from = from;
+            this.to = to;
+            this.shardSize = shardSize;
+            this.seed = seed;
+        }
+
+        @Override
+        protected SimulationReport compute() {
+            if (to - from <= shardSize) {
+                SimulationReport report = new SimulationReport();
+                MoveStrategy strategy = strategyFactory.get();
+
+                SplittableRandom[] randoms = new SplittableRandom[BATCH_SIZE];
+
+                for (long batch = from; batch < to; batch += BATCH_SIZE) {
+                    int count = (int) Math.min(BATCH_SIZE, to - batch);
+                    for (int i = 0; i < count; ++i) randoms[i] = new SplittableRandom(gameSeed(seed, batch + i));
+
+                    playBatch(rules, stopAtVictory, strategy, randoms, randoms, count, report, null, null);
+                }
+
+                return report;
+            }
+
+            long middle = (from + to) >>> 1;
+            Shard left = new Shard(from, middle, shardSize, seed);
+            left.fork();
+
+            SimulationReport report = new Shard(middle, to, shardSize, seed).compute();
+            report.add(left.join());
+            return report;
+        }
+    }
+
+    /**
+     * Runs a simulation, of random play unless told otherwise, and prints its report.
+     * @param args Optional arguments, in order: the number of games, the seed, the probability of spawning 4s,
+     *             and the winning value. Adding {@code --continue} anywhere plays every game until no move is
+     *             possible, instead of stopping at the winning value, and {@code --strategy=<name>} plays with
+     *             the named strategy of {@link MoveStrategies}.
+     */
+    public static void main(String[] args) {
+        long[] numbers = {1_000_000, System.nanoTime()};
+        double fourProbability = GameRules.DEFAULT.fourProbability();
+        int winningValue = GameRules.DEFAULT.winningValue();
+        boolean stopAtVictory = true;
+        String strategy = "random";
+
+        int position = 0;
+        for (String arg : args) {
+            if (arg.equals("--continue")) {
+                stopAtVictory = false;
+                continue;
+            }
+
+            if (arg.startsWith("--strategy=")) {
+                strategy = arg.substring("--strategy=".length());
+                continue;
+            }
+
+            switch (position++) {
+                case 0, 1 -> numbers[position - 1] = Long.parseLong(arg);
+                case 2 -> fourProbability = Double.parseDouble(arg);
+                case 3 -> winningValue = Integer.parseInt(arg);
+                default -> throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+        }
+
+        GameRules rules = new GameRules(winningValue, fourProbability);
+        Simulator simulator = new Simulator(rules, MoveStrategies.factory(strategy), stopAtVictory);
+
+        System.out.print(simulator.run(numbers[0], numbers[1]));
+    }
+}
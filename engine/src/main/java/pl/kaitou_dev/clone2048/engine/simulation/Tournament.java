@@ -0,0 +1,451 @@
+package pl.kaitou_dev.clone2048.engine.simulation;
+
+import pl.kaitou_dev.clone2048.engine.GameRules;
+import pl.kaitou_dev.clone2048.engine.strategy.ExpectimaxStrategy;
+import pl.kaitou_dev.clone2048.engine.strategy.MonteCarloStrategy;
+import pl.kaitou_dev.clone2048.engine.strategy.MoveStrategies;
+import pl.kaitou_dev.clone2048.engine.strategy.MoveStrategy;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Plays head-to-head comparisons of strategies across all the cores: every strategy plays every game of the
+ * tournament with the same seeds, i.e. with common random numbers, and the outcomes are compared pair by pair.
+ * Since the luck of the spawns mostly cancels out, a difference between two strategies shows up after far
+ * fewer games than it would in separate {@link Simulator} runs.
+ * <p>
+ * Every game has two sources of randomness, derived from the seed of the tournament and the index of the game:
+ * one of the spawns, and one of the strategy. Keeping them apart means that a strategy which draws random numbers
+ * does not shift the spawns of its own games away from those of the other strategies. The spawns still depend on
+ * the moves, as they are drawn among the empty slots, so the games of two strategies only stay identical for as long
+ * as they make the same moves.
+ * </p>
+ * <p>
+ * All of this holds only for strategies whose moves depend on nothing but the board and their source of randomness.
+ * Strategies searching under a wall-clock budget, like the default {@code mcts} and {@code expectimax}, make
+ * different moves on every run, and on every machine, so their games cannot be reproduced, and stop sharing the
+ * spawns with the other strategies as soon as their moves differ. {@link #main(String[])} can give them
+ * deterministic budgets instead.
+ * </p>
+ * <p>
+ * The games are played in blocks, and a checkpoint of the report is written after every block, so a long tournament
+ * can be stopped at any time, and resumed later from the last checkpoint with the same seed and strategies.
+ * The checkpoint holds the configuration of every strategy too, e.g. its budget, so that it cannot be resumed
+ * by strategies which play differently, whose games could not be compared with those played before.
+ * </p>
+ * @see TournamentReport
+ */
+public class Tournament {
+    /**
+     * The default number of games played by every strategy between two checkpoints.
+     */
+    public static final long DEFAULT_CHECKPOINT_INTERVAL = 1024;
+
+    /**
+     * The default path of the checkpoint of {@link #main(String[])}.
+     */
+    public static final String DEFAULT_CHECKPOINT_FILE = "tournament.checkpoint";
+
+    /**
+     * The first bytes of every checkpoint file, which tell it apart from any other file.
+     */
+    private static final int CHECKPOINT_MAGIC = 0x544F5552;
+
+    /**
+     * The version of the checkpoint format, to be increased whenever the format changes.
+     */
+    private static final int CHECKPOINT_VERSION = 2;
+
+    /**
+     * The constant the seeds of the strategies are derived with, which keeps them apart from the seeds of the spawns.
+     */
+    private static final long STRATEGY_SEED_SALT = 0x5DEECE66DL;
+
+    /**
+     * The rules of the games.
+     */
+    private final GameRules rules;
+
+    /**
+     * The names of the strategies.
+     */
+    private final String[] names;
+
+    /**
+     * The effective configurations of the strategies, at the same indices as {@link #names}, e.g. the descriptions
+     * of their providers, which tell apart the strategies of the same name playing differently.
+     */
+    private final String[] configurations;
+
+    /**
+     * The factories of the strategies, at the same indices as {@link #names}, called for every shard,
+     * as strategies are not required to be thread-safe.
+     */
+    private final List<Supplier<? extends MoveStrategy>> strategyFactories;
+
+    /**
+     * Whether a game ends as soon as the winning value appears ({@code true}),
+     * or continues until no move is possible ({@code false}).
+     */
+    private final boolean stopAtVictory;
+
+    /**
+     * The number of games played by every strategy between two checkpoints.
+     */
+    private final long checkpointInterval;
+
+    /**
+     * The pool the shards are processed on.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * A constructor which plays the games on the common {@link ForkJoinPool}, with the default checkpoint interval.
+     * @param rules The rules of the games.
+     * @param names The names of the strategies.
+     * @param configurations The effective configurations of the strategies, at the same indices as their names,
+     *                       which the checkpoints have to match.
+     * @param strategyFactories Create the strategies, at the same indices as their names.
+     * @param stopAtVictory Whether a game ends as soon as the winning value appears.
+     * @throws IllegalArgumentException if there are no strategies, or their names, configurations and factories
+     *                                  do not match.
+     */
+    public Tournament(
+        GameRules rules, List<String> names, List<String> configurations,
+        List<? extends Supplier<? extends MoveStrategy>> strategyFactories, boolean stopAtVictory
+    ) throws IllegalArgumentException {
+        this(
+            rules, names, configurations, strategyFactories, stopAtVictory,
+            DEFAULT_CHECKPOINT_INTERVAL, ForkJoinPool.commonPool()
+        );
+    }
+
+    /**
+     * The full constructor.
+     * @param rules The rules of the games.
+     * @param names The names of the strategies.
+     * @param configurations The effective configurations of the strategies, at the same indices as their names,
+     *                       which the checkpoints have to match.
+     * @param strategyFactories Create the strategies, at the same indices as their names.
+     * @param stopAtVictory Whether a game ends as soon as the winning value appears.
+     * @param checkpointInterval The number of games played by every strategy between two checkpoints.
+     * @param pool The pool the shards are processed on.
+     * @throws IllegalArgumentException if there are no strategies, their names, configurations and factories
+     *                                  do not match, or the checkpoint interval is not positive.
+     */
+    public Tournament(
+        GameRules rules, List<String> names, List<String> configurations,
+        List<? extends Supplier<? extends MoveStrategy>> strategyFactories, boolean stopAtVictory,
+        long checkpointInterval, ForkJoinPool pool
+    ) throws IllegalArgumentException {
+        if (names.isEmpty()) throw new IllegalArgumentException("A tournament needs at least one strategy");
+        if (names.size() != configurations.size() || names.size() != strategyFactories.size())
+            throw new IllegalArgumentException("Every strategy needs a name, a configuration and a factory");
+        if (checkpointInterval <= 0) throw new IllegalArgumentException("The checkpoint interval must be positive");
+
+        this.rules = rules;
+        this.names = names.toArray(new String[0]);
+        this.configurations = configurations.toArray(new String[0]);
+        this.strategyFactories = List.copyOf(strategyFactories);
+        this.stopAtVictory = stopAtVictory;
+        this.checkpointInterval = checkpointInterval;
+        this.pool = pool;
+    }
+
+    /**
+     * Plays a tournament, resuming from its checkpoint if there is one.
+     * @param games The number of games every strategy plays in total, including those of the checkpoint.
+     * @param seed The seed of the tournament. The same seed always leads to the same games, as long as the strategies
+     *             are deterministic, see {@link Tournament}.
+     * @param checkpoint The path of the checkpoint file, or {@code null} not to write any checkpoints.
+     * @param progress Receives the report after every checkpoint, or {@code null}.
+     * @return The report of all the games played, including those of the checkpoint.
+     * @throws IOException if the checkpoint cannot be read or written, belongs to another tournament,
+     *                     or holds more games than requested.
+     */
+    public TournamentReport run(long games, long seed, Path checkpoint, Consumer<? super TournamentReport> progress)
+        throws IOException {
+        TournamentReport report = new TournamentReport(names);
+        long played = checkpoint != null && Files.exists(checkpoint) ? readCheckpoint(checkpoint, seed, report) : 0;
+        if (played > games)
+            throw new IOException("The checkpoint holds " + played + " games per strategy, more than " + games);
+
+        long previousNanos = report.getElapsedNanos();
+
+        long start = System.nanoTime();
+        while (played < games) {
+            long blockEnd = Math.min(games, played + checkpointInterval);
+            long shardSize = Math.max(1, Math.min(Simulator.BATCH_SIZE, (blockEnd - played) / pool.getParallelism()));
+
+            report.add(pool.invoke(new Shard(played, blockEnd, shardSize, seed)));
+            report.setElapsedNanos(previousNanos + System.nanoTime() - start);
+            played = blockEnd;
+
+            if (checkpoint != null) writeCheckpoint(checkpoint, seed, played, report);
+            if (progress != null) progress.accept(report);
+        }
+
+        return report;
+    }
+
+    /**
+     * Plays a range of games with every strategy, and compares their outcomes.
+     * @param from The index of the first game of the range.
+     * @param to The index following the last game of the range, at most {@link Simulator#BATCH_SIZE} games after
+     *           the first.
+     * @param seed The seed of the tournament.
+     * @param strategies The strategies, at the same indices as {@link #names}.
+     * @param report The report to record the games in.
+     */
+    private void playBatch(long from, long to, long seed, MoveStrategy[] strategies, TournamentReport report) {
+        int count = (int) (to - from);
+        int[][] scores = new int[strategies.length][count];
+        boolean[][] wins = new boolean[strategies.length][count];
+
+        SplittableRandom[] spawnRandoms = new SplittableRandom[count];
+        SplittableRandom[] strategyRandoms = new SplittableRandom[count];
+
+        for (int s = 0; s < strategies.length; ++s) {
+            for (int i = 0; i < count; ++i) {
+                spawnRandoms[i] = new SplittableRandom(Simulator.gameSeed(seed, from + i));
+                strategyRandoms[i] = new SplittableRandom(Simulator.gameSeed(seed ^ STRATEGY_SEED_SALT, from + i));
+            }
+
+            SimulationReport strategyReport = report.getReport(s);
+            long start = System.nanoTime();
+
+            Simulator.playBatch(
+                rules, stopAtVictory, strategies[s], spawnRandoms, strategyRandoms, count,
+                strategyReport, scores[s], wins[s]
+            );
+
+            strategyReport.setElapsedNanos(strategyReport.getElapsedNanos() + System.nanoTime() - start);
+        }
+
+        for (int i = 0; i < count; ++i) report.recordPairs(scores, wins, i);
+    }
+
+    /**
+     * Reads a checkpoint, checking that it belongs to this tournament.
+     * @param path The path of the checkpoint file.
+     * @param seed The seed of the tournament.
+     * @param report The report to add the statistics of the checkpoint to.
+     * @return The number of games every strategy has played before the checkpoint.
+     * @throws IOException if the checkpoint cannot be read, or belongs to another tournament.
+     */
+    private long readCheckpoint(Path path, long seed, TournamentReport report) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != CHECKPOINT_MAGIC) throw new IOException("Not a tournament checkpoint: " + path);
+            if (in.readInt() != CHECKPOINT_VERSION)
+                throw new IOException("The checkpoint has an unsupported version: " + path);
+
+            boolean sameTournament = in.readLong() == seed
+                & in.readInt() == rules.winningValue()
+                & in.readDouble() == rules.fourProbability()
+                & in.readBoolean() == stopAtVictory
+                & in.readInt() == names.length;
+
+            for (int i = 0; sameTournament && i < names.length; ++i) sameTournament = in.readUTF().equals(names[i]);
+            if (!sameTournament)
+                throw new IOException("The checkpoint belongs to a tournament with another seed, rules, or strategies");
+
+            for (int i = 0; i < names.length; ++i) {
+                String configuration = in.readUTF();
+                if (!configuration.equals(configurations[i])) {
+                    throw new IOException(
+                        "The checkpoint was played by " + names[i] + " configured as \"" + configuration
+                            + "\", not as \"" + configurations[i] + "\""
+                    );
+                }
+            }
+
+            long played = in.readLong();
+            report.read(in);
+            return played;
+        }
+    }
+
+    /**
+     * Writes a checkpoint to a temporary file first, and moves it in place of the previous one once it is complete,
+     * so a crash never leaves a broken checkpoint behind.
+     * @param path The path of the checkpoint file.
+     * @param seed The seed of the tournament.
+     * @param played The number of games every strategy has played.
+     * @param report The statistics of the games played.
+     * @throws IOException if the checkpoint cannot be written.
+     */
+    private void writeCheckpoint(Path path, long seed, long played, TournamentReport report) throws IOException {
+        Path absolute = path.toAbsolutePath();
+        if (absolute.getParent() != null) Files.createDirectories(absolute.getParent());
+
+        Path temporary = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(CHECKPOINT_MAGIC);
+            out.writeInt(CHECKPOINT_VERSION);
+
+            out.writeLong(seed);
+            out.writeInt(rules.winningValue());
+            out.writeDouble(rules.fourProbability());
+            out.writeBoolean(stopAtVictory);
+            out.writeInt(names.length);
+            for (String name : names) out.writeUTF(name);
+            for (String configuration : configurations) out.writeUTF(configuration);
+
+            out.writeLong(played);
+            report.write(out);
+        }
+
+        Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * A range of games, which splits itself in halves until it is small enough to be played on a single thread.
+     */
+    @SuppressWarnings("serial")
+    private class Shard extends RecursiveTask<TournamentReport> {
+        /**
+         * The index of the first game of the range.
+         */
+        private final long from;
+
+        /**
+         * The index following the last game of the range.
+         */
+        private final long to;
+
+        /**
+         * The highest number of games played without splitting.
+         */
+        private final long shardSize;
+
+        /**
+         * The seed of the tournament.
+         */
+        private final long seed;
+
+        /**
+         * The default constructor.
+         * @param from The index of the first game of the range.
+         * @param to The index following the last game of the range.
+         * @param shardSize The highest number of games played without splitting.
+         * @param seed The seed of the tournament.
+         */
+        private Shard(long from, long to, long shardSize, long seed) {
+            this.from = from;
+            this.to = to;
+            this.shardSize = shardSize;
+            this.seed = seed;
+        }
+
+        @Override
+        protected TournamentReport compute() {
+            if (to - from <= shardSize) {
+                TournamentReport report = new TournamentReport(names);
+
+                MoveStrategy[] strategies = new MoveStrategy[strategyFactories.size()];
+                for (int s = 0; s < strategies.length; ++s) strategies[s] = strategyFactories.get(s).get();
+
+                for (long batch = from; batch < to; batch += Simulator.BATCH_SIZE)
+                    playBatch(batch, Math.min(to, batch + Simulator.BATCH_SIZE), seed, strategies, report);
+
+                return report;
+            }
+
+            long middle = (from + to) >>> 1;
+            Shard left = new Shard(from, middle, shardSize, seed);
+            left.fork();
+
+            TournamentReport report = new Shard(middle, to, shardSize, seed).compute();
+            report.add(left.join());
+            return report;
+        }
+    }
+
+    /**
+     * Plays a tournament of the named strategies of {@link MoveStrategies} to the default winning value, i.e. 2048,
+     * printing a short progress line after every checkpoint, and the full report at the end.
+     * @param args The number of games, the seed, and the names of the strategies, in this order. Adding
+     *             {@code --checkpoint=<path>} anywhere changes the path of the checkpoint, and {@code --continue}
+     *             plays every game until no move is possible, instead of stopping at the winning value.
+     *             {@code --rollouts=<count>} and {@code --depth=<depth>} replace the time budgets of {@code mcts}
+     *             and {@code expectimax} with a fixed number of rollouts and a fixed depth of every move, so that
+     *             the tournament can be reproduced. They are passed as options to every strategy, and recorded in
+     *             the checkpoint with the descriptions of the strategies, so a tournament cannot be resumed
+     *             with other budgets.
+     * @throws IOException if the checkpoint cannot be read or written.
+     */
+    public static void main(String[] args) throws IOException {
+        long games = 10_000;
+        long seed = 0;
+        Path checkpoint = Path.of(DEFAULT_CHECKPOINT_FILE);
+        boolean stopAtVictory = true;
+        List<String> names = new ArrayList<>();
+        Map<String, String> options = new HashMap<>();
+
+        int position = 0;
+        for (String arg : args) {
+            if (arg.equals("--continue")) {
+                stopAtVictory = false;
+                continue;
+            }
+
+            if (arg.startsWith("--checkpoint=")) {
+                checkpoint = Path.of(arg.substring("--checkpoint=".length()));
+                continue;
+            }
+
+            if (arg.startsWith("--rollouts=")) {
+                options.put(MonteCarloStrategy.Provider.ROLLOUTS_OPTION, arg.substring("--rollouts=".length()));
+                continue;
+            }
+
+            if (arg.startsWith("--depth=")) {
+                options.put(ExpectimaxStrategy.Provider.DEPTH_OPTION, arg.substring("--depth=".length()));
+                continue;
+            }
+
+            switch (position++) {
+                case 0 -> games = Long.parseLong(arg);
+                case 1 -> seed = Long.parseLong(arg);
+                default -> names.add(arg);
+            }
+        }
+
+        if (names.isEmpty())
+            throw new IllegalArgumentException("No strategies given, available: " + MoveStrategies.getNames());
+
+        List<String> configurations = new ArrayList<>();
+        List<Supplier<MoveStrategy>> factories = new ArrayList<>();
+        for (String name : names) {
+            configurations.add(MoveStrategies.getProvider(name).getDescription(options));
+            factories.add(MoveStrategies.factory(name, options));
+        }
+
+        long totalGames = games;
+        Tournament tournament = new Tournament(GameRules.DEFAULT, names, configurations, factories, stopAtVictory);
+        TournamentReport report = tournament.run(games, seed, checkpoint, progress -> System.out.printf(
+            Locale.ROOT, "%d/%d games, %.1f s%n", progress.getGames(), totalGames, progress.getElapsedNanos() / 1e9
+        ));
+
+        System.out.println();
+        System.out.print(report);
+    }
+}
@@ -0,0 +1,301 @@
+package pl.kaitou_dev.clone2048.engine.simulation;
+
+import pl.kaitou_dev.clone2048.engine.BitBoard;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * The statistics gathered by a {@link Tournament}: a {@link SimulationReport} of every strategy, and the
+ * {@link PairedDifference}s of the scores and the wins of every pair of strategies, which have played the same games.
+ * Reports of separate shards are combined with {@link #add(TournamentReport)}.
+ * <p>
+ * The elapsed time of every {@link SimulationReport} is the time spent on the moves of its strategy,
+ * summed up over all the threads, so its throughput is measured per thread.
+ * </p>
+ */
+public class TournamentReport {
+    /**
+     * The quantile of the standard normal distribution of the 95% confidence intervals.
+     */
+    public static final double Z_95 = 1.959963984540054;
+
+    /**
+     * The names of the strategies.
+     */
+    private final String[] names;
+
+    /**
+     * The statistics of the games of every strategy, at the same indices as {@link #names}.
+     */
+    private final SimulationReport[] reports;
+
+    /**
+     * The differences of the scores of every pair of strategies, indexed by {@link #pairIndex(int, int)}.
+     */
+    private final PairedDifference[] scoreDifferences;
+
+    /**
+     * The differences of the wins of every pair of strategies, each {@code 1} for a won game and {@code 0} for a lost
+     * one, indexed by {@link #pairIndex(int, int)}.
+     */
+    private final PairedDifference[] winDifferences;
+
+    /**
+     * The wall-clock duration of the tournament, in nanoseconds.
+     */
+    private long elapsedNanos;
+
+    /**
+     * The default constructor, which creates an empty report.
+     * @param names The names of the strategies.
+     */
+    public TournamentReport(String... names) {
+        this.names = names.clone();
+        this.reports = new SimulationReport[names.length];
+        for (int i = 0; i < names.length; ++i) reports[i] = new SimulationReport();
+
+        int pairs = names.length * (names.length - 1) / 2;
+        this.scoreDifferences = new PairedDifference[pairs];
+        this.winDifferences = new PairedDifference[pairs];
+
+        for (int i = 0; i < pairs; ++i) {
+            scoreDifferences[i] = new PairedDifference();
+            winDifferences[i] = new PairedDifference();
+        }
+    }
+
+    /**
+     * Finds the index of the statistics of a pair of strategies.
+     * @param first The index of the first strategy.
+     * @param second The index of the second strategy, higher than the first one.
+     * @return The index of the pair.
+     */
+    private int pairIndex(int first, int second) {
+        return first * (2 * names.length - first - 1) / 2 + second - first - 1;
+    }
+
+    /**
+     * Records the outcomes of a single game, played by every strategy with the same seed.
+     * @param scores The final scores of every strategy.
+     * @param wins Whether every strategy has won the game.
+     * @param game The index of the game within the arrays.
+     */
+    void recordPairs(int[][] scores, boolean[][] wins, int game) {
+        for (int first = 0; first < names.length; ++first) {
+            for (int second = first + 1; second < names.length; ++second) {
+                int pair = pairIndex(first, second);
+                scoreDifferences[pair].record(scores[first][game], scores[second][game]);
+                winDifferences[pair].record(wins[first][game] ? 1 : 0, wins[second][game] ? 1 : 0);
+            }
+        }
+    }
+
+    /**
+     * Adds the statistics of another report of the same strategies to this one, summing up the time spent on
+     * every strategy. The wall-clock duration is not summed up.
+     * @param other The other report.
+     */
+    public void add(TournamentReport other) {
+        for (int i = 0; i < reports.length; ++i) {
+            long strategyNanos = reports[i].getElapsedNanos() + other.reports[i].getElapsedNanos();
+            reports[i].add(other.reports[i]);
+            reports[i].setElapsedNanos(strategyNanos);
+        }
+
+        for (int i = 0; i < scoreDifferences.length; ++i) {
+            scoreDifferences[i].add(other.scoreDifferences[i]);
+            winDifferences[i].add(other.winDifferences[i]);
+        }
+    }
+
+    /**
+     * Gets the names of the strategies.
+     * @return A copy of the names, in order.
+     */
+    public String[] getNames() {
+        return names.clone();
+    }
+
+    /**
+     * Gets the number of games every strategy has played.
+     * @return The number of games.
+     */
+    public long getGames() {
+        return reports.length == 0 ? 0 : reports[0].getGames();
+    }
+
+    /**
+     * Gets the statistics of the games of a strategy.
+     * @param strategy The index of the strategy.
+     * @return The statistics, whose elapsed time is the time spent on the moves, summed up over all the threads.
+     */
+    public SimulationReport getReport(int strategy) {
+        return reports[strategy];
+    }
+
+    /**
+     * Gets the differences of the scores of a pair of strategies, the first one's minus the second one's.
+     * @param first The index of the first strategy.
+     * @param second The index of the second strategy, different from the first one.
+     * @return The differences of the scores.
+     */
+    public PairedDifference getScoreDifference(int first, int second) {
+        return getDifference(scoreDifferences, first, second);
+    }
+
+    /**
+     * Gets the differences of the wins of a pair of strategies, the first one's minus the second one's.
+     * Their mean is the difference of the win rates.
+     * @param first The index of the first strategy.
+     * @param second The index of the second strategy, different from the first one.
+     * @return The differences of the wins.
+     */
+    public PairedDifference getWinDifference(int first, int second) {
+        return getDifference(winDifferences, first, second);
+    }
+
+    /**
+     * Gets the differences of a pair of strategies, in the requested order.
+     * @param differences The differences of every pair, indexed by {@link #pairIndex(int, int)}.
+     * @param first The index of the first strategy.
+     * @param second The index of the second strategy, different from the first one.
+     * @return The differences, the first one's observations minus the second one's.
+     */
+    private PairedDifference getDifference(PairedDifference[] differences, int first, int second) {
+        if (first < second) return differences[pairIndex(first, second)];
+
+        PairedDifference original = differences[pairIndex(second, first)];
+        PairedDifference reversed = new PairedDifference();
+        reversed.add(original);
+        reversed.negate();
+        return reversed;
+    }
+
+    /**
+     * Estimates the 95% confidence interval of the win rate of a strategy, with the Wilson score interval,
+     * which stays within [0; 1] even for win rates close to either end.
+     * @param strategy The index of the strategy.
+     * @return The lower and the upper bound of the interval.
+     */
+    public double[] getWinRateInterval(int strategy) {
+        long games = reports[strategy].getGames();
+        if (games == 0) return new double[] {0, 1};
+
+        double rate = (double) reports[strategy].getWins() / games;
+        double zSquared = Z_95 * Z_95;
+
+        double center = (rate + zSquared / (2 * games)) / (1 + zSquared / games);
+        double margin = Z_95 / (1 + zSquared / games)
+            * Math.sqrt(rate * (1 - rate) / games + zSquared / (4.0 * games * games));
+
+        return new double[] {Math.max(0, center - margin), Math.min(1, center + margin)};
+    }
+
+    /**
+     * Sets the wall-clock duration of the tournament.
+     * @param elapsedNanos The duration, in nanoseconds.
+     */
+    public void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Gets the wall-clock duration of the tournament.
+     * @return The duration, in nanoseconds.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Writes the statistics of this report, e.g. to a checkpoint.
+     * @param out The output to write to.
+     * @throws IOException if the statistics cannot be written.
+     * @see #read(DataInput)
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeLong(elapsedNanos);
+
+        for (SimulationReport report : reports) report.write(out);
+        for (int i = 0; i < scoreDifferences.length; ++i) {
+            scoreDifferences[i].write(out);
+            winDifferences[i].write(out);
+        }
+    }
+
+    /**
+     * Reads the statistics written by {@link #write(DataOutput)} by a report of the same strategies,
+     * adding them to the ones of this report, and replacing its elapsed times.
+     * @param in The input to read from.
+     * @throws IOException if the statistics cannot be read.
+     */
+    public void read(DataInput in) throws IOException {
+        elapsedNanos = in.readLong();
+
+        for (SimulationReport report : reports) report.read(in);
+        for (int i = 0; i < scoreDifferences.length; ++i) {
+            scoreDifferences[i].read(in);
+            winDifferences[i].read(in);
+        }
+    }
+
+    /**
+     * Gets a human-readable summary of this report: the statistics of every strategy, and the comparison
+     * of every pair of them, with 95% confidence intervals.
+     * @return A multi-line summary of this report.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        long games = getGames();
+
+        sb.append(String.format(Locale.ROOT, "Games: %d per strategy, with the same seeds, in %.3f s%n",
+            games, elapsedNanos / 1e9));
+
+        for (int i = 0; i < names.length; ++i) {
+            SimulationReport report = reports[i];
+            ScoreHistogram scores = report.getScores();
+            double[] winRate = getWinRateInterval(i);
+
+            sb.append(String.format(Locale.ROOT, "%n[%s] %.0f moves/s per thread%n",
+                names[i], report.getMovesPerSecond()));
+            sb.append(String.format(Locale.ROOT, "  Wins: %d (%.3f%%, 95%% CI %.3f%% to %.3f%%)%n",
+                report.getWins(), games == 0 ? 0 : 100.0 * report.getWins() / games,
+                100 * winRate[0], 100 * winRate[1]));
+            sb.append(String.format(Locale.ROOT, "  Score: mean %.1f +- %.1f, p50 %d, p90 %d, p99 %d, max %d%n",
+                scores.getMean(), games < 2 ? 0 : Z_95 * scores.getStandardDeviation() / Math.sqrt(games),
+                scores.getPercentile(50), scores.getPercentile(90), scores.getPercentile(99), scores.getMax()));
+
+            sb.append("  Max tile:");
+            for (int exponent = 1; exponent <= BitBoard.MAX_EXPONENT; ++exponent) {
+                long count = report.getMaxTileCount(exponent);
+                if (count == 0) continue;
+                sb.append(String.format(Locale.ROOT, " %d: %.3f%%", BitBoard.toValue(exponent), 100.0 * count / games));
+            }
+            sb.append(System.lineSeparator());
+        }
+
+        for (int first = 0; first < names.length; ++first) {
+            for (int second = first + 1; second < names.length; ++second) {
+                PairedDifference scoreDifference = getScoreDifference(first, second);
+                PairedDifference winDifference = getWinDifference(first, second);
+
+                double unpairedError = games < 2 ? 0 : Math.sqrt(
+                    (Math.pow(reports[first].getScores().getStandardDeviation(), 2)
+                        + Math.pow(reports[second].getScores().getStandardDeviation(), 2)) / games
+                );
+
+                sb.append(String.format(Locale.ROOT, "%n[%s] - [%s]%n", names[first], names[second]));
+                sb.append(String.format(Locale.ROOT, "  Score: %+.1f +- %.1f (+- %.1f if unpaired)%n",
+                    scoreDifference.getMean(), Z_95 * scoreDifference.getStandardError(), Z_95 * unpairedError));
+                sb.append(String.format(Locale.ROOT, "  Win rate: %+.3f%% +- %.3f%%%n",
+                    100 * winDifference.getMean(), 100 * Z_95 * winDifference.getStandardError()));
+            }
+        }
+
+        return sb.toString();
+    }
+}
@@ -0,0 +1,5 @@
+/**
+ * Contains the tools for simulating large numbers of headless games, for gathering statistics about them,
+ * and for comparing strategies head-to-head in tournaments.
+ */
+package pl.kaitou_dev.clone2048.engine.simulation;
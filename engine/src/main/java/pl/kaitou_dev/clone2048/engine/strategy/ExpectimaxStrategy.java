@@ -0,0 +1,183 @@
+package pl.kaitou_dev.clone2048.engine.strategy;
+
+import pl.kaitou_dev.clone2048.engine.Directions;
+import pl.kaitou_dev.clone2048.engine.GameRules;
+import pl.kaitou_dev.clone2048.engine.ai.ExpectimaxSearch;
+import pl.kaitou_dev.clone2048.engine.ai.HeuristicEvaluator;
+import pl.kaitou_dev.clone2048.engine.ai.TranspositionTable;
+
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+/**
+ * A {@link MoveStrategy} which chooses moves with an {@link ExpectimaxSearch} under a fixed time budget.
+ */
+public class ExpectimaxStrategy implements MoveStrategy {
+    /**
+     * The time budget of a single move, in nanoseconds, unless specified otherwise. It suits interactive play.
+     */
+    public static final long DEFAULT_BUDGET_NANOS = 5_000_000;
+
+    /**
+     * The search choosing the moves.
+     */
+    private final ExpectimaxSearch search;
+
+    /**
+     * The time budget of a single move, in nanoseconds.
+     */
+    private final long budgetNanos;
+
+    /**
+     * A constructor which uses the default search and budget. The search splits its root moves across the common
+     * {@link java.util.concurrent.ForkJoinPool}, which suits interactive play, but not batch play, whose strategies
+     * should come from the {@link Provider} instead.
+     */
+    public ExpectimaxStrategy() {
+        this(new ExpectimaxSearch(), DEFAULT_BUDGET_NANOS);
+    }
+
+    /**
+     * The full constructor.
+     * @param search The search choosing the moves.
+     * @param budgetNanos The time budget of a single move, in nanoseconds, or {@link Long#MAX_VALUE} to always search
+     *                    down to the maximum depth of the search.
+     */
+    public ExpectimaxStrategy(ExpectimaxSearch search, long budgetNanos) {
+        this.search = search;
+        this.budgetNanos = budgetNanos;
+    }
+
+    /**
+     * Discovers this strategy with {@link java.util.ServiceLoader}. All the strategies it creates share a single
+     * search, and therefore a single {@link TranspositionTable}, whose size in megabytes is given by the
+     * {@value #TABLE_PROPERTY} system property, or {@link TranspositionTable#DEFAULT_MEGABYTES}. The search runs
+     * on the calling thread only, as the strategies are meant for batch play, and the table is written by all
+     * of them at once.
+     * <p>
+     * The {@value #DEPTH_OPTION} option replaces the time budget with a fixed depth, which makes the moves depend
+     * on nothing but the board, e.g. for reproducible tournaments. Such searches do without a table, whose values
+     * would depend on the boards searched before, i.e. on the other games played by the same thread.
+     * </p>
+     */
+    public static class Provider implements MoveStrategyProvider {
+        /**
+         * The system property with the size of the transposition table, in megabytes.
+         */
+        public static final String TABLE_PROPERTY = "clone2048.expectimax.table";
+
+        /**
+         * The option with the fixed depth of every search, if the searches are not limited by time.
+         */
+        public static final String DEPTH_OPTION = "depth";
+
+        /**
+         * The search shared by all the strategies created, or {@code null} until it is first needed.
+         */
+        private ExpectimaxSearch search;
+
+        /**
+         * Reads the fixed depth of the searches from the options.
+         * @param options The options of the strategy, by name.
+         * @return The fixed depth, or {@code null} if the searches are limited by time.
+         * @throws IllegalArgumentException if the depth is not a positive number.
+         */
+        private static Integer depthOf(Map<String, String> options) throws IllegalArgumentException {
+            String value = options.get(DEPTH_OPTION);
+            if (value == null) return null;
+
+            int depth = Integer.parseInt(value);
+            if (depth <= 0) throw new IllegalArgumentException("The depth must be positive");
+            return depth;
+        }
+
+        @Override
+        public String getName() {
+            return "expectimax";
+        }
+
+        @Override
+        public String getDescription() {
+            return getDescription(Map.of());
+        }
+
+        @Override
+        public String getDescription(Map<String, String> options) throws IllegalArgumentException {
+            Integer depth = depthOf(options);
+            if (depth != null) return "Expectimax search of the heuristic evaluation, %d moves deep".formatted(depth);
+
+            return "Expectimax search of the heuristic evaluation, %d ms per move".formatted(
+                DEFAULT_BUDGET_NANOS / 1_000_000
+            );
+        }
+
+        /**
+         * Creates a new strategy limited by time, setting up the shared search first if it has not been set up yet.
+         * @return The new strategy.
+         * @throws IllegalArgumentException if the size of the table is invalid.
+         */
+        @Override
+        public MoveStrategy create() throws IllegalArgumentException {
+            return create(Map.of());
+        }
+
+        /**
+         * Creates a new strategy, setting up the shared search first if it has not been set up yet,
+         * or a strategy with a search of its own, if the {@value #DEPTH_OPTION} option fixes the depth.
+         * @param options The options of the strategy, by name.
+         * @return The new strategy.
+         * @throws IllegalArgumentException if the size of the table, or the fixed depth, is invalid.
+         */
+        @Override
+        public synchronized MoveStrategy create(Map<String, String> options) throws IllegalArgumentException {
+            Integer depth = depthOf(options);
+            if (depth != null) {
+                ExpectimaxSearch fixedSearch = new ExpectimaxSearch(
+                    HeuristicEvaluator.INSTANCE, GameRules.DEFAULT, ExpectimaxSearch.DEFAULT_PROBABILITY_CUTOFF,
+                    depth, null, null
+                );
+
+                return new ExpectimaxStrategy(fixedSearch, Long.MAX_VALUE);
+            }
+
+            if (search == null) {
+                int megabytes = Integer.getInteger(TABLE_PROPERTY, TranspositionTable.DEFAULT_MEGABYTES);
+                search = new ExpectimaxSearch(
+                    HeuristicEvaluator.INSTANCE, GameRules.DEFAULT, ExpectimaxSearch.DEFAULT_PROBABILITY_CUTOFF,
+                    ExpectimaxSearch.DEFAULT_MAX_DEPTH, null, TranspositionTable.ofMegabytes(megabytes)
+                );
+            }
+
+            return new ExpectimaxStrategy(search, DEFAULT_BUDGET_NANOS);
+        }
+    }
+
+    /**
+     * Chooses the next move of a single game, ageing the table of the search first, as its earlier entries are of
+     * the earlier moves.
+     * @param board The board, packed as described by {@link pl.kaitou_dev.clone2048.engine.BitBoard}.
+     *              At least one move has to be legal on it.
+     * @param random Unused, as the search is not random.
+     * @return The direction of the chosen move.
+     */
+    @Override
+    public Directions chooseMove(long board, RandomGenerator random) {
+        search.ageTable();
+        return search.search(board, budgetNanos).direction();
+    }
+
+    /**
+     * Chooses the next moves of a batch of games, ageing the table of the search once for the whole round of moves,
+     * rather than once per board, since the same table may take the searches of other batches at the same time.
+     * @param boards The boards, packed as described by {@link pl.kaitou_dev.clone2048.engine.BitBoard}.
+     *               At least one move has to be legal on each.
+     * @param randoms Unused, as the search is not random.
+     * @param moves An array to receive the directions of the chosen moves, at the same indices.
+     * @param count The number of boards, counting from the index {@code 0}.
+     */
+    @Override
+    public void chooseMoves(long[] boards, RandomGenerator[] randoms, Directions[] moves, int count) {
+        search.ageTable();
+        for (int i = 0; i < count; ++i) moves[i] = search.search(boards[i], budgetNanos).direction();
+    }
+}
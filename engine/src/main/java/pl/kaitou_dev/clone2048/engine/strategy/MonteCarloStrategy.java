@@ -0,0 +1,192 @@
+package pl.kaitou_dev.clone2048.engine.strategy;
+
+import pl.kaitou_dev.clone2048.engine.Directions;
+import pl.kaitou_dev.clone2048.engine.GameRules;
+import pl.kaitou_dev.clone2048.engine.ai.MonteCarloTreeSearch;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+/**
+ * A {@link MoveStrategy} which chooses moves with a {@link MonteCarloTreeSearch} under a fixed time or rollout budget,
+ * and keeps track of its throughput, so that it can be compared with other strategies under the same CPU budget.
+ */
+public class MonteCarloStrategy implements MoveStrategy {
+    /**
+     * The time budget of a single move, in nanoseconds, unless specified otherwise. It suits interactive play.
+     */
+    public static final long DEFAULT_BUDGET_NANOS = 5_000_000;
+
+    /**
+     * The search choosing the moves.
+     */
+    private final MonteCarloTreeSearch search;
+
+    /**
+     * The time budget of a single move, in nanoseconds.
+     */
+    private final long budgetNanos;
+
+    /**
+     * The rollout budget of a single move.
+     */
+    private final long rolloutBudget;
+
+    /**
+     * The number of rollouts played by all the searches so far.
+     */
+    private long rollouts;
+
+    /**
+     * The wall-clock duration of all the searches so far, in nanoseconds.
+     */
+    private long elapsedNanos;
+
+    /**
+     * A constructor which uses the default search and time budget. The search runs on the common
+     * {@link java.util.concurrent.ForkJoinPool}, which suits interactive play, but not batch play, whose strategies
+     * should come from the {@link Provider} instead.
+     */
+    public MonteCarloStrategy() {
+        this(new MonteCarloTreeSearch(), DEFAULT_BUDGET_NANOS, Long.MAX_VALUE);
+    }
+
+    /**
+     * The full constructor. Every move is searched until either of the budgets runs out.
+     * @param search The search choosing the moves.
+     * @param budgetNanos The time budget of a single move, in nanoseconds, or {@link Long#MAX_VALUE} for none.
+     * @param rolloutBudget The rollout budget of a single move, or {@link Long#MAX_VALUE} for none.
+     * @throws IllegalArgumentException if neither of the budgets is limited.
+     */
+    public MonteCarloStrategy(
+        MonteCarloTreeSearch search, long budgetNanos, long rolloutBudget
+    ) throws IllegalArgumentException {
+        if (budgetNanos == Long.MAX_VALUE && rolloutBudget == Long.MAX_VALUE)
+            throw new IllegalArgumentException("At least one of the budgets must be limited");
+
+        this.search = search;
+        this.budgetNanos = budgetNanos;
+        this.rolloutBudget = rolloutBudget;
+    }
+
+    /**
+     * Discovers this strategy with {@link java.util.ServiceLoader}. The strategies it creates search on the calling
+     * thread only, as they are meant for batch play.
+     * <p>
+     * The {@value #ROLLOUTS_OPTION} option replaces the time budget with a rollout budget, which makes the moves
+     * depend on nothing but the board and the source of randomness, e.g. for reproducible tournaments.
+     * </p>
+     */
+    public static class Provider implements MoveStrategyProvider {
+        /**
+         * The option with the rollout budget of every move, if the moves are not limited by time.
+         */
+        public static final String ROLLOUTS_OPTION = "rollouts";
+
+        /**
+         * Reads the rollout budget of every move from the options.
+         * @param options The options of the strategy, by name.
+         * @return The rollout budget, or {@code null} if the moves are limited by time.
+         * @throws IllegalArgumentException if the rollout budget is not a positive number.
+         */
+        private static Long rolloutBudgetOf(Map<String, String> options) throws IllegalArgumentException {
+            String value = options.get(ROLLOUTS_OPTION);
+            if (value == null) return null;
+
+            long rolloutBudget = Long.parseLong(value);
+            if (rolloutBudget <= 0) throw new IllegalArgumentException("The rollout budget must be positive");
+            return rolloutBudget;
+        }
+
+        @Override
+        public String getName() {
+            return "mcts";
+        }
+
+        @Override
+        public String getDescription() {
+            return getDescription(Map.of());
+        }
+
+        @Override
+        public String getDescription(Map<String, String> options) throws IllegalArgumentException {
+            Long rolloutBudget = rolloutBudgetOf(options);
+            if (rolloutBudget != null)
+                return "Monte Carlo tree search with random rollouts, %d rollouts per move".formatted(rolloutBudget);
+
+            return "Monte Carlo tree search with random rollouts, %d ms per move".formatted(
+                DEFAULT_BUDGET_NANOS / 1_000_000
+            );
+        }
+
+        /**
+         * Creates a new strategy, limited by time.
+         * @return The new strategy.
+         */
+        @Override
+        public MoveStrategy create() {
+            return create(Map.of());
+        }
+
+        /**
+         * Creates a new strategy, limited either by time or, if the {@value #ROLLOUTS_OPTION} option is given,
+         * by the number of rollouts.
+         * @param options The options of the strategy, by name.
+         * @return The new strategy.
+         * @throws IllegalArgumentException if the rollout budget is invalid.
+         */
+        @Override
+        public MoveStrategy create(Map<String, String> options) throws IllegalArgumentException {
+            Long rolloutBudget = rolloutBudgetOf(options);
+
+            MonteCarloTreeSearch search = new MonteCarloTreeSearch(
+                GameRules.DEFAULT, RandomStrategy::new, Integer.MAX_VALUE,
+                MonteCarloTreeSearch.DEFAULT_EXPLORATION, MonteCarloTreeSearch.DEFAULT_MAX_NODES, null
+            );
+
+            if (rolloutBudget != null) return new MonteCarloStrategy(search, Long.MAX_VALUE, rolloutBudget);
+            return new MonteCarloStrategy(search, DEFAULT_BUDGET_NANOS, Long.MAX_VALUE);
+        }
+    }
+
+    @Override
+    public Directions chooseMove(long board, RandomGenerator random) {
+        MonteCarloTreeSearch.Result result = search.search(board, budgetNanos, rolloutBudget, random.nextLong());
+
+        rollouts += result.rollouts();
+        elapsedNanos += result.elapsedNanos();
+
+        return result.direction();
+    }
+
+    /**
+     * Gets the number of rollouts played by all the searches so far.
+     * @return The number of rollouts.
+     */
+    public long getRollouts() {
+        return rollouts;
+    }
+
+    /**
+     * Gets the wall-clock duration of all the searches so far.
+     * @return The duration, in nanoseconds.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Gets the throughput of all the searches so far.
+     * @return The number of rollouts played per second of searching.
+     */
+    public double getRolloutsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rollouts * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "MCTS: %d rollouts in %.3f s (%.0f rollouts/s)",
+            rollouts, elapsedNanos / 1e9, getRolloutsPerSecond());
+    }
+}
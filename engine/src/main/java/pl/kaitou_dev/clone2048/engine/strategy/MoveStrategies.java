@@ -0,0 +1,88 @@
+package pl.kaitou_dev.clone2048.engine.strategy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.function.Supplier;
+
+/**
+ * The registry of the {@link MoveStrategy}s available at runtime, discovered with {@link ServiceLoader}
+ * through their {@link MoveStrategyProvider}s, both the built-in ones and those of any other module
+ * on the class path.
+ */
+public final class MoveStrategies {
+    /**
+     * The discovered providers, in the order of discovery, or {@code null} until they are first needed.
+     */
+    private static List<MoveStrategyProvider> providers;
+
+    /**
+     * A private constructor, as this class only contains static methods.
+     */
+    private MoveStrategies() {}
+
+    /**
+     * Gets all the discovered providers. The class path is only searched the first time.
+     * @return An unmodifiable list of the providers, in the order of discovery.
+     */
+    public static synchronized List<MoveStrategyProvider> getProviders() {
+        if (providers == null) {
+            List<MoveStrategyProvider> discovered = new ArrayList<>();
+            ServiceLoader.load(MoveStrategyProvider.class).forEach(discovered::add);
+
+            providers = Collections.unmodifiableList(discovered);
+        }
+
+        return providers;
+    }
+
+    /**
+     * Finds the provider of a strategy by its name.
+     * @param name The name of the strategy.
+     * @return The provider of the strategy.
+     * @throws IllegalArgumentException if there is no strategy of this name.
+     */
+    public static MoveStrategyProvider getProvider(String name) throws IllegalArgumentException {
+        for (MoveStrategyProvider provider : getProviders()) {
+            if (provider.getName().equals(name)) return provider;
+        }
+
+        throw new IllegalArgumentException("Unknown strategy: " + name + ", available: " + getNames());
+    }
+
+    /**
+     * Gets a factory of a strategy, e.g. for a {@link pl.kaitou_dev.clone2048.engine.simulation.Simulator}.
+     * @param name The name of the strategy.
+     * @return The factory, which creates a new instance of the strategy on every call.
+     * @throws IllegalArgumentException if there is no strategy of this name.
+     */
+    public static Supplier<MoveStrategy> factory(String name) throws IllegalArgumentException {
+        return getProvider(name)::create;
+    }
+
+    /**
+     * Gets a factory of a strategy created with some options, see {@link MoveStrategyProvider#create(Map)}.
+     * @param name The name of the strategy.
+     * @param options The options of the strategy, by name, copied by this method.
+     * @return The factory, which creates a new instance of the strategy on every call.
+     * @throws IllegalArgumentException if there is no strategy of this name.
+     */
+    public static Supplier<MoveStrategy> factory(String name, Map<String, String> options)
+        throws IllegalArgumentException {
+        MoveStrategyProvider provider = getProvider(name);
+        Map<String, String> optionsCopy = Map.copyOf(options);
+        return () -> provider.create(optionsCopy);
+    }
+
+    /**
+     * Gets the names of all the discovered strategies.
+     * @return The names, in the order of discovery.
+     */
+    public static List<String> getNames() {
+        List<String> names = new ArrayList<>();
+        for (MoveStrategyProvider provider : getProviders()) names.add(provider.getName());
+        return names;
+    }
+}
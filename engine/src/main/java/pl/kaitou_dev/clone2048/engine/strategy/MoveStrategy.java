@@ -0,0 +1,79 @@
+package pl.kaitou_dev.clone2048.engine.strategy;
+
+import pl.kaitou_dev.clone2048.engine.BitBoard;
+import pl.kaitou_dev.clone2048.engine.BoardSnapshot;
+import pl.kaitou_dev.clone2048.engine.Directions;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Describes a way of choosing moves, whether by a human or not. Every source of moves of the game goes through
+ * this interface: the keyboard, the autoplayer of the menu, and the simulations. Implementations are not required
+ * to be thread-safe, so every thread should use its own instance.
+ * <p>
+ * Strategies only ever see immutable snapshots of the boards: 4x4 boards packed into a {@code long},
+ * or a {@link BoardSnapshot} for boards of any size. Strategies which are expensive to set up per move,
+ * or which can evaluate many boards at once, should override {@link #chooseMoves}, which the simulations call
+ * with thousands of boards at a time.
+ * </p>
+ * <p>
+ * Strategies are discovered with {@link java.util.ServiceLoader} through their {@link MoveStrategyProvider}s,
+ * see {@link MoveStrategies}.
+ * </p>
+ */
+@FunctionalInterface
+public interface MoveStrategy {
+    /**
+     * Chooses the next move for the provided 4x4 board.
+     * @param board The board, packed as described by {@link BitBoard}. At least one move has to be legal on it.
+     * @param random The source of randomness, for strategies which need it.
+     * @return The direction of the chosen move. Interactive strategies may return {@code null} if there is no
+     *         move to make yet, e.g. if no key has been pressed, while all the others must choose a legal move.
+     */
+    Directions chooseMove(long board, RandomGenerator random);
+
+    /**
+     * Chooses the next move for the provided board of any size. Unless overridden, only 4x4 boards are supported.
+     * @param board The snapshot of the board. At least one move has to be legal on it.
+     * @param random The source of randomness, for strategies which need it.
+     * @return The direction of the chosen move, as described by {@link #chooseMove(long, RandomGenerator)}.
+     * @throws UnsupportedOperationException if boards of this size are not supported.
+     * @see #supportsSide(int)
+     */
+    default Directions chooseMove(BoardSnapshot board, RandomGenerator random) throws UnsupportedOperationException {
+        return chooseMove(board.getPacked(), random);
+    }
+
+    /**
+     * Checks if this strategy can choose moves for boards of the provided size.
+     * Unless overridden, only 4x4 boards are supported.
+     * @param side The length of one side of the board, in slots.
+     * @return {@code true} if boards of this size are supported, {@code false} otherwise.
+     */
+    default boolean supportsSide(int side) {
+        return side == BitBoard.SIDE;
+    }
+
+    /**
+     * Checks if the moves of this strategy depend on the board. Strategies which do not, e.g. of the keyboard,
+     * may be shown a snapshot taken before the latest moves, which spares a new snapshot of a big board after every
+     * move. Unless overridden, the board is read.
+     * @return {@code true} if the board is read, {@code false} otherwise.
+     */
+    default boolean readsBoard() {
+        return true;
+    }
+
+    /**
+     * Chooses the next moves for a batch of 4x4 boards, e.g. of many games played in lockstep.
+     * Every board gets its own source of randomness, so that the moves do not depend on the batching.
+     * Unless overridden, the boards are handed over to {@link #chooseMove(long, RandomGenerator)} one by one.
+     * @param boards The boards, packed as described by {@link BitBoard}. At least one move has to be legal on each.
+     * @param randoms The sources of randomness of the boards, at the same indices.
+     * @param moves An array to receive the directions of the chosen moves, at the same indices.
+     * @param count The number of boards, counting from the index {@code 0}.
+     */
+    default void chooseMoves(long[] boards, RandomGenerator[] randoms, Directions[] moves, int count) {
+        for (int i = 0; i < count; ++i) moves[i] = chooseMove(boards[i], randoms[i]);
+    }
+}
@@ -0,0 +1,59 @@
+package pl.kaitou_dev.clone2048.engine.strategy;
+
+import java.util.Map;
+
+/**
+ * Provides instances of a {@link MoveStrategy} to {@link MoveStrategies}, which discovers the providers with
+ * {@link java.util.ServiceLoader}. Implementations must be public, have a public no-argument constructor,
+ * and be listed in {@code META-INF/services/pl.kaitou_dev.clone2048.engine.strategy.MoveStrategyProvider}.
+ * <p>
+ * Providers are shared by all the threads, so they have to be thread-safe, even though the strategies they
+ * create need not be.
+ * </p>
+ */
+public interface MoveStrategyProvider {
+    /**
+     * Gets the unique name the strategy is chosen by, e.g. on the command line.
+     * @return The name of the strategy.
+     */
+    String getName();
+
+    /**
+     * Gets a short human-readable description of the strategy.
+     * @return The description of the strategy.
+     */
+    String getDescription();
+
+    /**
+     * Gets a short human-readable description of the strategy created with some options, which tells apart
+     * the strategies whose options make them play differently, e.g. in the checkpoints of a tournament.
+     * Unless overridden, the options are ignored.
+     * @param options The options of the strategy, by name. Those the strategy does not know are ignored.
+     * @return The description of the strategy.
+     * @throws IllegalArgumentException if an option of the strategy has an invalid value.
+     * @see #create(Map)
+     */
+    default String getDescription(Map<String, String> options) throws IllegalArgumentException {
+        return getDescription();
+    }
+
+    /**
+     * Creates a new instance of the strategy, to be used by a single thread. The instances are meant for batch play,
+     * e.g. by the shards of a {@link pl.kaitou_dev.clone2048.engine.simulation.Simulator}, which already keep every
+     * thread busy, so they should search on the calling thread only, instead of forking onto a shared pool, where
+     * the nested joins of many shards would stall each other.
+     * @return The new strategy.
+     */
+    MoveStrategy create();
+
+    /**
+     * Creates a new instance of the strategy with some options, e.g. given on the command line, to be used
+     * the same way as those of {@link #create()}. Unless overridden, the options are ignored.
+     * @param options The options of the strategy, by name. Those the strategy does not know are ignored.
+     * @return The new strategy.
+     * @throws IllegalArgumentException if an option of the strategy has an invalid value.
+     */
+    default MoveStrategy create(Map<String, String> options) throws IllegalArgumentException {
+        return create();
+    }
+}
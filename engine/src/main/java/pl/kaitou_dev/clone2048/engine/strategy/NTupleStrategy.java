@@ -0,0 +1,140 @@
+package pl.kaitou_dev.clone2048.engine.strategy;
+
+import pl.kaitou_dev.clone2048.engine.BitBoard;
+import pl.kaitou_dev.clone2048.engine.Directions;
+import pl.kaitou_dev.clone2048.engine.ntuple.NTupleNetwork;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.random.RandomGenerator;
+
+/**
+ * A {@link MoveStrategy} which chooses moves greedily with a trained {@link NTupleNetwork}: it makes the move
+ * maximizing its score plus the value of the board it leads to, just like the network has been trained to.
+ * It only reads the network, so a single instance can be shared between threads.
+ */
+public class NTupleStrategy implements MoveStrategy {
+    /**
+     * All the directions, cached to avoid copying {@link Directions#values()} on every move.
+     */
+    private static final Directions[] DIRECTIONS = Directions.values();
+
+    /**
+     * The network evaluating the boards.
+     */
+    private final NTupleNetwork network;
+
+    /**
+     * The default constructor.
+     * @param network The network evaluating the boards.
+     */
+    public NTupleStrategy(NTupleNetwork network) {
+        this.network = network;
+    }
+
+    /**
+     * Discovers this strategy with {@link java.util.ServiceLoader}. The network is read once, on the first use,
+     * from the file given by the {@value #NETWORK_PROPERTY} system property, or {@value #DEFAULT_NETWORK_FILE}.
+     */
+    public static class Provider implements MoveStrategyProvider {
+        /**
+         * The system property with the path of the checkpoint of the network.
+         */
+        public static final String NETWORK_PROPERTY = "clone2048.ntuple";
+
+        /**
+         * The path of the checkpoint of the network, unless the system property specifies otherwise.
+         */
+        public static final String DEFAULT_NETWORK_FILE = "ntuple.weights";
+
+        /**
+         * The network shared by all the strategies created, or {@code null} until it is first needed.
+         */
+        private NTupleNetwork network;
+
+        @Override
+        public String getName() {
+            return "ntuple";
+        }
+
+        @Override
+        public String getDescription() {
+            return "Greedy play with a trained n-tuple network";
+        }
+
+        /**
+         * Creates a new strategy, reading the network first if it has not been read yet.
+         * @return The new strategy.
+         * @throws UncheckedIOException if the network cannot be read.
+         */
+        @Override
+        public synchronized MoveStrategy create() throws UncheckedIOException {
+            if (network == null) {
+                Path path = Path.of(System.getProperty(NETWORK_PROPERTY, DEFAULT_NETWORK_FILE));
+
+                try {
+                    network = NTupleNetwork.load(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot read the n-tuple network from " + path, e);
+                }
+            }
+
+            return new NTupleStrategy(network);
+        }
+    }
+
+    @Override
+    public Directions chooseMove(long board, RandomGenerator random) {
+        Directions best = null;
+        double bestValue = Double.NEGATIVE_INFINITY;
+
+        for (Directions direction : DIRECTIONS) {
+            long afterstate = BitBoard.move(board, direction);
+            if (afterstate == board) continue;
+
+            double value = BitBoard.score(board, direction) + network.evaluate(afterstate);
+            if (value > bestValue) {
+                best = direction;
+                bestValue = value;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Chooses the moves of a batch of boards, evaluating the afterstates of all of them at once
+     * with {@link NTupleNetwork#evaluate(long[], double[], int)}.
+     */
+    @Override
+    public void chooseMoves(long[] boards, RandomGenerator[] randoms, Directions[] moves, int count) {
+        long[] afterstates = new long[DIRECTIONS.length * count];
+        double[] values = new double[afterstates.length];
+
+        for (int i = 0; i < count; ++i) {
+            for (Directions direction : DIRECTIONS)
+                afterstates[DIRECTIONS.length * i + direction.ordinal()] = BitBoard.move(boards[i], direction);
+        }
+
+        network.evaluate(afterstates, values, afterstates.length);
+
+        for (int i = 0; i < count; ++i) {
+            Directions best = null;
+            double bestValue = Double.NEGATIVE_INFINITY;
+
+            for (Directions direction : DIRECTIONS) {
+                int index = DIRECTIONS.length * i + direction.ordinal();
+                if (afterstates[index] == boards[i]) continue;
+
+                double value = BitBoard.score(boards[i], direction) + values[index];
+                if (value > bestValue) {
+                    best = direction;
+                    bestValue = value;
+                }
+            }
+
+            moves[i] = best;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package pl.kaitou_dev.clone2048.engine.strategy;
+
+import pl.kaitou_dev.clone2048.engine.BitBoard;
+import pl.kaitou_dev.clone2048.engine.BoardSnapshot;
+import pl.kaitou_dev.clone2048.engine.Directions;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * A {@link MoveStrategy} which chooses one of the legal moves at random, each with the same probability.
+ * It supports boards of any size.
+ */
+public class RandomStrategy implements MoveStrategy {
+    /**
+     * All the directions, cached to avoid copying {@link Directions#values()} on every move.
+     */
+    private static final Directions[] DIRECTIONS = Directions.values();
+
+    /**
+     * Discovers this strategy with {@link java.util.ServiceLoader}.
+     */
+    public static class Provider implements MoveStrategyProvider {
+        @Override
+        public String getName() {
+            return "random";
+        }
+
+        @Override
+        public String getDescription() {
+            return "Chooses one of the legal moves at random";
+        }
+
+        @Override
+        public MoveStrategy create() {
+            return new RandomStrategy();
+        }
+    }
+
+    /**
+     * Chooses one of the legal moves at random.
+     * @param legalMoves The bitmask of the legal moves, which must not be empty.
+     * @param random The source of randomness.
+     * @return The direction of the chosen move.
+     */
+    private static Directions choose(int legalMoves, RandomGenerator random) {
+        int n = random.nextInt(Integer.bitCount(legalMoves));
+        for (int i = 0; i < n; ++i) legalMoves &= legalMoves - 1;
+
+        return DIRECTIONS[Integer.numberOfTrailingZeros(legalMoves)];
+    }
+
+    @Override
+    public Directions chooseMove(long board, RandomGenerator random) {
+        return choose(BitBoard.legalMoves(board), random);
+    }
+
+    @Override
+    public Directions chooseMove(BoardSnapshot board, RandomGenerator random) {
+        return choose(board.getLegalMoves(), random);
+    }
+
+    @Override
+    public boolean supportsSide(int side) {
+        return true;
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Contains the strategies which choose moves without any human input, e.g. for autoplay and simulations.
+ */
+package pl.kaitou_dev.clone2048.engine.strategy;
@@ -0,0 +1,304 @@
+package pl.kaitou_dev.clone2048.engine;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Fuzzes every {@link Board} backend against a plain, line-by-line model of the rules, so that they all stay
+ * bit-identical: {@link BitBoard} and {@link PackedBoard} on 4x4 boards, and {@link ByteBoard} on every side
+ * between {@link Board#MIN_SIDE} and {@link #MAX_SIDE}, through its scalar, fork-join and vector kernels.
+ * <p>
+ * The packed boards cap the exponents at {@link BitBoard#MAX_EXPONENT}, and the byte boards at
+ * {@link ByteBoard#MAX_EXPONENT}, so every backend is compared with the model at its own cap, and 4x4 byte boards
+ * are compared with the packed ones only below the lower of the two.
+ * </p>
+ */
+class BoardEquivalenceTest {
+    /**
+     * The longest side of the fuzzed byte boards.
+     */
+    private static final int MAX_SIDE = 256;
+
+    /**
+     * The number of random 4x4 boards.
+     */
+    private static final int PACKED_BOARDS = 20_000;
+
+    /**
+     * The number of random byte boards of every side.
+     */
+    private static final int BOARDS_PER_SIDE = 3;
+
+    /**
+     * All the directions.
+     */
+    private static final Directions[] DIRECTIONS = Directions.values();
+
+    /**
+     * A pool with more than one thread, so that the moves of big boards are really split,
+     * even on machines with a single core.
+     */
+    private static ForkJoinPool pool;
+
+    /**
+     * Creates the {@link #pool}.
+     */
+    @BeforeAll
+    static void createPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    /**
+     * Shuts the {@link #pool} down.
+     */
+    @AfterAll
+    static void shutDownPool() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Fills an array with random exponents, sometimes only small ones, so that there are plenty of merges,
+     * and sometimes up to the cap, so that the cap is hit as well.
+     * @param random The source of randomness.
+     * @param cells The array to fill.
+     * @param cap The highest exponent.
+     */
+    private static void randomize(SplittableRandom random, int[] cells, int cap) {
+        double density = random.nextDouble();
+        int maxExponent = switch (random.nextInt(3)) {
+            case 0 -> 3;
+            case 1 -> Math.min(8, cap);
+            default -> cap;
+        };
+
+        for (int i = 0; i < cells.length; ++i)
+            cells[i] = random.nextDouble() < density ? 1 + random.nextInt(maxExponent) : 0;
+    }
+
+    /**
+     * Moves a board of the model: every line is walked away from the wall, and every box either merges with the last
+     * box placed, if they are equal, below the cap, and not merged yet, or is placed right after it.
+     * @param cells The exponents of the board, row after row, which get replaced with the result.
+     * @param side The length of one side of the board.
+     * @param direction The direction of the move.
+     * @param cap The highest exponent; boxes of this exponent are not merged any further.
+     * @param destinations An array to receive the destination of every slot, or {@code -1} for empty slots.
+     * @return The score gained by the move, without any clamping, or {@code -1} if nothing has changed.
+     */
+    private static long referenceMove(int[] cells, int side, Directions direction, int cap, int[] destinations) {
+        long score = 0;
+        boolean moved = false;
+        int[] result = new int[cells.length];
+
+        for (int line = 0; line < side; ++line) {
+            int placed = 0;
+            boolean lastMergeable = false;
+
+            for (int k = 0; k < side; ++k) {
+                int src = slot(side, direction, line, k);
+                int exponent = cells[src];
+
+                if (exponent == 0) {
+                    destinations[src] = -1;
+                    continue;
+                }
+
+                int dest;
+                int previous = placed == 0 ? -1 : slot(side, direction, line, placed - 1);
+
+                if (lastMergeable && result[previous] == exponent && exponent < cap) {
+                    result[previous] = exponent + 1;
+                    score += 1L << (exponent + 1);
+                    dest = previous;
+                    lastMergeable = false;
+                } else {
+                    dest = slot(side, direction, line, placed++);
+                    result[dest] = exponent;
+                    lastMergeable = true;
+                }
+
+                destinations[src] = dest;
+                moved |= dest != src;
+            }
+        }
+
+        if (!moved) return -1;
+
+        System.arraycopy(result, 0, cells, 0, cells.length);
+        return score;
+    }
+
+    /**
+     * Finds a slot of a line, counting from the wall the line is slid towards.
+     * @param side The length of one side of the board.
+     * @param direction The direction of the move.
+     * @param line The index of the row or column.
+     * @param k The distance from the wall.
+     * @return The index of the slot.
+     */
+    private static int slot(int side, Directions direction, int line, int k) {
+        return switch (direction) {
+            case LEFT -> line * side + k;
+            case RIGHT -> line * side + side - 1 - k;
+            case UP -> k * side + line;
+            case DOWN -> (side - 1 - k) * side + line;
+        };
+    }
+
+    /**
+     * Packs the exponents of a 4x4 board.
+     * @param cells The exponents, at most {@link BitBoard#MAX_EXPONENT} each.
+     * @return The packed board.
+     */
+    private static long pack(int[] cells) {
+        long board = BitBoard.EMPTY;
+        for (int i = 0; i < cells.length; ++i) board = BitBoard.withExponent(board, i, cells[i]);
+        return board;
+    }
+
+    /**
+     * Copies the exponents of a board into an array.
+     * @param board The board.
+     * @return The exponents, row after row.
+     */
+    private static int[] exponents(Board board) {
+        int[] cells = new int[board.getSlots()];
+        for (int i = 0; i < cells.length; ++i) cells[i] = board.getExponent(i);
+        return cells;
+    }
+
+    /**
+     * Creates a byte board with the provided exponents.
+     * @param cells The exponents, row after row.
+     * @param side The length of one side of the board.
+     * @return The board, whose big moves are split across the {@link #pool}.
+     */
+    private static ByteBoard byteBoard(int[] cells, int side) {
+        ByteBoard board = new ByteBoard(side, pool);
+        for (int i = 0; i < cells.length; ++i) board.setExponent(i, cells[i]);
+        return board;
+    }
+
+    /**
+     * Checks {@link BitBoard} and {@link PackedBoard} against the model with the packed cap.
+     */
+    @Test
+    void packedBoardsMatchTheModel() {
+        SplittableRandom random = new SplittableRandom(1);
+        int[] cells = new int[BitBoard.SLOTS];
+        int[] expectedDestinations = new int[BitBoard.SLOTS];
+        int[] destinations = new int[BitBoard.SLOTS];
+
+        for (int n = 0; n < PACKED_BOARDS; ++n) {
+            randomize(random, cells, BitBoard.MAX_EXPONENT);
+            long board = pack(cells);
+            int expectedLegalMoves = 0;
+
+            for (Directions direction : DIRECTIONS) {
+                int[] expected = cells.clone();
+                long expectedScore = referenceMove(expected, BitBoard.SIDE, direction, BitBoard.MAX_EXPONENT,
+                    expectedDestinations);
+                boolean legal = expectedScore >= 0;
+                if (legal) expectedLegalMoves |= 1 << direction.ordinal();
+
+                String context = "board " + Long.toHexString(board) + ", " + direction;
+
+                assertEquals(pack(legal ? expected : cells), BitBoard.move(board, direction), context);
+                assertEquals(legal, BitBoard.canMove(board, direction), context);
+                assertEquals(Math.max(0, expectedScore), BitBoard.score(board, direction), context);
+
+                BitBoard.trace(board, direction, destinations);
+                assertArrayEquals(expectedDestinations, destinations, context);
+
+                PackedBoard packed = new PackedBoard(board);
+                assertEquals(expectedScore, packed.move(direction, destinations), context);
+                assertEquals(pack(legal ? expected : cells), packed.getPacked(), context);
+                if (legal) assertArrayEquals(expectedDestinations, destinations, context);
+            }
+
+            assertEquals(expectedLegalMoves, BitBoard.legalMoves(board));
+            assertEquals(expectedLegalMoves, new PackedBoard(board).legalMoves());
+        }
+    }
+
+    /**
+     * Checks 4x4 byte boards against the packed ones, on boards below the packed cap, where the caps make no
+     * difference.
+     */
+    @Test
+    void smallByteBoardsMatchPackedBoards() {
+        SplittableRandom random = new SplittableRandom(2);
+        int[] cells = new int[BitBoard.SLOTS];
+        int[] packedDestinations = new int[BitBoard.SLOTS];
+        int[] byteDestinations = new int[BitBoard.SLOTS];
+
+        for (int n = 0; n < PACKED_BOARDS; ++n) {
+            randomize(random, cells, BitBoard.MAX_EXPONENT - 1);
+
+            for (Directions direction : DIRECTIONS) {
+                PackedBoard packed = new PackedBoard(pack(cells));
+                ByteBoard bytes = byteBoard(cells, BitBoard.SIDE);
+                String context = "board " + Long.toHexString(packed.getPacked()) + ", " + direction;
+
+                assertEquals(packed.canMove(direction), bytes.canMove(direction), context);
+                int score = packed.move(direction, packedDestinations);
+                assertEquals(score, bytes.move(direction, byteDestinations), context);
+                assertArrayEquals(exponents(packed), exponents(bytes), context);
+                if (score >= 0) assertArrayEquals(packedDestinations, byteDestinations, context);
+            }
+        }
+    }
+
+    /**
+     * Checks byte boards of every side against the model with the byte cap: the scalar kernel, which is split
+     * across the pool on big boards, through moves which need the destinations, and the vector kernel, used on big
+     * boards whenever it is present, through moves which do not.
+     */
+    @Test
+    void byteBoardsMatchTheModelOnEverySide() {
+        SplittableRandom random = new SplittableRandom(3);
+
+        for (int side = Board.MIN_SIDE; side <= MAX_SIDE; ++side) {
+            int[] cells = new int[side * side];
+            int[] expectedDestinations = new int[cells.length];
+            int[] destinations = new int[cells.length];
+
+            for (int n = 0; n < BOARDS_PER_SIDE; ++n) {
+                randomize(random, cells, ByteBoard.MAX_EXPONENT);
+                ByteBoard original = byteBoard(cells, side);
+                int expectedLegalMoves = 0;
+
+                for (Directions direction : DIRECTIONS) {
+                    int[] expected = cells.clone();
+                    long expectedScore = Math.min(Integer.MAX_VALUE, referenceMove(expected, side, direction,
+                        ByteBoard.MAX_EXPONENT, expectedDestinations));
+                    boolean legal = expectedScore >= 0;
+                    if (legal) expectedLegalMoves |= 1 << direction.ordinal();
+
+                    String context = side + "x" + side + " board " + n + ", " + direction;
+                    int[] after = legal ? expected : cells;
+
+                    assertEquals(legal, original.canMove(direction), context);
+
+                    ByteBoard traced = original.copy();
+                    assertEquals(expectedScore, traced.move(direction, destinations), context);
+                    assertArrayEquals(after, exponents(traced), context);
+                    if (legal) assertArrayEquals(expectedDestinations, destinations, context);
+
+                    ByteBoard untraced = original.copy();
+                    assertEquals(expectedScore, untraced.move(direction, null), context);
+                    assertArrayEquals(after, exponents(untraced), context);
+                }
+
+                assertEquals(expectedLegalMoves, original.legalMoves(), side + "x" + side + " board " + n);
+            }
+        }
+    }
+}
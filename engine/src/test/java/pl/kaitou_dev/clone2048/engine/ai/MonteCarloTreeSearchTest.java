@@ -0,0 +1,155 @@
+package pl.kaitou_dev.clone2048.engine.ai;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import pl.kaitou_dev.clone2048.engine.BitBoard;
+import pl.kaitou_dev.clone2048.engine.Directions;
+import pl.kaitou_dev.clone2048.engine.GameRules;
+import pl.kaitou_dev.clone2048.engine.strategy.RandomStrategy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the {@link MonteCarloTreeSearch}, both on the calling thread and on a pool: that a search on the calling
+ * thread with a rollout budget is reproducible, that the chosen moves are legal, that the results count the rollouts
+ * of the budget, and that the backups leave the visits of the tree consistent, without any virtual loss behind.
+ */
+class MonteCarloTreeSearchTest {
+    /**
+     * The rollout budget of every search.
+     */
+    private static final long ROLLOUT_BUDGET = 200;
+
+    /**
+     * The number of moves between two boards taken from a random game.
+     */
+    private static final int BOARD_SPACING = 25;
+
+    /**
+     * A pool with more than one thread, so that the workers really descend the same tree at once,
+     * even on machines with a single core.
+     */
+    private static ForkJoinPool pool;
+
+    /**
+     * Creates the {@link #pool}.
+     */
+    @BeforeAll
+    static void createPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    /**
+     * Shuts the {@link #pool} down.
+     */
+    @AfterAll
+    static void shutDownPool() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Creates a search, which plays the rollouts at random until the end of the game.
+     * @param pool The pool the iterations run on, or {@code null} to search on the calling thread only.
+     * @return The search.
+     */
+    private static MonteCarloTreeSearch search(ForkJoinPool pool) {
+        return new MonteCarloTreeSearch(
+            GameRules.DEFAULT, RandomStrategy::new, Integer.MAX_VALUE,
+            MonteCarloTreeSearch.DEFAULT_EXPLORATION, MonteCarloTreeSearch.DEFAULT_MAX_NODES, pool
+        );
+    }
+
+    /**
+     * Takes boards from a random game, from its start to its end, all of them with more than one legal move.
+     * @return The boards.
+     */
+    private static List<Long> boards() {
+        SplittableRandom random = new SplittableRandom(3);
+        RandomStrategy strategy = new RandomStrategy();
+        List<Long> boards = new ArrayList<>();
+
+        long board = BitBoard.spawn(BitBoard.EMPTY, GameRules.DEFAULT.fourProbability(), random);
+        for (int moves = 0; BitBoard.legalMoves(board) != 0; ++moves) {
+            if (moves % BOARD_SPACING == 0 && Integer.bitCount(BitBoard.legalMoves(board)) > 1) boards.add(board);
+
+            long afterstate = BitBoard.move(board, strategy.chooseMove(board, random));
+            board = BitBoard.spawn(afterstate, GameRules.DEFAULT.fourProbability(), random);
+        }
+
+        return boards;
+    }
+
+    /**
+     * Checks that two searches on the calling thread with the same rollout budget and seed
+     * lead to the same results, whatever the instance of the search.
+     */
+    @Test
+    void searchOnCallingThreadIsReproducible() {
+        MonteCarloTreeSearch first = search(null);
+        MonteCarloTreeSearch second = search(null);
+
+        for (long board : boards()) {
+            MonteCarloTreeSearch.Result expected = first.search(board, Long.MAX_VALUE, ROLLOUT_BUDGET, board);
+            MonteCarloTreeSearch.Result actual = second.search(board, Long.MAX_VALUE, ROLLOUT_BUDGET, board);
+
+            assertEquals(expected.direction(), actual.direction());
+            assertEquals(expected.rollouts(), actual.rollouts());
+            assertEquals(expected.nodes(), actual.nodes());
+        }
+    }
+
+    /**
+     * Checks that the chosen moves are legal, both on the calling thread and on the pool,
+     * and that there is no move when none is legal.
+     */
+    @Test
+    void chosenDirectionIsLegal() {
+        for (MonteCarloTreeSearch search : new MonteCarloTreeSearch[] {search(null), search(pool)}) {
+            for (long board : boards()) {
+                Directions direction = search.search(board, Long.MAX_VALUE, ROLLOUT_BUDGET, board).direction();
+                assertTrue(BitBoard.canMove(board, direction), () -> direction + " is not legal");
+            }
+
+            long stuck = 0x1212_2121_1212_2121L;
+            assertEquals(0, BitBoard.legalMoves(stuck));
+            assertNull(search.search(stuck, Long.MAX_VALUE, ROLLOUT_BUDGET, 0).direction());
+        }
+    }
+
+    /**
+     * Checks that the results count exactly the rollouts of the budget, even when the workers of the pool claim more
+     * than that, and that the throughput is worked out of them.
+     */
+    @Test
+    void resultCountsRolloutBudget() {
+        for (MonteCarloTreeSearch search : new MonteCarloTreeSearch[] {search(null), search(pool)}) {
+            for (long board : boards()) {
+                MonteCarloTreeSearch.Result result = search.search(board, Long.MAX_VALUE, ROLLOUT_BUDGET, board);
+
+                assertEquals(ROLLOUT_BUDGET, result.rollouts());
+                assertNotEquals(0, result.elapsedNanos());
+                assertEquals(ROLLOUT_BUDGET * 1e9 / result.elapsedNanos(), result.rolloutsPerSecond(), 1e-6);
+            }
+        }
+    }
+
+    /**
+     * Checks that the visits of the tree add up after all the backups, both on the calling thread
+     * and on the pool, whose workers add and remove virtual losses at the same time.
+     */
+    @Test
+    void visitsAreConsistentAfterBackups() {
+        for (MonteCarloTreeSearch search : new MonteCarloTreeSearch[] {search(null), search(pool)}) {
+            for (long board : boards()) assertEquals(0, search.countInconsistentVisits(board, ROLLOUT_BUDGET, board));
+        }
+    }
+}
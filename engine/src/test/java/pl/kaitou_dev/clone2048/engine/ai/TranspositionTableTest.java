@@ -0,0 +1,144 @@
+package pl.kaitou_dev.clone2048.engine.ai;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the {@link TranspositionTable}: that it answers with the deepest value stored, and that threads storing and
+ * probing the same few buckets at once never read a value torn apart, i.e. one stored for another board or depth.
+ */
+class TranspositionTableTest {
+    /**
+     * The number of threads hammering the table at once.
+     */
+    private static final int THREADS = 4;
+
+    /**
+     * The number of stores and probes of every thread.
+     */
+    private static final int OPERATIONS = 500_000;
+
+    /**
+     * The number of distinct boards, many more than the table holds, so that the entries are evicted all the time.
+     */
+    private static final int BOARDS = 64;
+
+    /**
+     * The size of the table, in bytes: a couple of buckets, so that every store contends with the other threads.
+     */
+    private static final long TABLE_BYTES = 2L * TranspositionTable.BUCKET_SIZE * TranspositionTable.ENTRY_BYTES;
+
+    /**
+     * The value stored for a board at a depth, which tells both of them apart, and is exact as a {@code float}.
+     * @param boardIndex The index of the board.
+     * @param depth The depth of the search.
+     * @return The value.
+     */
+    private static double valueOf(int boardIndex, int depth) {
+        return boardIndex * 16 + depth;
+    }
+
+    /**
+     * Creates the boards stored in the table, which differ from each other in a few bits only,
+     * like the boards of a search.
+     * @return The boards.
+     */
+    private static long[] boards() {
+        long[] boards = new long[BOARDS];
+        for (int i = 0; i < BOARDS; ++i) boards[i] = 0x1234_5678_9ABC_DEF0L ^ i;
+        return boards;
+    }
+
+    /**
+     * Checks that a probe finds the deepest value stored, and only for searches at most that deep.
+     */
+    @Test
+    void probeFindsDeepestValue() {
+        TranspositionTable table = new TranspositionTable(TABLE_BYTES);
+        long board = boards()[0];
+
+        table.store(board, 3, valueOf(0, 3));
+        table.store(board, 2, valueOf(0, 2));
+
+        assertEquals(valueOf(0, 3), table.probe(board, 1));
+        assertEquals(valueOf(0, 3), table.probe(board, 3));
+        assertTrue(Double.isNaN(table.probe(board, 4)));
+        assertTrue(Double.isNaN(table.probe(boards()[1], 1)));
+
+        table.newSearch();
+        table.store(board, 5, valueOf(0, 5));
+        assertEquals(valueOf(0, 5), table.probe(board, 4));
+    }
+
+    /**
+     * Lets several threads store and probe the same few buckets at once, with new searches started in the meantime,
+     * and checks that every value found was stored for the probed board, at a depth at least as deep as requested.
+     * @throws InterruptedException if the test is interrupted.
+     * @throws ExecutionException if a thread fails.
+     */
+    @Test
+    void concurrentStoresAndProbesAreNeverTorn() throws InterruptedException, ExecutionException {
+        TranspositionTable table = new TranspositionTable(TABLE_BYTES);
+        long[] boards = boards();
+
+        List<Callable<long[]>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; ++t) {
+            long seed = t;
+            boolean startsSearches = t == 0;
+
+            workers.add(() -> {
+                SplittableRandom random = new SplittableRandom(seed);
+                long hits = 0;
+                long torn = 0;
+
+                for (int n = 0; n < OPERATIONS; ++n) {
+                    int index = random.nextInt(BOARDS);
+                    int depth = 1 + random.nextInt(8);
+
+                    if (random.nextBoolean()) {
+                        table.store(boards[index], depth, valueOf(index, depth));
+                    } else {
+                        double value = table.probe(boards[index], depth);
+                        if (Double.isNaN(value)) continue;
+
+                        ++hits;
+                        int storedIndex = (int) value / 16;
+                        int storedDepth = (int) value % 16;
+                        if (value != Math.rint(value) || storedIndex != index || storedDepth < depth) ++torn;
+                    }
+
+                    if (startsSearches && n % 1000 == 0) table.newSearch();
+                }
+
+                return new long[] {hits, torn};
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        long hits = 0;
+        long torn = 0;
+
+        try {
+            for (Future<long[]> result : executor.invokeAll(workers)) {
+                hits += result.get()[0];
+                torn += result.get()[1];
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(hits > 0, "No probe has found anything, so nothing has been checked");
+        assertEquals(0, torn, "Torn values found among " + hits + " hits");
+    }
+}
@@ -0,0 +1,237 @@
+package pl.kaitou_dev.clone2048.engine.ntuple;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.kaitou_dev.clone2048.engine.BitBoard;
+import pl.kaitou_dev.clone2048.engine.GameRules;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks the {@link NTupleNetwork} of a short {@link TDTrainer} run: that its checkpoints load back the same network
+ * and reject damaged files, that the batch evaluation agrees with the single one, that all the symmetries of a board
+ * are worth the same, and that an update moves the value of a board by the requested amount.
+ */
+class NTupleNetworkTest {
+    /**
+     * The number of training games, enough to set a good share of the weights of the 4-tuples.
+     */
+    private static final long TRAINING_GAMES = 200;
+
+    /**
+     * The number of random boards every check is made on.
+     */
+    private static final int BOARDS = 256;
+
+    /**
+     * The highest exponent of the boxes of the random boards, which the training games commonly reach.
+     */
+    private static final int MAX_BOARD_EXPONENT = 10;
+
+    /**
+     * The precision the values are compared with, as they are sums of {@code float}s taken in different orders.
+     */
+    private static final double TOLERANCE = 1e-6;
+
+    /**
+     * The precision of the value of a board after an update of the trained network, whose weights are large enough
+     * for the rounding of every one of them to show.
+     */
+    private static final double TRAINED_UPDATE_TOLERANCE = 1e-3;
+
+    /**
+     * A network trained by a few games, so that its weights are not all zero. It is never updated by the checks.
+     */
+    private static NTupleNetwork trained;
+
+    /**
+     * Trains a network of the 4-tuples by a few games, on a single thread.
+     * @return The trained network.
+     * @throws InterruptedException if the training is interrupted.
+     */
+    private static NTupleNetwork trainedNetwork() throws InterruptedException {
+        NTupleNetwork network = NTupleNetwork.fourTuples();
+        new TDTrainer(network, GameRules.DEFAULT, TDTrainer.DEFAULT_LEARNING_RATE, TDTrainer.DEFAULT_LAMBDA, 1)
+            .train(TRAINING_GAMES, 42);
+        return network;
+    }
+
+    /**
+     * Trains the {@link #trained} network.
+     * @throws InterruptedException if the training is interrupted.
+     */
+    @BeforeAll
+    static void train() throws InterruptedException {
+        trained = trainedNetwork();
+    }
+
+    /**
+     * Creates random boards, whose boxes have random exponents, or are empty.
+     * @return The boards.
+     */
+    private static long[] randomBoards() {
+        SplittableRandom random = new SplittableRandom(7);
+        long[] boards = new long[BOARDS];
+
+        for (int i = 0; i < BOARDS; ++i) {
+            long board = BitBoard.EMPTY;
+            for (int slot = 0; slot < BitBoard.SLOTS; ++slot)
+                board = BitBoard.withExponent(board, slot, random.nextInt(MAX_BOARD_EXPONENT + 1));
+            boards[i] = board;
+        }
+
+        return boards;
+    }
+
+    /**
+     * Creates a board of 16 different exponents, none of whose symmetries share a weight of any tuple.
+     * @return The board.
+     */
+    private static long distinctBoard() {
+        long board = BitBoard.EMPTY;
+        for (int slot = 0; slot < BitBoard.SLOTS; ++slot) board = BitBoard.withExponent(board, slot, slot);
+        return board;
+    }
+
+    /**
+     * Checks that the trained network evaluates some boards to something else than zero, which the other checks
+     * rely on to mean anything.
+     */
+    @Test
+    void trainingChangesValues() {
+        assertNotEquals(0, Arrays.stream(randomBoards()).filter(board -> trained.evaluate(board) != 0).count());
+    }
+
+    /**
+     * Checks that a saved network loads back with the same tuples, and the same value of every board.
+     * @param directory A temporary directory for the checkpoint.
+     * @throws IOException if the checkpoint cannot be written or read.
+     */
+    @Test
+    void savedNetworkLoadsBack(@TempDir Path directory) throws IOException {
+        Path checkpoint = directory.resolve("network.bin");
+        trained.save(checkpoint);
+
+        NTupleNetwork loaded = NTupleNetwork.load(checkpoint);
+
+        assertEquals(trained.getTupleCount(), loaded.getTupleCount());
+        for (int t = 0; t < trained.getTupleCount(); ++t) assertArrayEquals(trained.getTuple(t), loaded.getTuple(t));
+
+        for (long board : randomBoards()) assertEquals(trained.evaluate(board), loaded.evaluate(board));
+    }
+
+    /**
+     * Checks that a checkpoint cut short, or with a damaged header, is rejected.
+     * @param directory A temporary directory for the checkpoints.
+     * @throws IOException if the checkpoints cannot be written.
+     */
+    @Test
+    void damagedCheckpointIsRejected(@TempDir Path directory) throws IOException {
+        Path checkpoint = directory.resolve("network.bin");
+        trained.save(checkpoint);
+        byte[] bytes = Files.readAllBytes(checkpoint);
+
+        Path truncated = directory.resolve("truncated.bin");
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - Float.BYTES));
+        assertThrows(IOException.class, () -> NTupleNetwork.load(truncated));
+
+        Path headerOnly = directory.resolve("header.bin");
+        Files.write(headerOnly, Arrays.copyOf(bytes, 2 * Integer.BYTES));
+        assertThrows(IOException.class, () -> NTupleNetwork.load(headerOnly));
+
+        Path wrongMagic = directory.resolve("magic.bin");
+        Files.write(wrongMagic, withInt(bytes, 0, 0));
+        assertThrows(IOException.class, () -> NTupleNetwork.load(wrongMagic));
+
+        Path wrongLength = directory.resolve("length.bin");
+        Files.write(wrongLength, withInt(bytes, 3 * Integer.BYTES, NTupleNetwork.MAX_TUPLE_LENGTH + 1));
+        assertThrows(IOException.class, () -> NTupleNetwork.load(wrongLength));
+
+        Path wrongSlot = directory.resolve("slot.bin");
+        Files.write(wrongSlot, withInt(bytes, 4 * Integer.BYTES, BitBoard.SLOTS));
+        assertThrows(IOException.class, () -> NTupleNetwork.load(wrongSlot));
+    }
+
+    /**
+     * Copies the bytes of a checkpoint, overwriting a single number of its header.
+     * @param bytes The bytes of the checkpoint.
+     * @param offset The offset of the number.
+     * @param value The new value of the number.
+     * @return The changed copy.
+     */
+    private static byte[] withInt(byte[] bytes, int offset, int value) {
+        byte[] copy = bytes.clone();
+        ByteBuffer.wrap(copy).order(ByteOrder.LITTLE_ENDIAN).putInt(offset, value);
+        return copy;
+    }
+
+    /**
+     * Checks that evaluating a batch of boards gives the same values as evaluating them one by one,
+     * and leaves the rest of the values alone.
+     */
+    @Test
+    void batchEvaluationMatchesSingleOne() {
+        long[] boards = randomBoards();
+        int count = BOARDS - 1;
+        double[] values = new double[BOARDS];
+        values[count] = Double.NaN;
+
+        trained.evaluate(boards, values, count);
+
+        for (int i = 0; i < count; ++i) assertEquals(trained.evaluate(boards[i]), values[i], TOLERANCE);
+        assertEquals(Double.NaN, values[count]);
+    }
+
+    /**
+     * Checks that all the rotations and reflections of a board have the same value.
+     */
+    @Test
+    void symmetriesHaveSameValue() {
+        for (long board : randomBoards()) {
+            double value = trained.evaluate(board);
+            long mirrored = BitBoard.mirror(board);
+            long flipped = BitBoard.flip(board);
+
+            for (long symmetry : new long[] {mirrored, flipped, BitBoard.mirror(flipped)}) {
+                assertEquals(value, trained.evaluate(symmetry), TOLERANCE);
+                assertEquals(value, trained.evaluate(BitBoard.transpose(symmetry)), TOLERANCE);
+            }
+            assertEquals(value, trained.evaluate(BitBoard.transpose(board)), TOLERANCE);
+        }
+    }
+
+    /**
+     * Checks that an update moves the value of a board, none of whose symmetries share a weight,
+     * by the requested amount, both in a new network and in a trained one.
+     * @throws InterruptedException if the training is interrupted.
+     */
+    @Test
+    void updateMovesValueByDelta() throws InterruptedException {
+        long board = distinctBoard();
+
+        NTupleNetwork network = NTupleNetwork.fourTuples();
+        network.update(board, 4);
+        assertEquals(4, network.evaluate(board), TOLERANCE);
+
+        network.update(board, -1.5);
+        assertEquals(2.5, network.evaluate(board), TOLERANCE);
+
+        NTupleNetwork updated = trainedNetwork();
+        double before = updated.evaluate(board);
+        updated.update(board, 4);
+        assertEquals(before + 4, updated.evaluate(board), TRAINED_UPDATE_TOLERANCE);
+        assertEquals(before + 4, updated.evaluate(BitBoard.transpose(board)), TRAINED_UPDATE_TOLERANCE);
+    }
+}
@@ -0,0 +1,88 @@
+package pl.kaitou_dev.clone2048.engine.simulation;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import pl.kaitou_dev.clone2048.engine.BitBoard;
+import pl.kaitou_dev.clone2048.engine.GameLogic;
+import pl.kaitou_dev.clone2048.engine.GameRules;
+import pl.kaitou_dev.clone2048.engine.strategy.MoveStrategy;
+import pl.kaitou_dev.clone2048.engine.strategy.RandomStrategy;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that a {@link Simulator} plays the same games whatever the pool, and therefore the shards and the batches
+ * the games are split into, by comparing its reports with those of the same games played one by one.
+ */
+class SimulatorTest {
+    /**
+     * The seed of the simulations.
+     */
+    private static final long SEED = 42;
+
+    /**
+     * Plays games one by one on the calling thread, each to its end, with the same sources of randomness
+     * as the {@link Simulator}.
+     * @param games The number of games.
+     * @param stopAtVictory Whether a game ends as soon as the winning value appears.
+     * @return The statistics of the games.
+     */
+    private static SimulationReport playSequentially(long games, boolean stopAtVictory) {
+        SimulationReport report = new SimulationReport();
+        MoveStrategy strategy = new RandomStrategy();
+
+        for (long game = 0; game < games; ++game) {
+            SplittableRandom random = new SplittableRandom(Simulator.gameSeed(SEED, game));
+            GameLogic logic = new GameLogic(GameRules.DEFAULT, random);
+            logic.spawn();
+
+            while (logic.getLegalMoves() != 0 && !(stopAtVictory && logic.isWon())) {
+                logic.move(strategy.chooseMove(logic.getPackedBoard(), random), null);
+                logic.spawn();
+            }
+
+            report.recordGame(logic.getPackedBoard(), logic.getScore(), logic.getMoveCount(), logic.isWon());
+        }
+
+        return report;
+    }
+
+    /**
+     * Simulates games of random play on pools of different sizes, which split them into shards of different sizes,
+     * and batches cut at different games, and compares the reports with those of the games played one by one.
+     * @param parallelism The number of threads of the pool.
+     * @param games The number of games, not a multiple of the batch size, so that the last batch is cut short.
+     * @param stopAtVictory Whether a game ends as soon as the winning value appears.
+     */
+    @ParameterizedTest
+    @CsvSource({
+        "1, 1500, true",
+        "2, 1500, false",
+        "3, 2500, true",
+        "8, 2500, false",
+        "8, 7, true",
+    })
+    void shardedReportMatchesSequentialPlay(int parallelism, long games, boolean stopAtVictory) {
+        SimulationReport expected = playSequentially(games, stopAtVictory);
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        SimulationReport actual;
+        try {
+            actual = new Simulator(GameRules.DEFAULT, RandomStrategy::new, stopAtVictory, pool).run(games, SEED);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(expected.getGames(), actual.getGames());
+        assertEquals(expected.getMoves(), actual.getMoves());
+        assertEquals(expected.getWins(), actual.getWins());
+        assertEquals(expected.getScores().getMean(), actual.getScores().getMean(), 1e-9);
+        assertEquals(expected.getScores().getMax(), actual.getScores().getMax());
+
+        for (int exponent = 1; exponent <= BitBoard.MAX_EXPONENT; ++exponent)
+            assertEquals(expected.getMaxTileCount(exponent), actual.getMaxTileCount(exponent));
+    }
+}
@@ -0,0 +1,74 @@
+package pl.kaitou_dev.clone2048.engine.simulation;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import pl.kaitou_dev.clone2048.engine.BitBoard;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks the confidence intervals of a {@link TournamentReport}: the Wilson score intervals of the win rates,
+ * and the paired differences of the scores, in both orders of a pair.
+ */
+class TournamentReportTest {
+    /**
+     * The precision the intervals are compared with.
+     */
+    private static final double TOLERANCE = 1e-4;
+
+    /**
+     * Checks the Wilson score interval against values worked out by hand, including both ends of the win rate.
+     * @param wins The number of won games.
+     * @param games The number of games.
+     * @param lower The expected lower bound.
+     * @param upper The expected upper bound.
+     */
+    @ParameterizedTest
+    @CsvSource({
+        "50, 100, 0.403832, 0.596168",
+        "0, 10, 0, 0.277533",
+        "10, 10, 0.722467, 1",
+        "1, 20, 0.008881, 0.236131",
+        "0, 0, 0, 1",
+    })
+    void winRateIntervalIsWilsonScoreInterval(int wins, int games, double lower, double upper) {
+        TournamentReport report = new TournamentReport("only");
+        for (int i = 0; i < games; ++i) report.getReport(0).recordGame(BitBoard.EMPTY, 0, 0, i < wins);
+
+        double[] interval = report.getWinRateInterval(0);
+
+        assertEquals(lower, interval[0], TOLERANCE);
+        assertEquals(upper, interval[1], TOLERANCE);
+    }
+
+    /**
+     * Checks the mean and the standard error of the differences of the scores, and that reading them in the reverse
+     * order negates the mean only, without touching the differences of the report.
+     */
+    @Test
+    void scoreDifferenceIsPairedAndReversible() {
+        TournamentReport report = new TournamentReport("first", "second");
+        int[][] scores = {{3, 5, 4}, {1, 2, 4}};
+        boolean[][] wins = {{true, true, false}, {false, true, false}};
+        for (int game = 0; game < scores[0].length; ++game) report.recordPairs(scores, wins, game);
+
+        // The differences are 2, 3 and 0: their sample variance is 7/3, and the standard error its third, rooted.
+        double mean = 5.0 / 3;
+        double standardError = Math.sqrt(7.0 / 9);
+
+        PairedDifference forward = report.getScoreDifference(0, 1);
+        assertEquals(3, forward.getCount());
+        assertEquals(mean, forward.getMean(), 1e-12);
+        assertEquals(standardError, forward.getStandardError(), 1e-12);
+
+        PairedDifference reversed = report.getScoreDifference(1, 0);
+        assertEquals(3, reversed.getCount());
+        assertEquals(-mean, reversed.getMean(), 1e-12);
+        assertEquals(standardError, reversed.getStandardError(), 1e-12);
+
+        assertEquals(mean, report.getScoreDifference(0, 1).getMean(), 1e-12);
+        assertEquals(1.0 / 3, report.getWinDifference(0, 1).getMean(), 1e-12);
+        assertEquals(-1.0 / 3, report.getWinDifference(1, 0).getMean(), 1e-12);
+    }
+}
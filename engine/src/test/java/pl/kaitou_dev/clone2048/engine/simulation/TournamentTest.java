@@ -0,0 +1,181 @@
+package pl.kaitou_dev.clone2048.engine.simulation;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.kaitou_dev.clone2048.engine.BitBoard;
+import pl.kaitou_dev.clone2048.engine.Directions;
+import pl.kaitou_dev.clone2048.engine.GameRules;
+import pl.kaitou_dev.clone2048.engine.strategy.MoveStrategy;
+import pl.kaitou_dev.clone2048.engine.strategy.RandomStrategy;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that a {@link Tournament} stopped at a checkpoint and resumed later ends up with the same report
+ * as one played in a single run, and that a checkpoint which does not fit the tournament is rejected.
+ */
+class TournamentTest {
+    /**
+     * The number of games played by every strategy between two checkpoints.
+     */
+    private static final long CHECKPOINT_INTERVAL = 40;
+
+    /**
+     * The number of games played by every strategy in a whole tournament.
+     */
+    private static final long GAMES = 3 * CHECKPOINT_INTERVAL;
+
+    /**
+     * The seed of the tournaments.
+     */
+    private static final long SEED = 42;
+
+    /**
+     * The directions of the scripted strategy, in the order of preference.
+     */
+    private static final Directions[] SCRIPT = {Directions.DOWN, Directions.LEFT, Directions.RIGHT, Directions.UP};
+
+    /**
+     * The configuration the scripted strategy is recorded with in the checkpoints.
+     */
+    private static final String SCRIPT_CONFIGURATION = "down, left, right, up";
+
+    /**
+     * A pool with more than one thread, so that the games are really split into shards,
+     * even on machines with a single core.
+     */
+    private static ForkJoinPool pool;
+
+    /**
+     * Creates the {@link #pool}.
+     */
+    @BeforeAll
+    static void createPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    /**
+     * Shuts the {@link #pool} down.
+     */
+    @AfterAll
+    static void shutDownPool() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Plays the first legal direction of the {@link #SCRIPT}, which makes a deterministic strategy
+     * without any randomness of its own.
+     * @param board The board, packed as described by {@link BitBoard}.
+     * @param random Unused.
+     * @return The chosen direction.
+     */
+    private static Directions scriptedMove(long board, RandomGenerator random) {
+        int legalMoves = BitBoard.legalMoves(board);
+        for (Directions direction : SCRIPT) {
+            if ((legalMoves & 1 << direction.ordinal()) != 0) return direction;
+        }
+
+        return null;
+    }
+
+    /**
+     * Creates a tournament of a random and a scripted strategy, both of which are deterministic.
+     * @return The tournament, played on the {@link #pool}.
+     */
+    private static Tournament tournament() {
+        return tournament(SCRIPT_CONFIGURATION);
+    }
+
+    /**
+     * Creates a tournament of a random and a scripted strategy, both of which are deterministic.
+     * @param scriptConfiguration The configuration the scripted strategy is recorded with.
+     * @return The tournament, played on the {@link #pool}.
+     */
+    private static Tournament tournament(String scriptConfiguration) {
+        List<Supplier<? extends MoveStrategy>> factories = List.of(
+            RandomStrategy::new, () -> TournamentTest::scriptedMove
+        );
+
+        return new Tournament(
+            GameRules.DEFAULT, List.of("random", "scripted"), List.of("random", scriptConfiguration), factories,
+            false, CHECKPOINT_INTERVAL, pool
+        );
+    }
+
+    /**
+     * Checks that two reports hold the same statistics. The elapsed times are not compared.
+     * @param expected The expected report.
+     * @param actual The actual report.
+     */
+    private static void assertSameStatistics(TournamentReport expected, TournamentReport actual) {
+        assertEquals(expected.getGames(), actual.getGames());
+
+        for (int s = 0; s < expected.getNames().length; ++s) {
+            SimulationReport expectedReport = expected.getReport(s);
+            SimulationReport actualReport = actual.getReport(s);
+
+            assertEquals(expectedReport.getMoves(), actualReport.getMoves());
+            assertEquals(expectedReport.getWins(), actualReport.getWins());
+            assertEquals(expectedReport.getScores().getMean(), actualReport.getScores().getMean(), 1e-9);
+            assertEquals(expectedReport.getScores().getMax(), actualReport.getScores().getMax());
+
+            for (int exponent = 1; exponent <= BitBoard.MAX_EXPONENT; ++exponent)
+                assertEquals(expectedReport.getMaxTileCount(exponent), actualReport.getMaxTileCount(exponent));
+        }
+
+        PairedDifference expectedDifference = expected.getScoreDifference(0, 1);
+        PairedDifference actualDifference = actual.getScoreDifference(0, 1);
+
+        assertEquals(expectedDifference.getCount(), actualDifference.getCount());
+        assertEquals(expectedDifference.getMean(), actualDifference.getMean(), 1e-9);
+        assertEquals(expectedDifference.getStandardError(), actualDifference.getStandardError(), 1e-9);
+    }
+
+    /**
+     * Plays a tournament in two runs, the second one resumed from the checkpoint of the first one,
+     * and compares it with the same tournament played in a single run without checkpoints.
+     * @param directory A temporary directory for the checkpoint.
+     * @throws IOException if the checkpoint cannot be read or written.
+     */
+    @Test
+    void resumedTournamentMatchesUninterruptedOne(@TempDir Path directory) throws IOException {
+        Path checkpoint = directory.resolve("tournament.checkpoint");
+
+        TournamentReport uninterrupted = tournament().run(GAMES, SEED, null, null);
+
+        TournamentReport stopped = tournament().run(2 * CHECKPOINT_INTERVAL, SEED, checkpoint, null);
+        assertEquals(2 * CHECKPOINT_INTERVAL, stopped.getGames());
+
+        TournamentReport resumed = tournament().run(GAMES, SEED, checkpoint, null);
+        assertSameStatistics(uninterrupted, resumed);
+
+        TournamentReport replayed = tournament().run(GAMES, SEED, checkpoint, null);
+        assertSameStatistics(uninterrupted, replayed);
+    }
+
+    /**
+     * Checks that a checkpoint of another seed, of more games than requested, or of a strategy configured
+     * differently, is rejected.
+     * @param directory A temporary directory for the checkpoint.
+     * @throws IOException if the checkpoint cannot be read or written.
+     */
+    @Test
+    void mismatchedCheckpointIsRejected(@TempDir Path directory) throws IOException {
+        Path checkpoint = directory.resolve("tournament.checkpoint");
+        tournament().run(2 * CHECKPOINT_INTERVAL, SEED, checkpoint, null);
+
+        assertThrows(IOException.class, () -> tournament().run(GAMES, SEED + 1, checkpoint, null));
+        assertThrows(IOException.class, () -> tournament().run(CHECKPOINT_INTERVAL, SEED, checkpoint, null));
+        assertThrows(IOException.class, () -> tournament("up, down").run(GAMES, SEED, checkpoint, null));
+    }
+}
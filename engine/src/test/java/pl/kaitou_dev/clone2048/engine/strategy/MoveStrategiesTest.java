@@ -0,0 +1,56 @@
+package pl.kaitou_dev.clone2048.engine.strategy;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that {@link MoveStrategies} discovers the built-in strategies through {@link java.util.ServiceLoader},
+ * and that their providers pass their options on.
+ */
+class MoveStrategiesTest {
+    /**
+     * Checks that a built-in strategy is discovered, and found by its name.
+     * @param name The name of the strategy.
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"random", "mcts", "expectimax", "ntuple"})
+    void builtInStrategyIsDiscovered(String name) {
+        assertTrue(MoveStrategies.getNames().contains(name), () -> "Not discovered: " + name);
+        assertEquals(name, MoveStrategies.getProvider(name).getName());
+    }
+
+    /**
+     * Checks that an unknown name is rejected.
+     */
+    @Test
+    void unknownStrategyIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> MoveStrategies.getProvider("unknown"));
+        assertThrows(IllegalArgumentException.class, () -> MoveStrategies.factory("unknown"));
+    }
+
+    /**
+     * Checks that the options of a strategy reach both the strategies created and the description, which tells
+     * the configurations apart, and that an invalid option is rejected.
+     */
+    @Test
+    void optionsReachStrategiesAndDescriptions() {
+        Map<String, String> options = Map.of(MonteCarloStrategy.Provider.ROLLOUTS_OPTION, "100");
+        MoveStrategyProvider provider = MoveStrategies.getProvider("mcts");
+
+        assertInstanceOf(MonteCarloStrategy.class, MoveStrategies.factory("mcts", options).get());
+        assertTrue(provider.getDescription(options).contains("100 rollouts"), provider.getDescription(options));
+        assertNotEquals(provider.getDescription(), provider.getDescription(options));
+
+        Map<String, String> invalid = Map.of(MonteCarloStrategy.Provider.ROLLOUTS_OPTION, "0");
+        assertThrows(IllegalArgumentException.class, () -> provider.create(invalid));
+    }
+}
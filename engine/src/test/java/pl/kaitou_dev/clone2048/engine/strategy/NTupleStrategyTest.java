@@ -0,0 +1,96 @@
+package pl.kaitou_dev.clone2048.engine.strategy;
+
+import org.junit.jupiter.api.Test;
+import pl.kaitou_dev.clone2048.engine.BitBoard;
+import pl.kaitou_dev.clone2048.engine.Directions;
+import pl.kaitou_dev.clone2048.engine.GameRules;
+import pl.kaitou_dev.clone2048.engine.ntuple.NTupleNetwork;
+import pl.kaitou_dev.clone2048.engine.ntuple.TDTrainer;
+
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Checks that an {@link NTupleStrategy} chooses the same moves for a batch of boards
+ * as for each of the boards on its own.
+ */
+class NTupleStrategyTest {
+    /**
+     * The number of training games of the network, so that its weights are not all zero.
+     */
+    private static final long TRAINING_GAMES = 200;
+
+    /**
+     * The number of boards of the batch.
+     */
+    private static final int BOARDS = 512;
+
+    /**
+     * The highest exponent of the boxes of the random boards.
+     */
+    private static final int MAX_BOARD_EXPONENT = 10;
+
+    /**
+     * The difference of the values of two moves below which they are taken for a tie, which the batch evaluation
+     * may break the other way, as it sums up the same weights in another order.
+     */
+    private static final double TIE_TOLERANCE = 1e-6;
+
+    /**
+     * Computes the value of a move the way the strategy does: its score plus the value of its afterstate.
+     * @param network The network of the strategy.
+     * @param board The board.
+     * @param direction The direction of the move.
+     * @return The value of the move.
+     */
+    private static double valueOf(NTupleNetwork network, long board, Directions direction) {
+        return BitBoard.score(board, direction) + network.evaluate(BitBoard.move(board, direction));
+    }
+
+    /**
+     * Chooses the moves of a batch of random boards, each with at least one legal move, with a trained network,
+     * and compares them with the moves chosen one by one.
+     * @throws InterruptedException if the training is interrupted.
+     */
+    @Test
+    void batchMovesMatchSingleMoves() throws InterruptedException {
+        NTupleNetwork network = NTupleNetwork.fourTuples();
+        new TDTrainer(network, GameRules.DEFAULT, TDTrainer.DEFAULT_LEARNING_RATE, TDTrainer.DEFAULT_LAMBDA, 1)
+            .train(TRAINING_GAMES, 42);
+
+        SplittableRandom random = new SplittableRandom(7);
+        long[] boards = new long[BOARDS];
+        RandomGenerator[] randoms = new RandomGenerator[BOARDS];
+
+        for (int i = 0; i < BOARDS; ++i) {
+            long board;
+            do {
+                board = BitBoard.EMPTY;
+                for (int slot = 0; slot < BitBoard.SLOTS; ++slot)
+                    board = BitBoard.withExponent(board, slot, random.nextInt(MAX_BOARD_EXPONENT + 1));
+            } while (BitBoard.legalMoves(board) == 0);
+
+            boards[i] = board;
+            randoms[i] = random.split();
+        }
+
+        NTupleStrategy strategy = new NTupleStrategy(network);
+        Directions[] moves = new Directions[BOARDS];
+        strategy.chooseMoves(boards, randoms, moves, BOARDS);
+
+        for (int i = 0; i < BOARDS; ++i) {
+            Directions single = strategy.chooseMove(boards[i], randoms[i]);
+            assertNotNull(moves[i]);
+
+            if (moves[i] != single) {
+                assertEquals(
+                    valueOf(network, boards[i], single), valueOf(network, boards[i], moves[i]), TIE_TOLERANCE,
+                    "The batch chose " + moves[i] + " instead of " + single + " without a tie"
+                );
+            }
+        }
+    }
+}